@@ -0,0 +1,89 @@
+import database.SubgoalDB;
+import database.SubgoalDBRecord;
+import map.AbstractedMap;
+import map.GameMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import search.MapSearchProblem;
+import search.SearchState;
+import search.algorithms.DBAStar;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class is for comparing the time it takes to build SubgoalDB when all base paths are computed up front and when
+ * they are only computed once a record uses them (see the lazy parameter of SubgoalDB), and the time it then takes to
+ * get records between random regions, on every map in src/main/resources/maps. Both databases must find a record for
+ * the same pairs of regions, and the records may only differ where there are several lowest cost sequences of regions.
+ */
+public class BenchmarkLazyPaths {
+
+    private static final Logger logger = LogManager.getLogger(BenchmarkLazyPaths.class);
+
+    private static final String PATH_TO_MAPS = "src/main/resources/maps";
+    private static final int[] GRID_SIZES = {8, 16};
+    private static final int NUM_RECORDS = 1000;
+
+    public static void main(String[] args) {
+        File[] mapFiles = new File(PATH_TO_MAPS).listFiles((dir, name) -> name.endsWith(".map"));
+        if (mapFiles == null) {
+            throw new RuntimeException("Could not find maps at " + PATH_TO_MAPS);
+        }
+        Arrays.sort(mapFiles);
+
+        for (int gridSize : GRID_SIZES) {
+            for (File mapFile : mapFiles) {
+                GameMap gameMap = new GameMap(mapFile.getPath());
+                DBAStar eager = new DBAStar(gameMap, gridSize, true);
+                DBAStar lazy = new DBAStar(gameMap, gridSize, true, new DBAStar.Options().setLazy(true));
+                SubgoalDB eagerDB = eager.getSubgoalDB();
+                SubgoalDB lazyDB = lazy.getSubgoalDB();
+                // Every record is combined from base paths, rather than taken from the cache
+                eagerDB.getRecordCache().setCapacity(0);
+                lazyDB.getRecordCache().setCapacity(0);
+
+                int numPaths = lazyDB.getNumUncomputedPaths();
+                int[][] pairs = getRandomRegionPairs(gameMap, eager.getAbstractedMap(), NUM_RECORDS);
+
+                long eagerTime = 0, lazyTime = 0;
+                int numDifferentRecords = 0;
+                for (int[] pair : pairs) {
+                    long start = System.nanoTime();
+                    SubgoalDBRecord eagerRecord = eagerDB.getRecord(pair[0], pair[1], false, null, null);
+                    long middle = System.nanoTime();
+                    SubgoalDBRecord lazyRecord = lazyDB.getRecord(pair[0], pair[1], false, null, null);
+                    long end = System.nanoTime();
+                    eagerTime += middle - start;
+                    lazyTime += end - middle;
+
+                    if ((eagerRecord == null) != (lazyRecord == null)) {
+                        throw new RuntimeException("Only one database found a record on " + gameMap.getName() + " between regions " + pair[0] + " and " + pair[1]);
+                    }
+                    if (eagerRecord != null && !Arrays.equals(eagerRecord.getSubgoals(), lazyRecord.getSubgoals())) {
+                        numDifferentRecords++;
+                    }
+                }
+
+                int numComputedPaths = numPaths - lazyDB.getNumUncomputedPaths();
+                logger.info(gameMap.getName() + " grid size " + gridSize + ": built in " + eager.getSearchStats().getTimeToGenerateDatabase() / 1_000_000 + "ms eager, " + lazy.getSearchStats().getTimeToGenerateDatabase() / 1_000_000 + "ms lazy, " + NUM_RECORDS + " records in " + eagerTime / 1_000_000 + "ms eager, " + lazyTime / 1_000_000 + "ms lazy, which computed " + numComputedPaths + " of " + numPaths + " base paths, " + numDifferentRecords + " records differ");
+            }
+        }
+    }
+
+    private static int[][] getRandomRegionPairs(GameMap gameMap, AbstractedMap abstractedMap, int numPairs) {
+        List<SearchState> openStates = MapSearchProblem.getOpenStateList(gameMap);
+        Random random = new Random(1);
+
+        int[][] pairs = new int[numPairs][2];
+        for (int i = 0; i < numPairs; i++) {
+            do {
+                pairs[i][0] = abstractedMap.getRegionIdFromMap(openStates.get(random.nextInt(openStates.size())).getStateId());
+                pairs[i][1] = abstractedMap.getRegionIdFromMap(openStates.get(random.nextInt(openStates.size())).getStateId());
+            } while (pairs[i][0] == pairs[i][1]);
+        }
+        return pairs;
+    }
+}
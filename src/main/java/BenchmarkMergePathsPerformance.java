@@ -0,0 +1,116 @@
+import database.SubgoalDB;
+import database.SubgoalDBRecord;
+import map.AbstractedMap;
+import map.GameMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import search.MapSearchProblem;
+import search.SearchState;
+import search.algorithms.DBAStar;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class is for comparing the time it takes SubgoalDB to combine base paths into records with Dijkstra's algorithm
+ * and with A* (see SubgoalDB.setAbstractSearchMode), on every map in src/main/resources/maps abstracted with grid size 8.
+ * None of those maps has 10 000 regions, so a maze map is also tiled into larger maps to see how both searches scale
+ * with the number of regions. Both searches run on the same random pairs of regions, and must agree on which pairs have a
+ * record.
+ */
+public class BenchmarkMergePathsPerformance {
+
+    private static final Logger logger = LogManager.getLogger(BenchmarkMergePathsPerformance.class);
+
+    private static final String PATH_TO_MAPS = "src/main/resources/maps";
+    private static final int GRID_SIZE = 8;
+    private static final int NUM_RECORDS = 1000;
+    private static final int NUM_WARMUP_RECORDS = 100;
+    private static final String TILED_MAP = "maze_000.map";
+    private static final int[] NUM_TILES = {2, 3};
+
+    public static void main(String[] args) {
+        File[] mapFiles = new File(PATH_TO_MAPS).listFiles((dir, name) -> name.endsWith(".map"));
+        if (mapFiles == null) {
+            throw new RuntimeException("Could not find maps at " + PATH_TO_MAPS);
+        }
+        Arrays.sort(mapFiles);
+
+        List<GameMap> gameMaps = new ArrayList<>();
+        for (File mapFile : mapFiles) {
+            gameMaps.add(new GameMap(mapFile.getPath()));
+        }
+        for (int numTiles : NUM_TILES) {
+            gameMaps.add(getTiledMap(new GameMap(PATH_TO_MAPS + "/" + TILED_MAP), numTiles));
+        }
+
+        for (GameMap gameMap : gameMaps) {
+            DBAStar dbaStar = new DBAStar(gameMap, GRID_SIZE, true);
+            SubgoalDB subgoalDB = dbaStar.getSubgoalDB();
+
+            int[][] pairs = getRandomRegionPairs(gameMap, dbaStar.getAbstractedMap(), NUM_WARMUP_RECORDS + NUM_RECORDS);
+
+            // Warm up both searches so the JIT does not skew the first map
+            for (int i = 0; i < NUM_WARMUP_RECORDS; i++) {
+                subgoalDB.setAbstractSearchMode(SubgoalDB.DIJKSTRA);
+                subgoalDB.getRecord(pairs[i][0], pairs[i][1], false, null, null);
+                subgoalDB.setAbstractSearchMode(SubgoalDB.A_STAR);
+                subgoalDB.getRecord(pairs[i][0], pairs[i][1], false, null, null);
+            }
+
+            long dijkstraTime = 0, aStarTime = 0;
+
+            for (int i = NUM_WARMUP_RECORDS; i < pairs.length; i++) {
+                subgoalDB.setAbstractSearchMode(SubgoalDB.DIJKSTRA);
+                long start = System.nanoTime();
+                SubgoalDBRecord dijkstraRecord = subgoalDB.getRecord(pairs[i][0], pairs[i][1], false, null, null);
+                long end = System.nanoTime();
+                dijkstraTime += end - start;
+
+                subgoalDB.setAbstractSearchMode(SubgoalDB.A_STAR);
+                start = System.nanoTime();
+                SubgoalDBRecord aStarRecord = subgoalDB.getRecord(pairs[i][0], pairs[i][1], false, null, null);
+                end = System.nanoTime();
+                aStarTime += end - start;
+
+                if ((dijkstraRecord == null) != (aStarRecord == null)) {
+                    throw new RuntimeException("Only one search found a record on " + gameMap.getName() + " between regions " + pairs[i][0] + " and " + pairs[i][1]);
+                }
+            }
+
+            logger.info(gameMap.getName() + " " + gameMap.getNumRows() + "x" + gameMap.getNumCols() + " (" + subgoalDB.getNumGroups() + " regions): Dijkstra " + dijkstraTime / 1_000_000 + "ms, A* " + aStarTime / 1_000_000 + "ms for " + NUM_RECORDS + " records");
+        }
+    }
+
+    private static int[][] getRandomRegionPairs(GameMap gameMap, AbstractedMap abstractedMap, int numPairs) {
+        List<SearchState> openStates = MapSearchProblem.getOpenStateList(gameMap);
+        Random random = new Random(1);
+
+        int[][] pairs = new int[numPairs][2];
+        for (int i = 0; i < numPairs; i++) {
+            do {
+                pairs[i][0] = abstractedMap.getRegionIdFromMap(openStates.get(random.nextInt(openStates.size())).getStateId());
+                pairs[i][1] = abstractedMap.getRegionIdFromMap(openStates.get(random.nextInt(openStates.size())).getStateId());
+            } while (pairs[i][0] == pairs[i][1]);
+        }
+        return pairs;
+    }
+
+    /**
+     * @return map made of numTiles by numTiles copies of the given map. The last row and column of the maze maps are
+     * walls, so they are left out of every copy to connect the copies.
+     */
+    private static GameMap getTiledMap(GameMap gameMap, int numTiles) {
+        int numRows = gameMap.getNumRows() - 1, numCols = gameMap.getNumCols() - 1;
+        int[][] states = new int[numRows * numTiles][numCols * numTiles];
+        for (int r = 0; r < states.length; r++) {
+            for (int c = 0; c < states[r].length; c++) {
+                states[r][c] = gameMap.getStateValue(r % numRows, c % numCols);
+            }
+        }
+        return new GameMap(states);
+    }
+}
@@ -0,0 +1,98 @@
+import map.GameMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import search.BucketOpenList;
+import search.HeapOpenList;
+import search.MapSearchProblem;
+import search.SearchState;
+import search.SearchUtil;
+import search.algorithms.AStar;
+import stats.SearchStats;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class is for comparing the time it takes to run AStar with the heap-based open list (HeapOpenList) and with the
+ * bucket-based open list (BucketOpenList) on every map in src/main/resources/maps. Both versions run on the same random
+ * start and goal pairs, and the path costs they find are checked to be equal.
+ */
+public class BenchmarkOpenListPerformance {
+
+    private static final Logger logger = LogManager.getLogger(BenchmarkOpenListPerformance.class);
+
+    private static final String PATH_TO_MAPS = "src/main/resources/maps";
+    private static final int NUM_PATHS = 1000;
+    private static final int NUM_WARMUP_PATHS = 100;
+
+    public static void main(String[] args) {
+        File[] mapFiles = new File(PATH_TO_MAPS).listFiles((dir, name) -> name.endsWith(".map"));
+        if (mapFiles == null) {
+            throw new RuntimeException("Could not find maps at " + PATH_TO_MAPS);
+        }
+        Arrays.sort(mapFiles);
+
+        long totalHeapTime = 0, totalBucketTime = 0;
+
+        for (File mapFile : mapFiles) {
+            GameMap gameMap = new GameMap(mapFile.getPath());
+            MapSearchProblem mapSearchProblem = new MapSearchProblem(gameMap);
+
+            AStar heapAStar = new AStar(mapSearchProblem, new HeapOpenList());
+            AStar bucketAStar = new AStar(mapSearchProblem, new BucketOpenList());
+
+            int[][] pairs = getRandomPairs(gameMap, NUM_WARMUP_PATHS + NUM_PATHS);
+
+            // Warm up both versions so the JIT does not skew the first map
+            for (int i = 0; i < NUM_WARMUP_PATHS; i++) {
+                heapAStar.findPath(new SearchState(pairs[i][0]), new SearchState(pairs[i][1]), null);
+                bucketAStar.findPath(new SearchState(pairs[i][0]), new SearchState(pairs[i][1]), null);
+            }
+
+            SearchStats heapStats = new SearchStats();
+            SearchStats bucketStats = new SearchStats();
+            long heapTime = 0, bucketTime = 0;
+
+            for (int i = NUM_WARMUP_PATHS; i < pairs.length; i++) {
+                long start = System.nanoTime();
+                List<SearchState> heapPath = heapAStar.findPath(new SearchState(pairs[i][0]), new SearchState(pairs[i][1]), heapStats);
+                long end = System.nanoTime();
+                heapTime += end - start;
+
+                start = System.nanoTime();
+                List<SearchState> bucketPath = bucketAStar.findPath(new SearchState(pairs[i][0]), new SearchState(pairs[i][1]), bucketStats);
+                end = System.nanoTime();
+                bucketTime += end - start;
+
+                if (getPathCost(heapPath, mapSearchProblem) != getPathCost(bucketPath, mapSearchProblem)) {
+                    throw new RuntimeException("Path costs differ on " + gameMap.getName() + " between " + pairs[i][0] + " and " + pairs[i][1]);
+                }
+            }
+
+            totalHeapTime += heapTime;
+            totalBucketTime += bucketTime;
+
+            logger.info(gameMap.getName() + ": heap " + heapTime / 1_000_000 + "ms (" + heapStats.getNumStatesExpanded() + " states expanded), bucket " + bucketTime / 1_000_000 + "ms (" + bucketStats.getNumStatesExpanded() + " states expanded)");
+        }
+
+        logger.info("Total time for " + NUM_PATHS + " paths on each map: heap " + totalHeapTime / 1_000_000 + "ms, bucket " + totalBucketTime / 1_000_000 + "ms");
+    }
+
+    private static int[][] getRandomPairs(GameMap gameMap, int numPairs) {
+        List<SearchState> openStates = MapSearchProblem.getOpenStateList(gameMap);
+        Random random = new Random(42);
+
+        int[][] pairs = new int[numPairs][2];
+        for (int i = 0; i < numPairs; i++) {
+            pairs[i][0] = openStates.get(random.nextInt(openStates.size())).getStateId();
+            pairs[i][1] = openStates.get(random.nextInt(openStates.size())).getStateId();
+        }
+        return pairs;
+    }
+
+    private static int getPathCost(List<SearchState> path, MapSearchProblem mapSearchProblem) {
+        return path == null ? -1 : SearchUtil.findPathCost(path, mapSearchProblem);
+    }
+}
@@ -0,0 +1,96 @@
+import database.SubgoalDB;
+import database.SubgoalDBRecord;
+import map.AbstractedMap;
+import map.GameMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import search.MapSearchProblem;
+import search.SearchState;
+import search.algorithms.DBAStar;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class is for comparing the memory taken by the base paths of SubgoalDB, and the time it takes to combine them
+ * into records, when they are stored as state ids and when they are delta encoded (see SubgoalDB.setPathEncoding), on
+ * every map in src/main/resources/maps abstracted with small grid sizes. Both encodings must produce the same records.
+ */
+public class BenchmarkPathEncoding {
+
+    private static final Logger logger = LogManager.getLogger(BenchmarkPathEncoding.class);
+
+    private static final String PATH_TO_MAPS = "src/main/resources/maps";
+    private static final int[] GRID_SIZES = {4, 8};
+    private static final int NUM_RECORDS = 1000;
+    private static final int NUM_WARMUP_RECORDS = 100;
+
+    public static void main(String[] args) {
+        File[] mapFiles = new File(PATH_TO_MAPS).listFiles((dir, name) -> name.endsWith(".map"));
+        if (mapFiles == null) {
+            throw new RuntimeException("Could not find maps at " + PATH_TO_MAPS);
+        }
+        Arrays.sort(mapFiles);
+
+        for (int gridSize : GRID_SIZES) {
+            for (File mapFile : mapFiles) {
+                GameMap gameMap = new GameMap(mapFile.getPath());
+                DBAStar dbaStar = new DBAStar(gameMap, gridSize, true);
+                SubgoalDB subgoalDB = dbaStar.getSubgoalDB();
+                // Every record is combined from base paths, rather than taken from the cache
+                subgoalDB.getRecordCache().setCapacity(0);
+
+                int[][] pairs = getRandomRegionPairs(gameMap, dbaStar.getAbstractedMap(), NUM_WARMUP_RECORDS + NUM_RECORDS);
+
+                long rawBytes = subgoalDB.getNumPoolBytes();
+                SubgoalDBRecord[] rawRecords = new SubgoalDBRecord[pairs.length];
+                long rawTime = getRecords(subgoalDB, pairs, rawRecords);
+
+                subgoalDB.setPathEncoding(SubgoalDB.DELTA_ENCODED_PATHS, gameMap.getNumCols());
+                long encodedBytes = subgoalDB.getNumPoolBytes();
+                SubgoalDBRecord[] encodedRecords = new SubgoalDBRecord[pairs.length];
+                long encodedTime = getRecords(subgoalDB, pairs, encodedRecords);
+
+                for (int i = 0; i < pairs.length; i++) {
+                    if ((rawRecords[i] == null) != (encodedRecords[i] == null) || (rawRecords[i] != null && !Arrays.equals(rawRecords[i].getSubgoals(), encodedRecords[i].getSubgoals()))) {
+                        throw new RuntimeException("Encoded base paths produced another record on " + gameMap.getName() + " between regions " + pairs[i][0] + " and " + pairs[i][1]);
+                    }
+                }
+
+                logger.info(gameMap.getName() + " grid size " + gridSize + " (" + subgoalDB.getNumGroups() + " regions): base paths " + rawBytes + " bytes raw, " + encodedBytes + " bytes encoded (" + String.format("%.2f", (double) rawBytes / encodedBytes) + "x), " + rawTime / 1_000_000 + "ms raw, " + encodedTime / 1_000_000 + "ms encoded for " + NUM_RECORDS + " records");
+            }
+        }
+    }
+
+    /**
+     * @return time taken by all but the warm-up records
+     */
+    private static long getRecords(SubgoalDB subgoalDB, int[][] pairs, SubgoalDBRecord[] records) {
+        long time = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            long start = System.nanoTime();
+            records[i] = subgoalDB.getRecord(pairs[i][0], pairs[i][1], false, null, null);
+            long end = System.nanoTime();
+            if (i >= NUM_WARMUP_RECORDS) {
+                time += end - start;
+            }
+        }
+        return time;
+    }
+
+    private static int[][] getRandomRegionPairs(GameMap gameMap, AbstractedMap abstractedMap, int numPairs) {
+        List<SearchState> openStates = MapSearchProblem.getOpenStateList(gameMap);
+        Random random = new Random(1);
+
+        int[][] pairs = new int[numPairs][2];
+        for (int i = 0; i < numPairs; i++) {
+            do {
+                pairs[i][0] = abstractedMap.getRegionIdFromMap(openStates.get(random.nextInt(openStates.size())).getStateId());
+                pairs[i][1] = abstractedMap.getRegionIdFromMap(openStates.get(random.nextInt(openStates.size())).getStateId());
+            } while (pairs[i][0] == pairs[i][1]);
+        }
+        return pairs;
+    }
+}
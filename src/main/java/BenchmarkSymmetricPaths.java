@@ -0,0 +1,65 @@
+import map.GameMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import search.algorithms.DBAStar;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * This class is for comparing the memory taken by the base paths of SubgoalDB, and the time it takes to compute them,
+ * when every edge stores its own base path and when the two edges between neighbouring regions share one (see the
+ * symmetric parameter of SubgoalDB), on every map in src/main/resources/maps. Both databases must have the same
+ * neighbours for every region.
+ */
+public class BenchmarkSymmetricPaths {
+
+    private static final Logger logger = LogManager.getLogger(BenchmarkSymmetricPaths.class);
+
+    private static final String PATH_TO_MAPS = "src/main/resources/maps";
+    private static final int[] GRID_SIZES = {8, 16};
+    private static final int NUM_RUNS = 3;
+
+    public static void main(String[] args) {
+        File[] mapFiles = new File(PATH_TO_MAPS).listFiles((dir, name) -> name.endsWith(".map"));
+        if (mapFiles == null) {
+            throw new RuntimeException("Could not find maps at " + PATH_TO_MAPS);
+        }
+        Arrays.sort(mapFiles);
+
+        for (int gridSize : GRID_SIZES) {
+            long totalExplicitBytes = 0, totalSymmetricBytes = 0, totalExplicitTime = 0, totalSymmetricTime = 0;
+
+            for (File mapFile : mapFiles) {
+                DBAStar explicit = null, symmetric = null;
+                long explicitTime = Long.MAX_VALUE, symmetricTime = Long.MAX_VALUE;
+
+                // Fastest of a few runs, as the first runs also warm up the JIT
+                for (int run = 0; run < NUM_RUNS; run++) {
+                    explicit = new DBAStar(new GameMap(mapFile.getPath()), gridSize, true);
+                    explicitTime = Math.min(explicitTime, explicit.getSearchStats().getTimeToGenerateDatabase());
+
+                    symmetric = new DBAStar(new GameMap(mapFile.getPath()), gridSize, true, new DBAStar.Options().setSymmetric(true));
+                    symmetricTime = Math.min(symmetricTime, symmetric.getSearchStats().getTimeToGenerateDatabase());
+                }
+
+                for (int regionId : explicit.getAbstractedMap().getRegionIdToRegionMap().keySet()) {
+                    if (!Arrays.equals(explicit.getSubgoalDB().getNeighboursForRegion(regionId), symmetric.getSubgoalDB().getNeighboursForRegion(regionId))) {
+                        throw new RuntimeException("Symmetric database has other neighbours on " + mapFile.getName() + " for region " + regionId);
+                    }
+                }
+
+                long explicitBytes = explicit.getSubgoalDB().getNumPoolBytes();
+                long symmetricBytes = symmetric.getSubgoalDB().getNumPoolBytes();
+                totalExplicitBytes += explicitBytes;
+                totalSymmetricBytes += symmetricBytes;
+                totalExplicitTime += explicitTime;
+                totalSymmetricTime += symmetricTime;
+
+                logger.info(mapFile.getName() + " grid size " + gridSize + ": base paths " + explicitBytes + " bytes explicit, " + symmetricBytes + " bytes symmetric (" + String.format("%.2f", (double) explicitBytes / symmetricBytes) + "x), " + explicitTime / 1_000_000 + "ms explicit, " + symmetricTime / 1_000_000 + "ms symmetric");
+            }
+
+            logger.info("All maps grid size " + gridSize + ": base paths " + String.format("%.2f", (double) totalExplicitBytes / totalSymmetricBytes) + "x smaller, computed " + String.format("%.2f", (double) totalExplicitTime / totalSymmetricTime) + "x faster");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+import map.BinaryMapFile;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * This class converts maps in Moving AI text format (.map) to the binary format that GameMap.fromBinaryFile can
+ * memory-map. Takes a .map file or a directory of .map files (default: src/main/resources/maps) and an optional output
+ * directory (default: next to the input). Binary maps use the same name with the extension .bmap.
+ */
+public class ConvertMapsToBinary {
+
+    private static final Logger logger = LogManager.getLogger(ConvertMapsToBinary.class);
+
+    public static void main(String[] args) {
+        File input = new File(args.length > 0 ? args[0] : "src/main/resources/maps");
+
+        File[] mapFiles = input.isDirectory() ? input.listFiles((dir, name) -> name.endsWith(".map")) : new File[]{input};
+        if (mapFiles == null || mapFiles.length == 0) {
+            throw new RuntimeException("No maps found at " + input.getPath());
+        }
+        Arrays.sort(mapFiles);
+
+        for (File mapFile : mapFiles) {
+            File outputDirectory = args.length > 1 ? new File(args[1]) : mapFile.getParentFile();
+            String baseName = mapFile.getName().substring(0, mapFile.getName().length() - ".map".length());
+            File binaryFile = new File(outputDirectory, baseName + BinaryMapFile.FILE_EXTENSION);
+
+            long start = System.nanoTime();
+            BinaryMapFile.convert(mapFile.getPath(), binaryFile.getPath());
+            long end = System.nanoTime();
+
+            logger.info("Converted " + mapFile.getPath() + " to " + binaryFile.getPath() + " in " + (end - start) / 1_000_000 + "ms");
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package database;
+
+import map.GameMap;
+
+import java.util.Arrays;
+
+/**
+ * Reverse index from the states of a map to the edges (directed pairs of region array locations packed into a long)
+ * whose base paths pass through them, used by SubgoalDB to find the base paths a new wall blocks.
+ * <p>
+ * An edge is indexed under every state that hill-climbing between the subgoals of its base path visits, as that is the
+ * path an agent follows. A diagonal move is legal as long as either of the two cardinal states next to it is open, so
+ * the edge is also indexed under both of these states, each entry holding the other state, and a wall on one of them
+ * only blocks the base path if the other one is a wall too. A wall anywhere else only removes moves that hill-climbing
+ * did not take, so it changes neither the path nor its cost.
+ * <p>
+ * The entries of every state form a linked list in flat arrays. Entries are not removed when the base path of an edge
+ * changes, the edge is indexed again under its new states instead, so an edge may be found under states its base path
+ * no longer passes through. Such stale entries only cost a needless search, and the index is rebuilt when they make it
+ * too large (see SubgoalDB.recomputeBasePathsThroughWall).
+ */
+class BasePathIndex {
+    // Marks the end of a list of entries, and entries on the path rather than next to a diagonal move
+    private static final int NONE = -1;
+
+    private final GameMap gameMap;
+    // First entry of every state, or NONE
+    private final int[] firstEntries;
+    private long[] entryEdges = new long[1024];
+    private int[] entryOtherStates = new int[1024];
+    private int[] nextEntries = new int[1024];
+    private int numEntries;
+
+    BasePathIndex(GameMap gameMap) {
+        this.gameMap = gameMap;
+        this.firstEntries = new int[gameMap.getNumRows() * gameMap.getNumCols()];
+        Arrays.fill(firstEntries, NONE);
+    }
+
+    static long packEdge(int groupLoc, int neighbourLoc) {
+        return ((long) groupLoc << 32) | (neighbourLoc & 0xFFFFFFFFL);
+    }
+
+    static int getGroupLoc(long edge) {
+        return (int) (edge >>> 32);
+    }
+
+    static int getNeighbourLoc(long edge) {
+        return (int) edge;
+    }
+
+    /**
+     * Indexes an edge under the states of the path an agent follows along its base path
+     *
+     * @param stateIds  states of the path, in order
+     * @param numStates number of states of the path
+     */
+    void add(long edge, int[] stateIds, int numStates) {
+        for (int i = 0; i < numStates; i++) {
+            addEntry(stateIds[i], edge, NONE);
+
+            if (i == 0) continue;
+
+            int rowOffset = gameMap.getRowFromStateId(stateIds[i]) - gameMap.getRowFromStateId(stateIds[i - 1]);
+            int colOffset = gameMap.getColFromStateId(stateIds[i]) - gameMap.getColFromStateId(stateIds[i - 1]);
+            if (rowOffset != 0 && colOffset != 0) {
+                int verticalId = stateIds[i - 1] + rowOffset * gameMap.getNumCols();
+                int horizontalId = stateIds[i - 1] + colOffset;
+                addEntry(verticalId, edge, horizontalId);
+                addEntry(horizontalId, edge, verticalId);
+            }
+        }
+    }
+
+    private void addEntry(int stateId, long edge, int otherStateId) {
+        if (numEntries == entryEdges.length) {
+            int capacity = entryEdges.length + entryEdges.length / 2;
+            entryEdges = Arrays.copyOf(entryEdges, capacity);
+            entryOtherStates = Arrays.copyOf(entryOtherStates, capacity);
+            nextEntries = Arrays.copyOf(nextEntries, capacity);
+        }
+
+        entryEdges[numEntries] = edge;
+        entryOtherStates[numEntries] = otherStateId;
+        nextEntries[numEntries] = firstEntries[stateId];
+        firstEntries[stateId] = numEntries;
+        numEntries++;
+    }
+
+    /**
+     * Finds the edges whose base paths a wall that was just added blocks, and drops their entries under the wall, as no
+     * path passes through a wall. The entries of the diagonal moves the wall does not block are kept.
+     *
+     * @return edges indexed under the wall, sorted, may contain duplicates
+     */
+    long[] removeEdgesThrough(int wallId) {
+        long[] edges = new long[8];
+        int numEdges = 0;
+
+        int keptEntries = NONE;
+        for (int entry = firstEntries[wallId]; entry != NONE; ) {
+            int next = nextEntries[entry];
+            if (entryOtherStates[entry] == NONE || gameMap.isWall(entryOtherStates[entry])) {
+                if (numEdges == edges.length) {
+                    edges = Arrays.copyOf(edges, 2 * numEdges);
+                }
+                edges[numEdges++] = entryEdges[entry];
+            } else {
+                nextEntries[entry] = keptEntries;
+                keptEntries = entry;
+            }
+            entry = next;
+        }
+        firstEntries[wallId] = keptEntries;
+
+        edges = Arrays.copyOf(edges, numEdges);
+        Arrays.sort(edges);
+        return edges;
+    }
+
+    /**
+     * Finds the edges whose paths pass next to a state, whose hill-climbing may move differently once the state is no
+     * longer a wall
+     *
+     * @return edges indexed under the states around stateId, may contain duplicates
+     */
+    long[] findEdgesAround(int stateId) {
+        long[] edges = new long[8];
+        int numEdges = 0;
+
+        int row = gameMap.getRowFromStateId(stateId);
+        int col = gameMap.getColFromStateId(stateId);
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, gameMap.getNumRows() - 1); r++) {
+            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, gameMap.getNumCols() - 1); c++) {
+                for (int entry = firstEntries[gameMap.getStateId(r, c)]; entry != NONE; entry = nextEntries[entry]) {
+                    if (entryOtherStates[entry] != NONE) continue;
+
+                    if (numEdges == edges.length) {
+                        edges = Arrays.copyOf(edges, 2 * numEdges);
+                    }
+                    edges[numEdges++] = entryEdges[entry];
+                }
+            }
+        }
+
+        return Arrays.copyOf(edges, numEdges);
+    }
+
+    int getNumEntries() {
+        return numEntries;
+    }
+}
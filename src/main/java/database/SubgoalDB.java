@@ -1,6 +1,11 @@
 package database;
 
-import map.Region;
+import map.GameMap;
+import map.RegionGraph;
+import map.RegionHierarchy;
+import search.IndexedMinHeap;
+import search.MapSearchProblem;
+import search.SearchProblem;
 import search.SearchState;
 import search.algorithms.CompressAStar;
 import search.algorithms.HillClimbing;
@@ -10,18 +15,23 @@ import stats.SearchStats;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static map.AbstractedMap.START_NUM;
 import static search.SearchUtil.computeSubgoalsBinaryByIds;
 import static search.SearchUtil.findInArray;
 import static search.SearchUtil.findOptimallyCompressedPath;
 import static search.SearchUtil.findPathCost;
+import static search.SearchUtil.isReversible;
 
 /**
  * Database where dynamic programming table is not computed offline only the base paths between adjacency neighbors are (and their associated costs).
  * Online, a record is produced by searching the partial complete DP table for the lowest cost path between regions i and j.
  * This path consists of a series of hops between neighbors and each hop's path is combined into a path to solve the entire problem.
- * In effect, this is performing another search on the abstract region space.  The algorithm is currently using Dijkstra's but A* may be possible as well.
+ * In effect, this is performing another search on the abstract region space, using Dijkstra's algorithm or A* (see setAbstractSearchMode).
  * This search is no longer real-time (as number of regions cannot be bounded a priori), so any search using this database cannot also be considered real-time.
  * The savings are that no DP computation needs to be performed which speeds up things when there are a large number of regions and potentially can be useful when
  * the state space is changing.
@@ -33,16 +43,153 @@ public class SubgoalDB {
     private int numGroups;
     private int[][] neighbours;
     private int[][] lowestCost;
-    private int[][][] pathSubgoals;
 
-    public SubgoalDB(Map<Integer, Region> regionHashMap, SearchStats searchStats, CompressAStar compressAStar, HillClimbingWithClosedSet hc) {
-        computeBasePaths(regionHashMap, true, searchStats, compressAStar, hc);
+    // The base paths of all edges are stored one after the other in a pool, subgoalPool for RAW_PATHS and encodedPool for
+    // DELTA_ENCODED_PATHS. For every edge, pathRefs holds the offset of its base path in the pool in the upper 32 bits and
+    // its length in the lower 32 bits, or NO_PATH. Offsets and lengths are in slots of the pool, ints or bytes. With
+    // symmetric storage, an edge can also hold REVERSED_PATH to read the base path of the opposite edge reversed. In a
+    // lazy database, an edge holds UNCOMPUTED_PATH until its base path is first used (see computeLazyBasePath).
+    private long[][] pathRefs;
+    private int[] subgoalPool;
+    private byte[] encodedPool;
+    private int poolSize;
+    // Slots in the pool before poolSize that no base path uses anymore
+    private int numUnusedPoolSlots;
+
+    public static final long NO_PATH = -1L;
+    public static final long REVERSED_PATH = -2L;
+    public static final long UNCOMPUTED_PATH = -3L;
+
+    // Whether each undirected edge stores its base path once, see setSymmetricPaths
+    private boolean symmetric;
+    // Whether base paths are only computed when they are first used, with these searches
+    private boolean lazy;
+    private CompressAStar lazyCompressAStar;
+    private HillClimbingWithClosedSet lazyHC;
+
+    public static final int RAW_PATHS = 0;
+    public static final int DELTA_ENCODED_PATHS = 1;
+
+    private int pathEncoding = RAW_PATHS;
+    // Number of columns of the map, to split state ids into rows and columns for DELTA_ENCODED_PATHS
+    private int numCols;
+    // For DELTA_ENCODED_PATHS, the state of every region that the first subgoals of its base paths are relative to
+    private int[] pathBases;
+    // Holds a base path while it is encoded, before it is written to the pool
+    private byte[] encodeBuffer = new byte[64];
+    // Bytes of the longest varint of an int
+    private static final int MAX_VARINT_BYTES = 5;
+    // Room left at the end of the pool when it is laid out, relative to the ints in use, so that changed base paths can
+    // be appended for a while before the pool has to grow or be compacted
+    private static final double POOL_SLACK = 0.125;
+
+    public static final int DIJKSTRA = 0;
+    public static final int A_STAR = 1;
+    public static final int HIERARCHICAL = 2;
+
+    private int abstractSearchMode = DIJKSTRA;
+    private RegionGraph regionGraph;
+    // Hierarchy above the regions for HIERARCHICAL, kept up to date by whoever changes the regions
+    private RegionHierarchy regionHierarchy;
+
+    // Reused by every abstract search, an entry of costs is only valid if its stamp is the stamp of the current search
+    private IndexedMinHeap openList;
+    private int[] costs;
+    private int[] previous;
+    private int[] previousEdge;
+    private int[] stamps;
+    private int[] closedStamps;
+    private int[] regionPath;
+    private int regionPathLength;
+    private int searchStamp;
+
+    private final SubgoalDBRecordCache recordCache = new SubgoalDBRecordCache(SubgoalDBRecordCache.DEFAULT_CAPACITY);
+
+    // Which base paths pass through every state, built when a wall is first added (see recomputeBasePathsThroughWall)
+    private BasePathIndex basePathIndex;
+    // Array locations of the regions whose base paths may have changed since they were added to basePathIndex
+    private final BitSet unindexedGroups = new BitSet();
+    // Entries basePathIndex had when it was built, it is built again once stale entries have made it much larger
+    private int numIndexEntriesAfterBuild;
+    // Holds the path an agent follows along a base path while it is added to basePathIndex
+    private int[] indexPath = new int[256];
+    // Entries basePathIndex may have on top of twice the entries it was built with before it is built again
+    private static final int MIN_INDEX_SLACK = 1 << 14;
+    // Reused by every getRecord call that is not answered by the cache
+    private final int[] recordPath = new int[2000], recordTmp = new int[2000];
+
+    public SubgoalDB(RegionGraph regionGraph, SearchStats searchStats, CompressAStar compressAStar, HillClimbingWithClosedSet hc) {
+        this(regionGraph, searchStats, compressAStar, hc, new Options());
+    }
+
+    /**
+     * How the database is computed and stored. The defaults are those of SubgoalDB(regionGraph, searchStats,
+     * compressAStar, hc).
+     */
+    public static class Options {
+        private boolean parallel;
+        private boolean symmetric;
+        private boolean lazy;
+
+        /**
+         * @param parallel whether to compute the base paths concurrently (produces exactly the same database)
+         */
+        public Options setParallel(boolean parallel) {
+            this.parallel = parallel;
+            return this;
+        }
+
+        /**
+         * @param symmetric whether to store the base path of every pair of neighbouring regions once, for the edge that
+         *                  starts at the region with the lower array location, and read it reversed for the opposite
+         *                  edge (see setSymmetricPaths)
+         */
+        public Options setSymmetric(boolean symmetric) {
+            this.symmetric = symmetric;
+            return this;
+        }
+
+        /**
+         * @param lazy whether to only compute the base path of an edge when a record first uses it, rather than all of
+         *             them up front (see computeEdgeBounds), compressAStar and hc are kept to compute them with
+         */
+        public Options setLazy(boolean lazy) {
+            this.lazy = lazy;
+            return this;
+        }
+    }
+
+    public SubgoalDB(RegionGraph regionGraph, SearchStats searchStats, CompressAStar compressAStar, HillClimbingWithClosedSet hc, Options options) {
+        this.symmetric = options.symmetric;
+        this.lazy = options.lazy;
+        if (lazy) {
+            this.lazyCompressAStar = compressAStar;
+            this.lazyHC = hc;
+            computeEdgeBounds(regionGraph);
+        } else {
+            computeBasePaths(regionGraph, true, searchStats, compressAStar, hc, options.parallel);
+        }
         // saveDB("databases/subgoals.txt");
     }
 
+    /**
+     * Used by SubgoalDBFile to create a database from a snapshot
+     */
+    SubgoalDB(RegionGraph regionGraph, int numGroups, int[][] neighbours, int[][] lowestCost, long[][] pathRefs, int[] subgoalPool, int poolSize) {
+        regionGraph.update();
+        this.regionGraph = regionGraph;
+        this.numGroups = numGroups;
+        this.neighbours = neighbours;
+        this.lowestCost = lowestCost;
+        this.pathRefs = pathRefs;
+        this.subgoalPool = subgoalPool;
+        this.poolSize = poolSize;
+    }
+
     /**
      * Returns record for start and goal for search problem between two regions.
      * Record produced dynamically from data in DP table by combining base paths between regions (non-real-time).
+     * Records are cached, and evicted from the cache when a base path they were built from changes.
      */
     public SubgoalDBRecord getRecord(int startGroupId, int goalGroupId, boolean compressed, HillClimbing hillClimbing, SearchStats searchStats) {
         if (startGroupId == goalGroupId) {
@@ -52,8 +199,13 @@ public class SubgoalDB {
         int startGroupLoc = startGroupId - START_NUM;
         int goalGroupLoc = goalGroupId - START_NUM;
 
-        int[] path = new int[2000], tmp = new int[2000];
-        int pathSize = mergePaths(startGroupLoc, goalGroupLoc, path);
+        SubgoalDBRecord record = recordCache.get(startGroupId, goalGroupId, compressed);
+        if (record != null) {
+            return record;
+        }
+
+        int[] path = recordPath;
+        int pathSize = mergePaths(startGroupLoc, goalGroupLoc, path, searchStats);
 
         if (pathSize == 0) {
             return null;
@@ -62,214 +214,1095 @@ public class SubgoalDB {
         int startRegionRep = path[0];
         int goalRegionRep = path[pathSize - 1];
 
+        int[] visitedStates = new int[0];
         if (compressed) {
-            // Compress path using hill-climbing
-            path = computeSubgoalsBinaryByIds(path, hillClimbing, tmp, pathSize, searchStats);
+            // Compress path using hill-climbing, the states it visits decide which wall changes evict the record
+            boolean trace = recordCache.getCapacity() > 0;
+            if (trace) hillClimbing.startTrace();
+            path = computeSubgoalsBinaryByIds(path, hillClimbing, recordTmp, pathSize, searchStats);
+            if (trace) visitedStates = hillClimbing.stopTrace();
         } else {
             path = Arrays.copyOfRange(path, 1, pathSize - 1);
         }
 
-        return new SubgoalDBRecord(startRegionRep, goalRegionRep, path);
+        record = new SubgoalDBRecord(startRegionRep, goalRegionRep, path);
+        recordCache.put(startGroupId, goalGroupId, compressed, record, regionPath, regionPathLength, visitedStates);
+        return record;
     }
 
-    // TODO: Implement using A* instead?
-    private int mergePaths(int startGroupLoc, int goalGroupLoc, int[] path) {
+    /**
+     * Combines base paths into a path from the start region to the goal region. Afterwards, regionPath holds the array
+     * locations of the regions the path goes through, from goal to start. In a lazy database, the base paths it uses are
+     * computed first.
+     *
+     * @return length of the path, 0 if there is no path
+     */
+    private int mergePaths(int startGroupLoc, int goalGroupLoc, int[] path, SearchStats searchStats) {
+        if (openList == null || costs.length < neighbours.length) {
+            allocateSearchArrays();
+        }
+
         // Find if this is a neighbor
         int neighborLoc = findInArray(neighbours[startGroupLoc], goalGroupLoc);
-        if (neighborLoc != -1) { // Direct neighbor with path stored - just return the path
-            System.arraycopy(pathSubgoals[startGroupLoc][neighborLoc], 0, path, 0, pathSubgoals[startGroupLoc][neighborLoc].length);
-            return pathSubgoals[startGroupLoc][neighborLoc].length;
+        if (neighborLoc != -1 && pathRefs[startGroupLoc][neighborLoc] == UNCOMPUTED_PATH) {
+            computeLazyBasePath(startGroupLoc, neighborLoc, searchStats);
         }
+        if (neighborLoc != -1 && pathRefs[startGroupLoc][neighborLoc] != NO_PATH) { // Direct neighbor with path stored - just return the path
+            regionPath[0] = goalGroupLoc;
+            regionPath[1] = startGroupLoc;
+            regionPathLength = 2;
+            return readPath(startGroupLoc, neighborLoc, path, 0);
+        }
+
+        // Edges without a base path yet cost no more than their lower bound, so once every edge on the lowest cost
+        // sequence has its base path, and so its actual cost, no other sequence can cost less
+        do {
+            if (!findRegionPath(startGroupLoc, goalGroupLoc)) {
+                return 0;
+            }
+        } while (computeLazyBasePathsOnRegionPath(startGroupLoc, goalGroupLoc, searchStats));
 
-        // Implementation using Dijkstra's algorithm
-        int numGroups = neighbours.length;
-        int[] distance = new int[numGroups];
-        int[] previous = new int[numGroups];
-        boolean[] visited = new boolean[numGroups];
-        int[] nodes = new int[numGroups];
+        // Backtrack from goalGroupLoc to startGroupLoc, the reverse path of regions is in regionPath
         int count = 0;
+        for (int currentLoc = goalGroupLoc; currentLoc != startGroupLoc; currentLoc = previous[currentLoc]) {
+            regionPath[count++] = currentLoc;
+        }
+        regionPath[count++] = startGroupLoc;
+        regionPathLength = count;
 
-        Arrays.fill(distance, Integer.MAX_VALUE);
-        for (int i = 0; i < neighbours[startGroupLoc].length; i++) {
-            int neighbourLoc = neighbours[startGroupLoc][i];
-            previous[neighbourLoc] = startGroupLoc;
-            distance[neighbourLoc] = lowestCost[startGroupLoc][i];
-            nodes[count++] = neighbourLoc;
-        }
-
-        while (count > 0) {
-            // Find the lowest distance (using linear search)
-            int minCost = Integer.MAX_VALUE;
-            int minLoc = -1;
-
-            for (int i = 0; i < count; i++) {
-                int neighbourLoc = nodes[i];
-                int cost = distance[neighbourLoc];
-                if (cost < minCost) {
-                    minCost = cost;
-                    minLoc = i;
+        // Now produce the actual path
+        // Copy the first segment whole, and every later one without its first node, which is the last node of the segment before it.
+        // A later segment is read over the last node of the segment before it, and that node is put back afterwards
+        int pathLen = 0;
+        int lastLoc = startGroupLoc;
+        for (int i = count - 2; i >= 0; i--) {
+            int nextLoc = regionPath[i];
+            int segment = previousEdge[nextLoc];
+            if (i == count - 2) {
+                pathLen = readPath(lastLoc, segment, path, 0);
+            } else {
+                int lastNodeIndex = pathLen - 1;
+                int lastNode = path[lastNodeIndex];
+                pathLen = lastNodeIndex + readPath(lastLoc, segment, path, lastNodeIndex);
+                path[lastNodeIndex] = lastNode;
+            }
+            lastLoc = nextLoc;
+        }
+        return pathLen;
+    }
+
+    /**
+     * Finds the lowest cost sequence of base paths from the start region to the goal region (for HIERARCHICAL, the
+     * lowest cost one in the corridor of the region hierarchy), using the search set by setAbstractSearchMode. Edges
+     * without a base path (cost Integer.MAX_VALUE) are skipped.
+     * <p>
+     * Afterwards, previous holds the region each region on the path was reached from, and previousEdge the position of
+     * the edge it was reached by in the neighbours array of that region.
+     *
+     * @return true if the goal region can be reached
+     */
+    private boolean findRegionPath(int startGroupLoc, int goalGroupLoc) {
+        if (abstractSearchMode == HIERARCHICAL) {
+            // The hierarchy knows whether the regions are connected at all
+            if (!regionHierarchy.findCorridor(startGroupLoc + START_NUM, goalGroupLoc + START_NUM, null)) {
+                return false;
+            }
+            // Edges without a base path may still cut the corridor, in which case the whole graph is searched
+            return searchRegions(startGroupLoc, goalGroupLoc, true) || searchRegions(startGroupLoc, goalGroupLoc, false);
+        }
+        return searchRegions(startGroupLoc, goalGroupLoc, false);
+    }
+
+    /**
+     * @param inCorridor whether to only search the regions in the corridor of the region hierarchy
+     */
+    private boolean searchRegions(int startGroupLoc, int goalGroupLoc, boolean inCorridor) {
+        nextSearchStamp();
+        openList.clear();
+
+        boolean useHeuristic = abstractSearchMode != DIJKSTRA;
+        if (useHeuristic) {
+            regionGraph.update();
+        }
+        costs[startGroupLoc] = 0;
+        stamps[startGroupLoc] = searchStamp;
+        openList.insert(startGroupLoc, IndexedMinHeap.packKey(useHeuristic ? regionGraph.getOctileDistance(startGroupLoc, goalGroupLoc) : 0, 0));
+
+        while (!openList.isEmpty()) {
+            int currentLoc = openList.removeMin();
+
+            if (currentLoc == goalGroupLoc) {
+                return true;
+            }
+
+            closedStamps[currentLoc] = searchStamp;
+
+            int[] currentNeighbours = neighbours[currentLoc];
+            if (currentNeighbours == null) continue;
+
+            for (int i = 0; i < currentNeighbours.length; i++) {
+                int nextLoc = currentNeighbours[i];
+                int edgeCost = lowestCost[currentLoc][i];
+
+                if (edgeCost == Integer.MAX_VALUE || pathRefs[currentLoc][i] == NO_PATH || closedStamps[nextLoc] == searchStamp) {
+                    continue;
+                }
+                if (inCorridor && !regionHierarchy.isInCorridor(nextLoc + START_NUM)) {
+                    continue;
                 }
+
+                int newCost = costs[currentLoc] + edgeCost;
+                if (stamps[nextLoc] == searchStamp && newCost >= costs[nextLoc]) {
+                    continue;
+                }
+
+                costs[nextLoc] = newCost;
+                stamps[nextLoc] = searchStamp;
+                previous[nextLoc] = currentLoc;
+                previousEdge[nextLoc] = i;
+
+                int h = useHeuristic ? regionGraph.getOctileDistance(nextLoc, goalGroupLoc) : 0;
+                openList.update(nextLoc, IndexedMinHeap.packKey(newCost + h, newCost));
             }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the base paths that the edges on the sequence findRegionPath last found do not have yet
+     *
+     * @return whether one of them costs more than its lower bound, so that another sequence may now cost less
+     */
+    private boolean computeLazyBasePathsOnRegionPath(int startGroupLoc, int goalGroupLoc, SearchStats searchStats) {
+        if (!lazy) return false;
+
+        boolean costRose = false;
+        for (int currentLoc = goalGroupLoc; currentLoc != startGroupLoc; currentLoc = previous[currentLoc]) {
+            int previousLoc = previous[currentLoc];
+            int index = previousEdge[currentLoc];
+            if (pathRefs[previousLoc][index] != UNCOMPUTED_PATH) continue;
+
+            int lowerBound = lowestCost[previousLoc][index];
+            computeLazyBasePath(previousLoc, index, searchStats);
+            costRose |= lowestCost[previousLoc][index] > lowerBound;
+        }
+        return costRose;
+    }
 
-            if (minLoc == -1) {
-                return -1;
+    /**
+     * Computes the base path of an edge of a lazy database, and its actual cost. With symmetric storage, the opposite
+     * edge gets its base path as well, otherwise only its cost is set, which is the same in both directions.
+     *
+     * @param searchStats stats of the search the base path is needed for, may be null
+     */
+    private void computeLazyBasePath(int groupLoc, int index, SearchStats searchStats) {
+        if (searchStats == null) searchStats = new SearchStats();
+
+        int neighbourLoc = neighbours[groupLoc][index];
+        int oppositeIndex = findInArray(neighbours[neighbourLoc], groupLoc);
+        // Searched from the region with the lower array location, as when all base paths are computed up front
+        if (symmetric && oppositeIndex != -1 && neighbourLoc < groupLoc) {
+            int lowLoc = neighbourLoc, lowIndex = oppositeIndex;
+            neighbourLoc = groupLoc;
+            oppositeIndex = index;
+            groupLoc = lowLoc;
+            index = lowIndex;
+        }
+
+        List<SearchState> path = lazyCompressAStar.findPath(new SearchState(regionGraph.getRep(groupLoc)), new SearchState(regionGraph.getRep(neighbourLoc)), searchStats);
+        int pathCost = path == null ? Integer.MAX_VALUE : findPathCost(path, lazyCompressAStar.getSearchProblem());
+
+        // A record built from other base paths is still a lowest cost one, as the cost of the edge can only have risen
+        lowestCost[groupLoc][index] = pathCost;
+        if (oppositeIndex != -1 && (symmetric || pathRefs[neighbourLoc][oppositeIndex] == UNCOMPUTED_PATH)) {
+            lowestCost[neighbourLoc][oppositeIndex] = pathCost;
+        }
+
+        if (symmetric) {
+            setSymmetricPaths(groupLoc, index, path, lazyHC, lazyCompressAStar, searchStats);
+        } else {
+            setPath(groupLoc, index, path == null ? null : findOptimallyCompressedPath(path, lazyHC, lazyCompressAStar, searchStats));
+        }
+        searchStats.incrementNumPaths(1);
+    }
+
+    private void allocateSearchArrays() {
+        int capacity = neighbours.length;
+        openList = new IndexedMinHeap(capacity);
+        costs = new int[capacity];
+        previous = new int[capacity];
+        previousEdge = new int[capacity];
+        stamps = new int[capacity];
+        closedStamps = new int[capacity];
+        regionPath = new int[capacity];
+        searchStamp = 0;
+    }
+
+    private void nextSearchStamp() {
+        if (searchStamp == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            Arrays.fill(closedStamps, 0);
+            searchStamp = 0;
+        }
+        searchStamp++;
+    }
+
+    /**
+     * Sets the search used to combine base paths in getRecord when the two regions are not neighbours. Both searches
+     * find a lowest cost path, A_STAR expands fewer regions by using the octile distance between region representatives
+     * as its heuristic. Its records may differ from the DIJKSTRA records only where there are several lowest cost paths.
+     * HIERARCHICAL searches the region hierarchy set by setRegionHierarchy from the top down first, and then does the
+     * A_STAR search only among the regions under the path it found one level above the regions, so its records need not
+     * be lowest cost ones. Cached records were built with the previous search, so changing it clears the record cache.
+     *
+     * @param abstractSearchMode DIJKSTRA, A_STAR or HIERARCHICAL
+     */
+    public void setAbstractSearchMode(int abstractSearchMode) {
+        if (abstractSearchMode != DIJKSTRA && abstractSearchMode != A_STAR && abstractSearchMode != HIERARCHICAL) {
+            throw new IllegalArgumentException("Unknown abstract search mode " + abstractSearchMode);
+        }
+        if (abstractSearchMode == HIERARCHICAL && regionHierarchy == null) {
+            throw new IllegalStateException("HIERARCHICAL needs a region hierarchy");
+        }
+        if (abstractSearchMode != this.abstractSearchMode) {
+            recordCache.clear();
+        }
+        this.abstractSearchMode = abstractSearchMode;
+    }
+
+    public void setRegionHierarchy(RegionHierarchy regionHierarchy) {
+        if (abstractSearchMode == HIERARCHICAL) {
+            recordCache.clear();
+        }
+        this.regionHierarchy = regionHierarchy;
+    }
+
+    public int getAbstractSearchMode() {
+        return abstractSearchMode;
+    }
+
+    public void computeBasePaths(RegionGraph regionGraph, boolean asSubgoals, SearchStats searchStats, CompressAStar compressAStar, HillClimbingWithClosedSet hc) {
+        computeBasePaths(regionGraph, asSubgoals, searchStats, compressAStar, hc, false);
+    }
+
+    /**
+     * Computes the base paths between all neighbouring regions. In parallel, the regions are handed out to one worker
+     * per thread of the common ForkJoinPool (and the calling thread), and every worker has its own CompressAStar,
+     * HillClimbingWithClosedSet and SearchStats. Every base path is computed exactly as it would be sequentially, so the
+     * database is the same either way, and the times reported in searchStats are still summed over all base paths.
+     *
+     * @param parallel whether to compute the base paths concurrently
+     */
+    public void computeBasePaths(RegionGraph regionGraph, boolean asSubgoals, SearchStats searchStats, CompressAStar compressAStar, HillClimbingWithClosedSet hc, boolean parallel) {
+        regionGraph.update();
+        this.regionGraph = regionGraph;
+        recordCache.clear();
+
+        numGroups = 0;
+        for (int i = 0; i < regionGraph.getCapacity(); i++) {
+            if (regionGraph.containsRegion(i)) numGroups++;
+        }
+
+        // Regions added later on are given room by ensureCapacity
+        int arraySize = (int) Math.ceil(numGroups * 1.1);
+        neighbours = new int[arraySize][];
+        lowestCost = new int[arraySize][];
+        pathRefs = new long[arraySize][];
+
+        // Size every region's slots up front, so that workers only ever write into their own regions' arrays
+        for (int groupLoc = 0; groupLoc < numGroups; groupLoc++) {
+            // TODO: Support deeper neighbourhood levels, currently only considering direct neighbours
+            int numNeighbours = regionGraph.getDegree(groupLoc);
+            neighbours[groupLoc] = new int[numNeighbours];
+            lowestCost[groupLoc] = new int[numNeighbours];
+            pathRefs[groupLoc] = newPathRefs(numNeighbours);
+        }
+
+        AtomicInteger nextGroupLoc = new AtomicInteger();
+        int[] workerOfRegion = new int[numGroups];
+        List<BasePathWorker> workers = new ArrayList<>();
+
+        if (parallel) {
+            for (int i = 0; i <= ForkJoinPool.getCommonPoolParallelism(); i++) {
+                CompressAStar workerCompressAStar = compressAStar.copy();
+                HillClimbingWithClosedSet workerHC = new HillClimbingWithClosedSet((MapSearchProblem) compressAStar.getSearchProblem());
+                workers.add(new BasePathWorker(i, nextGroupLoc, workerOfRegion, asSubgoals, new SearchStats(), workerCompressAStar, workerHC));
             }
+            ForkJoinTask.invokeAll(workers);
+        } else {
+            BasePathWorker worker = new BasePathWorker(0, nextGroupLoc, workerOfRegion, asSubgoals, searchStats, compressAStar, hc);
+            worker.computeBasePaths();
+            workers.add(worker);
+        }
 
-            int neighbourLoc = nodes[minLoc];
+        layOutPool(workers, workerOfRegion);
 
-            // Goal node found
-            if (neighbourLoc == goalGroupLoc) {
-                break;
+        long totalPathLength = 0;
+        long timeToFindAStarPathsOffline = 0, timeToPerformHCCompression = 0;
+        for (BasePathWorker worker : workers) {
+            if (worker.searchStats != searchStats) {
+                searchStats.addAll(worker.searchStats);
+            }
+            totalPathLength += worker.totalPathLength;
+            timeToFindAStarPathsOffline += worker.timeToFindAStarPathsOffline;
+            timeToPerformHCCompression += worker.timeToPerformHCCompression;
+        }
+
+        searchStats.setPathLength(totalPathLength);
+        searchStats.setTimeToFindAStarPathsOffline(timeToFindAStarPathsOffline);
+        searchStats.setTimeToPerformHCCompression(timeToPerformHCCompression);
+    }
+
+    /**
+     * Sets up a lazy database, where every edge gets the octile distance between the representatives of its regions as
+     * its cost, which no path between them costs less than, and UNCOMPUTED_PATH. Records search with these lower bounds
+     * and compute the base paths of the edges they use (see mergePaths), so only the base paths that are used are ever
+     * computed.
+     */
+    private void computeEdgeBounds(RegionGraph regionGraph) {
+        regionGraph.update();
+        this.regionGraph = regionGraph;
+        recordCache.clear();
+
+        numGroups = 0;
+        for (int i = 0; i < regionGraph.getCapacity(); i++) {
+            if (regionGraph.containsRegion(i)) numGroups++;
+        }
+
+        // Regions added later on are given room by ensureCapacity
+        int arraySize = (int) Math.ceil(numGroups * 1.1);
+        neighbours = new int[arraySize][];
+        lowestCost = new int[arraySize][];
+        pathRefs = new long[arraySize][];
+
+        for (int groupLoc = 0; groupLoc < numGroups; groupLoc++) {
+            int numNeighbours = regionGraph.getDegree(groupLoc);
+            int offset = regionGraph.getOffset(groupLoc);
+            neighbours[groupLoc] = new int[numNeighbours];
+            lowestCost[groupLoc] = new int[numNeighbours];
+            pathRefs[groupLoc] = new long[numNeighbours];
+
+            for (int i = 0; i < numNeighbours; i++) {
+                neighbours[groupLoc][i] = regionGraph.getTarget(offset + i);
+                lowestCost[groupLoc][i] = regionGraph.getOctileDistance(groupLoc, neighbours[groupLoc][i]);
+                pathRefs[groupLoc][i] = UNCOMPUTED_PATH;
+            }
+        }
+
+        allocatePool(0);
+    }
+
+    /**
+     * Copies the base paths from the pools of the workers into one pool, ordered by region, so that the base paths of a
+     * region are next to each other no matter which worker computed them. The base paths are encoded afterwards if the
+     * database uses DELTA_ENCODED_PATHS.
+     */
+    private void layOutPool(List<BasePathWorker> workers, int[] workerOfRegion) {
+        long numInts = 0;
+        for (BasePathWorker worker : workers) {
+            numInts += worker.poolSize;
+        }
+        if (numInts > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Base paths do not fit into one pool");
+        }
+
+        int encoding = pathEncoding;
+        pathEncoding = RAW_PATHS;
+        allocatePool(getLaidOutPoolCapacity((int) numInts));
+
+        for (int groupLoc = 0; groupLoc < numGroups; groupLoc++) {
+            for (int i = 0; i < pathRefs[groupLoc].length; i++) {
+                int worker = isComputedByNeighbour(groupLoc, i) ? workerOfRegion[neighbours[groupLoc][i]] : workerOfRegion[groupLoc];
+                pathRefs[groupLoc][i] = copyIntoPool(workers.get(worker).pool, pathRefs[groupLoc][i]);
+            }
+        }
+
+        if (encoding != RAW_PATHS) {
+            setPathEncoding(encoding, numCols);
+        }
+    }
+
+    /**
+     * Computes the base paths of regions taken from a shared counter, a few regions at a time, until all regions are
+     * done. Only writes into the slots of the regions it took, and appends the base paths to its own pool, which
+     * layOutPool copies them out of afterwards. With symmetric storage, the base paths between two neighbours are
+     * computed by the worker of the region with the lower array location, which also writes the slots of the opposite
+     * edges (see isComputedByNeighbour).
+     */
+    @SuppressWarnings("serial")
+    private class BasePathWorker extends RecursiveAction {
+        // Regions taken from the counter at a time
+        private static final int CHUNK_SIZE = 8;
+
+        private final int workerIndex;
+        private final AtomicInteger nextGroupLoc;
+        private final int[] workerOfRegion;
+        private final boolean asSubgoals;
+        private final SearchStats searchStats;
+        private final CompressAStar compressAStar;
+        private final HillClimbingWithClosedSet hc;
+
+        private long totalPathLength;
+        private long timeToFindAStarPathsOffline;
+        private long timeToPerformHCCompression;
+
+        private int[] pool = new int[1024];
+        private int poolSize;
+
+        private BasePathWorker(int workerIndex, AtomicInteger nextGroupLoc, int[] workerOfRegion, boolean asSubgoals, SearchStats searchStats, CompressAStar compressAStar, HillClimbingWithClosedSet hc) {
+            this.workerIndex = workerIndex;
+            this.nextGroupLoc = nextGroupLoc;
+            this.workerOfRegion = workerOfRegion;
+            this.asSubgoals = asSubgoals;
+            this.searchStats = searchStats;
+            this.compressAStar = compressAStar;
+            this.hc = hc;
+        }
+
+        @Override
+        protected void compute() {
+            computeBasePaths();
+        }
+
+        private void computeBasePaths() {
+            int from;
+            while ((from = nextGroupLoc.getAndAdd(CHUNK_SIZE)) < numGroups) {
+                for (int startGroupLoc = from; startGroupLoc < Math.min(from + CHUNK_SIZE, numGroups); startGroupLoc++) {
+                    computeBasePathsOfRegion(startGroupLoc);
+                }
+            }
+        }
+
+        private void computeBasePathsOfRegion(int startGroupLoc) {
+            workerOfRegion[startGroupLoc] = workerIndex;
+            int numNeighbours = regionGraph.getDegree(startGroupLoc);
+            int offset = regionGraph.getOffset(startGroupLoc);
+
+            List<SearchState> path;
+            long start;
+
+            int count = 0;
+            for (int edge = offset; edge < offset + numNeighbours; edge++) {
+                int goalGroupLoc = regionGraph.getTarget(edge);
+                neighbours[startGroupLoc][count] = goalGroupLoc;
+
+                // Computed along with the opposite edge by the worker of the neighbour
+                if (isComputedByNeighbour(startGroupLoc, count)) {
+                    count++;
+                    continue;
+                }
+
+                int startRegionRep = regionGraph.getRep(startGroupLoc);
+                int goalRegionRep = regionGraph.getRep(goalGroupLoc);
+
+                start = System.nanoTime();
+                path = compressAStar.findPath(new SearchState(startRegionRep), new SearchState(goalRegionRep), searchStats);
+                timeToFindAStarPathsOffline += System.nanoTime() - start;
+
+                totalPathLength += path.size();
+                int pathCost = findPathCost(path, compressAStar.getSearchProblem());
+
+                lowestCost[startGroupLoc][count] = pathCost;
+
+                int[] basePath;
+                if (asSubgoals) {
+                    // Compress path using hill climbing
+                    start = System.nanoTime();
+                    basePath = findOptimallyCompressedPath(path, hc, compressAStar, searchStats);
+                    timeToPerformHCCompression += System.nanoTime() - start;
+
+                    if (basePath.length > 2) {
+                        searchStats.incrementNumberOfSubgoals(basePath.length - 2);
+                        searchStats.incrementNumberOfPathsThatHaveSubgoals(1);
+                    }
+                } else {
+                    // Store full A* id path
+                    basePath = getIdPath(path);
+                }
+                pathRefs[startGroupLoc][count] = append(basePath);
+
+                int oppositeEdge = symmetric ? regionGraph.findEdge(goalGroupLoc, startGroupLoc) : -1;
+                if (oppositeEdge != -1) {
+                    int oppositeIndex = oppositeEdge - regionGraph.getOffset(goalGroupLoc);
+                    lowestCost[goalGroupLoc][oppositeIndex] = pathCost;
+                    start = System.nanoTime();
+                    if (!asSubgoals || isReversible(basePath, path, hc, compressAStar.getSearchProblem(), searchStats)) {
+                        pathRefs[goalGroupLoc][oppositeIndex] = REVERSED_PATH;
+                    } else {
+                        pathRefs[goalGroupLoc][oppositeIndex] = append(findOptimallyCompressedPath(new ArrayList<>(path.reversed()), hc, compressAStar, searchStats));
+                    }
+                    timeToPerformHCCompression += System.nanoTime() - start;
+                    searchStats.incrementNumPaths(1);
+                }
+
+                searchStats.incrementNumPaths(1);
+                count++;
+            }
+        }
+
+        /**
+         * @return reference to the base path in the pool of this worker
+         */
+        private long append(int[] basePath) {
+            if (poolSize + basePath.length > pool.length) {
+                pool = Arrays.copyOf(pool, Math.max(poolSize + basePath.length, pool.length * 2));
             }
+            System.arraycopy(basePath, 0, pool, poolSize, basePath.length);
+            poolSize += basePath.length;
+            return packPathRef(poolSize - basePath.length, basePath.length);
+        }
+    }
+
+    /**
+     * Grows the per-region arrays so that they have a slot for the given array location. Grows by at least half of
+     * their length, so that regions added one at a time do not copy the arrays every time.
+     */
+    private void ensureCapacity(int groupLoc) {
+        if (groupLoc < neighbours.length) return;
+
+        int newLength = Math.max(groupLoc + 1, neighbours.length + neighbours.length / 2);
+        neighbours = Arrays.copyOf(neighbours, newLength);
+        lowestCost = Arrays.copyOf(lowestCost, newLength);
+        pathRefs = Arrays.copyOf(pathRefs, newLength);
+        if (pathBases != null) {
+            pathBases = Arrays.copyOf(pathBases, newLength);
+        }
+    }
+
+    /**
+     * @return references for edges that do not have a base path yet
+     */
+    private static long[] newPathRefs(int numNeighbours) {
+        long[] newPathRefs = new long[numNeighbours];
+        Arrays.fill(newPathRefs, NO_PATH);
+        return newPathRefs;
+    }
+
+    static long packPathRef(int offset, int length) {
+        return ((long) offset << 32) | length;
+    }
+
+    static int getPathOffset(long pathRef) {
+        return (int) (pathRef >>> 32);
+    }
+
+    static int getPathLength(long pathRef) {
+        return (int) pathRef;
+    }
+
+    /**
+     * @return capacity of a pool laid out for the given number of slots in use
+     */
+    private static int getLaidOutPoolCapacity(int numSlots) {
+        return (int) Math.min(Integer.MAX_VALUE, numSlots + (long) Math.ceil(numSlots * POOL_SLACK));
+    }
+
+    private Object getPool() {
+        return pathEncoding == RAW_PATHS ? subgoalPool : encodedPool;
+    }
+
+    private int getPoolLength() {
+        return pathEncoding == RAW_PATHS ? subgoalPool.length : encodedPool.length;
+    }
+
+    /**
+     * Replaces the pool by an empty pool of the current path encoding
+     */
+    private void allocatePool(int capacity) {
+        if (pathEncoding == RAW_PATHS) {
+            subgoalPool = new int[capacity];
+            encodedPool = null;
+        } else {
+            encodedPool = new byte[capacity];
+            subgoalPool = null;
+        }
+        poolSize = 0;
+        numUnusedPoolSlots = 0;
+    }
+
+    private void resizePool(int capacity) {
+        if (pathEncoding == RAW_PATHS) {
+            subgoalPool = Arrays.copyOf(subgoalPool, capacity);
+        } else {
+            encodedPool = Arrays.copyOf(encodedPool, capacity);
+        }
+    }
+
+    /**
+     * Gets a base path ready to be written to the pool, which for DELTA_ENCODED_PATHS means encoding it into
+     * encodeBuffer
+     *
+     * @return number of slots the base path takes in the pool
+     */
+    private int prepareForPool(int groupLoc, int[] path) {
+        return pathEncoding == RAW_PATHS ? path.length : encodePath(groupLoc, path);
+    }
+
+    /**
+     * Writes a base path that prepareForPool was last called with to the pool
+     */
+    private void writeToPool(int[] path, int length, int position) {
+        System.arraycopy(pathEncoding == RAW_PATHS ? path : encodeBuffer, 0, getPool(), position, length);
+    }
+
+    /**
+     * Replaces the base path of an edge. A base path that takes no more room than the one it replaces is written over
+     * it, any other one is appended to the pool.
+     *
+     * @param path new base path, or null if the edge has no base path
+     */
+    private void setPath(int groupLoc, int index, int[] path) {
+        markUnindexed(groupLoc);
+        long pathRef = pathRefs[groupLoc][index];
+        if (isStoredPath(pathRef)) {
+            detachReversedPath(groupLoc, index);
+        }
+        int length = path == null ? 0 : prepareForPool(groupLoc, path);
+        if (path != null && isStoredPath(pathRef) && length <= getPathLength(pathRef)) {
+            writeToPool(path, length, getPathOffset(pathRef));
+            numUnusedPoolSlots += getPathLength(pathRef) - length;
+            pathRefs[groupLoc][index] = packPathRef(getPathOffset(pathRef), length);
+            return;
+        }
+
+        freePath(pathRef);
+        // Cleared first, so that compacting the pool while appending does not keep the old base path
+        pathRefs[groupLoc][index] = NO_PATH;
+        if (path != null) {
+            pathRefs[groupLoc][index] = appendToPool(path, length);
+        }
+    }
+
+    /**
+     * @return whether the reference is to a base path in the pool, rather than NO_PATH, REVERSED_PATH or
+     * UNCOMPUTED_PATH
+     */
+    private static boolean isStoredPath(long pathRef) {
+        return pathRef >= 0;
+    }
+
+    private void freePath(long pathRef) {
+        if (isStoredPath(pathRef)) {
+            numUnusedPoolSlots += getPathLength(pathRef);
+        }
+    }
+
+    /**
+     * Frees the base paths of all edges of a region, must be called while neighbours still holds the neighbours the base
+     * paths are for
+     */
+    private void freePaths(int groupLoc) {
+        if (pathRefs[groupLoc] == null) return;
+
+        for (int i = 0; i < pathRefs[groupLoc].length; i++) {
+            if (isStoredPath(pathRefs[groupLoc][i])) {
+                detachReversedPath(groupLoc, i);
+            }
+            freePath(pathRefs[groupLoc][i]);
+            // Cleared, so that compacting the pool while a later base path is detached does not keep it
+            pathRefs[groupLoc][i] = NO_PATH;
+        }
+    }
+
+    /**
+     * If the opposite edge of an edge reads its base path reversed, stores the reversed base path for the opposite edge
+     * instead, so that the base path of the edge can be replaced or freed
+     */
+    private void detachReversedPath(int groupLoc, int index) {
+        if (!symmetric) return;
+
+        int neighbourLoc = neighbours[groupLoc][index];
+        if (neighbours[neighbourLoc] == null) return;
+
+        int oppositeIndex = findInArray(neighbours[neighbourLoc], groupLoc);
+        if (oppositeIndex == -1 || pathRefs[neighbourLoc][oppositeIndex] != REVERSED_PATH) return;
+
+        int[] path = getPath(groupLoc, index);
+        for (int i = 0, j = path.length - 1; i < j; i++, j--) {
+            int subgoal = path[i];
+            path[i] = path[j];
+            path[j] = subgoal;
+        }
+        setPath(neighbourLoc, oppositeIndex, path);
+    }
+
+    /**
+     * Replaces the base paths of an edge and of its opposite edge, if the neighbour has one, with symmetric storage. The
+     * base path is stored once, for the edge that starts at the region with the lower array location, and the opposite
+     * edge reads it reversed. Hill-climbing is not symmetric, so if the reversed base path cannot be hill-climbed at the
+     * cost of the edge (see SearchUtil.isReversible), the compressed reversed path is stored for the opposite edge as
+     * well.
+     *
+     * @param path optimal path from the region to its neighbour, or null if there is none
+     */
+    private void setSymmetricPaths(int groupLoc, int index, List<SearchState> path, HillClimbingWithClosedSet hc, CompressAStar compressAStar, SearchStats searchStats) {
+        int neighbourLoc = neighbours[groupLoc][index];
+        int oppositeIndex = findInArray(neighbours[neighbourLoc], groupLoc);
+        if (oppositeIndex == -1) {
+            setPath(groupLoc, index, path == null ? null : findOptimallyCompressedPath(path, hc, compressAStar, searchStats));
+            return;
+        }
+
+        int lowLoc = groupLoc, lowIndex = index, highLoc = neighbourLoc, highIndex = oppositeIndex;
+        if (neighbourLoc < groupLoc) {
+            lowLoc = neighbourLoc;
+            lowIndex = oppositeIndex;
+            highLoc = groupLoc;
+            highIndex = index;
+            if (path != null) path = new ArrayList<>(path.reversed());
+        }
+
+        // Cleared first, so that the base path of the lower edge is not detached for it
+        markUnindexed(highLoc);
+        freePath(pathRefs[highLoc][highIndex]);
+        pathRefs[highLoc][highIndex] = NO_PATH;
+        if (path == null) {
+            setPath(lowLoc, lowIndex, null);
+            return;
+        }
+
+        int[] basePath = findOptimallyCompressedPath(path, hc, compressAStar, searchStats);
+        setPath(lowLoc, lowIndex, basePath);
+        if (isReversible(basePath, path, hc, compressAStar.getSearchProblem(), searchStats)) {
+            pathRefs[highLoc][highIndex] = REVERSED_PATH;
+        } else {
+            setPath(highLoc, highIndex, findOptimallyCompressedPath(new ArrayList<>(path.reversed()), hc, compressAStar, searchStats));
+        }
+    }
+
+    /**
+     * @return whether an edge computed by the worker of its neighbour reads the base path of the opposite edge, or has
+     * it stored in the pool of that worker
+     */
+    private boolean isComputedByNeighbour(int groupLoc, int index) {
+        int neighbourLoc = neighbours[groupLoc][index];
+        return symmetric && neighbourLoc < groupLoc && regionGraph.findEdge(neighbourLoc, groupLoc) != -1;
+    }
+
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * @return number of edges of a lazy database whose base paths have not been computed yet
+     */
+    public int getNumUncomputedPaths() {
+        int numUncomputedPaths = 0;
+        for (long[] regionPathRefs : pathRefs) {
+            if (regionPathRefs == null) continue;
+
+            for (long pathRef : regionPathRefs) {
+                if (pathRef == UNCOMPUTED_PATH) numUncomputedPaths++;
+            }
+        }
+        return numUncomputedPaths;
+    }
+
+    /**
+     * Appends a base path that prepareForPool was last called with to the pool. If the pool is full, it is compacted if
+     * at least half of it is unused, and grown by half otherwise.
+     *
+     * @param length number of slots the base path takes in the pool
+     * @return reference to the base path in the pool
+     */
+    private long appendToPool(int[] path, int length) {
+        if (poolSize + length > getPoolLength()) {
+            if (numUnusedPoolSlots >= poolSize / 2) {
+                compactPool(length);
+            }
+            if (poolSize + length > getPoolLength()) {
+                resizePool(Math.max(poolSize + length, getPoolLength() + getPoolLength() / 2));
+            }
+        }
+        writeToPool(path, length, poolSize);
+        poolSize += length;
+        return packPathRef(poolSize - length, length);
+    }
+
+    /**
+     * Copies the base paths that are in use into a new pool, ordered by region, to release the slots that changed base
+     * paths no longer use. The pool is also compacted by itself when it is full and at least half of it is unused.
+     */
+    public void compactPool() {
+        compactPool(0);
+    }
+
+    /**
+     * Copies the base paths that are in use into a new pool, ordered by region, leaving room for at least
+     * minFreeCapacity more ints
+     */
+    private void compactPool(int minFreeCapacity) {
+        Object oldPool = getPool();
+        int numSlots = poolSize - numUnusedPoolSlots;
 
-            // Remove node from the queue
-            nodes[minLoc] = nodes[--count];
-            visited[neighbourLoc] = true;
+        allocatePool(Math.max(getLaidOutPoolCapacity(numSlots), numSlots + minFreeCapacity));
 
-            // Process all neighbours of the node
-            for (int i = 0; i < neighbours[neighbourLoc].length; i++) {
-                int nextNeighbourLoc = neighbours[neighbourLoc][i];
-                if (!visited[nextNeighbourLoc]) {
-                    int dist = lowestCost[neighbourLoc][i] + distance[neighbourLoc];
-                    if (dist < distance[nextNeighbourLoc]) {
-                        distance[nextNeighbourLoc] = dist;
-                        previous[nextNeighbourLoc] = neighbourLoc;
-                    }
-                    // TODO: Improve efficiency. Only add node if not currently on list. Do so by searching for it.
-                    boolean found = false;
-                    for (int j = 0; j < count; j++) {
-                        if (nodes[j] == nextNeighbourLoc) {
-                            found = true;
-                            break;
-                        }
-                    }
+        for (long[] regionPathRefs : pathRefs) {
+            if (regionPathRefs == null) continue;
 
-                    if (!found) {
-                        nodes[count++] = nextNeighbourLoc;
-                    }
-                }
+            for (int i = 0; i < regionPathRefs.length; i++) {
+                regionPathRefs[i] = copyIntoPool(oldPool, regionPathRefs[i]);
             }
         }
+    }
 
-        // TODO: Add comments and simplify
-        // Print path
-        count = 0;
-        int currentLoc = goalGroupLoc;
+    /**
+     * Appends a base path from another pool of the same path encoding to the end of the pool, which must have room for
+     * it
+     *
+     * @return reference to the base path in the pool
+     */
+    private long copyIntoPool(Object sourcePool, long pathRef) {
+        if (!isStoredPath(pathRef)) return pathRef;
 
-        // Backtrack from goalGroupId to startGroupId
-        while (currentLoc != startGroupLoc) {
-            if (count >= distance.length) {
-                return 0;
-            }
-            distance[count++] = currentLoc;
-            currentLoc = previous[currentLoc];
+        int length = getPathLength(pathRef);
+        System.arraycopy(sourcePool, getPathOffset(pathRef), getPool(), poolSize, length);
+        poolSize += length;
+        return packPathRef(poolSize - length, length);
+    }
+
+    /**
+     * Sets how base paths are stored in the pool, and converts the base paths already in it.
+     * <p>
+     * RAW_PATHS stores every subgoal as its state id. DELTA_ENCODED_PATHS stores every subgoal as the change in row and
+     * column from the subgoal before it, each zig-zag encoded into a varint. Subgoals on a base path are close to each
+     * other, so most of them take 2 bytes rather than 4. The first subgoal is stored relative to the representative the
+     * region had when its base paths were encoded, which is kept for every region, as the representative of a region can
+     * change while its base paths are kept (see recomputeCornerBlocker). Encoded base paths are decoded while getRecord
+     * combines them.
+     *
+     * @param pathEncoding RAW_PATHS or DELTA_ENCODED_PATHS
+     * @param numCols      number of columns of the map
+     */
+    public void setPathEncoding(int pathEncoding, int numCols) {
+        if (pathEncoding != RAW_PATHS && pathEncoding != DELTA_ENCODED_PATHS) {
+            throw new IllegalArgumentException("Unknown path encoding " + pathEncoding);
+        }
+        if (numCols <= 0) {
+            throw new IllegalArgumentException("Number of columns must be positive");
         }
-        distance[count++] = startGroupLoc; // Reverse path is in distance array
 
-        // Now produce the actual path
-        int pathLen = 0;
+        int[][][] pathSubgoals = getPathSubgoals();
+        long numSubgoals = 0;
+        for (long[] regionPathRefs : pathRefs) {
+            if (regionPathRefs == null) continue;
 
-        // Add first segment of the path
-        // nextId is group id. nextLoc is location of that id in adjacency list (array)
-        int nextId = distance[count - 2], lastId = startGroupLoc;
-        int nextLoc = findInArray(neighbours[lastId], nextId);
+            for (int i = 0; i < regionPathRefs.length; i++) {
+                if (!isStoredPath(regionPathRefs[i])) continue;
+                numSubgoals += getNumStoredSubgoals(regionPathRefs[i]);
+                // Cleared first, so that compacting the pool while appending does not copy from the old pool
+                regionPathRefs[i] = NO_PATH;
+            }
+        }
 
-        if (nextLoc == -1) {
-            return 0;
+        this.pathEncoding = pathEncoding;
+        this.numCols = numCols;
+        if (pathEncoding == RAW_PATHS) {
+            pathBases = null;
+        } else {
+            // The first subgoal of a base path is the representative its region had when the base path was computed
+            pathBases = new int[pathRefs.length];
+            for (int groupLoc = 0; groupLoc < pathRefs.length; groupLoc++) {
+                if (pathSubgoals[groupLoc] == null) continue;
+
+                for (int[] path : pathSubgoals[groupLoc]) {
+                    if (path != null) {
+                        pathBases[groupLoc] = path[0];
+                        break;
+                    }
+                }
+            }
         }
+        // Most encoded subgoals take 2 bytes
+        allocatePool(getLaidOutPoolCapacity((int) Math.min(Integer.MAX_VALUE, pathEncoding == RAW_PATHS ? numSubgoals : 2 * numSubgoals)));
 
-        // Copy (but do not include duplicate start node - start from 1 instead of 0).
-        System.arraycopy(pathSubgoals[lastId][nextLoc], 0, path, 0, pathSubgoals[lastId][nextLoc].length);
-        pathLen += pathSubgoals[lastId][nextLoc].length;
-        lastId = nextId;
+        for (int groupLoc = 0; groupLoc < pathRefs.length; groupLoc++) {
+            if (pathRefs[groupLoc] == null) continue;
 
-        for (int i = count - 3; i >= 0; i--) {
-            nextId = distance[i];
-            nextLoc = findInArray(neighbours[lastId], nextId);
-            // Copy (but do not include duplicate start node - start from 1 instead of 0).
-            if (nextLoc < 0) { // if nextLoc < 0, path cannot be found
-                return 0;
+            for (int i = 0; i < pathRefs[groupLoc].length; i++) {
+                int[] path = pathSubgoals[groupLoc][i];
+                // Edges that read the base path of the opposite edge were not cleared, and keep doing so
+                if (path != null && pathRefs[groupLoc][i] != REVERSED_PATH) {
+                    pathRefs[groupLoc][i] = appendToPool(path, prepareForPool(groupLoc, path));
+                }
             }
-            if (pathSubgoals[lastId][nextLoc].length >= 1)
-                System.arraycopy(pathSubgoals[lastId][nextLoc], 1, path, pathLen - 1 + 1, pathSubgoals[lastId][nextLoc].length - 1);
-            pathLen += pathSubgoals[lastId][nextLoc].length - 1;
-            lastId = nextId;
         }
-        return pathLen;
     }
 
-    public void computeBasePaths(Map<Integer, Region> regionHashMap, boolean asSubgoals, SearchStats searchStats, CompressAStar compressAStar, HillClimbingWithClosedSet hc) {
-        numGroups = regionHashMap.size();
+    public int getPathEncoding() {
+        return pathEncoding;
+    }
 
-        int arraySize = (int) Math.ceil(numGroups * 1.1);
-        neighbours = new int[arraySize][];
-        lowestCost = new int[arraySize][];
-        pathSubgoals = new int[arraySize][][];
+    /**
+     * Encodes a base path of a region into encodeBuffer
+     *
+     * @return number of bytes of the encoded base path
+     */
+    private int encodePath(int groupLoc, int[] path) {
+        if (encodeBuffer.length < 2 * MAX_VARINT_BYTES * path.length) {
+            encodeBuffer = new byte[2 * MAX_VARINT_BYTES * path.length];
+        }
 
-        Region startRegion, goalRegion;
-        int startGroupLoc, goalGroupLoc;
-        Set<Integer> neighbourIds;
+        int position = 0;
+        int lastRow = pathBases[groupLoc] / numCols, lastCol = pathBases[groupLoc] % numCols;
+        for (int stateId : path) {
+            int row = stateId / numCols;
+            int col = stateId % numCols;
+            position = writeVarint(encodeBuffer, position, (row - lastRow) << 1 ^ (row - lastRow) >> 31);
+            position = writeVarint(encodeBuffer, position, (col - lastCol) << 1 ^ (col - lastCol) >> 31);
+            lastRow = row;
+            lastCol = col;
+        }
+        return position;
+    }
 
-        List<SearchState> path;
+    /**
+     * Writes a value as a varint, 7 bits per byte starting with the lowest ones, and the highest bit of every byte but
+     * the last one set
+     *
+     * @return position after the varint
+     */
+    private static int writeVarint(byte[] buffer, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
 
-        int totalPathLength = 0, totalPathCost = 0;
-        long timeToFindAStarPathsOffline = 0, timeToPerformHCCompression = 0;
-        long start;
+    /**
+     * Decodes an encoded base path of a region into dest. Almost every varint of a base path is a single byte, so that
+     * case is checked first.
+     *
+     * @return number of subgoals of the base path
+     */
+    private int decodePath(int groupLoc, long pathRef, int[] dest, int destPos) {
+        byte[] pool = encodedPool;
+        int position = getPathOffset(pathRef);
+        int end = position + getPathLength(pathRef);
+
+        int row = pathBases[groupLoc] / numCols, col = pathBases[groupLoc] % numCols;
+        int numSubgoals = 0;
+        while (position < end) {
+            int value = pool[position++];
+            if (value < 0) {
+                value &= 0x7F;
+                for (int shift = 7; ; shift += 7) {
+                    int b = pool[position++];
+                    value |= (b & 0x7F) << shift;
+                    if (b >= 0) break;
+                }
+            }
+            row += value >>> 1 ^ -(value & 1);
+
+            value = pool[position++];
+            if (value < 0) {
+                value &= 0x7F;
+                for (int shift = 7; ; shift += 7) {
+                    int b = pool[position++];
+                    value |= (b & 0x7F) << shift;
+                    if (b >= 0) break;
+                }
+            }
+            col += value >>> 1 ^ -(value & 1);
 
-        for (int i = 0; i < numGroups; i++) {
-            startRegion = regionHashMap.get(i + START_NUM);
-            startGroupLoc = i;
+            dest[destPos + numSubgoals++] = row * numCols + col;
+        }
+        return numSubgoals;
+    }
 
-            // TODO: Support deeper neighbourhood levels, currently only considering direct neighbours
-            neighbourIds = startRegion.getNeighborIds();
+    /**
+     * Copies the base path of an edge into dest, decoding it if it is encoded, and reversing it if the edge reads the
+     * base path of the opposite edge
+     *
+     * @param index position of the edge in the neighbours of the region, the edge must have a base path
+     * @return number of subgoals of the base path
+     */
+    int readPath(int groupLoc, int index, int[] dest, int destPos) {
+        long pathRef = pathRefs[groupLoc][index];
+        if (pathRef != REVERSED_PATH) {
+            return readStoredPath(groupLoc, pathRef, dest, destPos);
+        }
 
-            int numNeighbours = neighbourIds.size();
-            neighbours[startGroupLoc] = new int[numNeighbours];
-            lowestCost[startGroupLoc] = new int[numNeighbours];
-            pathSubgoals[startGroupLoc] = new int[numNeighbours][];
+        int neighbourLoc = neighbours[groupLoc][index];
+        long oppositePathRef = pathRefs[neighbourLoc][findInArray(neighbours[neighbourLoc], groupLoc)];
+        int numSubgoals = readStoredPath(neighbourLoc, oppositePathRef, dest, destPos);
+        for (int i = destPos, j = destPos + numSubgoals - 1; i < j; i++, j--) {
+            int subgoal = dest[i];
+            dest[i] = dest[j];
+            dest[j] = subgoal;
+        }
+        return numSubgoals;
+    }
 
-            int count = 0;
-            for (int neighbourId : neighbourIds) {
-                goalRegion = regionHashMap.get(neighbourId);
-                goalGroupLoc = neighbourId - START_NUM;
+    /**
+     * Copies a base path of a region from the pool into dest, decoding it if it is encoded
+     *
+     * @return number of subgoals of the base path
+     */
+    private int readStoredPath(int groupLoc, long pathRef, int[] dest, int destPos) {
+        if (pathEncoding == RAW_PATHS) {
+            System.arraycopy(subgoalPool, getPathOffset(pathRef), dest, destPos, getPathLength(pathRef));
+            return getPathLength(pathRef);
+        }
+        return decodePath(groupLoc, pathRef, dest, destPos);
+    }
 
-                int startRegionRep = startRegion.getRegionRepresentative();
-                int goalRegionRep = goalRegion.getRegionRepresentative();
+    /**
+     * @param index position of the edge in the neighbours of the region, the edge must have a base path
+     * @return number of subgoals of the base path of an edge
+     */
+    int getNumSubgoals(int groupLoc, int index) {
+        long pathRef = pathRefs[groupLoc][index];
+        if (pathRef != REVERSED_PATH) {
+            return getNumStoredSubgoals(pathRef);
+        }
 
-                start = System.nanoTime();
-                path = compressAStar.findPath(new SearchState(startRegionRep), new SearchState(goalRegionRep), searchStats);
-                timeToFindAStarPathsOffline += System.nanoTime() - start;
+        int neighbourLoc = neighbours[groupLoc][index];
+        return getNumStoredSubgoals(pathRefs[neighbourLoc][findInArray(neighbours[neighbourLoc], groupLoc)]);
+    }
 
-                totalPathLength += path.size();
-                int pathCost = findPathCost(path, compressAStar.getSearchProblem());
-                totalPathCost += pathCost;
+    /**
+     * @return number of subgoals of a base path in the pool, an encoded one has two varints per subgoal, and every varint
+     * ends with a byte that does not have its highest bit set
+     */
+    private int getNumStoredSubgoals(long pathRef) {
+        if (pathEncoding == RAW_PATHS) {
+            return getPathLength(pathRef);
+        }
 
-                neighbours[startGroupLoc][count] = goalGroupLoc;
-                lowestCost[startGroupLoc][count] = pathCost;
+        int numVarints = 0;
+        for (int position = getPathOffset(pathRef); position < getPathOffset(pathRef) + getPathLength(pathRef); position++) {
+            if (encodedPool[position] >= 0) numVarints++;
+        }
+        return numVarints / 2;
+    }
 
-                if (asSubgoals) {
-                    // Compress path using hill climbing
-                    start = System.nanoTime();
-                    pathSubgoals[startGroupLoc][count] = findOptimallyCompressedPath(path, hc, compressAStar, searchStats);
-                    timeToPerformHCCompression += System.nanoTime() - start;
+    /**
+     * @param index position of the edge in the neighbours of the region
+     * @return copy of the base path of an edge, or null if the edge has no base path (or none yet)
+     */
+    private int[] getPath(int groupLoc, int index) {
+        if (pathRefs[groupLoc][index] == NO_PATH || pathRefs[groupLoc][index] == UNCOMPUTED_PATH) return null;
 
-                    if (pathSubgoals[startGroupLoc][count].length > 2) {
-                        searchStats.incrementNumberOfSubgoals(pathSubgoals[startGroupLoc][count].length - 2);
-                        searchStats.incrementNumberOfPathsThatHaveSubgoals(1);
-                    }
-                } else {
-                    // Store full A* id path
-                    pathSubgoals[startGroupLoc][count] = getIdPath(path);
-                }
+        int[] path = new int[getNumSubgoals(groupLoc, index)];
+        readPath(groupLoc, index, path, 0);
+        return path;
+    }
 
-                searchStats.incrementNumPaths(1);
-                count++;
-            }
-        }
+    /**
+     * Sets the state that the first subgoal of every encoded base path of a region is relative to, to the current
+     * representative of the region. Must only be called while the region has no base paths.
+     */
+    private void resetPathBase(int groupLoc) {
+        if (pathBases == null) return;
 
-        searchStats.setPathLength(totalPathLength);
-        searchStats.setTimeToFindAStarPathsOffline(timeToFindAStarPathsOffline);
-        searchStats.setTimeToPerformHCCompression(timeToPerformHCCompression);
+        pathBases[groupLoc] = groupLoc < regionGraph.getCapacity() ? Math.max(regionGraph.getRep(groupLoc), 0) : 0;
     }
 
     public static int[] getIdPath(List<SearchState> path) {
@@ -295,10 +1328,11 @@ public class SubgoalDB {
                 }
                 out.println();
                 for (int j = 0; j < numNeighbours; j++) {
-                    int pathLength = pathSubgoals[i][j].length;
+                    int[] path = getPath(i, j);
+                    int pathLength = path.length;
                     out.print(pathLength + "\t");
                     for (int k = 0; k < pathLength; k++) {
-                        out.print("\t" + pathSubgoals[i][j][k]);
+                        out.print("\t" + path[k]);
                     }
                     out.println();
                 }
@@ -322,6 +1356,7 @@ public class SubgoalDB {
         for (int i = 0; i < this.neighbours[groupLoc].length; i++) {
             // Grab location of neighbour
             int neighbourLoc = this.neighbours[groupLoc][i];
+            recordCache.invalidateEdge(groupLoc, neighbourLoc);
             // Iterate over neighbours of neighbour to find region to eliminate
             int indexOfRegionToEliminate = -1;
             for (int j = 0; j < this.neighbours[neighbourLoc].length; j++) {
@@ -335,13 +1370,15 @@ public class SubgoalDB {
                 // Copying into smaller arrays here
                 this.neighbours[neighbourLoc] = copyArrayExceptIndex(this.neighbours[neighbourLoc], indexOfRegionToEliminate);
                 this.lowestCost[neighbourLoc] = copyArrayExceptIndex(this.lowestCost[neighbourLoc], indexOfRegionToEliminate);
-                this.pathSubgoals[neighbourLoc] = copyArrayExceptIndex(this.pathSubgoals[neighbourLoc], indexOfRegionToEliminate);
+                freePath(this.pathRefs[neighbourLoc][indexOfRegionToEliminate]);
+                this.pathRefs[neighbourLoc] = copyArrayExceptIndex(this.pathRefs[neighbourLoc], indexOfRegionToEliminate);
             }
         }
 
         // Tombstone eliminated region
+        freePaths(groupLoc);
         this.neighbours[groupLoc] = null;
-        this.pathSubgoals[groupLoc] = null;
+        this.pathRefs[groupLoc] = null;
         this.lowestCost[groupLoc] = null;
     }
 
@@ -366,8 +1403,8 @@ public class SubgoalDB {
      * @param index index to exclude while copying
      * @return array of arr.length - 1 without the element at index
      */
-    private static int[][] copyArrayExceptIndex(int[][] arr, int index) {
-        int[][] newArr = new int[arr.length - 1][];
+    private static long[] copyArrayExceptIndex(long[] arr, int index) {
+        long[] newArr = new long[arr.length - 1];
         int newIndex = 0;
         for (int i = 0; i < arr.length; i++) {
             if (i != index) {
@@ -383,6 +1420,7 @@ public class SubgoalDB {
         // Grab location of region and neighbour
         int groupLoc = regionId - START_NUM;
         int neighbourLoc = neighbourId - START_NUM;
+        recordCache.invalidateEdge(groupLoc, neighbourLoc);
 
         // Update region’s neighbourhood
         int indexOfNeighborLoc = -1;
@@ -398,7 +1436,8 @@ public class SubgoalDB {
         if (indexOfNeighborLoc != -1) {
             this.neighbours[groupLoc] = copyArrayExceptIndex(this.neighbours[groupLoc], indexOfNeighborLoc);
             this.lowestCost[groupLoc] = copyArrayExceptIndex(this.lowestCost[groupLoc], indexOfNeighborLoc);
-            this.pathSubgoals[groupLoc] = copyArrayExceptIndex(this.pathSubgoals[groupLoc], indexOfNeighborLoc);
+            freePath(this.pathRefs[groupLoc][indexOfNeighborLoc]);
+            this.pathRefs[groupLoc] = copyArrayExceptIndex(this.pathRefs[groupLoc], indexOfNeighborLoc);
         }
 
         int indexOfGroupLoc = -1;
@@ -413,106 +1452,356 @@ public class SubgoalDB {
         if (indexOfGroupLoc != -1) {
             this.neighbours[neighbourLoc] = copyArrayExceptIndex(this.neighbours[neighbourLoc], indexOfGroupLoc);
             this.lowestCost[neighbourLoc] = copyArrayExceptIndex(this.lowestCost[neighbourLoc], indexOfGroupLoc);
-            this.pathSubgoals[neighbourLoc] = copyArrayExceptIndex(this.pathSubgoals[neighbourLoc], indexOfGroupLoc);
+            freePath(this.pathRefs[neighbourLoc][indexOfGroupLoc]);
+            this.pathRefs[neighbourLoc] = copyArrayExceptIndex(this.pathRefs[neighbourLoc], indexOfGroupLoc);
         }
     }
 
-    public void recomputeBasePaths(int regionId, Map<Integer, Region> regions, CompressAStar compressAStar, HillClimbingWithClosedSet hc, SearchStats searchStats) {
+    public void recomputeBasePaths(int regionId, RegionGraph regionGraph, CompressAStar compressAStar, HillClimbingWithClosedSet hc, SearchStats searchStats) {
+        regionGraph.update();
+
         // This is for all cases where the paths change but the neighbourhood does not:
         // E.g. wall on region rep, wall that moves region rep, wall that changes shortest path
 
         // Find array location of region
         int groupLoc = regionId - START_NUM;
-        List<SearchState> path;
 
         // Update region’s paths to its neighbours (and their costs)
         // Update the region’s neighbours paths to it (and their costs)
         for (int i = 0; i < this.neighbours[groupLoc].length; i++) {
-            // Grab location of neighbour
-            int neighbourLoc = this.neighbours[groupLoc][i];
+            recomputeBasePath(groupLoc, i, regionGraph, compressAStar, hc, searchStats);
+        }
+    }
+
+    /**
+     * Searches the base path of an edge, and of its opposite edge, again
+     */
+    private void recomputeBasePath(int groupLoc, int i, RegionGraph regionGraph, CompressAStar compressAStar, HillClimbingWithClosedSet hc, SearchStats searchStats) {
+        // Grab location of neighbour
+        int neighbourLoc = this.neighbours[groupLoc][i];
 
-            int startRegionRep = regions.get(regionId).getRegionRepresentative();
-            int goalRegionRep = regions.get(neighbourLoc + START_NUM).getRegionRepresentative();
+        int startRegionRep = regionGraph.getRep(groupLoc);
+        int goalRegionRep = regionGraph.getRep(neighbourLoc);
 
-            path = compressAStar.findPath(new SearchState(startRegionRep), new SearchState(goalRegionRep), searchStats);
-            int pathCost = path == null ? Integer.MAX_VALUE : findPathCost(path, compressAStar.getSearchProblem());
+        List<SearchState> path = compressAStar.findPath(new SearchState(startRegionRep), new SearchState(goalRegionRep), searchStats);
+        int pathCost = path == null ? Integer.MAX_VALUE : findPathCost(path, compressAStar.getSearchProblem());
 
-            // Update lowestCost of region
-            this.lowestCost[groupLoc][i] = pathCost;
-            // Update path to region
+        invalidateCachedRecords(groupLoc, neighbourLoc, this.lowestCost[groupLoc][i], pathCost);
+        // Update lowestCost of region
+        this.lowestCost[groupLoc][i] = pathCost;
+
+        if (symmetric) {
+            int indexToUpdate = findInArray(this.neighbours[neighbourLoc], groupLoc);
+            if (indexToUpdate != -1) {
+                this.lowestCost[neighbourLoc][indexToUpdate] = pathCost;
+            }
+            setSymmetricPaths(groupLoc, i, pathCost == Integer.MAX_VALUE ? null : path, hc, compressAStar, searchStats);
+            return;
+        }
+
+        // Update path to region
+        if (pathCost == Integer.MAX_VALUE) {
+            setPath(groupLoc, i, null);
+        } else {
+            setPath(groupLoc, i, findOptimallyCompressedPath(path, hc, compressAStar, searchStats));
+        }
+
+        // Need to find correct neighborId to update
+        int indexToUpdate = -1;
+        for (int j = 0; j < this.neighbours[neighbourLoc].length; j++) {
+            if (this.neighbours[neighbourLoc][j] == groupLoc) {
+                indexToUpdate = j;
+                break;
+            }
+        }
 
+        // If the region to update was not stored as a neighbour of its neighbour
+        if (indexToUpdate != -1) {
+            // Update lowestCost of neighbour
+            this.lowestCost[neighbourLoc][indexToUpdate] = pathCost;
+            // Update path to neighbour
             if (pathCost == Integer.MAX_VALUE) {
-                this.pathSubgoals[groupLoc][i] = null;
+                setPath(groupLoc, i, null);
             } else {
-                this.pathSubgoals[groupLoc][i] = findOptimallyCompressedPath(path, hc, compressAStar, searchStats);
+                path = new ArrayList<>(path.reversed());
+                setPath(neighbourLoc, indexToUpdate, findOptimallyCompressedPath(path, hc, compressAStar, searchStats));
             }
+        }
+    }
 
-            // Need to find correct neighborId to update
-            int indexToUpdate = -1;
-            for (int j = 0; j < this.neighbours[neighbourLoc].length; j++) {
-                if (this.neighbours[neighbourLoc][j] == groupLoc) {
-                    indexToUpdate = j;
-                    break;
+    /**
+     * Repairs the base paths after a wall was added that did not change the neighbourhood of any region. Only the base
+     * paths that the wall blocks are searched again, which basePathIndex finds, rather than all base paths of the region
+     * the wall is in, so a wall that no base path passes through costs next to nothing. This includes base paths of
+     * other regions, which may pass through the region too. A wall that moves the representative of its region is
+     * handled by recomputeBasePaths first.
+     * <p>
+     * The index is built on the first call. The base paths that changed since the last call are indexed again first,
+     * on the map with the new wall, so a base path that the wall blocks is found because hill-climbing along it no longer
+     * reaches its end at its lowest cost, rather than by the index.
+     *
+     * @param wallId state where the wall was added
+     */
+    public void recomputeBasePathsThroughWall(int wallId, GameMap gameMap, RegionGraph regionGraph, CompressAStar compressAStar, HillClimbingWithClosedSet hc, SearchStats searchStats) {
+        regionGraph.update();
+
+        // Stale entries are dropped by building the index again, which indexes every base path
+        boolean build = basePathIndex == null || basePathIndex.getNumEntries() > 2 * numIndexEntriesAfterBuild + MIN_INDEX_SLACK;
+        if (build) {
+            basePathIndex = new BasePathIndex(gameMap);
+            unindexedGroups.clear();
+            for (int groupLoc = 0; groupLoc < this.neighbours.length; groupLoc++) {
+                if (this.neighbours[groupLoc] != null) {
+                    unindexedGroups.set(groupLoc);
                 }
             }
+        }
 
-            // If the region to update was not stored as a neighbour of its neighbour
-            if (indexToUpdate != -1) {
-                // Update lowestCost of neighbour
-                this.lowestCost[neighbourLoc][indexToUpdate] = pathCost;
-                // Update path to neighbour
-                if (pathCost == Integer.MAX_VALUE) {
-                    this.pathSubgoals[groupLoc][i] = null;
-                } else {
-                    path = new ArrayList<>(path.reversed());
-                    this.pathSubgoals[neighbourLoc][indexToUpdate] = findOptimallyCompressedPath(path, hc, compressAStar, searchStats);
+        // Edges whose base paths the wall blocks, the ones indexed again here are checked by indexBasePath
+        List<Long> blockedEdges = new ArrayList<>();
+        BitSet indexedGroups = (BitSet) unindexedGroups.clone();
+        for (int groupLoc = unindexedGroups.nextSetBit(0); groupLoc != -1; groupLoc = unindexedGroups.nextSetBit(groupLoc + 1)) {
+            if (groupLoc >= this.neighbours.length || this.neighbours[groupLoc] == null) continue;
+
+            for (int i = 0; i < this.neighbours[groupLoc].length; i++) {
+                if (!indexBasePath(groupLoc, i, regionGraph, compressAStar.getSearchProblem(), hc, searchStats)) {
+                    blockedEdges.add(BasePathIndex.packEdge(groupLoc, this.neighbours[groupLoc][i]));
                 }
             }
         }
+        unindexedGroups.clear();
+        if (build) {
+            numIndexEntriesAfterBuild = basePathIndex.getNumEntries();
+        }
+
+        // Entries under the wall of base paths that were just indexed again are stale
+        for (long edge : basePathIndex.removeEdgesThrough(wallId)) {
+            if (!indexedGroups.get(BasePathIndex.getGroupLoc(edge))) {
+                blockedEdges.add(edge);
+            }
+        }
+
+        // An edge is searched again together with its opposite edge, so each pair of regions is searched once
+        Set<Long> searchedEdges = new HashSet<>();
+        for (long edge : blockedEdges) {
+            int groupLoc = BasePathIndex.getGroupLoc(edge);
+            int neighbourLoc = BasePathIndex.getNeighbourLoc(edge);
+            if (!searchedEdges.add(edge) || groupLoc >= this.neighbours.length || this.neighbours[groupLoc] == null) continue;
+
+            // The regions may no longer be neighbours, or the neighbour may have been eliminated without the region
+            // being told, if it was not stored as a neighbour of its neighbour
+            int i = findInArray(this.neighbours[groupLoc], neighbourLoc);
+            if (i == -1 || !regionGraph.containsRegion(groupLoc) || !regionGraph.containsRegion(neighbourLoc)) continue;
+
+            searchedEdges.add(BasePathIndex.packEdge(neighbourLoc, groupLoc));
+            recomputeBasePath(groupLoc, i, regionGraph, compressAStar, hc, searchStats);
+        }
+    }
+
+    /**
+     * Makes the base paths that pass next to a wall that was removed be indexed again, as hill-climbing along them may
+     * now move through the state of the wall
+     *
+     * @param wallId state where the wall was removed
+     */
+    public void reindexBasePathsAroundWall(int wallId) {
+        if (basePathIndex == null) return;
+
+        for (long edge : basePathIndex.findEdgesAround(wallId)) {
+            markUnindexed(BasePathIndex.getGroupLoc(edge));
+        }
+    }
+
+    /**
+     * Adds the path an agent follows along the base path of an edge to basePathIndex, if hill-climbing between its
+     * subgoals still reaches its end at the lowest cost of the edge on the current map
+     *
+     * @return false if the base path is not between the representatives of the regions or hill-climbing along it costs
+     * more than the lowest cost of the edge, true otherwise, including for edges without a base path
+     */
+    private boolean indexBasePath(int groupLoc, int index, RegionGraph regionGraph, SearchProblem searchProblem, HillClimbingWithClosedSet hc, SearchStats searchStats) {
+        int[] path = getPath(groupLoc, index);
+        if (path == null) {
+            return true;
+        }
+        if (path[0] != regionGraph.getRep(groupLoc) || path[path.length - 1] != regionGraph.getRep(this.neighbours[groupLoc][index])) {
+            return false;
+        }
+
+        int lowestCost = this.lowestCost[groupLoc][index];
+        if (indexPath.length < lowestCost / SearchProblem.EDGE_COST_CARDINAL + 1) {
+            indexPath = new int[Math.max(lowestCost / SearchProblem.EDGE_COST_CARDINAL + 1, 2 * indexPath.length)];
+        }
+
+        int numStates = 1, cost = 0;
+        indexPath[0] = path[0];
+        for (int i = 1; i < path.length; i++) {
+            int segmentStart = numStates;
+            numStates = hc.findIdPathWithin(path[i - 1], path[i], lowestCost - cost, indexPath, numStates, searchStats);
+            if (numStates == -1) {
+                return false;
+            }
+            for (int j = segmentStart; j < numStates; j++) {
+                cost += searchProblem.getMoveCost(indexPath[j - 1], indexPath[j]);
+            }
+        }
+        if (cost != lowestCost) {
+            return false;
+        }
+
+        basePathIndex.add(BasePathIndex.packEdge(groupLoc, this.neighbours[groupLoc][index]), indexPath, numStates);
+        return true;
+    }
+
+    /**
+     * Marks the base paths of a region to be indexed again, once basePathIndex is built
+     */
+    private void markUnindexed(int groupLoc) {
+        if (basePathIndex != null) {
+            unindexedGroups.set(groupLoc);
+        }
     }
 
-    public void recomputeBasePathsAfterPartition(Map<Integer, Region> regions, Set<Integer> neighborIds, CompressAStar compressAStar, HillClimbingWithClosedSet hc, SearchStats searchStats) {
+    /**
+     * Repairs the base paths of the regions a region was partitioned into (or regions were merged into) and of the
+     * regions around them. A base path between two regions that are still neighbours is kept if the representatives of
+     * both regions did not move and the wall change cannot have made it worse or another path better (see
+     * isStillOptimal). Only the other edges are searched again.
+     *
+     * @param wallId    state where the wall was added or removed
+     * @param wallAdded whether the wall was added rather than removed
+     */
+    public void recomputeBasePathsAfterPartition(RegionGraph regionGraph, Set<Integer> neighborIds, int wallId, boolean wallAdded, CompressAStar compressAStar, HillClimbingWithClosedSet hc, SearchStats searchStats) {
+        regionGraph.update();
+
         // This is the partition case, where adding a wall leads to the splitting of a region into two or more smaller regions
         List<SearchState> path;
 
+        // The new regions have edges that did not exist before, any cached record may no longer be the lowest cost one
+        recordCache.clear();
+
         // freeSpace has already been updated in DBAStarUtil (needed the information for map updates)
 
         // regionIds contains the ids of all the regions the original region was split into after the partition
-        // Use those to overwrite the neighborId arrays of the regions
+        // Get neighbours of the new/surrounding regions (updated in map.recomputeNeighbors), and find which of the base
+        // paths the regions had before can be kept
+        Map<Integer, int[]> newNeighbours = new HashMap<>();
+        Map<Integer, boolean[]> keptPaths = new HashMap<>();
         for (Integer id : neighborIds) {
-            // Need to update neighborhoods of all the new regions
             int groupLoc = id - START_NUM;
 
-            // Get neighbours of the new/surrounding regions (updated in map.recomputeNeighbors)
-            Set<Integer> neighbours = regions.get(id).getNeighborIds();
-            // Create an int array with the same size as the HashSet
-            int[] neighbourArray = new int[neighbours.size()];
+            int numNeighbours = regionGraph.getDegree(groupLoc);
+            int offset = regionGraph.getOffset(groupLoc);
+            int[] neighbourArray = new int[numNeighbours];
+
+            for (int index = 0; index < numNeighbours; index++) {
+                neighbourArray[index] = regionGraph.getTarget(offset + index);
+            }
+            newNeighbours.put(groupLoc, neighbourArray);
+
+            // A new region has no base paths yet
+            if (groupLoc >= this.neighbours.length || this.neighbours[groupLoc] == null) continue;
+
+            boolean[] kept = new boolean[this.neighbours[groupLoc].length];
+            for (int i = 0; i < kept.length; i++) {
+                kept[i] = findInArray(neighbourArray, this.neighbours[groupLoc][i]) != -1 && isStillOptimal(groupLoc, i, wallId, wallAdded, regionGraph, compressAStar.getSearchProblem(), hc, searchStats);
+            }
+            keptPaths.put(groupLoc, kept);
+        }
+
+        // With symmetric storage, the two edges between regions are kept or searched again together, as one of them may
+        // read the base path of the other
+        if (symmetric) {
+            for (Map.Entry<Integer, boolean[]> entry : keptPaths.entrySet()) {
+                int groupLoc = entry.getKey();
+                boolean[] kept = entry.getValue();
+                for (int i = 0; i < kept.length; i++) {
+                    int neighbourLoc = this.neighbours[groupLoc][i];
+                    boolean[] neighbourKept = keptPaths.get(neighbourLoc);
+                    int oppositeIndex = neighbourKept == null ? -1 : findInArray(this.neighbours[neighbourLoc], groupLoc);
+                    if (oppositeIndex != -1 && kept[i] != neighbourKept[oppositeIndex]) {
+                        kept[i] = false;
+                        neighbourKept[oppositeIndex] = false;
+                    }
+                }
+            }
+        }
+
+        // Free the base paths that are not kept, while the regions still have their old neighbours, which the base paths
+        // are for. Edges that read a base path reversed are cleared first, so that it is not detached for them
+        for (Map.Entry<Integer, boolean[]> entry : keptPaths.entrySet()) {
+            long[] regionPathRefs = this.pathRefs[entry.getKey()];
+            for (int i = 0; i < regionPathRefs.length; i++) {
+                if (!entry.getValue()[i] && regionPathRefs[i] == REVERSED_PATH) {
+                    regionPathRefs[i] = NO_PATH;
+                }
+            }
+        }
+        for (Map.Entry<Integer, boolean[]> entry : keptPaths.entrySet()) {
+            int groupLoc = entry.getKey();
+            for (int i = 0; i < this.pathRefs[groupLoc].length; i++) {
+                if (!entry.getValue()[i] && isStoredPath(this.pathRefs[groupLoc][i])) {
+                    detachReversedPath(groupLoc, i);
+                    freePath(this.pathRefs[groupLoc][i]);
+                    this.pathRefs[groupLoc][i] = NO_PATH;
+                }
+            }
+        }
 
-            // Iterate through the HashSet and copy its elements to the array
-            int index = 0;
-            for (Integer neighbour : neighbours) {
-                neighbourArray[index++] = neighbour - START_NUM;
+        // Overwrite the neighbourId arrays of the regions, and move the kept base paths and their costs along
+        Map<Integer, boolean[]> searchedEdges = new HashMap<>();
+        for (Integer id : neighborIds) {
+            int groupLoc = id - START_NUM;
+            ensureCapacity(groupLoc);
+
+            int[] neighbourArray = newNeighbours.get(groupLoc);
+            int[] newLowestCost = new int[neighbourArray.length];
+            long[] newPathRefs = newPathRefs(neighbourArray.length);
+            boolean[] searched = new boolean[neighbourArray.length];
+            Arrays.fill(searched, true);
+
+            boolean[] kept = keptPaths.get(groupLoc);
+            boolean keepsPaths = false;
+            for (int index = 0; index < neighbourArray.length; index++) {
+                int oldIndex = kept == null ? -1 : findInArray(this.neighbours[groupLoc], neighbourArray[index]);
+                if (oldIndex != -1 && kept[oldIndex]) {
+                    newLowestCost[index] = this.lowestCost[groupLoc][oldIndex];
+                    newPathRefs[index] = this.pathRefs[groupLoc][oldIndex];
+                    searched[index] = false;
+                    keepsPaths = true;
+                }
             }
 
-            // Overwrite the neighbourId array of the region
             this.neighbours[groupLoc] = neighbourArray;
-            // Create new lowest cost and paths arrays of correct size
-            // FIXME: This is throwing away useful data, find a way to not to
-            // all but the paths to the new regions should be unaffected, so throwing those away and recomputing them is a waste
-            this.lowestCost[groupLoc] = new int[neighbours.size()];
-            this.pathSubgoals[groupLoc] = new int[neighbours.size()][];
+            this.lowestCost[groupLoc] = newLowestCost;
+            this.pathRefs[groupLoc] = newPathRefs;
+            // Hill-climbing along a kept base path may have moved around the wall
+            markUnindexed(groupLoc);
+            // Kept base paths are still encoded relative to the state the region had before
+            if (!keepsPaths) {
+                resetPathBase(groupLoc);
+            }
+            searchedEdges.put(groupLoc, searched);
         }
 
         for (Integer id : neighborIds) {
             // Iterate over neighbours of the region
             int groupLoc = id - START_NUM;
+            boolean[] searched = searchedEdges.get(groupLoc);
 
             for (int i = 0; i < this.neighbours[groupLoc].length; i++) {
+                if (!searched[i]) continue;
+
                 // Grab location of neighbour
                 int neighbourLoc = this.neighbours[groupLoc][i];
 
-                int startRegionRep = regions.get(id).getRegionRepresentative();
-                int goalRegionRep = regions.get(neighbourLoc + START_NUM).getRegionRepresentative();
+                // With symmetric storage, the base paths between two of the regions are set when the lower one is
+                if (symmetric && neighbourLoc < groupLoc && neighborIds.contains(neighbourLoc + START_NUM) && findInArray(this.neighbours[neighbourLoc], groupLoc) != -1) {
+                    continue;
+                }
+
+                int startRegionRep = regionGraph.getRep(groupLoc);
+                int goalRegionRep = regionGraph.getRep(neighbourLoc);
 
                 path = compressAStar.findPath(new SearchState(startRegionRep), new SearchState(goalRegionRep), searchStats);
                 int pathCost = path == null ? Integer.MAX_VALUE : findPathCost(path, compressAStar.getSearchProblem());
@@ -531,16 +1820,54 @@ public class SubgoalDB {
                     // Update lowestCost of neighbour
                     this.lowestCost[neighbourLoc][indexToUpdate] = pathCost;
 
-                    if (pathCost == Integer.MAX_VALUE) {
-                        this.pathSubgoals[groupLoc][i] = null;
+                    if (symmetric) {
+                        setSymmetricPaths(groupLoc, i, pathCost == Integer.MAX_VALUE ? null : path, hc, compressAStar, searchStats);
+                    } else if (pathCost == Integer.MAX_VALUE) {
+                        setPath(groupLoc, i, null);
                     } else {
-                        this.pathSubgoals[groupLoc][i] = findOptimallyCompressedPath(path, hc, compressAStar, searchStats);
+                        setPath(groupLoc, i, findOptimallyCompressedPath(path, hc, compressAStar, searchStats));
                     }
                 }
             }
         }
     }
 
+    /**
+     * Checks whether the base path of an edge is still optimal after a wall change. It must still start and end at the
+     * representatives of the two regions.
+     * <p>
+     * The octile distances from the two ends of a path to any state on it add up to at most the cost of the path, and
+     * hill-climbing between the subgoals of the base path only moves differently next to the wall, so if the wall is
+     * far enough from both ends, the base path is not affected by it, and no path through a removed wall is cheaper.
+     * Otherwise, a base path is still optimal after a wall was added if hill-climbing between its subgoals, which an
+     * agent does to follow it, still costs the lowest cost of the edge, as adding a wall cannot make any path cheaper.
+     */
+    private boolean isStillOptimal(int groupLoc, int index, int wallId, boolean wallAdded, RegionGraph regionGraph, SearchProblem searchProblem, HillClimbingWithClosedSet hc, SearchStats searchStats) {
+        int[] path = getPath(groupLoc, index);
+        if (path == null || path[0] != regionGraph.getRep(groupLoc) || path[path.length - 1] != regionGraph.getRep(this.neighbours[groupLoc][index])) {
+            return false;
+        }
+
+        // States next to the wall are up to one diagonal move closer to either end than the wall
+        int wallDistance = searchProblem.getOctileDistance(path[0], wallId) + searchProblem.getOctileDistance(wallId, path[path.length - 1]);
+        if (wallDistance - 2 * SearchProblem.EDGE_COST_DIAGONAL > this.lowestCost[groupLoc][index]) {
+            return true;
+        }
+        if (!wallAdded) {
+            return false;
+        }
+
+        int cost = 0;
+        for (int i = 1; i < path.length; i++) {
+            int segmentCost = hc.findPathCostWithin(path[i - 1], path[i], this.lowestCost[groupLoc][index] - cost, searchStats);
+            if (segmentCost == -1) {
+                return false;
+            }
+            cost += segmentCost;
+        }
+        return cost == this.lowestCost[groupLoc][index];
+    }
+
     public void recomputeBasePathsIfSolitary(int regionId) {
         // Case where new region has no neighbours (e.g. is surrounded by walls)
 
@@ -548,25 +1875,36 @@ public class SubgoalDB {
 
         // Find array location of region
         int groupLoc = regionId - START_NUM;
+        ensureCapacity(groupLoc);
 
         // Create arrays for new group
+        freePaths(groupLoc);
         this.neighbours[groupLoc] = new int[0];
         this.lowestCost[groupLoc] = new int[0];
-        this.pathSubgoals[groupLoc] = new int[0][];
+        this.pathRefs[groupLoc] = new long[0];
+        resetPathBase(groupLoc);
     }
 
-    public void recomputeBasePathsIfConnected(int regionId, Map<Integer, Region> regions, Set<Integer> neighborIds, CompressAStar compressAStar, HillClimbingWithClosedSet hc, SearchStats searchStats) {
+    public void recomputeBasePathsIfConnected(int regionId, RegionGraph regionGraph, Set<Integer> neighborIds, CompressAStar compressAStar, HillClimbingWithClosedSet hc, SearchStats searchStats) {
+        regionGraph.update();
+
         // Case where new region has neighbours (e.g. is in a new sector but connected)
 
+        // The new region has edges that did not exist before, any cached record may no longer be the lowest cost one
+        recordCache.clear();
+
         // Find array location of region
         int groupLoc = regionId - START_NUM;
+        ensureCapacity(groupLoc);
 
         int numNeighbours = neighborIds.size();
 
         // Create arrays for new group
+        freePaths(groupLoc);
         this.neighbours[groupLoc] = new int[numNeighbours];
         this.lowestCost[groupLoc] = new int[numNeighbours];
-        this.pathSubgoals[groupLoc] = new int[numNeighbours][];
+        this.pathRefs[groupLoc] = newPathRefs(numNeighbours);
+        resetPathBase(groupLoc);
 
         List<SearchState> path;
 
@@ -577,8 +1915,8 @@ public class SubgoalDB {
             // Grab location of neighbour
             int neighbourLoc = neighbourId - START_NUM;
 
-            int startRegionRep = regions.get(regionId).getRegionRepresentative();
-            int goalRegionRep = regions.get(neighbourLoc + START_NUM).getRegionRepresentative();
+            int startRegionRep = regionGraph.getRep(groupLoc);
+            int goalRegionRep = regionGraph.getRep(neighbourLoc);
 
             path = compressAStar.findPath(new SearchState(startRegionRep), new SearchState(goalRegionRep), searchStats);
             int pathCost = path == null ? Integer.MAX_VALUE : findPathCost(path, compressAStar.getSearchProblem());
@@ -586,11 +1924,13 @@ public class SubgoalDB {
             this.neighbours[groupLoc][i] = neighbourLoc;
             // Update lowestCost of region
             this.lowestCost[groupLoc][i] = pathCost;
-            // Update path to region
-            if (pathCost == Integer.MAX_VALUE) {
-                this.pathSubgoals[groupLoc][i] = null;
-            } else {
-                this.pathSubgoals[groupLoc][i] = findOptimallyCompressedPath(path, hc, compressAStar, searchStats);
+            // Update path to region, with symmetric storage once the neighbour has the region as a neighbour as well
+            if (!symmetric) {
+                if (pathCost == Integer.MAX_VALUE) {
+                    setPath(groupLoc, i, null);
+                } else {
+                    setPath(groupLoc, i, findOptimallyCompressedPath(path, hc, compressAStar, searchStats));
+                }
             }
 
             // Need to increase size of arrays of neighbour
@@ -601,9 +1941,9 @@ public class SubgoalDB {
             System.arraycopy(this.neighbours[neighbourLoc], 0, resizedNeighbourId, 0, len);
             this.neighbours[neighbourLoc] = resizedNeighbourId;
 
-            int[][] resizedPaths = new int[len + 1][];
-            System.arraycopy(this.pathSubgoals[neighbourLoc], 0, resizedPaths, 0, len);
-            this.pathSubgoals[neighbourLoc] = resizedPaths;
+            long[] resizedPaths = Arrays.copyOf(this.pathRefs[neighbourLoc], len + 1);
+            resizedPaths[len] = NO_PATH;
+            this.pathRefs[neighbourLoc] = resizedPaths;
 
             int[] resizedCosts = new int[len + 1];
             System.arraycopy(this.lowestCost[neighbourLoc], 0, resizedCosts, 0, len);
@@ -613,22 +1953,110 @@ public class SubgoalDB {
             this.neighbours[neighbourLoc][len] = groupLoc;
             this.lowestCost[neighbourLoc][len] = pathCost;
 
-            if (pathCost == Integer.MAX_VALUE) {
-                this.pathSubgoals[groupLoc][i] = null;
+            if (symmetric) {
+                setSymmetricPaths(groupLoc, i, pathCost == Integer.MAX_VALUE ? null : path, hc, compressAStar, searchStats);
+            } else if (pathCost == Integer.MAX_VALUE) {
+                setPath(groupLoc, i, null);
             } else {
                 path = new ArrayList<>(path.reversed());
-                this.pathSubgoals[neighbourLoc][len] = findOptimallyCompressedPath(path, hc, compressAStar, searchStats);
+                setPath(neighbourLoc, len, findOptimallyCompressedPath(path, hc, compressAStar, searchStats));
             }
 
             i++;
         }
     }
 
+    /**
+     * Evicts the cached records that the change of the base path between the two regions affects. If the base path got
+     * cheaper, a cached record between any two regions may no longer be the lowest cost one, so every record is evicted.
+     * Otherwise, only the records that were built from the base path are.
+     */
+    private void invalidateCachedRecords(int groupLoc, int neighbourLoc, int oldCost, int newCost) {
+        if (newCost < oldCost) {
+            recordCache.clear();
+        } else {
+            recordCache.invalidateEdge(groupLoc, neighbourLoc);
+        }
+    }
+
+    /**
+     * Evicts the cached records that hill-climbing may compress differently after a wall was added or removed. The base
+     * paths a wall changes are repaired, and their records evicted, by the recompute methods, but compressed records
+     * also depend on states next to their base paths, so they are evicted if hill-climbing visited a state around the
+     * wall while compressing them.
+     */
+    public void invalidateRecordsAround(int wallId, GameMap gameMap) {
+        int row = gameMap.getRowFromStateId(wallId);
+        int col = gameMap.getColFromStateId(wallId);
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, gameMap.getNumRows() - 1); r++) {
+            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, gameMap.getNumCols() - 1); c++) {
+                recordCache.invalidateState(gameMap.getStateId(r, c));
+            }
+        }
+    }
+
+    public SubgoalDBRecordCache getRecordCache() {
+        return recordCache;
+    }
+
     public int[] getNeighboursForRegion(int regionId) {
         return neighbours[regionId - START_NUM];
     }
 
+    int[][] getNeighbours() {
+        return neighbours;
+    }
+
+    int[][] getLowestCost() {
+        return lowestCost;
+    }
+
+    long[][] getPathRefs() {
+        return pathRefs;
+    }
+
+    /**
+     * @return sum of the lowest costs of the edges the record last built by getRecord was combined from
+     */
+    int getRegionPathCost() {
+        int cost = 0;
+        // regionPath runs from goal to start
+        for (int i = regionPathLength - 1; i > 0; i--) {
+            int groupLoc = regionPath[i];
+            cost += lowestCost[groupLoc][findInArray(neighbours[groupLoc], regionPath[i - 1])];
+        }
+        return cost;
+    }
+
+    /**
+     * @return number of bytes of the base paths in the pool, including the ones that no base path uses anymore
+     */
+    public long getNumPoolBytes() {
+        return pathEncoding == RAW_PATHS ? (long) poolSize * Integer.BYTES : poolSize;
+    }
+
+    /**
+     * @return number of slots (ints, or bytes for DELTA_ENCODED_PATHS) in the pool that no base path uses anymore, until
+     * the pool is next compacted
+     */
+    public int getNumUnusedPoolSlots() {
+        return numUnusedPoolSlots;
+    }
+
+    /**
+     * @return copy of the base paths, indexed like the neighbours arrays, null for edges without a base path and regions
+     * that do not exist
+     */
     public int[][][] getPathSubgoals() {
+        int[][][] pathSubgoals = new int[pathRefs.length][][];
+        for (int groupLoc = 0; groupLoc < pathRefs.length; groupLoc++) {
+            if (pathRefs[groupLoc] == null) continue;
+
+            pathSubgoals[groupLoc] = new int[pathRefs[groupLoc].length][];
+            for (int i = 0; i < pathRefs[groupLoc].length; i++) {
+                pathSubgoals[groupLoc][i] = getPath(groupLoc, i);
+            }
+        }
         return pathSubgoals;
     }
 
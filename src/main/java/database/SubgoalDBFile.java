@@ -0,0 +1,313 @@
+package database;
+
+import map.GameMap;
+import map.RegionGraph;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes snapshots of a SubgoalDB in a binary format that is memory-mapped when loaded. A snapshot is only
+ * valid for the map and grid size it was computed for, so it stores a hash of the map contents and the grid size, and
+ * a snapshot of a different map, grid size or format version is not loaded. Abstracting a map is deterministic, so the
+ * regions of a map abstracted again with the same grid size have the same ids as the regions the snapshot refers to.
+ * <p>
+ * All values are little-endian. The layout is:
+ * <pre>
+ *  offset 0   int     magic number (MAGIC)
+ *  offset 4   int     format version (VERSION)
+ *  offset 8   long    map hash (see computeMapHash)
+ *  offset 16  int     grid size
+ *  offset 20  int     number of region slots (array locations), numSlots
+ *  offset 24  int     number of edges (directed region neighbour pairs), numEdges
+ *  offset 28  int     number of subgoal ints over all base paths, numSubgoals
+ *  offset 32  int[]   number of neighbours of every region slot, numSlots ints, -1 for slots without a region
+ *  then       int[]   neighbour array locations, numEdges ints, ordered by region and then as in the database
+ *  then       int[]   lowest costs, numEdges ints in the same order
+ *  then       int[]   base path lengths, numEdges ints in the same order, -1 for edges without a base path
+ *  then       int[]   base paths, numSubgoals ints in the same order
+ * </pre>
+ */
+public class SubgoalDBFile {
+    // "DBPS" when read as bytes
+    public static final int MAGIC = 0x53504244;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+    public static final String FILE_EXTENSION = ".sdb";
+
+    private static final Logger logger = LogManager.getLogger(SubgoalDBFile.class);
+
+    private SubgoalDBFile() throws Exception {
+        throw new Exception("This is a utility class and should not be instantiated.");
+    }
+
+    /**
+     * Writes a snapshot of the database. The database must have been computed for the map as it is now, a database that
+     * has been updated for wall changes does not match the regions of the map abstracted again. A lazy database must
+     * have computed all of its base paths.
+     * <p>
+     * The snapshot is written to a temporary file next to fileName, which then replaces fileName, so a write that is
+     * interrupted never leaves a partial snapshot behind.
+     *
+     * @param subgoalDB database to write
+     * @param gameMap   map the database was computed for
+     * @param gridSize  grid size the map was abstracted with
+     * @param fileName  path of the snapshot file to write
+     */
+    public static void write(SubgoalDB subgoalDB, GameMap gameMap, int gridSize, String fileName) {
+        if (subgoalDB.getNumUncomputedPaths() > 0) {
+            throw new IllegalArgumentException("Database of " + gameMap.getName() + " has base paths that have not been computed yet");
+        }
+
+        int[][] neighbours = subgoalDB.getNeighbours();
+        int[][] lowestCost = subgoalDB.getLowestCost();
+        long[][] pathRefs = subgoalDB.getPathRefs();
+
+        // Trailing slots without a region are left out, the loader adds room for new regions itself
+        int numSlots = neighbours.length;
+        while (numSlots > 0 && neighbours[numSlots - 1] == null) {
+            numSlots--;
+        }
+
+        long numEdges = 0, numSubgoals = 0;
+        int maxPathLength = 0;
+        for (int groupLoc = 0; groupLoc < numSlots; groupLoc++) {
+            if (neighbours[groupLoc] == null) continue;
+
+            numEdges += neighbours[groupLoc].length;
+            for (int i = 0; i < pathRefs[groupLoc].length; i++) {
+                if (pathRefs[groupLoc][i] == SubgoalDB.NO_PATH) continue;
+                numSubgoals += subgoalDB.getNumSubgoals(groupLoc, i);
+                maxPathLength = Math.max(maxPathLength, subgoalDB.getNumSubgoals(groupLoc, i));
+            }
+        }
+
+        long fileSize = getFileSize(numSlots, numEdges, numSubgoals);
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Database of " + gameMap.getName() + " is too large for the binary format");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) fileSize).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(computeMapHash(gameMap));
+        buffer.putInt(gridSize);
+        buffer.putInt(numSlots);
+        buffer.putInt((int) numEdges);
+        buffer.putInt((int) numSubgoals);
+
+        for (int groupLoc = 0; groupLoc < numSlots; groupLoc++) {
+            buffer.putInt(neighbours[groupLoc] == null ? -1 : neighbours[groupLoc].length);
+        }
+        for (int groupLoc = 0; groupLoc < numSlots; groupLoc++) {
+            if (neighbours[groupLoc] == null) continue;
+            for (int neighbourLoc : neighbours[groupLoc]) {
+                buffer.putInt(neighbourLoc);
+            }
+        }
+        for (int groupLoc = 0; groupLoc < numSlots; groupLoc++) {
+            if (neighbours[groupLoc] == null) continue;
+            for (int cost : lowestCost[groupLoc]) {
+                buffer.putInt(cost);
+            }
+        }
+        for (int groupLoc = 0; groupLoc < numSlots; groupLoc++) {
+            if (neighbours[groupLoc] == null) continue;
+            for (int i = 0; i < pathRefs[groupLoc].length; i++) {
+                buffer.putInt(pathRefs[groupLoc][i] == SubgoalDB.NO_PATH ? -1 : subgoalDB.getNumSubgoals(groupLoc, i));
+            }
+        }
+        // Base paths are written decoded, and once for each direction, whatever path encoding the database uses and
+        // whether it stores base paths symmetrically
+        int[] path = new int[maxPathLength];
+        for (int groupLoc = 0; groupLoc < numSlots; groupLoc++) {
+            if (neighbours[groupLoc] == null) continue;
+            for (int i = 0; i < pathRefs[groupLoc].length; i++) {
+                if (pathRefs[groupLoc][i] == SubgoalDB.NO_PATH) continue;
+                int pathLength = subgoalDB.readPath(groupLoc, i, path, 0);
+                for (int j = 0; j < pathLength; j++) {
+                    buffer.putInt(path[j]);
+                }
+            }
+        }
+
+        buffer.flip();
+
+        Path filePath = Path.of(fileName);
+        Path tempPath = filePath.resolveSibling(filePath.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(tempPath, filePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.error("Could not write database to {}", fileName);
+            deleteQuietly(tempPath);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.error("Could not delete {}", path);
+        }
+    }
+
+    /**
+     * Memory-maps a snapshot and copies it into a database. The base paths are stored in the same order as in the pool
+     * of the database, so they are copied into it with one bulk get.
+     *
+     * @param fileName    path to the snapshot file
+     * @param gameMap     map the database is for
+     * @param gridSize    grid size the map was abstracted with
+     * @param regionGraph region graph of the abstracted map
+     * @return database, or null if there is no snapshot at fileName, it was written for another map, grid size,
+     * number of regions or format version, or it is not a complete snapshot (the database is computed again then)
+     */
+    public static SubgoalDB load(String fileName, GameMap gameMap, int gridSize, RegionGraph regionGraph) {
+        Path path = Path.of(fileName);
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.error("File {} could not be read", fileName);
+            throw new RuntimeException(e);
+        }
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            logger.info("{} is not a database snapshot", fileName);
+            return null;
+        }
+        if (buffer.getInt(4) != VERSION) {
+            logger.info("{} has version {}, expected {}", fileName, buffer.getInt(4), VERSION);
+            return null;
+        }
+        if (buffer.getLong(8) != computeMapHash(gameMap) || buffer.getInt(16) != gridSize) {
+            logger.info("{} was written for another map or grid size", fileName);
+            return null;
+        }
+
+        int numSlots = buffer.getInt(20);
+        int numEdges = buffer.getInt(24);
+        int numSubgoals = buffer.getInt(28);
+
+        if (numSlots < 0 || numEdges < 0 || numSubgoals < 0 || buffer.capacity() != getFileSize(numSlots, numEdges, numSubgoals)) {
+            logger.info("{} is corrupted, its size does not match its header", fileName);
+            return null;
+        }
+
+        IntBuffer ints = buffer.slice(HEADER_SIZE, buffer.capacity() - HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+
+        int[] degrees = new int[numSlots];
+        int[] neighbourLocs = new int[numEdges];
+        int[] costs = new int[numEdges];
+        int[] pathLengths = new int[numEdges];
+        int[] subgoalPool = new int[numSubgoals];
+        ints.get(degrees).get(neighbourLocs).get(costs).get(pathLengths).get(subgoalPool);
+
+        int numGroups = 0;
+        long degreeSum = 0, pathLengthSum = 0;
+        for (int degree : degrees) {
+            if (degree != -1) numGroups++;
+            degreeSum += Math.max(degree, 0);
+        }
+        for (int pathLength : pathLengths) {
+            pathLengthSum += Math.max(pathLength, 0);
+        }
+        if (degreeSum != numEdges || pathLengthSum != numSubgoals) {
+            logger.info("{} is corrupted, its arrays do not match its header", fileName);
+            return null;
+        }
+
+        int numRegions = 0;
+        for (int index = 0; index < regionGraph.getCapacity(); index++) {
+            if (regionGraph.containsRegion(index)) numRegions++;
+        }
+        if (numGroups != numRegions) {
+            logger.info("{} has {} regions, the map has {}", fileName, numGroups, numRegions);
+            return null;
+        }
+
+        // Same room for regions added later on as a database that is computed
+        int arraySize = Math.max(numSlots, (int) Math.ceil(numGroups * 1.1));
+        int[][] neighbours = new int[arraySize][];
+        int[][] lowestCost = new int[arraySize][];
+        long[][] pathRefs = new long[arraySize][];
+
+        int edge = 0, subgoal = 0;
+        for (int groupLoc = 0; groupLoc < numSlots; groupLoc++) {
+            int degree = degrees[groupLoc];
+            if (degree == -1) continue;
+
+            neighbours[groupLoc] = new int[degree];
+            lowestCost[groupLoc] = new int[degree];
+            pathRefs[groupLoc] = new long[degree];
+            System.arraycopy(neighbourLocs, edge, neighbours[groupLoc], 0, degree);
+            System.arraycopy(costs, edge, lowestCost[groupLoc], 0, degree);
+
+            for (int i = 0; i < degree; i++, edge++) {
+                if (pathLengths[edge] == -1) {
+                    pathRefs[groupLoc][i] = SubgoalDB.NO_PATH;
+                    continue;
+                }
+
+                pathRefs[groupLoc][i] = SubgoalDB.packPathRef(subgoal, pathLengths[edge]);
+                subgoal += pathLengths[edge];
+            }
+        }
+
+        return new SubgoalDB(regionGraph, numGroups, neighbours, lowestCost, pathRefs, subgoalPool, numSubgoals);
+    }
+
+    /**
+     * @return FNV-1a hash of the size of the map and of which of its states are walls, taken over 64 states at a time
+     * rather than byte by byte
+     */
+    public static long computeMapHash(GameMap gameMap) {
+        long hash = 0xCBF29CE484222325L;
+        hash = (hash ^ gameMap.getNumRows()) * 0x100000001B3L;
+        hash = (hash ^ gameMap.getNumCols()) * 0x100000001B3L;
+
+        for (int r = 0; r < gameMap.getNumRows(); r++) {
+            long word = 0;
+            for (int c = 0; c < gameMap.getNumCols(); c++) {
+                if (gameMap.isWall(r, c)) {
+                    word |= 1L << (c & 63);
+                }
+                if ((c & 63) == 63 || c == gameMap.getNumCols() - 1) {
+                    hash = (hash ^ word) * 0x100000001B3L;
+                    word = 0;
+                }
+            }
+        }
+        return hash;
+    }
+
+    private static long getFileSize(long numSlots, long numEdges, long numSubgoals) {
+        return HEADER_SIZE + (numSlots + 3 * numEdges + numSubgoals) * Integer.BYTES;
+    }
+}
@@ -0,0 +1,237 @@
+package database;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Least recently used cache of the records built by SubgoalDB.getRecord, keyed by (start region id, goal region id)
+ * packed into a long.
+ * <p>
+ * The cache is bounded by the number of ints its records hold rather than by the number of records, as records between
+ * far apart regions are much larger than records between neighbours. Every record is charged for its subgoals, the
+ * region graph edges it was built from, and a fixed overhead.
+ * <p>
+ * Every record remembers the region graph edges (pairs of neighbouring region array locations) whose base paths it was
+ * built from, so when the base path of an edge changes, only the records that used that edge have to be evicted.
+ * <p>
+ * The subgoals of compressed records are chosen across the base paths they were built from, so they also depend on
+ * states that are on none of these base paths. Compressed records remember the states hill-climbing visited while they
+ * were compressed, and are evicted when a wall is added or removed next to one of them (see invalidateState and
+ * SubgoalDB.invalidateRecordsAround).
+ */
+public class SubgoalDBRecordCache {
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+
+    // Ints of bookkeeping (entry, key, index entries) that every record is charged for on top of its contents
+    private static final int ENTRY_OVERHEAD = 16;
+
+    private final LinkedHashMap<Long, Entry> entries;
+    private final Map<Long, Set<Long>> keysByEdge;
+    private final Map<Integer, Set<Long>> keysByState;
+
+    private int capacity;
+    private long size;
+    private long numHits;
+    private long numMisses;
+
+    private static class Entry {
+        private final SubgoalDBRecord record;
+        private final boolean compressed;
+        private final long[] edges;
+        private final int[] states;
+        private final int size;
+
+        private Entry(SubgoalDBRecord record, boolean compressed, long[] edges, int[] states) {
+            this.record = record;
+            this.compressed = compressed;
+            this.edges = edges;
+            this.states = states;
+            this.size = (record.getSubgoals() == null ? 0 : record.getSubgoals().length) + 2 * edges.length + states.length + ENTRY_OVERHEAD;
+        }
+    }
+
+    /**
+     * @param capacity maximum number of ints held by the cached records, 0 disables the cache
+     */
+    public SubgoalDBRecordCache(int capacity) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.keysByEdge = new HashMap<>();
+        this.keysByState = new HashMap<>();
+        this.capacity = capacity;
+    }
+
+    public static long packKey(int startGroupId, int goalGroupId) {
+        return ((long) startGroupId << 32) | (goalGroupId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Edges are undirected, the base paths in both directions change together
+     */
+    private static long packEdge(int groupLoc, int neighbourLoc) {
+        return packKey(Math.min(groupLoc, neighbourLoc), Math.max(groupLoc, neighbourLoc));
+    }
+
+    /**
+     * @return cached record, or null if there is no record for the pair that was built with the same compression
+     */
+    public SubgoalDBRecord get(int startGroupId, int goalGroupId, boolean compressed) {
+        Entry entry = entries.get(packKey(startGroupId, goalGroupId));
+        if (entry == null || entry.compressed != compressed) {
+            numMisses++;
+            return null;
+        }
+        numHits++;
+        return entry.record;
+    }
+
+    /**
+     * Caches a record, replacing any record for the same pair, and evicts the least recently used records until the
+     * cache is within its capacity again.
+     *
+     * @param regionPath       array locations of the regions the record goes through, in any direction
+     * @param regionPathLength number of regions in regionPath
+     */
+    public void put(int startGroupId, int goalGroupId, boolean compressed, SubgoalDBRecord record, int[] regionPath, int regionPathLength) {
+        put(startGroupId, goalGroupId, compressed, record, regionPath, regionPathLength, new int[0]);
+    }
+
+    /**
+     * Caches a record like put above, and evicts it when a wall is added or removed next to one of the given states
+     *
+     * @param states ids of the states hill-climbing visited while the record was compressed, without duplicates
+     */
+    public void put(int startGroupId, int goalGroupId, boolean compressed, SubgoalDBRecord record, int[] regionPath, int regionPathLength, int[] states) {
+        if (capacity == 0) return;
+
+        long key = packKey(startGroupId, goalGroupId);
+        remove(key);
+
+        long[] edges = new long[regionPathLength - 1];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = packEdge(regionPath[i], regionPath[i + 1]);
+            keysByEdge.computeIfAbsent(edges[i], edge -> new HashSet<>()).add(key);
+        }
+
+        for (int state : states) {
+            keysByState.computeIfAbsent(state, stateId -> new HashSet<>()).add(key);
+        }
+
+        Entry entry = new Entry(record, compressed, edges, states);
+        entries.put(key, entry);
+        size += entry.size;
+
+        evictToCapacity();
+    }
+
+    /**
+     * Evicts every record that was built from the base paths between the two regions
+     */
+    public void invalidateEdge(int groupLoc, int neighbourLoc) {
+        Set<Long> keys = keysByEdge.get(packEdge(groupLoc, neighbourLoc));
+        if (keys == null) return;
+
+        for (long key : keys.toArray(new Long[0])) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Evicts every record that was compressed with hill-climbing visiting the state. Hill-climbing only looks at the
+     * states around the state it is in, so a wall change can only change its moves if it is next to a visited state.
+     */
+    public void invalidateState(int stateId) {
+        Set<Long> keys = keysByState.get(stateId);
+        if (keys == null) return;
+
+        for (long key : keys.toArray(new Long[0])) {
+            remove(key);
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        keysByEdge.clear();
+        keysByState.clear();
+        size = 0;
+    }
+
+    /**
+     * Evicts the least recently used records until the cache is within its capacity
+     */
+    private void evictToCapacity() {
+        Iterator<Map.Entry<Long, Entry>> iterator = entries.entrySet().iterator();
+        while (size > capacity && iterator.hasNext()) {
+            Map.Entry<Long, Entry> eldest = iterator.next();
+            iterator.remove();
+            unindex(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private void remove(long key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            unindex(key, entry);
+        }
+    }
+
+    private void unindex(long key, Entry entry) {
+        size -= entry.size;
+        for (long edge : entry.edges) {
+            Set<Long> keys = keysByEdge.get(edge);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByEdge.remove(edge);
+                }
+            }
+        }
+        for (int state : entry.states) {
+            Set<Long> keys = keysByState.get(state);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByState.remove(state);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param capacity maximum number of ints held by the cached records, 0 disables the cache
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+        if (capacity == 0) {
+            clear();
+            return;
+        }
+        evictToCapacity();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of ints held by the cached records
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public int getNumRecords() {
+        return entries.size();
+    }
+
+    public long getNumHits() {
+        return numHits;
+    }
+
+    public long getNumMisses() {
+        return numMisses;
+    }
+}
@@ -5,8 +5,14 @@ import org.apache.logging.log4j.Logger;
 import stats.SearchStats;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
 
 public class AbstractedMap extends GameMap {
+    // Region id of every state (WALL_CHAR for walls), GameMap itself only keeps track of walls
+    private final int[][] states;
+
     private final int gridSize;
     private final int numSectorsPerCol;
     private final int numSectorsPerRow;
@@ -19,21 +25,43 @@ public class AbstractedMap extends GameMap {
 
     private final Sector[] sectors;
     private final Map<Integer, Region> regionIdToRegionMap;
-    private final int[] regionReps;
+    // Indexed by regionId - START_NUM, grows as higher region ids are handed out
+    private int[] regionReps;
+    private final RegionGraph regionGraph;
+
+    private final RegionIdAllocator regionIdAllocator;
 
-    private final Queue<Integer> freeRegionIds;
+    // Reused by every sequential flood fill
+    private final SpanStack spanStack = new SpanStack();
 
     private static final Logger logger = LogManager.getLogger(AbstractedMap.class);
 
     public AbstractedMap(GameMap gameMap, int gridSize, SearchStats searchStats) {
+        this(gameMap, gridSize, searchStats, false);
+    }
+
+    /**
+     * @param gameMap     map to abstract
+     * @param gridSize    width and height of a sector
+     * @param searchStats stats object to record abstraction times in (may be null)
+     * @param parallel    whether to abstract sectors concurrently (produces exactly the same regions and region ids)
+     */
+    public AbstractedMap(GameMap gameMap, int gridSize, SearchStats searchStats, boolean parallel) {
         // Copy GameMap data
         // Abstract map will have same number of rows and cols, but its own state array in which the open states will
         // have been assigned number corresponding to their region. This happens in abstractStatesToGenerateRegions.
         super(gameMap);
 
+        this.states = new int[getNumRows()][getNumCols()];
+        for (int r = 0; r < getNumRows(); r++) {
+            for (int c = 0; c < getNumCols(); c++) {
+                states[r][c] = super.getStateValue(r, c);
+            }
+        }
+
         long start, startTotalAbstraction = System.nanoTime();
 
-        freeRegionIds = new PriorityQueue<>();
+        regionIdAllocator = new RegionIdAllocator();
 
         // Store specified gridSize
         this.gridSize = gridSize;
@@ -47,20 +75,32 @@ public class AbstractedMap extends GameMap {
 
         // Abstract the states array (divide it into regions using BFS), also computes region representatives
         start = System.nanoTime();
-        abstractStatesToGenerateRegions(searchStats);
+        if (parallel) {
+            abstractStatesToGenerateRegionsInParallel(searchStats);
+        } else {
+            abstractStatesToGenerateRegions(searchStats);
+        }
         if (searchStats != null) {
             searchStats.setTimeToAbstractRegions(System.nanoTime() - start);
         }
 
-        // TODO: Add to this
-        freeRegionIds.add(numRegions + AbstractedMap.START_NUM);
-        freeRegionIds.add(numRegions + AbstractedMap.START_NUM + 1);
-        regionReps = new int[numRegions + freeRegionIds.size()];
+        for (int regionId : regionIdToRegionMap.keySet()) {
+            regionIdAllocator.markUsed(regionId);
+        }
+        // Leave some room for regions that wall changes will add
+        regionReps = new int[numRegions + numRegions / 8 + 2];
         Arrays.fill(regionReps, -1);
 
         // Determine which regions are neighbours, store this information per region
         start = System.nanoTime();
-        computeRegionNeighbourhoodAndStoreRegionReps();
+        computeRegionNeighbourhoodAndStoreRegionReps(parallel);
+
+        // Dense copy of the regions and their neighbourhoods, kept up to date as regions change
+        regionGraph = new RegionGraph(this, regionIdToRegionMap, regionReps.length);
+        for (Region region : regionIdToRegionMap.values()) {
+            region.setRegionGraph(regionGraph);
+        }
+        regionGraph.build();
         if (searchStats != null) {
             searchStats.setTimeToDetermineNeighbourhoods(System.nanoTime() - start);
             searchStats.setTotalAbstractionTime(System.nanoTime() - startTotalAbstraction);
@@ -107,29 +147,9 @@ public class AbstractedMap extends GameMap {
                             currentRegionNum++;
                             numRegionsInSector++;
 
-                            // Perform constrained BFS within Sector
-                            Queue<Integer> stateIds = new LinkedList<>();
-                            stateIds.add(super.getStateId(r, c));
-                            this.states[r][c] = currentRegionNum;
-
-                            int numStatesInRegion = 1;
-
-                            while (!stateIds.isEmpty()) {
-                                int stateId = stateIds.remove();
-                                numStatesExpanded++;
-
-                                // Iterate over neighbor states
-                                for (int neighborStateId : getStateNeighbourIds(stateId)) {
-                                    int nr = super.getRowFromStateId(neighborStateId);
-                                    int nc = super.getColFromStateId(neighborStateId);
-
-                                    if (super.isInRangeAndOpenState(nr, nc, northRow, westCol, southRow, eastCol)) {
-                                        this.states[nr][nc] = currentRegionNum;
-                                        stateIds.add(neighborStateId);
-                                        numStatesInRegion++;
-                                    }
-                                }
-                            }
+                            // Perform constrained flood fill within Sector
+                            int numStatesInRegion = fillRegion(r, c, currentRegionNum, northRow, southRow, westCol, eastCol);
+                            numStatesExpanded += numStatesInRegion;
 
                             // Make new region that stores its region number and the number of states contained in the region
                             Region region = new Region(currentRegionNum, numStatesInRegion);
@@ -157,6 +177,231 @@ public class AbstractedMap extends GameMap {
         this.numRegions = totalRegions;
     }
 
+    /**
+     * Abstracts all sectors concurrently on the common ForkJoinPool. Every sector is first flood-filled on its own,
+     * labelling its regions with provisional labels -1, -2, ... that are local to the sector. A prefix sum over the
+     * number of regions per sector then gives every sector the first region id it may use, which makes the region ids
+     * the same as those assigned by abstractStatesToGenerateRegions. Each sector then relabels its states and builds its
+     * own Region and Sector objects, only inserting regions into regionIdToRegionMap happens sequentially.
+     */
+    private void abstractStatesToGenerateRegionsInParallel(SearchStats searchStats) {
+        int numSectors = sectors.length;
+        int[][] regionSizesPerSector = new int[numSectors][];
+        // One span stack per worker thread
+        ThreadLocal<SpanStack> spanStacks = ThreadLocal.withInitial(SpanStack::new);
+
+        ForkJoinPool.commonPool().invoke(new SectorRangeAction(0, numSectors, sectorId -> {
+            int northRow = getStartRowOfSector(sectorId), southRow = getEndRowOfSector(sectorId);
+            int westCol = getStartColOfSector(sectorId), eastCol = getEndColOfSector(sectorId);
+
+            int[] regionSizes = new int[4];
+            int numRegionsInSector = 0;
+            SpanStack stack = spanStacks.get();
+
+            for (int r = northRow; r < southRow; r++) {
+                for (int c = westCol; c < eastCol; c++) {
+                    if (isInBoundsAndOpenState(r, c)) {
+                        if (numRegionsInSector == regionSizes.length) {
+                            regionSizes = Arrays.copyOf(regionSizes, regionSizes.length * 2);
+                        }
+                        regionSizes[numRegionsInSector] = fillRegion(r, c, -(numRegionsInSector + 1), northRow, southRow, westCol, eastCol, stack);
+                        numRegionsInSector++;
+                    }
+                }
+            }
+
+            regionSizesPerSector[sectorId] = Arrays.copyOf(regionSizes, numRegionsInSector);
+        }));
+
+        // Prefix sum over the number of regions per sector gives the first region id of every sector
+        int[] firstRegionIds = new int[numSectors];
+        int totalRegions = 0, numStatesExpanded = 0;
+        for (int sectorId = 0; sectorId < numSectors; sectorId++) {
+            firstRegionIds[sectorId] = START_NUM + totalRegions;
+            totalRegions += regionSizesPerSector[sectorId].length;
+            for (int regionSize : regionSizesPerSector[sectorId]) {
+                numStatesExpanded += regionSize;
+            }
+        }
+
+        ForkJoinPool.commonPool().invoke(new SectorRangeAction(0, numSectors, sectorId -> {
+            int northRow = getStartRowOfSector(sectorId), southRow = getEndRowOfSector(sectorId);
+            int westCol = getStartColOfSector(sectorId), eastCol = getEndColOfSector(sectorId);
+            int firstRegionId = firstRegionIds[sectorId];
+
+            // Replace provisional labels with region ids
+            for (int r = northRow; r < southRow; r++) {
+                for (int c = westCol; c < eastCol; c++) {
+                    if (this.states[r][c] < 0) {
+                        this.states[r][c] = firstRegionId - this.states[r][c] - 1;
+                    }
+                }
+            }
+
+            int[] regionSizes = regionSizesPerSector[sectorId];
+            ArrayList<Region> regionsInSector = new ArrayList<>(regionSizes.length);
+            for (int i = 0; i < regionSizes.length; i++) {
+                Region region = new Region(firstRegionId + i, regionSizes[i]);
+                computeRegionRepresentative(firstRegionId + i, region, northRow, southRow, westCol, eastCol);
+                regionsInSector.add(region);
+            }
+
+            sectors[sectorId] = new Sector(sectorId, regionsInSector);
+        }));
+
+        for (Sector sector : sectors) {
+            for (Region region : sector.getRegions()) {
+                regionIdToRegionMap.put(region.getRegionId(), region);
+            }
+        }
+
+        if (searchStats != null) {
+            searchStats.setNumStatesExpandedBFS(numStatesExpanded);
+        }
+
+        this.numRegions = totalRegions;
+    }
+
+    /**
+     * Runs an action for every sector id in [from, to), splitting the range in half until it is small enough
+     */
+    @SuppressWarnings("serial")
+    private static class SectorRangeAction extends RecursiveAction {
+        private static final int DEFAULT_THRESHOLD = 16;
+
+        private final int from, to;
+        private final int threshold;
+        private final IntConsumer action;
+
+        SectorRangeAction(int from, int to, IntConsumer action) {
+            this(from, to, DEFAULT_THRESHOLD, action);
+        }
+
+        SectorRangeAction(int from, int to, int threshold, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                for (int sectorId = from; sectorId < to; sectorId++) {
+                    action.accept(sectorId);
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SectorRangeAction(from, mid, threshold, action), new SectorRangeAction(mid, to, threshold, action));
+            }
+        }
+    }
+
+    /**
+     * Labels the region containing (row, col) with the given label, moving only between open, not yet abstracted states
+     * inside the sector bounds. Uses the span stack of this map, so it must not be called concurrently.
+     *
+     * @return number of states in the region
+     */
+    private int fillRegion(int row, int col, int label, int northRow, int southRow, int westCol, int eastCol) {
+        return fillRegion(row, col, label, northRow, southRow, westCol, eastCol, spanStack);
+    }
+
+    /**
+     * Scanline flood fill: labels a whole horizontal run of states at once and only pushes the start of each run in the
+     * rows above and below onto the stack.
+     * <p>
+     * Inside a rectangular sector, moving diagonally is only possible if either of the two cardinal states next to the
+     * move is open, and both of those lie inside the sector too. So two states are in the same region exactly if they
+     * are connected through cardinal moves, which is what this fill follows.
+     *
+     * @return number of states in the region
+     */
+    private int fillRegion(int row, int col, int label, int northRow, int southRow, int westCol, int eastCol, SpanStack stack) {
+        int numStatesInRegion = 0;
+
+        stack.clear();
+        stack.push(row, col);
+
+        while (!stack.isEmpty()) {
+            int r = stack.peekRow();
+            int c = stack.peekCol();
+            stack.pop();
+            int[] rowStates = this.states[r];
+
+            // Might have been labelled through another run since it was pushed
+            if (rowStates[c] != EMPTY_CHAR) continue;
+
+            // Extend run to the west and east
+            int west = c, east = c;
+            while (west > westCol && rowStates[west - 1] == EMPTY_CHAR) west--;
+            while (east < eastCol - 1 && rowStates[east + 1] == EMPTY_CHAR) east++;
+
+            for (int i = west; i <= east; i++) {
+                rowStates[i] = label;
+            }
+            numStatesInRegion += east - west + 1;
+
+            // Push the start of every run in the rows above and below that touches this run
+            if (r > northRow) pushRuns(stack, r - 1, west, east);
+            if (r < southRow - 1) pushRuns(stack, r + 1, west, east);
+        }
+
+        return numStatesInRegion;
+    }
+
+    private void pushRuns(SpanStack stack, int row, int west, int east) {
+        int[] rowStates = this.states[row];
+        boolean inRun = false;
+
+        for (int c = west; c <= east; c++) {
+            if (rowStates[c] == EMPTY_CHAR) {
+                if (!inRun) {
+                    stack.push(row, c);
+                    inRun = true;
+                }
+            } else {
+                inRun = false;
+            }
+        }
+    }
+
+    /**
+     * Growable stack of (row, col) pairs used by the flood fill, reused across fills so that they do not allocate
+     */
+    private static class SpanStack {
+        private int[] entries = new int[64];
+        private int size;
+
+        void push(int row, int col) {
+            if (size + 2 > entries.length) {
+                entries = Arrays.copyOf(entries, entries.length * 2);
+            }
+            entries[size++] = row;
+            entries[size++] = col;
+        }
+
+        int peekRow() {
+            return entries[size - 2];
+        }
+
+        int peekCol() {
+            return entries[size - 1];
+        }
+
+        void pop() {
+            size -= 2;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
     public int computeRegionRepresentative(int regionId, Region region, int startRow, int endRow, int startCol, int endCol) {
         int[] rows = new int[region.getNumStates()];
         int[] cols = new int[region.getNumStates()];
@@ -165,7 +410,7 @@ public class AbstractedMap extends GameMap {
         for (int r = startRow; r < endRow; r++) {
             for (int c = startCol; c < endCol; c++) {
                 // If the state is in the region
-                if (super.getStateValue(r, c) == regionId) {
+                if (getStateValue(r, c) == regionId) {
                     rows[numStates] = r;
                     cols[numStates] = c;
                     sumRow += r;
@@ -207,61 +452,147 @@ public class AbstractedMap extends GameMap {
         return regionRep;
     }
 
-    private void computeRegionNeighbourhoodAndStoreRegionReps() {
-        for (int r = 0; r < super.getNumRows(); r++) {
-            for (int c = 0; c < super.getNumCols(); c++) {
-                if (!isWall(r, c)) {
-                    int regionId = this.getRegionIdFromMap(r, c);
-                    Region region = regionIdToRegionMap.get(regionId);
+    /**
+     * Two states in the same sector are never in different regions if there is a legal move between them, so regions
+     * can only be neighbours across the border of two sectors. This walks the strips of states on either side of every
+     * sector border, collects the pairs of regions connected by a legal move into an edge buffer, removes duplicates by
+     * sorting and only then adds the neighbours to the regions.
+     *
+     * @param parallel whether to walk the borders of the sector rows concurrently
+     */
+    private void computeRegionNeighbourhoodAndStoreRegionReps(boolean parallel) {
+        for (Region region : regionIdToRegionMap.values()) {
+            regionReps[region.getRegionId() - AbstractedMap.START_NUM] = region.getRegionRepresentative();
+        }
 
-                    // Doing this here because we needed numRegions to be set before we could initialize this array
-                    regionReps[regionId - AbstractedMap.START_NUM] = region.getRegionRepresentative();
+        EdgeBuffer edges;
+        if (parallel) {
+            // Every sector row walks the vertical borders inside it and the horizontal border below it
+            EdgeBuffer[] edgesPerSectorRow = new EdgeBuffer[numSectorsPerCol];
+            ForkJoinPool.commonPool().invoke(new SectorRangeAction(0, numSectorsPerCol, 1, sr -> {
+                EdgeBuffer sectorRowEdges = new EdgeBuffer();
+                collectBorderEdges(sr * gridSize, Math.min((sr + 1) * gridSize, getNumRows() - 1), 0, getNumCols() - 1, sectorRowEdges);
+                edgesPerSectorRow[sr] = sectorRowEdges;
+            }));
+
+            edges = new EdgeBuffer();
+            for (EdgeBuffer sectorRowEdges : edgesPerSectorRow) {
+                edges.addAll(sectorRowEdges);
+            }
+        } else {
+            edges = new EdgeBuffer();
+            collectBorderEdges(0, getNumRows() - 1, 0, getNumCols() - 1, edges);
+        }
 
-                    boolean isOpenNorth = false, isOpenEast = false, isOpenSouth = false, isOpenWest = false;
+        addNeighbours(edges);
+    }
 
-                    // If the neighbour state is not a wall and is in a different region, add it to the neighbour set
+    /**
+     * Collects the pairs of different regions that are connected by a legal move that crosses a sector border, starting
+     * from the state on the north or west side of the border. Only borders whose states on both sides lie inside the
+     * given (inclusive) bounds are walked.
+     */
+    private void collectBorderEdges(int firstRow, int lastRow, int firstCol, int lastCol, EdgeBuffer edges) {
+        // Last row and column of the first sector that starts before the bounds
+        int firstBorderRow = firstRow / gridSize * gridSize + gridSize - 1;
+        int firstBorderCol = firstCol / gridSize * gridSize + gridSize - 1;
+
+        for (int r = firstRow; r <= lastRow; r++) {
+            int[] rowStates = this.states[r];
+
+            // Vertical borders: moves to the east, north-east and south-east
+            for (int c = firstBorderCol; c < lastCol; c += gridSize) {
+                if (rowStates[c] == WALL_CHAR) continue;
+
+                int moveMask = getMoveMask(getStateId(r, c));
+                if ((moveMask & 1 << EAST) != 0) edges.add(rowStates[c], rowStates[c + 1]);
+                if ((moveMask & 1 << NORTH_EAST) != 0) edges.add(rowStates[c], this.states[r - 1][c + 1]);
+                if ((moveMask & 1 << SOUTH_EAST) != 0) edges.add(rowStates[c], this.states[r + 1][c + 1]);
+            }
 
-                    if (isInBoundsAndNotWall(r - 1, c) && getRegionIdFromMap(r - 1, c) != regionId) { // north
-                        region.addNeighborId(getRegionIdFromMap(r - 1, c));
-                        isOpenNorth = true;
-                    }
-                    if (isInBoundsAndNotWall(r, c + 1) && getRegionIdFromMap(r, c + 1) != regionId) { // east
-                        region.addNeighborId(getRegionIdFromMap(r, c + 1));
-                        isOpenEast = true;
-                    }
-                    if (isInBoundsAndNotWall(r + 1, c) && getRegionIdFromMap(r + 1, c) != regionId) { // south
-                        region.addNeighborId(getRegionIdFromMap(r + 1, c));
-                        isOpenSouth = true;
-                    }
-                    if (isInBoundsAndNotWall(r, c - 1) && getRegionIdFromMap(r, c - 1) != regionId) { // west
-                        region.addNeighborId(getRegionIdFromMap(r, c - 1));
-                        isOpenWest = true;
-                    }
+            // Horizontal borders: moves to the south, south-east and south-west
+            if (r >= firstBorderRow && r < lastRow && (r - firstBorderRow) % gridSize == 0) {
+                int[] southStates = this.states[r + 1];
 
-                    // Diagonal states are only open if the corresponding cardinal states are open
-                    if ((isOpenNorth || isOpenEast) && isInBoundsAndNotWall(r - 1, c + 1) && getRegionIdFromMap(r - 1, c + 1) != regionId) { // north-east
-                        region.addNeighborId(getRegionIdFromMap(r - 1, c + 1));
-                    }
-                    if ((isOpenSouth || isOpenEast) && isInBoundsAndNotWall(r + 1, c + 1) && getRegionIdFromMap(r + 1, c + 1) != regionId) { // south-east
-                        region.addNeighborId(getRegionIdFromMap(r + 1, c + 1));
-                    }
-                    if ((isOpenSouth || isOpenWest) && isInBoundsAndNotWall(r + 1, c - 1) && getRegionIdFromMap(r + 1, c - 1) != regionId) { // south-west
-                        region.addNeighborId(getRegionIdFromMap(r + 1, c - 1));
-                    }
-                    if ((isOpenNorth || isOpenWest) && isInBoundsAndNotWall(r - 1, c - 1) && getRegionIdFromMap(r - 1, c - 1) != regionId) { // north-west
-                        region.addNeighborId(getRegionIdFromMap(r - 1, c - 1));
-                    }
+                for (int c = firstCol; c <= lastCol; c++) {
+                    if (rowStates[c] == WALL_CHAR) continue;
+
+                    int moveMask = getMoveMask(getStateId(r, c));
+                    if ((moveMask & 1 << SOUTH) != 0) edges.add(rowStates[c], southStates[c]);
+                    if ((moveMask & 1 << SOUTH_EAST) != 0) edges.add(rowStates[c], southStates[c + 1]);
+                    if ((moveMask & 1 << SOUTH_WEST) != 0) edges.add(rowStates[c], southStates[c - 1]);
                 }
             }
         }
     }
 
+    private void addNeighbours(EdgeBuffer edges) {
+        edges.sortAndRemoveDuplicates();
+
+        for (int i = 0; i < edges.size(); i++) {
+            int regionId = edges.getRegionId(i), neighbourId = edges.getNeighbourId(i);
+            regionIdToRegionMap.get(regionId).addNeighborId(neighbourId);
+            regionIdToRegionMap.get(neighbourId).addNeighborId(regionId);
+        }
+    }
+
+    /**
+     * Growable buffer of region pairs, each packed into a long with the smaller region id in the upper half
+     */
+    private static class EdgeBuffer {
+        private long[] edges = new long[64];
+        private int size;
+
+        void add(int regionId, int neighbourId) {
+            // States in the same region can be on either side of a border only if they are in different sectors, which
+            // never happens, but a pair is only an edge if the ids differ
+            if (regionId == neighbourId) return;
+
+            if (size == edges.length) {
+                edges = Arrays.copyOf(edges, size * 2);
+            }
+            edges[size++] = (long) Math.min(regionId, neighbourId) << 32 | Math.max(regionId, neighbourId);
+        }
+
+        void addAll(EdgeBuffer other) {
+            if (size + other.size > edges.length) {
+                edges = Arrays.copyOf(edges, Math.max(size + other.size, edges.length * 2));
+            }
+            System.arraycopy(other.edges, 0, edges, size, other.size);
+            size += other.size;
+        }
+
+        void sortAndRemoveDuplicates() {
+            Arrays.sort(edges, 0, size);
+
+            int numUnique = 0;
+            for (int i = 0; i < size; i++) {
+                if (numUnique == 0 || edges[i] != edges[numUnique - 1]) {
+                    edges[numUnique++] = edges[i];
+                }
+            }
+            size = numUnique;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int getRegionId(int index) {
+            return (int) (edges[index] >>> 32);
+        }
+
+        int getNeighbourId(int index) {
+            return (int) edges[index];
+        }
+    }
+
     public int getRegionIdFromMap(int row, int col) {
-        return super.getStateValue(row, col);
+        return getStateValue(row, col);
     }
 
     public int getRegionIdFromMap(int stateId) {
-        return super.getStateValue(super.getRowFromStateId(stateId), super.getColFromStateId(stateId));
+        return getStateValue(super.getRowFromStateId(stateId), super.getColFromStateId(stateId));
     }
 
     public int getSectorId(int row, int col) {
@@ -294,6 +625,20 @@ public class AbstractedMap extends GameMap {
         return Math.min(getStartColOfSector(sectorId) + this.gridSize, super.getNumCols());
     }
 
+    /**
+     * @return number of sectors along a row of the map, i.e. number of sector columns
+     */
+    public int getNumSectorsPerRow() {
+        return numSectorsPerRow;
+    }
+
+    /**
+     * @return number of sectors along a column of the map, i.e. number of sector rows
+     */
+    public int getNumSectorsPerCol() {
+        return numSectorsPerCol;
+    }
+
     public Sector getSector(int sectorId) {
         return sectors[sectorId];
     }
@@ -302,6 +647,18 @@ public class AbstractedMap extends GameMap {
         return regionIdToRegionMap;
     }
 
+    /**
+     * @return region graph, brought up to date with all changes to the regions so far
+     */
+    public RegionGraph getRegionGraph() {
+        regionGraph.update();
+        return regionGraph;
+    }
+
+    /**
+     * @return region representatives indexed by regionId - START_NUM, -1 for ids that are not in use. The array is
+     * replaced by a larger one when region ids beyond its end are handed out.
+     */
     public int[] getRegionReps() {
         return regionReps;
     }
@@ -340,7 +697,7 @@ public class AbstractedMap extends GameMap {
 
             // Remove region ids from mapping
 //            regionIdToRegionMap.put(regionId, null);
-            regionIdToRegionMap.remove(regionId);
+            removeRegionFromMap(regionId);
 
             // For each neighbour of a region in the wiped sector, remove the region in the wiped sector from its neighbours
             for (int neighbourId : region.getNeighborIds()) {
@@ -355,7 +712,9 @@ public class AbstractedMap extends GameMap {
         }
 
         // Mark region ids as free
-        freeRegionIds.addAll(regionIds);
+        for (int regionId : regionIds) {
+            regionIdAllocator.free(regionId);
+        }
     }
 
     private void removeCachedPath(int neighbourRep, int regionRep, Map<String, ?> cache) {
@@ -384,7 +743,7 @@ public class AbstractedMap extends GameMap {
 
             // Remove region ids from mapping
 //            regionIdToRegionMap.put(regionId, null);
-            regionIdToRegionMap.remove(regionId);
+            removeRegionFromMap(regionId);
 
             // For each neighbour of a region in the wiped sector, remove the region in the wiped sector from its neighbours
             for (int neighbourId : region.getNeighborIds()) {
@@ -396,7 +755,9 @@ public class AbstractedMap extends GameMap {
         }
 
         // Mark region ids as free
-        freeRegionIds.addAll(regionIds);
+        for (int regionId : regionIds) {
+            regionIdAllocator.free(regionId);
+        }
     }
 
     public Set<Integer> wipeSectorMergeCase(int northRow, int southRow, int westCol, int eastCol, Set<Integer> neighbouringRegionsInSameSector) {
@@ -417,6 +778,8 @@ public class AbstractedMap extends GameMap {
         // For each region in the wiped sector, remove all of its neighbours
         for (int regionId : regionIds) {
             Region region = getRegionById(regionId);
+            // DBAStar removes the region from the map once it has read its neighbours
+            regionGraph.markChanged(regionId);
 
             // For each neighbour of a region in the wiped sector, remove the region in the wiped sector from its neighbours
             for (int neighbourId : region.getNeighborIds()) {
@@ -428,7 +791,9 @@ public class AbstractedMap extends GameMap {
         }
 
         // Mark region ids as free
-        freeRegionIds.addAll(regionIds);
+        for (int regionId : regionIds) {
+            regionIdAllocator.free(regionId);
+        }
         return regionIds;
     }
 
@@ -456,33 +821,14 @@ public class AbstractedMap extends GameMap {
                     currentRegionNum = getFreeRegionId();
                     numRegionsInSector++;
 
-                    // Perform constrained BFS within Sector
-                    Queue<Integer> stateIds = new LinkedList<>();
-                    stateIds.add(super.getStateId(r, c));
-                    this.states[r][c] = currentRegionNum;
-
-                    int numStatesInRegion = 1;
-
-                    while (!stateIds.isEmpty()) {
-                        int stateId = stateIds.remove();
-                        // Iterate over neighbor states
-                        for (int neighborStateId : getStateNeighbourIds(stateId)) {
-                            int nr = super.getRowFromStateId(neighborStateId);
-                            int nc = super.getColFromStateId(neighborStateId);
-
-                            if (super.isInRangeAndOpenState(nr, nc, northRow, westCol, southRow, eastCol)) {
-                                this.states[nr][nc] = currentRegionNum;
-                                stateIds.add(neighborStateId);
-                                numStatesInRegion++;
-                            }
-                        }
-                    }
+                    // Perform constrained flood fill within Sector
+                    int numStatesInRegion = fillRegion(r, c, currentRegionNum, northRow, southRow, westCol, eastCol);
 
                     // Make new region that stores its region number and the number of states contained in the region
                     Region region = new Region(currentRegionNum, numStatesInRegion);
                     // Compute the region representative for the region
                     computeRegionRepresentative(currentRegionNum, region, northRow, southRow, westCol, eastCol);
-                    regionIdToRegionMap.put(currentRegionNum, region);
+                    putRegion(region);
                     regionsInSector.add(region);
                 }
             }
@@ -502,52 +848,20 @@ public class AbstractedMap extends GameMap {
         return regionIds;
     }
 
+    /**
+     * Adds the neighbours of the regions in a sector after it has been re-abstracted. Only the borders of the sector and
+     * those touching the ring of states around it are walked, this also picks up diagonal moves between the sectors
+     * around the sector that a changed state on its corner may have opened up. Neighbours are only added, never removed.
+     */
     public void computeRegionNeighbourhoodAndStoreRegionReps(int northRow, int southRow, int westCol, int eastCol) {
-        for (int r = Math.max(northRow - 1, 0); r < Math.min(southRow + 1, super.getNumRows()); r++) {
-            for (int c = Math.max(westCol - 1, 0); c < Math.min(eastCol + 1, super.getNumCols()); c++) {
-                if (!isWall(r, c)) {
-                    int regionId = this.getRegionIdFromMap(r, c);
-                    Region region = regionIdToRegionMap.get(regionId);
-
-                    regionReps[regionId - AbstractedMap.START_NUM] = region.getRegionRepresentative();
-
-                    boolean isOpenNorth = false, isOpenEast = false, isOpenSouth = false, isOpenWest = false;
-
-                    // If the neighbour state is not a wall and is in a different region, add it to the neighbour set
+        for (Region region : sectors[getSectorId(northRow, westCol)].getRegions()) {
+            regionReps[region.getRegionId() - AbstractedMap.START_NUM] = region.getRegionRepresentative();
+        }
 
-                    if (isInBoundsAndNotWall(r - 1, c) && getRegionIdFromMap(r - 1, c) != regionId) { // north
-                        region.addNeighborId(getRegionIdFromMap(r - 1, c));
-                        isOpenNorth = true;
-                    }
-                    if (isInBoundsAndNotWall(r, c + 1) && getRegionIdFromMap(r, c + 1) != regionId) { // east
-                        region.addNeighborId(getRegionIdFromMap(r, c + 1));
-                        isOpenEast = true;
-                    }
-                    if (isInBoundsAndNotWall(r + 1, c) && getRegionIdFromMap(r + 1, c) != regionId) { // south
-                        region.addNeighborId(getRegionIdFromMap(r + 1, c));
-                        isOpenSouth = true;
-                    }
-                    if (isInBoundsAndNotWall(r, c - 1) && getRegionIdFromMap(r, c - 1) != regionId) { // west
-                        region.addNeighborId(getRegionIdFromMap(r, c - 1));
-                        isOpenWest = true;
-                    }
+        EdgeBuffer edges = new EdgeBuffer();
+        collectBorderEdges(Math.max(northRow - 1, 0), Math.min(southRow, getNumRows() - 1), Math.max(westCol - 1, 0), Math.min(eastCol, getNumCols() - 1), edges);
 
-                    // Diagonal states are only open if the corresponding cardinal states are open
-                    if ((isOpenNorth || isOpenEast) && isInBoundsAndNotWall(r - 1, c + 1) && getRegionIdFromMap(r - 1, c + 1) != regionId) { // north-east
-                        region.addNeighborId(getRegionIdFromMap(r - 1, c + 1));
-                    }
-                    if ((isOpenSouth || isOpenEast) && isInBoundsAndNotWall(r + 1, c + 1) && getRegionIdFromMap(r + 1, c + 1) != regionId) { // south-east
-                        region.addNeighborId(getRegionIdFromMap(r + 1, c + 1));
-                    }
-                    if ((isOpenSouth || isOpenWest) && isInBoundsAndNotWall(r + 1, c - 1) && getRegionIdFromMap(r + 1, c - 1) != regionId) { // south-west
-                        region.addNeighborId(getRegionIdFromMap(r + 1, c - 1));
-                    }
-                    if ((isOpenNorth || isOpenWest) && isInBoundsAndNotWall(r - 1, c - 1) && getRegionIdFromMap(r - 1, c - 1) != regionId) { // north-west
-                        region.addNeighborId(getRegionIdFromMap(r - 1, c - 1));
-                    }
-                }
-            }
-        }
+        addNeighbours(edges);
     }
 
     private void decrementNumRegionsBy(int numRegions) {
@@ -564,18 +878,29 @@ public class AbstractedMap extends GameMap {
 
     public void addRegion(int regionId, int regionRepresentative, int numStates) {
         numRegions++;
-        regionIdToRegionMap.put(regionId, new Region(regionId, regionRepresentative, numStates));
+        putRegion(new Region(regionId, regionRepresentative, numStates));
     }
 
     public void addRegion(int regionId, int regionRepresentative, int numStates, Set<Integer> neighbourIds) {
         numRegions++;
-        regionIdToRegionMap.put(regionId, new Region(regionId, regionRepresentative, numStates, neighbourIds));
+        putRegion(new Region(regionId, regionRepresentative, numStates, neighbourIds));
+    }
+
+    private void putRegion(Region region) {
+        regionIdToRegionMap.put(region.getRegionId(), region);
+        region.setRegionGraph(regionGraph);
+        regionGraph.markChanged(region.getRegionId());
+    }
+
+    private void removeRegionFromMap(int regionId) {
+        regionIdToRegionMap.remove(regionId);
+        regionGraph.markChanged(regionId);
     }
 
     public void removeRegion(int regionId) {
         numRegions--;
 //        regionIdToRegionMap.put(regionId, null);
-        regionIdToRegionMap.remove(regionId);
+        removeRegionFromMap(regionId);
         setFreeRegionId(regionId);
     }
 
@@ -611,20 +936,53 @@ public class AbstractedMap extends GameMap {
         return getRegionIdFromMap(wallRow - 1, wallCol - 1);
     }
 
+    /**
+     * @return smallest region id that is not in use, which is now marked as used
+     */
     public int getFreeRegionId() {
-        return freeRegionIds.remove();
+        int regionId = regionIdAllocator.allocate();
+        ensureRegionCapacity(regionId + 1);
+        return regionId;
     }
 
     public void setFreeRegionId(int freeRegionId) {
-        this.freeRegionIds.add(freeRegionId);
+        regionIdAllocator.free(freeRegionId);
+    }
+
+    /**
+     * Grows regionReps so that it has a slot for every region id below endRegionId. Grows by at least half of its
+     * length, so that handing out ids one at a time does not copy the array every time.
+     */
+    private void ensureRegionCapacity(int endRegionId) {
+        int capacity = endRegionId - START_NUM;
+        if (capacity <= regionReps.length) return;
+
+        int oldCapacity = regionReps.length;
+        regionReps = Arrays.copyOf(regionReps, Math.max(capacity, oldCapacity + oldCapacity / 2));
+        Arrays.fill(regionReps, oldCapacity, regionReps.length, -1);
     }
 
     public void setState(int row, int col, int value) {
+        setStateValue(row, col, value);
+    }
+
+    @Override
+    public int getStateValue(int row, int col) {
+        return isInBounds(row, col) ? states[row][col] : WALL_CHAR;
+    }
+
+    @Override
+    public void setStateValue(int row, int col, int value) {
         states[row][col] = value;
+        // Keep the bit grid in sync, regions are open states
+        super.setStateValue(row, col, value);
     }
 
+    /**
+     * @return free region ids in ascending order, this is a copy that does not change as ids are handed out and freed
+     */
     public Queue<Integer> getFreeRegionIds() {
-        return freeRegionIds;
+        return regionIdAllocator.getFreeIds();
     }
 
     public void getDirectNeighbourValues(int[] neighbourValues, int row, int col) {
@@ -0,0 +1,152 @@
+package map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes maps in a binary format that can be memory-mapped and used without any parsing. All values are
+ * little-endian. The layout is:
+ * <pre>
+ *  offset 0   int     magic number (MAGIC)
+ *  offset 4   int     format version (VERSION)
+ *  offset 8   int     number of rows
+ *  offset 12  int     number of columns
+ *  offset 16  int     number of open states
+ *  offset 20  int     words per row, (numCols + 63) / 64
+ *  offset 24  long    reserved, pads the header so that the grid is 8-byte aligned
+ *  offset 32  long[]  bit grid, numRows * wordsPerRow words (see BitGrid)
+ *  then       byte[]  move masks, numRows * numCols bytes (see GameMap.getMoveMask)
+ * </pre>
+ * Maps are mapped privately, so walls can still be placed and removed on a loaded map. Those changes are only visible
+ * to the process that made them and are never written back to the file, pages that are not changed stay shared between
+ * all processes that load the same file.
+ */
+public class BinaryMapFile {
+    // "DBPM" when read as bytes
+    public static final int MAGIC = 0x4D504244;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+    public static final String FILE_EXTENSION = ".bmap";
+
+    private static final Logger logger = LogManager.getLogger(BinaryMapFile.class);
+
+    private BinaryMapFile() throws Exception {
+        throw new Exception("This is a utility class and should not be instantiated.");
+    }
+
+    /**
+     * Converts a map in Moving AI text format (.map) to the binary format
+     *
+     * @param mapFileName    path to the .map file
+     * @param binaryFileName path of the binary file to write
+     */
+    public static void convert(String mapFileName, String binaryFileName) {
+        write(new GameMap(mapFileName), binaryFileName);
+    }
+
+    public static void write(GameMap gameMap, String fileName) {
+        BitGrid bitGrid = gameMap.getBitGrid();
+        if (bitGrid == null) {
+            throw new IllegalArgumentException("Map " + gameMap.getName() + " has no bit grid and cannot be written");
+        }
+
+        int numRows = gameMap.getNumRows(), numCols = gameMap.getNumCols();
+        int wordsPerRow = bitGrid.getWordsPerRow();
+        long fileSize = getFileSize(numRows, numCols, wordsPerRow);
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Map " + gameMap.getName() + " is too large for the binary format");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) fileSize).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(numRows);
+        buffer.putInt(numCols);
+        buffer.putInt(gameMap.getNumOpenStates());
+        buffer.putInt(wordsPerRow);
+        buffer.putLong(0);
+
+        for (int r = 0; r < numRows; r++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                buffer.putLong(bitGrid.getWord(r, w));
+            }
+        }
+
+        for (int stateId = 0; stateId < numRows * numCols; stateId++) {
+            buffer.put((byte) gameMap.getMoveMask(stateId));
+        }
+
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            logger.error("Could not write map to {}", fileName);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Memory-maps a binary map file. Neither the grid nor the move masks are copied.
+     *
+     * @param fileName path to the binary map file
+     * @return map backed by the mapped file
+     */
+    public static GameMap load(String fileName) {
+        Path path = Path.of(fileName);
+        ByteBuffer buffer;
+
+        try {
+            // A private mapping needs a channel that is open for writing, even though nothing is ever written to the file
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.PRIVATE, 0, channel.size());
+            } catch (AccessDeniedException e) {
+                logger.warn("Cannot map {} privately, reading it into memory instead", fileName);
+                buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            }
+        } catch (IOException e) {
+            logger.error("File {} could not be read", fileName);
+            throw new RuntimeException(e);
+        }
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new RuntimeException(fileName + " is not a binary map file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new RuntimeException(fileName + " has version " + buffer.getInt(4) + ", expected " + VERSION);
+        }
+
+        int numRows = buffer.getInt(8);
+        int numCols = buffer.getInt(12);
+        int numOpenStates = buffer.getInt(16);
+        int wordsPerRow = buffer.getInt(20);
+
+        if (wordsPerRow != (numCols + 63) >>> 6 || buffer.capacity() != getFileSize(numRows, numCols, wordsPerRow)) {
+            throw new RuntimeException(fileName + " is corrupted, its size does not match its header");
+        }
+
+        int gridSize = numRows * wordsPerRow * Long.BYTES;
+        BitGrid bitGrid = new BitGrid(numRows, numCols, buffer.slice(HEADER_SIZE, gridSize).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer());
+        ByteBuffer moveMasks = buffer.slice(HEADER_SIZE + gridSize, numRows * numCols);
+
+        return new GameMap(bitGrid, moveMasks, numOpenStates, fileName);
+    }
+
+    private static long getFileSize(int numRows, int numCols, int wordsPerRow) {
+        return HEADER_SIZE + (long) numRows * wordsPerRow * Long.BYTES + (long) numRows * numCols;
+    }
+}
@@ -0,0 +1,199 @@
+package map;
+
+import java.nio.LongBuffer;
+
+/**
+ * Bit-packed passability layer for a map. Every cell is one bit (1 = open, 0 = wall), every row starts at a new long
+ * word and uses (numCols + 63) / 64 words. Bits past the last column of a row are always 0, so they read as walls.
+ * <p>
+ * Besides single-cell accessors, the word-level accessors (getWord, getBits, nextWall, nextOpen, previousWall) allow
+ * neighbour checks and flood fills to look at 64 cells of a row at a time.
+ * <p>
+ * The words are normally kept in a long array. A grid loaded from a memory-mapped map file (see BinaryMapFile) keeps
+ * them in a LongBuffer instead, so that the grid is used straight from the page cache without being copied.
+ */
+public class BitGrid {
+    private final int numRows, numCols;
+    private final int wordsPerRow;
+    // Exactly one of these is set
+    private final long[] words;
+    private final LongBuffer mappedWords;
+
+    /**
+     * Creates a grid in which every cell is a wall
+     */
+    public BitGrid(int numRows, int numCols) {
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.wordsPerRow = (numCols + 63) >>> 6;
+        this.words = new long[numRows * wordsPerRow];
+        this.mappedWords = null;
+    }
+
+    public BitGrid(BitGrid bitGrid) {
+        this.numRows = bitGrid.numRows;
+        this.numCols = bitGrid.numCols;
+        this.wordsPerRow = bitGrid.wordsPerRow;
+
+        this.words = new long[numRows * wordsPerRow];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = bitGrid.getWord(i);
+        }
+        this.mappedWords = null;
+    }
+
+    /**
+     * Creates a grid on top of existing words (e.g. a memory-mapped file), the words are not copied
+     *
+     * @param words buffer holding numRows * ((numCols + 63) / 64) words, starting at index 0
+     */
+    BitGrid(int numRows, int numCols, LongBuffer words) {
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.wordsPerRow = (numCols + 63) >>> 6;
+
+        if (words.capacity() < numRows * wordsPerRow) {
+            throw new IllegalArgumentException("Buffer holds " + words.capacity() + " words, but a " + numRows + "x" + numCols + " grid needs " + numRows * wordsPerRow);
+        }
+        this.words = null;
+        this.mappedWords = words;
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public int getNumCols() {
+        return numCols;
+    }
+
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    /**
+     * @return whether the cell is open, row and col must be in bounds
+     */
+    public boolean isOpen(int row, int col) {
+        // The shift only uses the lower six bits of col
+        return (getWord(row * wordsPerRow + (col >>> 6)) & (1L << col)) != 0;
+    }
+
+    public void setOpen(int row, int col) {
+        int index = row * wordsPerRow + (col >>> 6);
+        setWord(index, getWord(index) | 1L << col);
+    }
+
+    public void setWall(int row, int col) {
+        int index = row * wordsPerRow + (col >>> 6);
+        setWord(index, getWord(index) & ~(1L << col));
+    }
+
+    public void set(int row, int col, boolean isOpen) {
+        if (isOpen) {
+            setOpen(row, col);
+        } else {
+            setWall(row, col);
+        }
+    }
+
+    /**
+     * @param row       row of the word
+     * @param wordIndex index of the word within the row (covers columns wordIndex * 64 to wordIndex * 64 + 63)
+     * @return the word, bit i is set if column wordIndex * 64 + i is open
+     */
+    public long getWord(int row, int wordIndex) {
+        return getWord(row * wordsPerRow + wordIndex);
+    }
+
+    /**
+     * Returns the 64 cells of a row starting at col, even if they span two words. Bit i is set if column col + i is
+     * open, cells past the end of the row read as walls.
+     *
+     * @param row row to read from, must be in bounds
+     * @param col first column to read, must be in bounds
+     * @return 64 cells starting at (row, col)
+     */
+    public long getBits(int row, int col) {
+        int wordIndex = col >>> 6;
+        int offset = col & 63;
+        int base = row * wordsPerRow;
+
+        long bits = getWord(base + wordIndex) >>> offset;
+        if (offset != 0 && wordIndex + 1 < wordsPerRow) {
+            bits |= getWord(base + wordIndex + 1) << (64 - offset);
+        }
+        return bits;
+    }
+
+    /**
+     * @return first column at or after col that is a wall, numCols if there is none
+     */
+    public int nextWall(int row, int col) {
+        if (col >= numCols) return numCols;
+
+        int wordIndex = col >>> 6;
+        int base = row * wordsPerRow;
+        long word = ~getWord(base + wordIndex) & (-1L << col);
+
+        while (word == 0) {
+            if (++wordIndex == wordsPerRow) return numCols;
+            word = ~getWord(base + wordIndex);
+        }
+        return Math.min((wordIndex << 6) + Long.numberOfTrailingZeros(word), numCols);
+    }
+
+    /**
+     * @return first column at or after col that is open, numCols if there is none
+     */
+    public int nextOpen(int row, int col) {
+        if (col >= numCols) return numCols;
+
+        int wordIndex = col >>> 6;
+        int base = row * wordsPerRow;
+        long word = getWord(base + wordIndex) & (-1L << col);
+
+        while (word == 0) {
+            if (++wordIndex == wordsPerRow) return numCols;
+            word = getWord(base + wordIndex);
+        }
+        return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * @return last column at or before col that is a wall, -1 if there is none
+     */
+    public int previousWall(int row, int col) {
+        if (col < 0) return -1;
+
+        int wordIndex = col >>> 6;
+        int base = row * wordsPerRow;
+        long word = ~getWord(base + wordIndex) & (-1L >>> (63 - (col & 63)));
+
+        while (word == 0) {
+            if (--wordIndex < 0) return -1;
+            word = ~getWord(base + wordIndex);
+        }
+        return (wordIndex << 6) + 63 - Long.numberOfLeadingZeros(word);
+    }
+
+    private long getWord(int index) {
+        return words != null ? words[index] : mappedWords.get(index);
+    }
+
+    private void setWord(int index, long word) {
+        if (words != null) {
+            words[index] = word;
+        } else {
+            mappedWords.put(index, word);
+        }
+    }
+
+    public int countOpen() {
+        int count = 0;
+        for (int i = 0; i < numRows * wordsPerRow; i++) {
+            count += Long.bitCount(getWord(i));
+        }
+        return count;
+    }
+}
@@ -5,6 +5,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -14,9 +15,24 @@ public class GameMap {
     public static final char WALL_CHAR = '*';
     public static final char EMPTY_CHAR = ' ';
 
+    // Directions in the order in which neighbours are generated, bit i of a move mask is set if moving in direction i is
+    // legal
+    public static final int NORTH = 0, EAST = 1, SOUTH = 2, WEST = 3, NORTH_EAST = 4, SOUTH_EAST = 5, SOUTH_WEST = 6, NORTH_WEST = 7;
+    static final int[] ROW_OFFSETS = {-1, 0, 1, 0, -1, 1, 1, -1};
+    static final int[] COL_OFFSETS = {0, 1, 0, -1, 1, 1, -1, -1};
+    // Bits of the cardinal directions next to each diagonal direction, indexed by direction - NORTH_EAST
+    private static final int[] DIAGONAL_CARDINALS = {1 << NORTH | 1 << EAST, 1 << SOUTH | 1 << EAST, 1 << SOUTH | 1 << WEST, 1 << NORTH | 1 << WEST};
+
     private final int numRows, numCols;
     private int numOpenStates;
-    final int[][] states;
+    // One bit per state (open or wall), subclasses that need more than that (e.g. AbstractedMap) keep their own array
+    final BitGrid bitGrid;
+    // Legal moves out of every state, indexed by state id (see computeMoveMask)
+    private final byte[] moveMasks;
+    // Used instead of moveMasks for maps loaded from a memory-mapped file
+    private final ByteBuffer mappedMoveMasks;
+    // Difference in state id for a move in each direction
+    private final int[] moveOffsets;
 
     final String name;
 
@@ -38,8 +54,8 @@ public class GameMap {
             // Drop line (just says map)
             scanner.nextLine();
 
-            // 2D array representing game map
-            states = new int[this.numRows][this.numCols];
+            // Bit grid representing game map (all states start out as walls)
+            bitGrid = new BitGrid(this.numRows, this.numCols);
             // Number of open (i.e. traversable) states on the map
             numOpenStates = 0;
 
@@ -47,10 +63,8 @@ public class GameMap {
                 line = scanner.nextLine();
                 for (int c = 0; c < this.numCols; c++) {
                     // All of these characters are considered to be non-traversable (i.e. walls)
-                    if (line.charAt(c) == '@' || line.charAt(c) == 'O' || line.charAt(c) == 'W' || line.charAt(c) == 'T') {
-                        states[r][c] = WALL_CHAR;
-                    } else {
-                        states[r][c] = EMPTY_CHAR;
+                    if (line.charAt(c) != '@' && line.charAt(c) != 'O' && line.charAt(c) != 'W' && line.charAt(c) != 'T') {
+                        bitGrid.setOpen(r, c);
                         numOpenStates++;
                     }
                 }
@@ -60,32 +74,71 @@ public class GameMap {
             throw new RuntimeException(e);
         }
 
+        this.moveOffsets = computeMoveOffsets(numCols);
+        this.moveMasks = computeMoveMasks(bitGrid);
+        this.mappedMoveMasks = null;
+
         this.name = fileName;
     }
 
     public GameMap(int[][] states) {
         this.numRows = states.length;
         this.numCols = states[0].length;
-        this.states = states;
+        this.bitGrid = new BitGrid(numRows, numCols);
         for (int r = 0; r < numRows; r++) {
             for (int c = 0; c < numCols; c++) {
-                if (!isWall(r, c)) {
+                if (states[r][c] != WALL_CHAR) {
+                    bitGrid.setOpen(r, c);
                     numOpenStates++;
                 }
             }
         }
 
+        this.moveOffsets = computeMoveOffsets(numCols);
+        this.moveMasks = computeMoveMasks(bitGrid);
+        this.mappedMoveMasks = null;
+
         this.name = "Map from states";
     }
 
+    /**
+     * Constructor used by BinaryMapFile, bit grid and move masks are used as they are (e.g. memory-mapped)
+     */
+    GameMap(BitGrid bitGrid, ByteBuffer moveMasks, int numOpenStates, String name) {
+        this.numRows = bitGrid.getNumRows();
+        this.numCols = bitGrid.getNumCols();
+        this.numOpenStates = numOpenStates;
+        this.bitGrid = bitGrid;
+        this.moveOffsets = computeMoveOffsets(numCols);
+        this.moveMasks = null;
+        this.mappedMoveMasks = moveMasks;
+
+        this.name = name;
+    }
+
+    /**
+     * Loads a map stored in the binary format (see BinaryMapFile). The file is memory-mapped, so the map is usable
+     * without parsing the file or copying the grid.
+     *
+     * @param fileName path to the binary map file
+     * @return the map
+     */
+    public static GameMap fromBinaryFile(String fileName) {
+        return BinaryMapFile.load(fileName);
+    }
+
     /**
      * Constructor used for VisualGameMap
      */
     protected GameMap(int numRows, int numCols) {
         this.numRows = numRows;
         this.numCols = numCols;
-        // states is a 2D array of AtomicIntegers in VisualGameMap, so the int array here is useless
-        this.states = null;
+        // states is a 2D array of AtomicIntegers in VisualGameMap, so the bit grid here is useless
+        this.bitGrid = null;
+        // Move masks are computed on the fly in VisualGameMap since its states can change without notice
+        this.moveOffsets = computeMoveOffsets(numCols);
+        this.moveMasks = null;
+        this.mappedMoveMasks = null;
 
         this.name = "Visual Map";
     }
@@ -101,17 +154,24 @@ public class GameMap {
         // This field won't matter for abstract maps
         this.numOpenStates = gameMap.numOpenStates;
 
-        this.states = new int[numRows][numCols];
-        for (int r = 0; r < getNumRows(); r++) {
-            for (int c = 0; c < getNumCols(); c++) {
-                if (gameMap.isOpenState(r, c)) {
-                    states[r][c] = GameMap.EMPTY_CHAR;
-                } else {
-                    states[r][c] = WALL_CHAR;
+        if (gameMap.bitGrid != null && !(gameMap instanceof AbstractedMap)) {
+            this.bitGrid = new BitGrid(gameMap.bitGrid);
+        } else {
+            // Only states that are open on the original map are open on the copy (regions of an abstracted map are not)
+            this.bitGrid = new BitGrid(numRows, numCols);
+            for (int r = 0; r < numRows; r++) {
+                for (int c = 0; c < numCols; c++) {
+                    if (gameMap.isOpenState(r, c)) {
+                        bitGrid.setOpen(r, c);
+                    }
                 }
             }
         }
 
+        this.moveOffsets = computeMoveOffsets(numCols);
+        this.moveMasks = computeMoveMasks(bitGrid);
+        this.mappedMoveMasks = null;
+
         this.name = gameMap.name;
     }
 
@@ -140,7 +200,7 @@ public class GameMap {
     }
 
     public int getStateValue(int row, int col) {
-        return isInBounds(row, col) ? states[row][col] : GameMap.WALL_CHAR;
+        return isInBounds(row, col) && bitGrid.isOpen(row, col) ? GameMap.EMPTY_CHAR : GameMap.WALL_CHAR;
     }
 
     public int getStateValue(int sid) {
@@ -151,8 +211,15 @@ public class GameMap {
         setStateValue(getRowFromStateId(sid), getColFromStateId(sid), value);
     }
 
+    /**
+     * A GameMap only stores whether a state is a wall, so any value other than WALL_CHAR makes the state open
+     */
     public void setStateValue(int row, int col, int value) {
-        states[row][col] = value;
+        boolean isOpen = value != WALL_CHAR;
+        if (bitGrid.isOpen(row, col) != isOpen) {
+            bitGrid.set(row, col, isOpen);
+            updateMoveMasksAround(row, col);
+        }
     }
 
     public void placeWallAt(int sid) {
@@ -161,7 +228,7 @@ public class GameMap {
 
         numOpenStates--;
 
-        if (states[row][col] == WALL_CHAR) {
+        if (isWall(row, col)) {
             throw new RuntimeException("There is a wall at " + sid + " (" + row + ", " + col + ") already!");
         } else {
             setStateValue(row, col, WALL_CHAR);
@@ -174,7 +241,7 @@ public class GameMap {
 
         numOpenStates++;
 
-        if (states[row][col] == WALL_CHAR) {
+        if (isWall(row, col)) {
             setStateValue(row, col, EMPTY_CHAR);
         } else {
             throw new RuntimeException("There is an open state at " + sid + " (" + row + ", " + col + ") already!");
@@ -202,7 +269,7 @@ public class GameMap {
     }
 
     public boolean isWall(int row, int col) {
-        return states[row][col] == WALL_CHAR;
+        return !bitGrid.isOpen(row, col);
     }
 
     public boolean isWall(int sid) {
@@ -249,75 +316,23 @@ public class GameMap {
     }
 
     public void getStateNeighbourIds(int row, int col, List<Integer> neighbourIds) {
-        boolean isOpenNorth = false, isOpenEast = false, isOpenSouth = false, isOpenWest = false;
-
-        if (isInBoundsAndNotWall(row - 1, col)) { // north
-            neighbourIds.add(getStateId(row - 1, col));
-            isOpenNorth = true;
-        }
-        if (isInBoundsAndNotWall(row, col + 1)) { // east
-            neighbourIds.add(getStateId(row, col + 1));
-            isOpenEast = true;
-        }
-        if (isInBoundsAndNotWall(row + 1, col)) { // south
-            neighbourIds.add(getStateId(row + 1, col));
-            isOpenSouth = true;
-        }
-        if (isInBoundsAndNotWall(row, col - 1)) { // west
-            neighbourIds.add(getStateId(row, col - 1));
-            isOpenWest = true;
-        }
+        int stateId = getStateId(row, col);
+        int moveMask = getMoveMask(stateId);
 
-        // Diagonal states are only open if the corresponding cardinal states are open
-        if ((isOpenNorth || isOpenEast) && isInBoundsAndNotWall(row - 1, col + 1)) { // north-east
-            neighbourIds.add(getStateId(row - 1, col + 1));
-        }
-        if ((isOpenSouth || isOpenEast) && isInBoundsAndNotWall(row + 1, col + 1)) { // south-east
-            neighbourIds.add(getStateId(row + 1, col + 1));
-        }
-        if ((isOpenSouth || isOpenWest) && isInBoundsAndNotWall(row + 1, col - 1)) { // south-west
-            neighbourIds.add(getStateId(row + 1, col - 1));
-        }
-        if ((isOpenNorth || isOpenWest) && isInBoundsAndNotWall(row - 1, col - 1)) { // north-west
-            neighbourIds.add(getStateId(row - 1, col - 1));
+        while (moveMask != 0) {
+            neighbourIds.add(stateId + moveOffsets[Integer.numberOfTrailingZeros(moveMask)]);
+            // Clear lowest set bit
+            moveMask &= moveMask - 1;
         }
     }
 
     public int getStateNeighbourIds(int currentId, int[] neighbourIds) {
         int i = 0;
-        boolean isOpenNorth = false, isOpenEast = false, isOpenSouth = false, isOpenWest = false;
-        int row = getRowFromStateId(currentId);
-        int col = getColFromStateId(currentId);
+        int moveMask = getMoveMask(currentId);
 
-        if (isInBoundsAndNotWall(row - 1, col)) { // north
-            neighbourIds[i++] = getStateId(row - 1, col);
-            isOpenNorth = true;
-        }
-        if (isInBoundsAndNotWall(row, col + 1)) { // east
-            neighbourIds[i++] = getStateId(row, col + 1);
-            isOpenEast = true;
-        }
-        if (isInBoundsAndNotWall(row + 1, col)) { // south
-            neighbourIds[i++] = getStateId(row + 1, col);
-            isOpenSouth = true;
-        }
-        if (isInBoundsAndNotWall(row, col - 1)) { // west
-            neighbourIds[i++] = getStateId(row, col - 1);
-            isOpenWest = true;
-        }
-
-        // Diagonal states are only open if the corresponding cardinal states are open
-        if ((isOpenNorth || isOpenEast) && isInBoundsAndNotWall(row - 1, col + 1)) { // north-east
-            neighbourIds[i++] = getStateId(row - 1, col + 1);
-        }
-        if ((isOpenSouth || isOpenEast) && isInBoundsAndNotWall(row + 1, col + 1)) { // south-east
-            neighbourIds[i++] = getStateId(row + 1, col + 1);
-        }
-        if ((isOpenSouth || isOpenWest) && isInBoundsAndNotWall(row + 1, col - 1)) { // south-west
-            neighbourIds[i++] = getStateId(row + 1, col - 1);
-        }
-        if ((isOpenNorth || isOpenWest) && isInBoundsAndNotWall(row - 1, col - 1)) { // north-west
-            neighbourIds[i++] = getStateId(row - 1, col - 1);
+        while (moveMask != 0) {
+            neighbourIds[i++] = currentId + moveOffsets[Integer.numberOfTrailingZeros(moveMask)];
+            moveMask &= moveMask - 1;
         }
 
         return i;
@@ -325,42 +340,123 @@ public class GameMap {
 
     public int getStateNeighbourIds(int currentId, int[] neighbourIds, HashSet<Integer> closedSet) {
         int i = 0;
-        boolean isOpenNorth = false, isOpenEast = false, isOpenSouth = false, isOpenWest = false;
-        int row = getRowFromStateId(currentId);
-        int col = getColFromStateId(currentId);
+        int moveMask = getMoveMask(currentId);
 
-        if (isInBoundsAndNotWall(row - 1, col) && !closedSet.contains(getStateId(row - 1, col))) { // north
-            neighbourIds[i++] = getStateId(row - 1, col);
-            isOpenNorth = true;
-        }
-        if (isInBoundsAndNotWall(row, col + 1) && !closedSet.contains(getStateId(row, col + 1))) { // east
-            neighbourIds[i++] = getStateId(row, col + 1);
-            isOpenEast = true;
+        // Closed cardinal states count as blocked when deciding the diagonals, just like walls
+        for (int direction = NORTH; direction <= WEST; direction++) {
+            if ((moveMask & 1 << direction) != 0 && closedSet.contains(currentId + moveOffsets[direction])) {
+                moveMask &= ~(1 << direction);
+            }
         }
-        if (isInBoundsAndNotWall(row + 1, col) && !closedSet.contains(getStateId(row + 1, col))) { // south
-            neighbourIds[i++] = getStateId(row + 1, col);
-            isOpenSouth = true;
+        moveMask = dropBlockedDiagonals(moveMask);
+
+        while (moveMask != 0) {
+            int neighbourId = currentId + moveOffsets[Integer.numberOfTrailingZeros(moveMask)];
+            if (!closedSet.contains(neighbourId)) {
+                neighbourIds[i++] = neighbourId;
+            }
+            moveMask &= moveMask - 1;
         }
-        if (isInBoundsAndNotWall(row, col - 1) && !closedSet.contains(getStateId(row, col - 1))) { // west
-            neighbourIds[i++] = getStateId(row, col - 1);
-            isOpenWest = true;
+
+        return i;
+    }
+
+    /**
+     * Returns the legal moves out of a state as a bit mask (bit NORTH to bit NORTH_WEST). Moving in a direction is legal
+     * if the state in that direction is in bounds and not a wall. Diagonal moves additionally require either of the
+     * corresponding cardinal states to be in bounds and not a wall. Whether the state itself is a wall does not matter.
+     *
+     * @param stateId id of the state
+     * @return bit mask of legal moves, use getMoveOffset to turn a direction into a state id offset
+     */
+    public int getMoveMask(int stateId) {
+        return (moveMasks != null ? moveMasks[stateId] : mappedMoveMasks.get(stateId)) & 0xFF;
+    }
+
+    /**
+     * @param direction one of NORTH, EAST, SOUTH, WEST, NORTH_EAST, SOUTH_EAST, SOUTH_WEST, NORTH_WEST
+     * @return the difference in state id when moving in that direction
+     */
+    public int getMoveOffset(int direction) {
+        return moveOffsets[direction];
+    }
+
+    protected int computeMoveMask(int row, int col) {
+        int openMask = 0;
+        for (int direction = NORTH; direction <= NORTH_WEST; direction++) {
+            if (isInBoundsAndNotWall(row + ROW_OFFSETS[direction], col + COL_OFFSETS[direction])) {
+                openMask |= 1 << direction;
+            }
         }
+        return dropBlockedDiagonals(openMask);
+    }
 
-        // Diagonal states are only open if the corresponding cardinal states are open
-        if ((isOpenNorth || isOpenEast) && isInBoundsAndNotWall(row - 1, col + 1) && !closedSet.contains(getStateId(row - 1, col + 1))) { // north-east
-            neighbourIds[i++] = getStateId(row - 1, col + 1);
+    /**
+     * Same as computeMoveMask, but only reads the bit grid, so it is safe to call while a (subclass) map is still being
+     * constructed
+     */
+    private static int computeMoveMask(BitGrid bitGrid, int row, int col) {
+        int openMask = 0;
+        for (int direction = NORTH; direction <= NORTH_WEST; direction++) {
+            int r = row + ROW_OFFSETS[direction];
+            int c = col + COL_OFFSETS[direction];
+            if (r >= 0 && r < bitGrid.getNumRows() && c >= 0 && c < bitGrid.getNumCols() && bitGrid.isOpen(r, c)) {
+                openMask |= 1 << direction;
+            }
         }
-        if ((isOpenSouth || isOpenEast) && isInBoundsAndNotWall(row + 1, col + 1) && !closedSet.contains(getStateId(row + 1, col + 1))) { // south-east
-            neighbourIds[i++] = getStateId(row + 1, col + 1);
+        return dropBlockedDiagonals(openMask);
+    }
+
+    /**
+     * Diagonal moves are only legal if either of the corresponding cardinal moves is
+     *
+     * @param moveMask bit mask of moves (see getMoveMask)
+     * @return moveMask without the diagonal moves whose cardinal moves are both missing
+     */
+    private static int dropBlockedDiagonals(int moveMask) {
+        for (int direction = NORTH_EAST; direction <= NORTH_WEST; direction++) {
+            if ((moveMask & DIAGONAL_CARDINALS[direction - NORTH_EAST]) == 0) {
+                moveMask &= ~(1 << direction);
+            }
         }
-        if ((isOpenSouth || isOpenWest) && isInBoundsAndNotWall(row + 1, col - 1) && !closedSet.contains(getStateId(row + 1, col - 1))) { // south-west
-            neighbourIds[i++] = getStateId(row + 1, col - 1);
+        return moveMask;
+    }
+
+    private static byte[] computeMoveMasks(BitGrid bitGrid) {
+        int numRows = bitGrid.getNumRows();
+        int numCols = bitGrid.getNumCols();
+        byte[] masks = new byte[numRows * numCols];
+        for (int r = 0; r < numRows; r++) {
+            for (int c = 0; c < numCols; c++) {
+                masks[r * numCols + c] = (byte) computeMoveMask(bitGrid, r, c);
+            }
         }
-        if ((isOpenNorth || isOpenWest) && isInBoundsAndNotWall(row - 1, col - 1) && !closedSet.contains(getStateId(row - 1, col - 1))) { // north-west
-            neighbourIds[i++] = getStateId(row - 1, col - 1);
+        return masks;
+    }
+
+    /**
+     * The move mask of a state only depends on the states around it, so a change at (row, col) only affects the move
+     * masks in the 3x3 block centred on it
+     */
+    private void updateMoveMasksAround(int row, int col) {
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, numRows - 1); r++) {
+            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, numCols - 1); c++) {
+                int stateId = getStateId(r, c);
+                if (moveMasks != null) {
+                    moveMasks[stateId] = (byte) computeMoveMask(r, c);
+                } else {
+                    mappedMoveMasks.put(stateId, (byte) computeMoveMask(r, c));
+                }
+            }
         }
+    }
 
-        return i;
+    private static int[] computeMoveOffsets(int numCols) {
+        int[] moveOffsets = new int[8];
+        for (int direction = 0; direction < 8; direction++) {
+            moveOffsets[direction] = ROW_OFFSETS[direction] * numCols + COL_OFFSETS[direction];
+        }
+        return moveOffsets;
     }
 
     public int getOctileDistance(int startId, int goalId) {
@@ -399,7 +495,7 @@ public class GameMap {
     public void printStates() {
         for (int r = 0; r < this.numRows; r++) {
             for (int c = 0; c < this.numCols; c++) {
-                System.out.print(states[r][c] + " ");
+                System.out.print(getStateValue(r, c) + " ");
             }
             System.out.println();
         }
@@ -408,4 +504,11 @@ public class GameMap {
     public String getName() {
         return name;
     }
+
+    /**
+     * @return bit-packed passability layer of this map (null for VisualGameMap)
+     */
+    public BitGrid getBitGrid() {
+        return bitGrid;
+    }
 }
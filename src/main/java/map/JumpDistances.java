@@ -0,0 +1,232 @@
+package map;
+
+import java.util.Arrays;
+
+import static map.GameMap.*;
+
+/**
+ * Precomputed jump distances for JPS+ (Rabin and Sturtevant 2016) on a GameMap.
+ * <p>
+ * For every state and direction, the table holds how many moves a jump in that direction makes before it stops at a jump
+ * point (a positive distance), or, if it runs into a wall or the edge of the map first, how many moves it can make
+ * before that (zero or a negative distance). The jump points are the ones of JumpPointSearch: moving straight, states
+ * with a forced neighbour, and moving diagonally, states with a forced neighbour and states a straight jump along one of
+ * the two cardinal components of the direction finds a jump point from. A jump thus takes a single lookup, and the goal
+ * only needs to be checked against the distance (see jump).
+ * <p>
+ * The distance of a state only depends on its move mask, the move mask of the next state in the direction and the
+ * distance of that state. A change at one state only changes the move masks in the 3x3 block around it, so update
+ * recomputes the distances in the block and works its way back along every row, column and diagonal run from there,
+ * stopping as soon as a distance does not change, rather than rebuilding the table.
+ */
+public class JumpDistances {
+    private static final int NUM_DIRECTIONS = 8;
+
+    // Cardinal components of every diagonal direction (indexed by direction - NORTH_EAST)
+    private static final int[] VERTICAL = {NORTH, SOUTH, SOUTH, NORTH};
+    private static final int[] HORIZONTAL = {EAST, EAST, WEST, WEST};
+    // Diagonal direction between two perpendicular cardinal directions, -1 otherwise
+    private static final int[][] DIAGONALS = {
+            {-1, NORTH_EAST, -1, NORTH_WEST},
+            {NORTH_EAST, -1, SOUTH_EAST, -1},
+            {-1, SOUTH_EAST, -1, SOUTH_WEST},
+            {NORTH_WEST, -1, SOUTH_WEST, -1}
+    };
+
+    private final GameMap gameMap;
+    private final int numRows, numCols;
+    // Distance of every state in every direction, at stateId * NUM_DIRECTIONS + direction
+    private final short[] distances;
+
+    // States (times NUM_DIRECTIONS, plus the direction) whose straight distance changed in the current update
+    private int[] changedStraight = new int[64];
+    private int numChangedStraight;
+
+    public JumpDistances(GameMap gameMap) {
+        if (Math.max(gameMap.getNumRows(), gameMap.getNumCols()) > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Jump distances on " + gameMap.getName() + " do not fit into a short");
+        }
+
+        this.gameMap = gameMap;
+        this.numRows = gameMap.getNumRows();
+        this.numCols = gameMap.getNumCols();
+        this.distances = new short[numRows * numCols * NUM_DIRECTIONS];
+
+        // Straight distances first, as diagonal distances depend on them
+        for (int direction = NORTH; direction <= NORTH_WEST; direction++) {
+            computeDistances(direction);
+        }
+    }
+
+    /**
+     * Computes the distances of all states in one direction, visiting every state after the next state in the direction
+     */
+    private void computeDistances(int direction) {
+        int numStates = numRows * numCols;
+        if (gameMap.getMoveOffset(direction) > 0) {
+            for (int stateId = numStates - 1; stateId >= 0; stateId--) {
+                distances[stateId * NUM_DIRECTIONS + direction] = computeDistance(stateId, direction);
+            }
+        } else {
+            for (int stateId = 0; stateId < numStates; stateId++) {
+                distances[stateId * NUM_DIRECTIONS + direction] = computeDistance(stateId, direction);
+            }
+        }
+    }
+
+    private short computeDistance(int stateId, int direction) {
+        if (gameMap.isWall(stateId) || (gameMap.getMoveMask(stateId) & 1 << direction) == 0) {
+            return 0;
+        }
+
+        int nextId = stateId + gameMap.getMoveOffset(direction);
+        if (isJumpPoint(nextId, direction)) {
+            return 1;
+        }
+
+        int nextDistance = distances[nextId * NUM_DIRECTIONS + direction];
+        return (short) (nextDistance > 0 ? nextDistance + 1 : nextDistance - 1);
+    }
+
+    private boolean isJumpPoint(int stateId, int direction) {
+        int moveMask = gameMap.getMoveMask(stateId);
+        if (direction < NORTH_EAST) {
+            return hasForcedNeighbour(moveMask, direction, (direction + 1) & 3) || hasForcedNeighbour(moveMask, direction, (direction + 3) & 3);
+        }
+
+        int vertical = getVertical(direction), horizontal = getHorizontal(direction);
+        return hasForcedNeighbour(moveMask, vertical, (horizontal + 2) & 3) || hasForcedNeighbour(moveMask, horizontal, (vertical + 2) & 3)
+                || distances[stateId * NUM_DIRECTIONS + vertical] > 0 || distances[stateId * NUM_DIRECTIONS + horizontal] > 0;
+    }
+
+    /**
+     * Moving forward, the state diagonally forward and to one side is a forced neighbour if the state on that side is a
+     * wall and the diagonal move is legal, as every other way of getting to it is then longer
+     *
+     * @param moveMask move mask of the state (see GameMap.getMoveMask)
+     * @param forward  cardinal direction of the move
+     * @param side     cardinal direction perpendicular to forward
+     */
+    public static boolean hasForcedNeighbour(int moveMask, int forward, int side) {
+        return (moveMask & 1 << side) == 0 && (moveMask & 1 << DIAGONALS[forward][side]) != 0;
+    }
+
+    /**
+     * @return NORTH or SOUTH, the vertical component of a diagonal direction
+     */
+    public static int getVertical(int direction) {
+        return VERTICAL[direction - NORTH_EAST];
+    }
+
+    /**
+     * @return EAST or WEST, the horizontal component of a diagonal direction
+     */
+    public static int getHorizontal(int direction) {
+        return HORIZONTAL[direction - NORTH_EAST];
+    }
+
+    /**
+     * @return diagonal direction between two perpendicular cardinal directions
+     */
+    public static int getDiagonal(int direction1, int direction2) {
+        return DIAGONALS[direction1][direction2];
+    }
+
+    public int getDistance(int stateId, int direction) {
+        return distances[stateId * NUM_DIRECTIONS + direction];
+    }
+
+    /**
+     * Jumps from stateId in a direction, stopping early at the goal, or, moving diagonally, at the state the goal is
+     * straight or diagonally ahead of, if the jump gets there
+     *
+     * @return id of the state the jump stops at, or -1 if it runs into a wall first
+     */
+    public int jump(int stateId, int direction, int goalId) {
+        int distance = distances[stateId * NUM_DIRECTIONS + direction];
+
+        int rowDiff = gameMap.getRowFromStateId(goalId) - gameMap.getRowFromStateId(stateId);
+        int colDiff = gameMap.getColFromStateId(goalId) - gameMap.getColFromStateId(stateId);
+        int rowOffset = ROW_OFFSETS[direction], colOffset = COL_OFFSETS[direction];
+
+        // Number of moves to the goal, or to the state the goal is ahead of, 0 if the jump does not pass either
+        int goalMoves;
+        if (rowOffset == 0) {
+            goalMoves = rowDiff == 0 && colDiff * colOffset > 0 ? Math.abs(colDiff) : 0;
+        } else if (colOffset == 0) {
+            goalMoves = colDiff == 0 && rowDiff * rowOffset > 0 ? Math.abs(rowDiff) : 0;
+        } else {
+            goalMoves = rowDiff * rowOffset > 0 && colDiff * colOffset > 0 ? Math.min(Math.abs(rowDiff), Math.abs(colDiff)) : 0;
+        }
+
+        if (goalMoves > 0 && goalMoves <= Math.abs(distance)) {
+            return stateId + goalMoves * gameMap.getMoveOffset(direction);
+        }
+        return distance > 0 ? stateId + distance * gameMap.getMoveOffset(direction) : -1;
+    }
+
+    /**
+     * Patches the table after a state became a wall or open (call after the change was made on the GameMap)
+     */
+    public void update(int stateId) {
+        int row = gameMap.getRowFromStateId(stateId);
+        int col = gameMap.getColFromStateId(stateId);
+
+        numChangedStraight = 0;
+        for (int direction = NORTH; direction <= WEST; direction++) {
+            updateBlock(row, col, direction);
+        }
+
+        for (int direction = NORTH_EAST; direction <= NORTH_WEST; direction++) {
+            updateBlock(row, col, direction);
+        }
+
+        // A changed straight distance may make or unmake a diagonal jump point, which the states behind it see
+        for (int i = 0; i < numChangedStraight; i++) {
+            int changedId = changedStraight[i] / NUM_DIRECTIONS, straight = changedStraight[i] % NUM_DIRECTIONS;
+            int changedRow = gameMap.getRowFromStateId(changedId), changedCol = gameMap.getColFromStateId(changedId);
+            int diagonal1 = DIAGONALS[straight][(straight + 1) & 3], diagonal2 = DIAGONALS[straight][(straight + 3) & 3];
+            updateRun(changedRow - ROW_OFFSETS[diagonal1], changedCol - COL_OFFSETS[diagonal1], diagonal1);
+            updateRun(changedRow - ROW_OFFSETS[diagonal2], changedCol - COL_OFFSETS[diagonal2], diagonal2);
+        }
+    }
+
+    /**
+     * Recomputes the distances in one direction of the states in the 3x3 block around (row, col), whose move masks may
+     * have changed, and of the states just behind them
+     */
+    private void updateBlock(int row, int col, int direction) {
+        for (int r = row - 1; r <= row + 1; r++) {
+            for (int c = col - 1; c <= col + 1; c++) {
+                updateRun(r, c, direction);
+                updateRun(r - ROW_OFFSETS[direction], c - COL_OFFSETS[direction], direction);
+            }
+        }
+    }
+
+    /**
+     * Recomputes the distance of the state at (row, col) in a direction and, as long as it changes, of the states
+     * behind it in the run
+     */
+    private void updateRun(int row, int col, int direction) {
+        while (row >= 0 && row < numRows && col >= 0 && col < numCols) {
+            int stateId = gameMap.getStateId(row, col);
+            int idx = stateId * NUM_DIRECTIONS + direction;
+            short distance = computeDistance(stateId, direction);
+            if (distance == distances[idx]) {
+                return;
+            }
+
+            distances[idx] = distance;
+            if (direction < NORTH_EAST) {
+                if (numChangedStraight == changedStraight.length) {
+                    changedStraight = Arrays.copyOf(changedStraight, 2 * numChangedStraight);
+                }
+                changedStraight[numChangedStraight++] = idx;
+            }
+
+            row -= ROW_OFFSETS[direction];
+            col -= COL_OFFSETS[direction];
+        }
+    }
+}
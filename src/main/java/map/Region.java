@@ -9,6 +9,9 @@ public class Region {
     private int regionRepresentative;
     private int numStates;
 
+    // Graph of the map this region belongs to, told about every change to the region (null if it is not part of a map)
+    private RegionGraph regionGraph;
+
     public Region(int regionId, int numStates) {
         this.regionId = regionId;
         this.numStates = numStates;
@@ -39,6 +42,7 @@ public class Region {
 
     public void setRegionRepresentative(int regionRepresentative) {
         this.regionRepresentative = regionRepresentative;
+        markChanged();
     }
 
     public int getNumStates() {
@@ -47,30 +51,55 @@ public class Region {
 
     public void setNumStates(int numStates) {
         this.numStates = numStates;
+        markChanged();
     }
 
+    /**
+     * Changes made to the returned set directly are not picked up by the RegionGraph, use the methods of this class to
+     * change the neighbours instead
+     */
     public Set<Integer> getNeighborIds() {
         return neighborIds;
     }
 
     public void addNeighborId(int neighborId) {
         neighborIds.add(neighborId);
+        markChanged();
+    }
+
+    public void removeNeighborId(int neighborId) {
+        neighborIds.remove(neighborId);
+        markChanged();
     }
 
     public void resetNeighborIds() {
         neighborIds.clear();
+        markChanged();
     }
 
     public void deleteNeighborIds(Set<Integer> neighborIds) {
         this.neighborIds.removeAll(neighborIds);
+        markChanged();
     }
 
     public void incrementNumStates() {
         numStates++;
+        markChanged();
     }
 
     public void decrementNumStates() {
         numStates--;
+        markChanged();
+    }
+
+    void setRegionGraph(RegionGraph regionGraph) {
+        this.regionGraph = regionGraph;
+    }
+
+    private void markChanged() {
+        if (regionGraph != null) {
+            regionGraph.markChanged(regionId);
+        }
     }
 
     // We're not outputting the region rep because this method is used in a test
@@ -0,0 +1,305 @@
+package map;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+import static map.AbstractedMap.START_NUM;
+
+/**
+ * Dense, primitive copy of the abstract region graph of an AbstractedMap, in compressed sparse row (CSR) form.
+ * <p>
+ * Regions are addressed by their index, regionId - START_NUM. For every index, reps and sizes hold the region
+ * representative and number of states (reps is -1 if there is no region with that id), and the neighbours of the region
+ * are the region indices targets[offsets[index]] to targets[offsets[index] + degrees[index] - 1], sorted ascending. The
+ * weight of each edge is the octile distance between the two region representatives, which is the move cost used by
+ * RegionSearchProblem.
+ * <p>
+ * The Region objects stay the source of truth. Every change to a Region (neighbours, representative, number of states)
+ * and every region that is added to or removed from the map marks its index as changed, and update() patches only those
+ * indices. Every row has some slack, so a region that gains a neighbour can usually be patched in place. A row that
+ * outgrows its slack is moved to the end of the targets array, and the array is compacted once more than half of it is
+ * unused.
+ */
+public class RegionGraph {
+    private static final int SLACK = 2;
+
+    private final AbstractedMap abstractedMap;
+    private final Map<Integer, Region> regionIdToRegionMap;
+
+    private int[] reps;
+    private int[] sizes;
+    private int[] offsets;
+    private int[] degrees;
+    private int[] rowCapacities;
+
+    private int[] targets;
+    private int[] weights;
+    private int numUsedSlots;
+    private int numUnusedSlots;
+
+    private int[] changed;
+    private boolean[] isChanged;
+    private int numChanged;
+
+    RegionGraph(AbstractedMap abstractedMap, Map<Integer, Region> regionIdToRegionMap, int capacity) {
+        this.abstractedMap = abstractedMap;
+        this.regionIdToRegionMap = regionIdToRegionMap;
+
+        capacity = Math.max(capacity, 1);
+        this.reps = new int[capacity];
+        this.sizes = new int[capacity];
+        this.offsets = new int[capacity];
+        this.degrees = new int[capacity];
+        this.rowCapacities = new int[capacity];
+        Arrays.fill(reps, -1);
+
+        this.targets = new int[0];
+        this.weights = new int[0];
+
+        this.changed = new int[16];
+        this.isChanged = new boolean[capacity];
+    }
+
+    /**
+     * Lays out the whole graph from scratch, every row is stored right after the previous one
+     */
+    void build() {
+        int maxRegionId = START_NUM;
+        int numSlots = 0;
+        for (Region region : regionIdToRegionMap.values()) {
+            maxRegionId = Math.max(maxRegionId, region.getRegionId());
+            numSlots += region.getNeighborIds().size() + SLACK;
+        }
+        ensureCapacity(maxRegionId - START_NUM + 1);
+
+        Arrays.fill(reps, -1);
+        Arrays.fill(sizes, 0);
+        Arrays.fill(degrees, 0);
+        Arrays.fill(rowCapacities, 0);
+
+        for (Region region : regionIdToRegionMap.values()) {
+            int index = region.getRegionId() - START_NUM;
+            reps[index] = region.getRegionRepresentative();
+            sizes[index] = region.getNumStates();
+        }
+
+        targets = new int[numSlots];
+        weights = new int[numSlots];
+        numUsedSlots = 0;
+        numUnusedSlots = 0;
+
+        for (Region region : regionIdToRegionMap.values()) {
+            int index = region.getRegionId() - START_NUM;
+            offsets[index] = numUsedSlots;
+            rowCapacities[index] = region.getNeighborIds().size() + SLACK;
+            numUsedSlots += rowCapacities[index];
+            writeRow(index, region.getNeighborIds());
+        }
+
+        for (int i = 0; i < numChanged; i++) {
+            isChanged[changed[i]] = false;
+        }
+        numChanged = 0;
+    }
+
+    void markChanged(int regionId) {
+        int index = regionId - START_NUM;
+        ensureCapacity(index + 1);
+
+        if (isChanged[index]) return;
+        isChanged[index] = true;
+
+        if (numChanged == changed.length) {
+            changed = Arrays.copyOf(changed, numChanged * 2);
+        }
+        changed[numChanged++] = index;
+    }
+
+    /**
+     * Brings the graph up to date with the regions that changed since the last update
+     */
+    public void update() {
+        if (numChanged == 0) return;
+
+        // Representatives first, so that the weights of the rewritten rows use the new ones
+        for (int i = 0; i < numChanged; i++) {
+            int index = changed[i];
+            Region region = regionIdToRegionMap.get(index + START_NUM);
+
+            reps[index] = region == null ? -1 : region.getRegionRepresentative();
+            sizes[index] = region == null ? 0 : region.getNumStates();
+        }
+
+        for (int i = 0; i < numChanged; i++) {
+            int index = changed[i];
+            Region region = regionIdToRegionMap.get(index + START_NUM);
+
+            if (region == null) {
+                numUnusedSlots += rowCapacities[index];
+                rowCapacities[index] = 0;
+                degrees[index] = 0;
+            } else {
+                Set<Integer> neighbourIds = region.getNeighborIds();
+                // A region that did not exist before has no row yet
+                if (neighbourIds.size() > rowCapacities[index] || rowCapacities[index] == 0) {
+                    moveRowToEnd(index, neighbourIds.size() + SLACK);
+                }
+                writeRow(index, neighbourIds);
+
+                // The representative may have moved, which changes the weights of the edges pointing to this region
+                for (int j = offsets[index], end = j + degrees[index]; j < end; j++) {
+                    int reverseEdge = findEdge(targets[j], index);
+                    if (reverseEdge != -1) {
+                        weights[reverseEdge] = weights[j];
+                    }
+                }
+            }
+            isChanged[index] = false;
+        }
+        numChanged = 0;
+
+        if (numUnusedSlots > numUsedSlots / 2) {
+            compact();
+        }
+    }
+
+    private void writeRow(int index, Set<Integer> neighbourIds) {
+        int offset = offsets[index];
+        int degree = 0;
+        for (int neighbourId : neighbourIds) {
+            targets[offset + degree++] = neighbourId - START_NUM;
+        }
+        degrees[index] = degree;
+
+        // Neighbour sets are normally TreeSets, but regions may also have been created with another kind of set
+        Arrays.sort(targets, offset, offset + degree);
+
+        for (int j = offset; j < offset + degree; j++) {
+            int rep = reps[index], neighbourRep = reps[targets[j]];
+            weights[j] = rep == -1 || neighbourRep == -1 ? Integer.MAX_VALUE : abstractedMap.getOctileDistance(rep, neighbourRep);
+        }
+    }
+
+    private void moveRowToEnd(int index, int rowCapacity) {
+        if (numUsedSlots + rowCapacity > targets.length) {
+            int newLength = Math.max(numUsedSlots + rowCapacity, targets.length * 3 / 2);
+            targets = Arrays.copyOf(targets, newLength);
+            weights = Arrays.copyOf(weights, newLength);
+        }
+
+        numUnusedSlots += rowCapacities[index];
+        offsets[index] = numUsedSlots;
+        rowCapacities[index] = rowCapacity;
+        numUsedSlots += rowCapacity;
+    }
+
+    private void compact() {
+        int[] newTargets = new int[numUsedSlots - numUnusedSlots];
+        int[] newWeights = new int[newTargets.length];
+
+        int offset = 0;
+        for (int index = 0; index < reps.length; index++) {
+            if (rowCapacities[index] == 0) {
+                offsets[index] = 0;
+                continue;
+            }
+
+            System.arraycopy(targets, offsets[index], newTargets, offset, degrees[index]);
+            System.arraycopy(weights, offsets[index], newWeights, offset, degrees[index]);
+            offsets[index] = offset;
+            offset += rowCapacities[index];
+        }
+
+        targets = newTargets;
+        weights = newWeights;
+        numUsedSlots = offset;
+        numUnusedSlots = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= reps.length) return;
+
+        int oldCapacity = reps.length;
+        int newCapacity = Math.max(capacity, oldCapacity * 3 / 2);
+
+        reps = Arrays.copyOf(reps, newCapacity);
+        Arrays.fill(reps, oldCapacity, newCapacity, -1);
+        sizes = Arrays.copyOf(sizes, newCapacity);
+        offsets = Arrays.copyOf(offsets, newCapacity);
+        degrees = Arrays.copyOf(degrees, newCapacity);
+        rowCapacities = Arrays.copyOf(rowCapacities, newCapacity);
+        isChanged = Arrays.copyOf(isChanged, newCapacity);
+    }
+
+    /**
+     * @return position of the edge from index to neighbourIndex in the targets array, -1 if there is no such edge
+     */
+    public int findEdge(int index, int neighbourIndex) {
+        if (index >= reps.length) return -1;
+
+        int position = Arrays.binarySearch(targets, offsets[index], offsets[index] + degrees[index], neighbourIndex);
+        return position < 0 ? -1 : position;
+    }
+
+    /**
+     * @return octile distance between the representatives of the two regions, 0 if either region does not exist
+     */
+    public int getOctileDistance(int index, int otherIndex) {
+        int rep = reps[index], otherRep = reps[otherIndex];
+        return rep == -1 || otherRep == -1 ? 0 : abstractedMap.getOctileDistance(rep, otherRep);
+    }
+
+    /* GETTERS */
+
+    /**
+     * @return number of region indices, regions that exist have an index below this
+     */
+    public int getCapacity() {
+        return reps.length;
+    }
+
+    public boolean containsRegion(int index) {
+        return index < reps.length && reps[index] != -1;
+    }
+
+    /**
+     * @return region index of the region that contains the state
+     */
+    public int getRegionIndex(int stateId) {
+        return abstractedMap.getRegionIdFromMap(stateId) - START_NUM;
+    }
+
+    public int getRep(int index) {
+        return reps[index];
+    }
+
+    public int getSize(int index) {
+        return sizes[index];
+    }
+
+    public int getDegree(int index) {
+        return degrees[index];
+    }
+
+    /**
+     * @return position of the first neighbour of the region in the targets and weights arrays
+     */
+    public int getOffset(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * @return region index at the given position of the targets array
+     */
+    public int getTarget(int position) {
+        return targets[position];
+    }
+
+    /**
+     * @return weight of the edge at the given position of the targets array
+     */
+    public int getWeight(int position) {
+        return weights[position];
+    }
+}
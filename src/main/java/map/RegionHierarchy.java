@@ -0,0 +1,823 @@
+package map;
+
+import search.IndexedMinHeap;
+import search.SearchState;
+import stats.SearchStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static map.AbstractedMap.START_NUM;
+
+/**
+ * Hierarchy of abstractions on top of the regions of an AbstractedMap.
+ * <p>
+ * Level 0 are the regions, whose cells are the sectors. Each cell of level k + 1 is a square of branchingFactor x
+ * branchingFactor cells of level k, and its nodes are the connected components of the level k nodes in these cells,
+ * just as regions are the connected components of the states in a sector. Two nodes are neighbours if any of their
+ * children are. The representative of a node is the representative of one of its children, which follows that child if
+ * its representative moves, and edges cost the octile distance between the representatives, as in RegionGraph. Node ids
+ * are handed out per level by a RegionIdAllocator, so they start at START_NUM like region ids.
+ * <p>
+ * An abstract search first searches the top level, then searches every level below only among the nodes whose parent is
+ * on the path found one level up, down to the regions. As a node is connected through its children, the search at every
+ * level below finds a path whenever the top level search does, and a path exists at all only if it does. The path is
+ * not necessarily the shortest path through the region graph.
+ * <p>
+ * After a wall change has been applied to the regions, update re-clusters the cell of the changed sector one level up.
+ * Nodes keep their id and representative as long as the child they take their representative from is still in one of
+ * the new components, so a level only counts as changed if a node was added or removed or the neighbours of a node
+ * changed, and only then are the cells containing the changed nodes re-clustered one level further up.
+ * <p>
+ * Level 0 is searched in the RegionGraph. The levels above are stored the same way, in int arrays indexed by node id -
+ * START_NUM with their neighbours in compressed sparse row form (see Level), so a search does not touch any boxed
+ * collection.
+ */
+public final class RegionHierarchy {
+    private static final int SLACK = 2;
+
+    private final AbstractedMap abstractedMap;
+    private final RegionGraph regionGraph;
+    private final int numLevels;
+    private final int branchingFactor;
+    private final Level[] levels;
+
+    // Reused by every abstract search, indexed by node id - START_NUM, an entry of g is only valid if its stamp is the
+    // stamp of the current search
+    private IndexedMinHeap openList;
+    private int[] g;
+    private int[] previous;
+    private int[] stamps;
+    private int[] closedStamps;
+    private int searchStamp;
+
+    // Nodes on the path of the last search a level further up, the only ones whose children are searched
+    private int[] corridorStamps;
+    private int corridorStamp;
+
+    // Reused by cluster, indexed by node id - START_NUM of the level below: whether a node is in the cell being
+    // clustered (its member stamp is the current cluster stamp), and the component it was put in
+    private int[] memberStamps = new int[16];
+    private int[] componentOf = new int[16];
+    private int clusterStamp;
+    // Reused by cluster and computeNeighbours for lists of node ids or indices
+    private int[] cellChildren = new int[16];
+    private int[] members = new int[16];
+    private int[] componentStarts = new int[16];
+    private int[] neighbourBuffer = new int[16];
+    private int[] rowBuffer = new int[16];
+
+    /**
+     * The nodes of one level, and the cells that group them. Only cells and parents are used for level 0, whose nodes
+     * are the regions of the abstracted map (see RegionGraph).
+     * <p>
+     * Nodes are addressed by their index, nodeId - START_NUM. The neighbours of a node are the node indices
+     * targets[offsets[index]] to targets[offsets[index] + degrees[index] - 1], sorted ascending. As in RegionGraph, every
+     * row has some slack, a row that outgrows it is moved to the end of the targets array, and the array is compacted
+     * once more than half of it is unused. Edge weights are not stored, they are the octile distance between the reps
+     * of the two nodes, which are refreshed whenever the hierarchy is updated.
+     */
+    private static class Level {
+        final int numCellRows, numCellCols;
+        // Sorted ids of the nodes in every cell
+        final int[][] cells;
+        final RegionIdAllocator idAllocator;
+        // Id of the parent of every node in the level above, indexed by node id - START_NUM
+        int[] parents = new int[16];
+
+        // Cell, representative child (-1 if there is no node with that index), representative state and sorted child
+        // ids of every node
+        int[] nodeCells = new int[0];
+        int[] representativeChildren = new int[0];
+        int[] reps = new int[0];
+        int[][] children = new int[0][];
+
+        int[] offsets = new int[0];
+        int[] degrees = new int[0];
+        int[] rowCapacities = new int[0];
+        int[] targets = new int[0];
+        int numUsedSlots;
+        int numUnusedSlots;
+
+        Level(int numCellRows, int numCellCols, boolean hasNodes) {
+            this.numCellRows = numCellRows;
+            this.numCellCols = numCellCols;
+            this.cells = new int[numCellRows * numCellCols][];
+            Arrays.fill(cells, new int[0]);
+            this.idAllocator = hasNodes ? new RegionIdAllocator() : null;
+        }
+
+        boolean containsNode(int index) {
+            return index < representativeChildren.length && representativeChildren[index] != -1;
+        }
+
+        void ensureCapacity(int capacity) {
+            if (capacity <= representativeChildren.length) return;
+
+            int oldCapacity = representativeChildren.length;
+            int newCapacity = Math.max(capacity, oldCapacity * 3 / 2);
+
+            nodeCells = Arrays.copyOf(nodeCells, newCapacity);
+            representativeChildren = Arrays.copyOf(representativeChildren, newCapacity);
+            Arrays.fill(representativeChildren, oldCapacity, newCapacity, -1);
+            reps = Arrays.copyOf(reps, newCapacity);
+            children = Arrays.copyOf(children, newCapacity);
+            offsets = Arrays.copyOf(offsets, newCapacity);
+            degrees = Arrays.copyOf(degrees, newCapacity);
+            rowCapacities = Arrays.copyOf(rowCapacities, newCapacity);
+        }
+
+        void setRow(int index, int[] neighbourIndices, int degree) {
+            if (degree > rowCapacities[index]) {
+                moveRowToEnd(index, degree + SLACK);
+            }
+            System.arraycopy(neighbourIndices, 0, targets, offsets[index], degree);
+            degrees[index] = degree;
+        }
+
+        /**
+         * @return false if the neighbour was in the row already
+         */
+        boolean addToRow(int index, int neighbourIndex) {
+            int offset = offsets[index], degree = degrees[index];
+            int position = Arrays.binarySearch(targets, offset, offset + degree, neighbourIndex);
+            if (position >= 0) return false;
+
+            if (degree == rowCapacities[index]) {
+                moveRowToEnd(index, degree + 1 + SLACK);
+                position += offset - offsets[index];
+                offset = offsets[index];
+            }
+            position = -position - 1;
+            System.arraycopy(targets, position, targets, position + 1, offset + degree - position);
+            targets[position] = neighbourIndex;
+            degrees[index]++;
+            return true;
+        }
+
+        /**
+         * @return false if the neighbour was not in the row
+         */
+        boolean removeFromRow(int index, int neighbourIndex) {
+            int offset = offsets[index], degree = degrees[index];
+            int position = Arrays.binarySearch(targets, offset, offset + degree, neighbourIndex);
+            if (position < 0) return false;
+
+            System.arraycopy(targets, position + 1, targets, position, offset + degree - position - 1);
+            degrees[index]--;
+            return true;
+        }
+
+        void removeNode(int index) {
+            numUnusedSlots += rowCapacities[index];
+            rowCapacities[index] = 0;
+            degrees[index] = 0;
+            children[index] = null;
+            representativeChildren[index] = -1;
+        }
+
+        private void moveRowToEnd(int index, int rowCapacity) {
+            if (numUsedSlots + rowCapacity > targets.length) {
+                targets = Arrays.copyOf(targets, Math.max(numUsedSlots + rowCapacity, targets.length * 3 / 2));
+            }
+
+            System.arraycopy(targets, offsets[index], targets, numUsedSlots, degrees[index]);
+            numUnusedSlots += rowCapacities[index];
+            offsets[index] = numUsedSlots;
+            rowCapacities[index] = rowCapacity;
+            numUsedSlots += rowCapacity;
+        }
+
+        void compactIfSparse() {
+            if (numUnusedSlots <= numUsedSlots / 2) return;
+
+            int[] newTargets = new int[numUsedSlots - numUnusedSlots];
+            int offset = 0;
+            for (int index = 0; index < offsets.length; index++) {
+                if (rowCapacities[index] == 0) {
+                    offsets[index] = 0;
+                    continue;
+                }
+
+                System.arraycopy(targets, offsets[index], newTargets, offset, degrees[index]);
+                offsets[index] = offset;
+                offset += rowCapacities[index];
+            }
+
+            targets = newTargets;
+            numUsedSlots = offset;
+            numUnusedSlots = 0;
+        }
+    }
+
+    /**
+     * @param numLevels       number of levels above the regions
+     * @param branchingFactor number of cells of a level along each side of a cell of the level above
+     */
+    public RegionHierarchy(AbstractedMap abstractedMap, int numLevels, int branchingFactor) {
+        if (numLevels < 1 || branchingFactor < 2) {
+            throw new IllegalArgumentException("A region hierarchy needs at least one level and a branching factor of at least 2");
+        }
+
+        this.abstractedMap = abstractedMap;
+        this.regionGraph = abstractedMap.getRegionGraph();
+        this.numLevels = numLevels;
+        this.branchingFactor = branchingFactor;
+        this.levels = new Level[numLevels + 1];
+
+        int numCellRows = abstractedMap.getNumSectorsPerCol(), numCellCols = abstractedMap.getNumSectorsPerRow();
+        for (int level = 0; level <= numLevels; level++) {
+            levels[level] = new Level(numCellRows, numCellCols, level > 0);
+            numCellRows = (numCellRows + branchingFactor - 1) / branchingFactor;
+            numCellCols = (numCellCols + branchingFactor - 1) / branchingFactor;
+        }
+
+        // Clustering reads the neighbours of the regions from the region graph
+        regionGraph.update();
+        for (int sectorId = 0; sectorId < levels[0].cells.length; sectorId++) {
+            collectRegions(sectorId);
+        }
+
+        Set<Integer> changedCells = new TreeSet<>();
+        List<Integer> removedNodes = new ArrayList<>();
+        for (int level = 1; level <= numLevels; level++) {
+            Level current = levels[level];
+            for (int cell = 0; cell < current.cells.length; cell++) {
+                cluster(level, cell, changedCells, removedNodes);
+            }
+            for (int[] nodeIds : current.cells) {
+                for (int nodeId : nodeIds) {
+                    int index = nodeId - START_NUM;
+                    int numNeighbours = computeNeighbours(level, index);
+                    current.setRow(index, neighbourBuffer, numNeighbours);
+                }
+            }
+        }
+    }
+
+    /**
+     * Brings the hierarchy up to date after a wall was added or removed at stateId (call after the regions of the
+     * abstracted map have been updated)
+     */
+    public void update(int stateId) {
+        int sectorId = abstractedMap.getSectorId(stateId);
+
+        // Representatives of new regions are read from the region graph
+        regionGraph.update();
+
+        // The regions of the sector may have been replaced
+        collectRegions(sectorId);
+
+        Set<Integer> dirtyCells = new TreeSet<>();
+        dirtyCells.add(getParentCell(0, sectorId));
+        int ancestorCell = sectorId;
+
+        for (int level = 1; level <= numLevels; level++) {
+            Level current = levels[level];
+            ancestorCell = getParentCell(level - 1, ancestorCell);
+            Set<Integer> changedCells = new TreeSet<>();
+            List<Integer> removedNodes = new ArrayList<>();
+
+            // All cells first, so that the parents are up to date when the neighbours are computed
+            for (int cell : dirtyCells) {
+                cluster(level, cell, changedCells, removedNodes);
+            }
+
+            for (int cell : dirtyCells) {
+                for (int nodeId : current.cells[cell]) {
+                    updateNeighbours(level, nodeId - START_NUM, changedCells);
+                }
+            }
+            for (int nodeId : removedNodes) {
+                int index = nodeId - START_NUM;
+                int degree = copyRow(current, index);
+                for (int i = 0; i < degree; i++) {
+                    int neighbourIndex = rowBuffer[i];
+                    if (current.containsNode(neighbourIndex) && current.removeFromRow(neighbourIndex, index)) {
+                        changedCells.add(current.nodeCells[neighbourIndex]);
+                    }
+                }
+                current.removeNode(index);
+                current.idAllocator.free(nodeId);
+            }
+            current.compactIfSparse();
+
+            // The representatives of the regions in the sector may have moved, and with them the representatives of
+            // the nodes above them
+            refreshReps(level, ancestorCell);
+            for (int cell : dirtyCells) {
+                refreshReps(level, cell);
+            }
+
+            dirtyCells = new TreeSet<>();
+            if (level < numLevels) {
+                for (int cell : changedCells) {
+                    dirtyCells.add(getParentCell(level, cell));
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the regions of a sector to the region ids found in its states
+     */
+    private void collectRegions(int sectorId) {
+        int numRegions = 0;
+        for (int r = abstractedMap.getStartRowOfSector(sectorId); r < abstractedMap.getEndRowOfSector(sectorId); r++) {
+            for (int c = abstractedMap.getStartColOfSector(sectorId); c < abstractedMap.getEndColOfSector(sectorId); c++) {
+                if (!abstractedMap.isWall(r, c) && abstractedMap.getRegionIdFromMap(r, c) >= START_NUM) {
+                    members = ensureLength(members, numRegions + 1);
+                    members[numRegions++] = abstractedMap.getRegionIdFromMap(r, c);
+                }
+            }
+        }
+        levels[0].cells[sectorId] = sortedDistinct(members, numRegions);
+    }
+
+    /**
+     * Groups the nodes of the level below in the cell into connected components, which become the nodes of the cell. A
+     * node that is in the cell already keeps its id and representative if its representative child is in one of the
+     * components. The cells of nodes that are added or removed are added to changedCells, removed nodes to
+     * removedNodes (their ids and neighbours are still in use).
+     */
+    private void cluster(int level, int cell, Set<Integer> changedCells, List<Integer> removedNodes) {
+        Level current = levels[level], below = levels[level - 1];
+        int belowCapacity = level == 1 ? regionGraph.getCapacity() : below.representativeChildren.length;
+        if (memberStamps.length < belowCapacity) {
+            memberStamps = Arrays.copyOf(memberStamps, belowCapacity);
+            componentOf = Arrays.copyOf(componentOf, belowCapacity);
+        }
+        if (clusterStamp == Integer.MAX_VALUE) {
+            Arrays.fill(memberStamps, 0);
+            clusterStamp = 0;
+        }
+        clusterStamp++;
+
+        int numChildren = 0;
+        int cellRow = cell / current.numCellCols, cellCol = cell % current.numCellCols;
+        for (int r = cellRow * branchingFactor; r < Math.min((cellRow + 1) * branchingFactor, below.numCellRows); r++) {
+            for (int c = cellCol * branchingFactor; c < Math.min((cellCol + 1) * branchingFactor, below.numCellCols); c++) {
+                for (int childId : below.cells[r * below.numCellCols + c]) {
+                    memberStamps[childId - START_NUM] = clusterStamp;
+                    componentOf[childId - START_NUM] = -1;
+                    cellChildren = ensureLength(cellChildren, numChildren + 1);
+                    cellChildren[numChildren++] = childId;
+                }
+            }
+        }
+
+        // Connected components of the children, only following edges inside the cell, in order of their lowest child
+        // id. The members of component i are members[componentStarts[i]] to members[componentStarts[i + 1] - 1], and
+        // members doubles as the queue of the breadth-first search
+        members = ensureLength(members, numChildren);
+        componentStarts = ensureLength(componentStarts, numChildren + 1);
+        Arrays.sort(cellChildren, 0, numChildren);
+        int numComponents = 0, numMembers = 0;
+        for (int j = 0; j < numChildren; j++) {
+            int childIndex = cellChildren[j] - START_NUM;
+            if (componentOf[childIndex] != -1) continue;
+
+            componentStarts[numComponents] = numMembers;
+            componentOf[childIndex] = numComponents;
+            members[numMembers++] = childIndex + START_NUM;
+            for (int head = componentStarts[numComponents]; head < numMembers; head++) {
+                int index = members[head] - START_NUM;
+                int start = level == 1 ? regionGraph.getOffset(index) : below.offsets[index];
+                int end = start + (level == 1 ? regionGraph.getDegree(index) : below.degrees[index]);
+                for (int i = start; i < end; i++) {
+                    int neighbourIndex = level == 1 ? regionGraph.getTarget(i) : below.targets[i];
+                    if (memberStamps[neighbourIndex] == clusterStamp && componentOf[neighbourIndex] == -1) {
+                        componentOf[neighbourIndex] = numComponents;
+                        members[numMembers++] = neighbourIndex + START_NUM;
+                    }
+                }
+            }
+            Arrays.sort(members, componentStarts[numComponents], numMembers);
+            numComponents++;
+        }
+        componentStarts[numComponents] = numMembers;
+
+        // Match the nodes that were in the cell to the components their representative children are in
+        int[] matches = new int[numComponents];
+        Arrays.fill(matches, -1);
+        for (int nodeId : current.cells[cell]) {
+            int index = nodeId - START_NUM;
+            int childIndex = current.representativeChildren[index] - START_NUM;
+            int component = childIndex < memberStamps.length && memberStamps[childIndex] == clusterStamp ? componentOf[childIndex] : -1;
+            if (component != -1 && matches[component] == -1) {
+                matches[component] = nodeId;
+            } else {
+                current.representativeChildren[index] = -1;
+                removedNodes.add(nodeId);
+                changedCells.add(cell);
+            }
+        }
+
+        int[] nodeIds = new int[numComponents];
+        for (int i = 0; i < numComponents; i++) {
+            int nodeId = matches[i];
+            int index;
+            if (nodeId == -1) {
+                nodeId = current.idAllocator.allocate();
+                index = nodeId - START_NUM;
+                current.ensureCapacity(index + 1);
+                current.nodeCells[index] = cell;
+                current.representativeChildren[index] = chooseRepresentativeChild(level, componentStarts[i], componentStarts[i + 1]);
+                current.reps[index] = getRepresentative(level - 1, current.representativeChildren[index]);
+                changedCells.add(cell);
+            } else {
+                index = nodeId - START_NUM;
+            }
+            current.children[index] = Arrays.copyOfRange(members, componentStarts[i], componentStarts[i + 1]);
+            nodeIds[i] = nodeId;
+
+            for (int childId : current.children[index]) {
+                setParent(level - 1, childId, nodeId);
+            }
+        }
+        Arrays.sort(nodeIds);
+        current.cells[cell] = nodeIds;
+    }
+
+    /**
+     * Recomputes the neighbours of a node and makes the same changes to the rows of its old and new neighbours
+     */
+    private void updateNeighbours(int level, int index, Set<Integer> changedCells) {
+        Level current = levels[level];
+        int numNeighbours = computeNeighbours(level, index);
+        int offset = current.offsets[index];
+        if (numNeighbours == current.degrees[index] && Arrays.equals(neighbourBuffer, 0, numNeighbours, current.targets, offset, offset + numNeighbours)) {
+            return;
+        }
+
+        changedCells.add(current.nodeCells[index]);
+        int oldDegree = copyRow(current, index);
+        for (int i = 0; i < oldDegree; i++) {
+            int neighbourIndex = rowBuffer[i];
+            if (Arrays.binarySearch(neighbourBuffer, 0, numNeighbours, neighbourIndex) < 0 && current.containsNode(neighbourIndex) && current.removeFromRow(neighbourIndex, index)) {
+                changedCells.add(current.nodeCells[neighbourIndex]);
+            }
+        }
+        for (int i = 0; i < numNeighbours; i++) {
+            int neighbourIndex = neighbourBuffer[i];
+            if (current.addToRow(neighbourIndex, index)) {
+                changedCells.add(current.nodeCells[neighbourIndex]);
+            }
+        }
+        current.setRow(index, neighbourBuffer, numNeighbours);
+    }
+
+    /**
+     * Puts the indices of the nodes that children of the node have neighbours in, other than the node itself, into
+     * neighbourBuffer, sorted ascending
+     *
+     * @return number of neighbours
+     */
+    private int computeNeighbours(int level, int index) {
+        Level below = levels[level - 1];
+        int nodeId = index + START_NUM;
+        int numNeighbours = 0;
+        for (int childId : levels[level].children[index]) {
+            int childIndex = childId - START_NUM;
+            int start = level == 1 ? regionGraph.getOffset(childIndex) : below.offsets[childIndex];
+            int end = start + (level == 1 ? regionGraph.getDegree(childIndex) : below.degrees[childIndex]);
+            for (int i = start; i < end; i++) {
+                int parentId = below.parents[level == 1 ? regionGraph.getTarget(i) : below.targets[i]];
+                if (parentId != nodeId) {
+                    neighbourBuffer = ensureLength(neighbourBuffer, numNeighbours + 1);
+                    neighbourBuffer[numNeighbours++] = parentId - START_NUM;
+                }
+            }
+        }
+
+        Arrays.sort(neighbourBuffer, 0, numNeighbours);
+        int numDistinct = 0;
+        for (int i = 0; i < numNeighbours; i++) {
+            if (numDistinct == 0 || neighbourBuffer[i] != neighbourBuffer[numDistinct - 1]) {
+                neighbourBuffer[numDistinct++] = neighbourBuffer[i];
+            }
+        }
+        return numDistinct;
+    }
+
+    /**
+     * Copies the neighbours of a node into rowBuffer, which other rows can then be changed while iterating over
+     *
+     * @return number of neighbours
+     */
+    private int copyRow(Level current, int index) {
+        int degree = current.degrees[index];
+        rowBuffer = ensureLength(rowBuffer, degree);
+        System.arraycopy(current.targets, current.offsets[index], rowBuffer, 0, degree);
+        return degree;
+    }
+
+    private void refreshReps(int level, int cell) {
+        Level current = levels[level];
+        for (int nodeId : current.cells[cell]) {
+            int index = nodeId - START_NUM;
+            current.reps[index] = getRepresentative(level - 1, current.representativeChildren[index]);
+        }
+    }
+
+    /**
+     * @return the child in members[from] to members[to - 1] whose representative is closest to the centre of the
+     * representatives of all of them
+     */
+    private int chooseRepresentativeChild(int level, int from, int to) {
+        long sumRow = 0, sumCol = 0;
+        for (int i = from; i < to; i++) {
+            int representative = getRepresentative(level - 1, members[i]);
+            sumRow += abstractedMap.getRowFromStateId(representative);
+            sumCol += abstractedMap.getColFromStateId(representative);
+        }
+        int centroidRow = (int) (sumRow / (to - from)), centroidCol = (int) (sumCol / (to - from));
+
+        int bestChild = -1, bestDistance = Integer.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            int representative = getRepresentative(level - 1, members[i]);
+            int distance = abstractedMap.getOctileDistance(abstractedMap.getRowFromStateId(representative), abstractedMap.getColFromStateId(representative), centroidRow, centroidCol);
+            if (distance < bestDistance) {
+                bestChild = members[i];
+                bestDistance = distance;
+            }
+        }
+        return bestChild;
+    }
+
+    /**
+     * Finds a path between the regions of two states by searching the top level and refining the path level by level
+     *
+     * @param searchStats stats object to keep track of nodes expanded at all levels
+     * @return representatives of the regions on the path, null if the states are not connected
+     */
+    public List<SearchState> findAbstractPath(int startStateId, int goalStateId, SearchStats searchStats) {
+        if (searchStats == null) searchStats = new SearchStats();
+
+        if (abstractedMap.isWall(startStateId) || abstractedMap.isWall(goalStateId)) {
+            return null;
+        }
+
+        int startRegionId = abstractedMap.getRegionIdFromMap(startStateId);
+        int goalRegionId = abstractedMap.getRegionIdFromMap(goalStateId);
+
+        if (!findCorridor(startRegionId, goalRegionId, searchStats) || !search(0, startRegionId, goalRegionId, true, searchStats)) {
+            return null;
+        }
+
+        List<SearchState> path = new ArrayList<>();
+        for (int index = goalRegionId - START_NUM; index != -1; index = previous[index]) {
+            path.add(new SearchState(regionGraph.getRep(index)));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Searches the levels from the top down to level 1 and remembers the path at level 1, whose children are the
+     * regions isInCorridor accepts
+     *
+     * @return false if the regions are not connected
+     */
+    public boolean findCorridor(int startRegionId, int goalRegionId, SearchStats searchStats) {
+        if (searchStats == null) searchStats = new SearchStats();
+
+        int[] startIds = new int[numLevels + 1], goalIds = new int[numLevels + 1];
+        startIds[0] = startRegionId;
+        goalIds[0] = goalRegionId;
+        for (int level = 1; level <= numLevels; level++) {
+            startIds[level] = getParent(level - 1, startIds[level - 1]);
+            goalIds[level] = getParent(level - 1, goalIds[level - 1]);
+        }
+
+        for (int level = numLevels; level >= 1; level--) {
+            if (!search(level, startIds[level], goalIds[level], level < numLevels, searchStats)) {
+                return false;
+            }
+
+            // The path just found is the corridor for the level below
+            if (corridorStamp == Integer.MAX_VALUE) {
+                Arrays.fill(corridorStamps, 0);
+                corridorStamp = 0;
+            }
+            corridorStamp++;
+            for (int index = goalIds[level] - START_NUM; index != -1; index = previous[index]) {
+                corridorStamps[index] = corridorStamp;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the region is a child of a node on the path at level 1 of the last call to findCorridor
+     */
+    public boolean isInCorridor(int regionId) {
+        return corridorStamps[getParent(0, regionId) - START_NUM] == corridorStamp;
+    }
+
+    /**
+     * A* search between two nodes of a level, using the octile distance between representatives as heuristic.
+     * Afterwards, previous holds the node (id - START_NUM) each node on the path was reached from.
+     *
+     * @param inCorridor whether to only search the nodes whose parent is in the corridor
+     * @return whether the goal was reached
+     */
+    private boolean search(int level, int startId, int goalId, boolean inCorridor, SearchStats searchStats) {
+        ensureSearchCapacity();
+        if (searchStamp == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            Arrays.fill(closedStamps, 0);
+            searchStamp = 0;
+        }
+        searchStamp++;
+        openList.clear();
+
+        regionGraph.update();
+        int goalRepresentative = getRepresentative(level, goalId);
+        int startIndex = startId - START_NUM, goalIndex = goalId - START_NUM;
+
+        g[startIndex] = 0;
+        previous[startIndex] = -1;
+        stamps[startIndex] = searchStamp;
+        openList.insert(startIndex, IndexedMinHeap.packKey(abstractedMap.getOctileDistance(getRepresentative(level, startId), goalRepresentative), 0));
+
+        while (!openList.isEmpty()) {
+            int currentIndex = openList.removeMin();
+            if (currentIndex == goalIndex) {
+                return true;
+            }
+
+            closedStamps[currentIndex] = searchStamp;
+            searchStats.incrementNumAbstractStatesExpanded(1);
+
+            if (level == 0) {
+                for (int i = regionGraph.getOffset(currentIndex), end = i + regionGraph.getDegree(currentIndex); i < end; i++) {
+                    relax(level, currentIndex, regionGraph.getTarget(i), regionGraph.getWeight(i), goalRepresentative, inCorridor, searchStats);
+                }
+            } else {
+                Level current = levels[level];
+                int representative = current.reps[currentIndex];
+                for (int i = current.offsets[currentIndex], end = i + current.degrees[currentIndex]; i < end; i++) {
+                    int nextIndex = current.targets[i];
+                    relax(level, currentIndex, nextIndex, abstractedMap.getOctileDistance(representative, current.reps[nextIndex]), goalRepresentative, inCorridor, searchStats);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void relax(int level, int currentIndex, int nextIndex, int weight, int goalRepresentative, boolean inCorridor, SearchStats searchStats) {
+        if (weight == Integer.MAX_VALUE || closedStamps[nextIndex] == searchStamp) return;
+        if (inCorridor && corridorStamps[getParent(level, nextIndex + START_NUM) - START_NUM] != corridorStamp) return;
+
+        searchStats.incrementNumAbstractStatesUpdated(1);
+
+        int newG = g[currentIndex] + weight;
+        if (stamps[nextIndex] == searchStamp && newG >= g[nextIndex]) return;
+
+        g[nextIndex] = newG;
+        previous[nextIndex] = currentIndex;
+        stamps[nextIndex] = searchStamp;
+
+        int h = abstractedMap.getOctileDistance(getRepresentative(level, nextIndex + START_NUM), goalRepresentative);
+        openList.update(nextIndex, IndexedMinHeap.packKey(newG + h, newG));
+    }
+
+    private void ensureSearchCapacity() {
+        int capacity = regionGraph.getCapacity();
+        for (int level = 1; level <= numLevels; level++) {
+            capacity = Math.max(capacity, levels[level].idAllocator.getEndRegionId() - START_NUM);
+        }
+
+        if (openList == null) {
+            openList = new IndexedMinHeap(capacity);
+            g = new int[capacity];
+            previous = new int[capacity];
+            stamps = new int[capacity];
+            closedStamps = new int[capacity];
+            corridorStamps = new int[capacity];
+        } else if (capacity > g.length) {
+            openList.ensureCapacity(capacity);
+            g = Arrays.copyOf(g, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+            stamps = Arrays.copyOf(stamps, capacity);
+            closedStamps = Arrays.copyOf(closedStamps, capacity);
+            corridorStamps = Arrays.copyOf(corridorStamps, capacity);
+        }
+    }
+
+    private int getParentCell(int level, int cell) {
+        int row = cell / levels[level].numCellCols / branchingFactor, col = cell % levels[level].numCellCols / branchingFactor;
+        return row * levels[level + 1].numCellCols + col;
+    }
+
+    private void setParent(int level, int nodeId, int parentId) {
+        Level current = levels[level];
+        int index = nodeId - START_NUM;
+        if (index >= current.parents.length) {
+            current.parents = Arrays.copyOf(current.parents, Math.max(index + 1, current.parents.length * 2));
+        }
+        current.parents[index] = parentId;
+    }
+
+    /* GETTERS */
+
+    public int getNumLevels() {
+        return numLevels;
+    }
+
+    public int getBranchingFactor() {
+        return branchingFactor;
+    }
+
+    /**
+     * @return ids of the nodes of a level above the regions (a copy)
+     */
+    public Set<Integer> getNodeIds(int level) {
+        Set<Integer> nodeIds = new TreeSet<>();
+        for (int[] cell : levels[level].cells) {
+            for (int nodeId : cell) {
+                nodeIds.add(nodeId);
+            }
+        }
+        return nodeIds;
+    }
+
+    /**
+     * @return id of the parent in level + 1 of a node (a region for level 0)
+     */
+    public int getParent(int level, int nodeId) {
+        return levels[level].parents[nodeId - START_NUM];
+    }
+
+    /**
+     * @return id of the node of a level that contains the state (its region for level 0), -1 if the state is a wall
+     */
+    public int getNodeId(int level, int stateId) {
+        if (abstractedMap.isWall(stateId)) return -1;
+
+        int nodeId = abstractedMap.getRegionIdFromMap(stateId);
+        for (int i = 0; i < level; i++) {
+            nodeId = getParent(i, nodeId);
+        }
+        return nodeId;
+    }
+
+    public int getRepresentative(int level, int nodeId) {
+        return level == 0 ? regionGraph.getRep(nodeId - START_NUM) : levels[level].reps[nodeId - START_NUM];
+    }
+
+    public int getRepresentativeChild(int level, int nodeId) {
+        return levels[level].representativeChildren[nodeId - START_NUM];
+    }
+
+    /**
+     * @return ids of the neighbours of a node (a copy for the levels above the regions)
+     */
+    public Set<Integer> getNeighbourIds(int level, int nodeId) {
+        if (level == 0) {
+            return abstractedMap.getRegionById(nodeId).getNeighborIds();
+        }
+
+        Level current = levels[level];
+        int index = nodeId - START_NUM;
+        Set<Integer> neighbourIds = new TreeSet<>();
+        for (int i = current.offsets[index], end = i + current.degrees[index]; i < end; i++) {
+            neighbourIds.add(current.targets[i] + START_NUM);
+        }
+        return neighbourIds;
+    }
+
+    /**
+     * @return ids of the children of a node (a copy)
+     */
+    public Set<Integer> getChildren(int level, int nodeId) {
+        Set<Integer> children = new TreeSet<>();
+        for (int childId : levels[level].children[nodeId - START_NUM]) {
+            children.add(childId);
+        }
+        return children;
+    }
+
+    private static int[] ensureLength(int[] array, int length) {
+        return length <= array.length ? array : Arrays.copyOf(array, Math.max(length, 2 * array.length));
+    }
+
+    /**
+     * @return the distinct values of values[0] to values[length - 1], sorted ascending
+     */
+    private static int[] sortedDistinct(int[] values, int length) {
+        Arrays.sort(values, 0, length);
+        int numDistinct = 0;
+        for (int i = 0; i < length; i++) {
+            if (numDistinct == 0 || values[i] != values[numDistinct - 1]) {
+                values[numDistinct++] = values[i];
+            }
+        }
+        return Arrays.copyOf(values, numDistinct);
+    }
+}
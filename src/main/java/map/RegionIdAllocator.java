@@ -0,0 +1,84 @@
+package map;
+
+import java.util.BitSet;
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+import static map.AbstractedMap.START_NUM;
+
+/**
+ * Hands out region ids, always the smallest id that is not in use. Ids in use are bits in a bitset (bit i is region id
+ * START_NUM + i), so there is no limit on how many ids can be handed out and freeing an id does not allocate.
+ */
+public class RegionIdAllocator {
+    private final BitSet usedIds;
+    // No id below this one is free
+    private int lowestFreeIndex;
+    // One past the highest id that has ever been in use
+    private int endIndex;
+
+    public RegionIdAllocator() {
+        this.usedIds = new BitSet();
+    }
+
+    /**
+     * @return smallest region id that is not in use, which is now marked as used
+     */
+    public int allocate() {
+        int index = usedIds.nextClearBit(lowestFreeIndex);
+        usedIds.set(index);
+        lowestFreeIndex = index + 1;
+        endIndex = Math.max(endIndex, index + 1);
+        return index + START_NUM;
+    }
+
+    /**
+     * @return region id that the next call to allocate will return
+     */
+    public int peek() {
+        return usedIds.nextClearBit(lowestFreeIndex) + START_NUM;
+    }
+
+    public void markUsed(int regionId) {
+        int index = regionId - START_NUM;
+        usedIds.set(index);
+        endIndex = Math.max(endIndex, index + 1);
+        if (index == lowestFreeIndex) {
+            lowestFreeIndex = usedIds.nextClearBit(index);
+        }
+    }
+
+    public void free(int regionId) {
+        int index = regionId - START_NUM;
+        usedIds.clear(index);
+        lowestFreeIndex = Math.min(lowestFreeIndex, index);
+    }
+
+    public boolean isUsed(int regionId) {
+        return usedIds.get(regionId - START_NUM);
+    }
+
+    public int getNumUsedIds() {
+        return usedIds.cardinality();
+    }
+
+    /**
+     * @return one past the highest region id that has ever been in use, every id-indexed array needs this many slots
+     */
+    public int getEndRegionId() {
+        return endIndex + START_NUM;
+    }
+
+    /**
+     * @return ids that were in use and have been freed, followed by the next id that has never been used, in ascending
+     * order. This is a copy, it does not change as ids are allocated and freed.
+     */
+    public Queue<Integer> getFreeIds() {
+        Queue<Integer> freeIds = new PriorityQueue<>();
+        for (int index = usedIds.nextClearBit(0); index < endIndex; index = usedIds.nextClearBit(index + 1)) {
+            freeIds.add(index + START_NUM);
+        }
+        freeIds.add(endIndex + START_NUM);
+        return freeIds;
+    }
+}
@@ -79,7 +79,7 @@ public class VisualizeMap {
             int regionRepCol = map.getColFromStateId(regionRep);
 
             // Mark region reps as empty states on the map
-            map.states[regionRepRow][regionRepCol] = GameMap.EMPTY_CHAR;
+            ((AbstractedMap) map).setState(regionRepRow, regionRepCol, GameMap.EMPTY_CHAR);
         }
         return this;
     }
@@ -0,0 +1,147 @@
+package search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Open list that places states into buckets indexed by their f-cost, and within a bucket into stacks indexed by their
+ * g-cost. Since edge costs (10 and 14) and octile distances are small integers, f-costs are small bounded integers, and
+ * within a bucket g lies in [0, f], so adding a state is O(1) and removing one is O(1) amortized over the cursors that
+ * walk the buckets and their stacks. Neither allocates once the buckets and stacks have grown to the costs of a search.
+ * <p>
+ * The tie-break of SearchState.compareTo (highest g-cost first) is kept by removing from the highest non-empty stack of
+ * the lowest non-empty bucket. States with the same f-cost and g-cost are removed last in, first out. Buckets and
+ * stacks are reused across searches.
+ */
+public class BucketOpenList implements OpenList {
+    private final List<Bucket> buckets;
+
+    // No bucket below minCost is non-empty, no bucket above maxCost has been used since the last clear
+    private int minCost;
+    private int maxCost;
+    private int size;
+
+    /**
+     * States with the same f-cost, in one stack per g-cost
+     */
+    private static class Bucket {
+        private final List<ArrayList<SearchState>> stacks = new ArrayList<>();
+        // No stack above maxG is non-empty, no stack above maxUsedG has been used since the bucket was last empty
+        private int maxG = -1;
+        private int maxUsedG = -1;
+        private int size;
+
+        private void add(SearchState state, int g) {
+            while (stacks.size() <= g) {
+                stacks.add(new ArrayList<>());
+            }
+            stacks.get(g).add(state);
+            maxG = Math.max(maxG, g);
+            maxUsedG = Math.max(maxUsedG, g);
+            size++;
+        }
+
+        private SearchState remove() {
+            ArrayList<SearchState> stack = stacks.get(maxG);
+            while (stack.isEmpty()) {
+                stack = stacks.get(--maxG);
+            }
+            SearchState state = stack.removeLast();
+            if (--size == 0) {
+                maxG = -1;
+                maxUsedG = -1;
+            }
+            return state;
+        }
+
+        private void clear() {
+            for (int g = 0; g <= maxUsedG; g++) {
+                stacks.get(g).clear();
+            }
+            maxG = -1;
+            maxUsedG = -1;
+            size = 0;
+        }
+
+        private void addTo(List<SearchState> states) {
+            for (int g = 0; g <= maxG; g++) {
+                states.addAll(stacks.get(g));
+            }
+        }
+    }
+
+    public BucketOpenList() {
+        this.buckets = new ArrayList<>();
+        this.minCost = 0;
+        this.maxCost = 0;
+        this.size = 0;
+    }
+
+    @Override
+    public void add(SearchState state) {
+        int cost = state.getCost();
+        int g = state.getG();
+        if (cost < 0 || g < 0) {
+            throw new IllegalArgumentException("Bucket open list only supports states with non-negative cost and g-cost, got " + cost + " and " + g);
+        }
+
+        while (buckets.size() <= cost) {
+            buckets.add(new Bucket());
+        }
+        buckets.get(cost).add(state, g);
+
+        if (size == 0) {
+            minCost = cost;
+            maxCost = cost;
+        } else if (cost < minCost) {
+            minCost = cost;
+        } else if (cost > maxCost) {
+            maxCost = cost;
+        }
+        size++;
+    }
+
+    @Override
+    public SearchState remove() {
+        if (size == 0) {
+            throw new RuntimeException("Open list is empty!");
+        }
+
+        while (buckets.get(minCost).size == 0) {
+            minCost++;
+        }
+        size--;
+        return buckets.get(minCost).remove();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        if (size != 0) {
+            for (int cost = minCost; cost <= maxCost; cost++) {
+                buckets.get(cost).clear();
+            }
+        }
+        size = 0;
+    }
+
+    @Override
+    public List<SearchState> toList() {
+        List<SearchState> states = new ArrayList<>(size);
+        if (size != 0) {
+            for (int cost = minCost; cost <= maxCost; cost++) {
+                buckets.get(cost).addTo(states);
+            }
+        }
+        return states;
+    }
+}
@@ -0,0 +1,46 @@
+package search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Open list backed by a binary heap (java.util.PriorityQueue). This is the default for AStar and ListAStar.
+ */
+public class HeapOpenList implements OpenList {
+    private final PriorityQueue<SearchState> heap;
+
+    public HeapOpenList() {
+        this.heap = new PriorityQueue<>();
+    }
+
+    @Override
+    public void add(SearchState state) {
+        heap.add(state);
+    }
+
+    @Override
+    public SearchState remove() {
+        return heap.remove();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return heap.size();
+    }
+
+    @Override
+    public void clear() {
+        heap.clear();
+    }
+
+    @Override
+    public List<SearchState> toList() {
+        return new ArrayList<>(heap);
+    }
+}
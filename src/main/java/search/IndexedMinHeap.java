@@ -0,0 +1,195 @@
+package search;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap over integer ids in the range [0, capacity). Every id has a fixed slot in the position index, so a
+ * key can be decreased in place instead of inserting a duplicate entry, and membership checks are O(1).
+ * <p>
+ * Keys are longs, which allows callers to pack a primary and a secondary sort key into one value (see
+ * {@link #packKey(int, int)}).
+ */
+public class IndexedMinHeap {
+    private int[] heap;
+    private int[] positions;
+    private long[] keys;
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        this.heap = new int[Math.max(capacity, 1)];
+        this.positions = new int[Math.max(capacity, 1)];
+        this.keys = new long[Math.max(capacity, 1)];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Packs an f-cost and a g-cost into a single key that sorts ascending on f and, for equal f, descending on g. This
+     * is the same ordering SearchState.compareTo uses for the PriorityQueue in AStar.
+     *
+     * @param f f-cost (must not be negative)
+     * @param g g-cost (must not be negative)
+     * @return key to use with this heap
+     */
+    public static long packKey(int f, int g) {
+        return ((long) f << 32) | (Integer.MAX_VALUE - g);
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity <= positions.length) return;
+
+        int newCapacity = Math.max(capacity, positions.length * 2);
+        int oldCapacity = positions.length;
+
+        heap = Arrays.copyOf(heap, newCapacity);
+        keys = Arrays.copyOf(keys, newCapacity);
+        positions = Arrays.copyOf(positions, newCapacity);
+        Arrays.fill(positions, oldCapacity, newCapacity, -1);
+    }
+
+    public int getCapacity() {
+        return positions.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return positions[id] != -1;
+    }
+
+    public long getKey(int id) {
+        return keys[id];
+    }
+
+    public int peek() {
+        return heap[0];
+    }
+
+    public long peekKey() {
+        return keys[heap[0]];
+    }
+
+    public void insert(int id, long key) {
+        keys[id] = key;
+        heap[size] = id;
+        positions[id] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Lowers the key of an id that is already in the heap. Does nothing if the new key is not smaller.
+     */
+    public void decreaseKey(int id, long key) {
+        if (key >= keys[id]) return;
+        keys[id] = key;
+        siftUp(positions[id]);
+    }
+
+    /**
+     * Inserts the id, or changes its key (in either direction) if it is already in the heap.
+     */
+    public void update(int id, long key) {
+        if (positions[id] == -1) {
+            insert(id, key);
+            return;
+        }
+
+        long oldKey = keys[id];
+        keys[id] = key;
+        if (key < oldKey) {
+            siftUp(positions[id]);
+        } else if (key > oldKey) {
+            siftDown(positions[id]);
+        }
+    }
+
+    public int removeMin() {
+        int min = heap[0];
+        removeAt(0);
+        return min;
+    }
+
+    public void remove(int id) {
+        int position = positions[id];
+        if (position != -1) {
+            removeAt(position);
+        }
+    }
+
+    /**
+     * Empties the heap. Only the slots of ids currently in the heap are reset, so this is O(size) rather than
+     * O(capacity).
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void removeAt(int position) {
+        int id = heap[position];
+        positions[id] = -1;
+        size--;
+
+        if (position == size) return;
+
+        int last = heap[size];
+        heap[position] = last;
+        positions[last] = position;
+
+        siftDown(position);
+        if (heap[position] == last) {
+            siftUp(position);
+        }
+    }
+
+    private void siftUp(int position) {
+        int id = heap[position];
+        long key = keys[id];
+
+        while (position > 0) {
+            int parentPosition = (position - 1) >>> 1;
+            int parent = heap[parentPosition];
+            if (keys[parent] <= key) break;
+
+            heap[position] = parent;
+            positions[parent] = position;
+            position = parentPosition;
+        }
+
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    private void siftDown(int position) {
+        int id = heap[position];
+        long key = keys[id];
+        int half = size >>> 1;
+
+        while (position < half) {
+            int childPosition = 2 * position + 1;
+            int child = heap[childPosition];
+            int rightPosition = childPosition + 1;
+
+            if (rightPosition < size && keys[heap[rightPosition]] < keys[child]) {
+                childPosition = rightPosition;
+                child = heap[childPosition];
+            }
+
+            if (key <= keys[child]) break;
+
+            heap[position] = child;
+            positions[child] = position;
+            position = childPosition;
+        }
+
+        heap[position] = id;
+        positions[id] = position;
+    }
+}
@@ -34,41 +34,12 @@ public class MapSearchProblem extends SearchProblem {
         }
 
         int stateId = currentState.getStateId();
+        int moveMask = gameMap.getMoveMask(stateId);
 
-        int row = gameMap.getRowFromStateId(stateId);
-        int col = gameMap.getColFromStateId(stateId);
-
-        boolean isOpenNorth = false, isOpenEast = false, isOpenSouth = false, isOpenWest = false;
-
-        if (gameMap.isInBoundsAndNotWall(row - 1, col)) { // north
-            neighbours.add(new SearchState(gameMap.getStateId(row - 1, col)));
-            isOpenNorth = true;
-        }
-        if (gameMap.isInBoundsAndNotWall(row, col + 1)) { // east
-            neighbours.add(new SearchState(gameMap.getStateId(row, col + 1)));
-            isOpenEast = true;
-        }
-        if (gameMap.isInBoundsAndNotWall(row + 1, col)) { // south
-            neighbours.add(new SearchState(gameMap.getStateId(row + 1, col)));
-            isOpenSouth = true;
-        }
-        if (gameMap.isInBoundsAndNotWall(row, col - 1)) { // west
-            neighbours.add(new SearchState(gameMap.getStateId(row, col - 1)));
-            isOpenWest = true;
-        }
-
-        // Diagonal states are only open if either of the corresponding cardinal states are open
-        if ((isOpenNorth || isOpenEast) && gameMap.isInBoundsAndNotWall(row - 1, col + 1)) { // north-east
-            neighbours.add(new SearchState(gameMap.getStateId(row - 1, col + 1)));
-        }
-        if ((isOpenSouth || isOpenEast) && gameMap.isInBoundsAndNotWall(row + 1, col + 1)) { // south-east
-            neighbours.add(new SearchState(gameMap.getStateId(row + 1, col + 1)));
-        }
-        if ((isOpenSouth || isOpenWest) && gameMap.isInBoundsAndNotWall(row + 1, col - 1)) { // south-west
-            neighbours.add(new SearchState(gameMap.getStateId(row + 1, col - 1)));
-        }
-        if ((isOpenNorth || isOpenWest) && gameMap.isInBoundsAndNotWall(row - 1, col - 1)) { // north-west
-            neighbours.add(new SearchState(gameMap.getStateId(row - 1, col - 1)));
+        // Legal moves are precomputed by the map, iterate over the set bits of the move mask
+        while (moveMask != 0) {
+            neighbours.add(new SearchState(stateId + gameMap.getMoveOffset(Integer.numberOfTrailingZeros(moveMask))));
+            moveMask &= moveMask - 1;
         }
     }
 
@@ -77,41 +48,11 @@ public class MapSearchProblem extends SearchProblem {
         int i = 0;
 
         int stateId = currentState.getStateId();
+        int moveMask = gameMap.getMoveMask(stateId);
 
-        int row = gameMap.getRowFromStateId(stateId);
-        int col = gameMap.getColFromStateId(stateId);
-
-        boolean isOpenNorth = false, isOpenEast = false, isOpenSouth = false, isOpenWest = false;
-
-        if (gameMap.isInBoundsAndNotWall(row - 1, col)) { // north
-            neighbours[i++] = new SearchState(gameMap.getStateId(row - 1, col));
-            isOpenNorth = true;
-        }
-        if (gameMap.isInBoundsAndNotWall(row, col + 1)) { // east
-            neighbours[i++] = new SearchState(gameMap.getStateId(row, col + 1));
-            isOpenEast = true;
-        }
-        if (gameMap.isInBoundsAndNotWall(row + 1, col)) { // south
-            neighbours[i++] = new SearchState(gameMap.getStateId(row + 1, col));
-            isOpenSouth = true;
-        }
-        if (gameMap.isInBoundsAndNotWall(row, col - 1)) { // west
-            neighbours[i++] = new SearchState(gameMap.getStateId(row, col - 1));
-            isOpenWest = true;
-        }
-
-        // Diagonal states are only open if either of the corresponding cardinal states are open
-        if ((isOpenNorth || isOpenEast) && gameMap.isInBoundsAndNotWall(row - 1, col + 1)) { // north-east
-            neighbours[i++] = new SearchState(gameMap.getStateId(row - 1, col + 1));
-        }
-        if ((isOpenSouth || isOpenEast) && gameMap.isInBoundsAndNotWall(row + 1, col + 1)) { // south-east
-            neighbours[i++] = new SearchState(gameMap.getStateId(row + 1, col + 1));
-        }
-        if ((isOpenSouth || isOpenWest) && gameMap.isInBoundsAndNotWall(row + 1, col - 1)) { // south-west
-            neighbours[i++] = new SearchState(gameMap.getStateId(row + 1, col - 1));
-        }
-        if ((isOpenNorth || isOpenWest) && gameMap.isInBoundsAndNotWall(row - 1, col - 1)) { // north-west
-            neighbours[i++] = new SearchState(gameMap.getStateId(row - 1, col - 1));
+        while (moveMask != 0) {
+            neighbours[i++] = new SearchState(stateId + gameMap.getMoveOffset(Integer.numberOfTrailingZeros(moveMask)));
+            moveMask &= moveMask - 1;
         }
 
         return i;
@@ -189,6 +130,10 @@ public class MapSearchProblem extends SearchProblem {
         return gameMap.getNumRows() * gameMap.getNumCols();
     }
 
+    public GameMap getGameMap() {
+        return gameMap;
+    }
+
     public boolean isTouchingWall(SearchState currentState) {
         int stateId = currentState.getStateId();
 
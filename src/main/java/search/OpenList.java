@@ -0,0 +1,24 @@
+package search;
+
+import java.util.List;
+
+/**
+ * Open list used by AStar and ListAStar. Implementations must return states in the order defined by
+ * SearchState.compareTo (lowest f-cost first, in case of ties highest g-cost first).
+ */
+public interface OpenList {
+    void add(SearchState state);
+
+    SearchState remove();
+
+    boolean isEmpty();
+
+    int size();
+
+    void clear();
+
+    /**
+     * @return copy of the states currently on the open list, in no particular order
+     */
+    List<SearchState> toList();
+}
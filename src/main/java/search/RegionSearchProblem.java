@@ -2,6 +2,7 @@ package search;
 
 import map.AbstractedMap;
 import map.Region;
+import map.RegionGraph;
 import map.Sector;
 
 import java.util.*;
@@ -12,12 +13,8 @@ import java.util.*;
 public class RegionSearchProblem extends SearchProblem {
     private final AbstractedMap abstractedMap;
 
-    private final List<Integer> neighbourIds;
-
     public RegionSearchProblem(AbstractedMap abstractedMap) {
         this.abstractedMap = abstractedMap;
-
-        this.neighbourIds = new ArrayList<>();
     }
 
     /**
@@ -108,11 +105,11 @@ public class RegionSearchProblem extends SearchProblem {
             throw new RuntimeException();
         }
 
-        neighbourIds.clear();
-        getNeighbourIds(currentState.getStateId(), neighbourIds);
+        RegionGraph regionGraph = abstractedMap.getRegionGraph();
+        int regionIndex = regionGraph.getRegionIndex(currentState.getStateId());
 
-        for (int neighbourId : neighbourIds) {
-            neighbours.add(new SearchState(abstractedMap.getRegionById(neighbourId).getRegionRepresentative()));
+        for (int i = regionGraph.getOffset(regionIndex), end = i + regionGraph.getDegree(regionIndex); i < end; i++) {
+            neighbours.add(new SearchState(regionGraph.getRep(regionGraph.getTarget(i))));
         }
     }
 
@@ -148,8 +145,8 @@ public class RegionSearchProblem extends SearchProblem {
 
     @Override
     public void getNeighbourIds(int regionRepStateId, List<Integer> neighbourIds) {
-        Region region = abstractedMap.getRegionFromRepresentative(regionRepStateId);
-        neighbourIds.addAll(region.getNeighborIds());
+        RegionGraph regionGraph = abstractedMap.getRegionGraph();
+        addNeighbourIds(regionGraph, regionGraph.getRegionIndex(regionRepStateId), neighbourIds);
     }
 
     @Override
@@ -158,14 +155,27 @@ public class RegionSearchProblem extends SearchProblem {
     }
 
     public List<Integer> getNeighbourIdsFromRegionId(int regionId) {
-        Region region = abstractedMap.getRegionById(regionId);
-        return new ArrayList<>(region.getNeighborIds());
+        RegionGraph regionGraph = abstractedMap.getRegionGraph();
+        List<Integer> neighbourIds = new ArrayList<>(regionGraph.getDegree(regionId - AbstractedMap.START_NUM));
+        addNeighbourIds(regionGraph, regionId - AbstractedMap.START_NUM, neighbourIds);
+        return neighbourIds;
+    }
+
+    private static void addNeighbourIds(RegionGraph regionGraph, int regionIndex, List<Integer> neighbourIds) {
+        for (int i = regionGraph.getOffset(regionIndex), end = i + regionGraph.getDegree(regionIndex); i < end; i++) {
+            neighbourIds.add(regionGraph.getTarget(i) + AbstractedMap.START_NUM);
+        }
+    }
+
+    public RegionGraph getRegionGraph() {
+        return abstractedMap.getRegionGraph();
     }
 
     public boolean areInNeighbouringRegionsOrTheSameRegion(int sid1, int sid2) {
-        int r1 = abstractedMap.getRegionIdFromMap(sid1);
-        int r2 = abstractedMap.getRegionIdFromMap(sid2);
+        RegionGraph regionGraph = abstractedMap.getRegionGraph();
+        int r1 = regionGraph.getRegionIndex(sid1);
+        int r2 = regionGraph.getRegionIndex(sid2);
 
-        return r1 == r2 || getNeighbourIdsFromRegionId(r1).contains(r2);
+        return r1 == r2 || regionGraph.findEdge(r1, r2) != -1;
     }
 }
@@ -202,6 +202,31 @@ public class SearchUtil {
         return compressedPath;
     }
 
+    /**
+     * Checks whether a compressed path can be followed backwards, from its last subgoal to its first. Hill-climbing
+     * breaks ties by direction, so it does not retrace the optimal path backwards, but it usually takes another path of
+     * the same cost. It does not always, hill-climbing can also get stuck in the other direction.
+     *
+     * @param compressedPath subgoals of optimalPath, as returned by findOptimallyCompressedPath
+     * @param optimalPath    the A* path the compressed path was computed from
+     * @return true if it is possible to hill-climb from every subgoal to the subgoal before it at the cost of the optimal
+     * path between them
+     */
+    public static boolean isReversible(int[] compressedPath, List<SearchState> optimalPath, HillClimbingWithClosedSet hc, SearchProblem problem, SearchStats searchStats) {
+        int subgoal = 1, segmentCost = 0;
+        for (int i = 1; i < optimalPath.size() && subgoal < compressedPath.length; i++) {
+            segmentCost += problem.getMoveCost(optimalPath.get(i - 1), optimalPath.get(i));
+            if (optimalPath.get(i).getStateId() == compressedPath[subgoal]) {
+                if (!hc.pathExistsWithinCost(compressedPath[subgoal], compressedPath[subgoal - 1], segmentCost, searchStats)) {
+                    return false;
+                }
+                subgoal++;
+                segmentCost = 0;
+            }
+        }
+        return subgoal == compressedPath.length;
+    }
+
     public static void printPath(List<SearchState> path) {
         for (SearchState state : path) {
             System.out.print(state.getStateId() + ", ");
@@ -1,5 +1,7 @@
 package search.algorithms;
 
+import search.HeapOpenList;
+import search.OpenList;
 import search.RegionSearchProblem;
 import search.SearchProblem;
 import search.SearchState;
@@ -10,16 +12,24 @@ import java.util.*;
 public class AStar implements SearchAlgorithmWithStats {
     protected final SearchProblem searchProblem;
 
-    protected final PriorityQueue<SearchState> openList;
+    protected final OpenList openList;
     protected final Map<Integer, SearchState> openListLookup;
     protected final Set<Integer> closedHashSet;
 
     protected final SearchState[] neighbours;
 
     public AStar(SearchProblem searchProblem) {
+        this(searchProblem, new HeapOpenList());
+    }
+
+    /**
+     * @param searchProblem search problem to run A* on
+     * @param openList      open list implementation to use (e.g. HeapOpenList or BucketOpenList)
+     */
+    public AStar(SearchProblem searchProblem, OpenList openList) {
         this.searchProblem = searchProblem;
 
-        this.openList = new PriorityQueue<>();
+        this.openList = openList;
         this.openListLookup = new HashMap<>();
         this.closedHashSet = new HashSet<>();
 
@@ -0,0 +1,260 @@
+package search.algorithms;
+
+import search.IndexedMinHeap;
+import search.SearchProblem;
+import search.SearchState;
+import stats.SearchStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bidirectional A* search on the primitive per-state arrays of IndexedAStar.
+ * <p>
+ * A forward search from the start (using the arrays of IndexedAStar) and a backward search from the goal (using the
+ * arrays of this class) each use the octile distance to the other end as heuristic (front-to-end). The search with the
+ * smaller open list expands next. Whenever a state reached by one search is reached by the other, the path through it
+ * is a candidate, and the search stops once the cheapest candidate costs no more than the lowest f-cost on either open
+ * list, as every path not found yet passes through a state that is open in each search and can not be cheaper. Like BS*
+ * (Kwa 1989), neither search adds states whose f-cost is no less than the cost of the cheapest candidate, and a state
+ * the other search has expanded already is closed without generating its neighbours. Moves are assumed to cost the same
+ * in both directions, which holds for MapSearchProblem.
+ * <p>
+ * Paths are optimal, but the closed set holds the states of both searches, so its size says nothing about whether the
+ * path can be hill-climbed and pathSizeEqualsClosedSetSize always returns false. findCompressedPath still works, it
+ * just always compresses with hill-climbing.
+ */
+public class BidirectionalAStar extends CompressAStar {
+    private final IndexedMinHeap backwardOpenList;
+
+    private final int[] backwardG;
+    private final int[] backwardF;
+    // Next state towards the goal
+    private final int[] backwardParent;
+
+    private final int[] backwardOpenStamp;
+    private final int[] backwardClosedStamp;
+
+    private int bestCost;
+    private int meetingId;
+
+    public BidirectionalAStar(SearchProblem searchProblem) {
+        super(searchProblem);
+
+        int maxSize = searchProblem.getMaxSize();
+
+        this.backwardOpenList = new IndexedMinHeap(maxSize);
+
+        this.backwardG = new int[maxSize];
+        this.backwardF = new int[maxSize];
+        this.backwardParent = new int[maxSize];
+
+        this.backwardOpenStamp = new int[maxSize];
+        this.backwardClosedStamp = new int[maxSize];
+    }
+
+    /**
+     * Finds an optimal path from start to goal using bidirectional A* search
+     *
+     * @param start       start of path
+     * @param goal        goal of path
+     * @param searchStats stats object to keep track of states expanded by both searches
+     * @return optimal path between start and goal, null if there is no path
+     */
+    @Override
+    public List<SearchState> findPath(SearchState start, SearchState goal, SearchStats searchStats) {
+        if (searchStats == null) searchStats = new SearchStats();
+
+        startNewGeneration();
+
+        int startId = start.getStateId(), goalId = goal.getStateId();
+
+        g[startId] = 0;
+        f[startId] = searchProblem.getOctileDistance(startId, goalId);
+        parent[startId] = -1;
+        openStamp[startId] = generation;
+        openList.insert(startId, IndexedMinHeap.packKey(f[startId], 0));
+
+        backwardG[goalId] = 0;
+        backwardF[goalId] = f[startId];
+        backwardParent[goalId] = -1;
+        backwardOpenStamp[goalId] = generation;
+        backwardOpenList.insert(goalId, IndexedMinHeap.packKey(backwardF[goalId], 0));
+
+        bestCost = startId == goalId ? 0 : Integer.MAX_VALUE;
+        meetingId = startId == goalId ? startId : -1;
+
+        // If either search runs out of states, every state it can reach is closed, so the best path has been found
+        while (!openList.isEmpty() && !backwardOpenList.isEmpty()) {
+            // Stop once no path through a state that is still open can be cheaper than the best path found so far
+            if (bestCost <= Math.max(f[openList.peek()], backwardF[backwardOpenList.peek()])) {
+                break;
+            }
+
+            if (openList.size() <= backwardOpenList.size()) {
+                expand(goalId, true, searchStats);
+            } else {
+                expand(startId, false, searchStats);
+            }
+        }
+
+        // If the searches never met, a path must not exist
+        if (meetingId == -1) {
+            return null;
+        }
+
+        return reconstructBidirectionalPath(goalId, searchStats);
+    }
+
+    /**
+     * Expands the state with lowest f-cost (in case of ties highest g-cost first) of the forward or backward search
+     *
+     * @param targetId goal of the search, i.e. the goal for the forward search and the start for the backward search
+     */
+    private void expand(int targetId, boolean forward, SearchStats searchStats) {
+        IndexedMinHeap open = forward ? openList : backwardOpenList;
+        int[] gs = forward ? g : backwardG, fs = forward ? f : backwardF, parents = forward ? parent : backwardParent;
+        int[] openStamps = forward ? openStamp : backwardOpenStamp, closedStamps = forward ? closedStamp : backwardClosedStamp;
+        int[] otherGs = forward ? backwardG : g, otherOpenStamps = forward ? backwardOpenStamp : openStamp;
+
+        int currentId = open.removeMin();
+
+        searchStats.incrementNumStatesExpanded(1);
+
+        closedStamps[currentId] = generation;
+        numClosed++;
+
+        // The best path through a state the other search has expanded already is known, so its neighbours need not be
+        // generated again from this side
+        if ((forward ? backwardClosedStamp : closedStamp)[currentId] == generation) {
+            return;
+        }
+
+        int numNeighbours = searchProblem.getNeighbourIds(currentId, neighbourIds);
+
+        for (int i = 0; i < numNeighbours; i++) {
+            int neighbourId = neighbourIds[i];
+            // If the neighbour has already been expanded by this search
+            if (closedStamps[neighbourId] == generation) {
+                continue;
+            }
+
+            searchStats.incrementNumStatesUpdated(1);
+
+            int newG = gs[currentId] + searchProblem.getMoveCost(currentId, neighbourId);
+            int h = searchProblem.getOctileDistance(neighbourId, targetId);
+
+            // A path through the neighbour can not be cheaper than the best path found so far
+            if (newG + h >= bestCost) {
+                continue;
+            }
+
+            if (openStamps[neighbourId] != generation) {
+                // First time the neighbour is seen by this search
+                gs[neighbourId] = newG;
+                fs[neighbourId] = newG + h;
+                parents[neighbourId] = currentId;
+                openStamps[neighbourId] = generation;
+                open.insert(neighbourId, IndexedMinHeap.packKey(fs[neighbourId], newG));
+            } else if (newG < gs[neighbourId]) {
+                // Found a cheaper way of getting to a state on the open list, h stays the same
+                fs[neighbourId] += newG - gs[neighbourId];
+                gs[neighbourId] = newG;
+                parents[neighbourId] = currentId;
+                open.decreaseKey(neighbourId, IndexedMinHeap.packKey(fs[neighbourId], newG));
+            } else {
+                continue;
+            }
+
+            // If the other search has reached the neighbour too, the searches meet there
+            if (otherOpenStamps[neighbourId] == generation && newG + otherGs[neighbourId] < bestCost) {
+                bestCost = newG + otherGs[neighbourId];
+                meetingId = neighbourId;
+            }
+        }
+    }
+
+    @Override
+    void startNewGeneration() {
+        backwardOpenList.clear();
+
+        // The generation is reset along with the stamps of the forward search, so reset the backward stamps too
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(backwardOpenStamp, 0);
+            Arrays.fill(backwardClosedStamp, 0);
+        }
+        super.startNewGeneration();
+    }
+
+    /**
+     * Joins the path of the forward search from the start to the meeting state and the path of the backward search from
+     * there to the goal
+     */
+    private List<SearchState> reconstructBidirectionalPath(int goalId, SearchStats searchStats) {
+        int forwardLength = 0;
+        for (int id = meetingId; id != -1; id = parent[id]) {
+            forwardLength++;
+        }
+        int length = forwardLength;
+        for (int id = backwardParent[meetingId]; id != -1; id = backwardParent[id]) {
+            length++;
+        }
+
+        int[] ids = new int[length];
+        int idx = forwardLength - 1;
+        for (int id = meetingId; id != -1; id = parent[id]) {
+            ids[idx--] = id;
+        }
+        idx = forwardLength;
+        for (int id = backwardParent[meetingId]; id != -1; id = backwardParent[id]) {
+            ids[idx++] = id;
+        }
+
+        SearchState[] states = new SearchState[length];
+        int cost = 0;
+        for (int i = 0; i < length; i++) {
+            states[i] = new SearchState(ids[i]);
+            if (i > 0) {
+                cost += searchProblem.getMoveCost(ids[i - 1], ids[i]);
+                states[i].setParent(states[i - 1]);
+            }
+            states[i].updateCost(cost, searchProblem.getOctileDistance(ids[i], goalId));
+        }
+
+        searchStats.setPathLength(length);
+
+        return new ArrayList<>(Arrays.asList(states));
+    }
+
+    /**
+     * The closed set holds the states of the backward search too, so its size says nothing about whether the path can
+     * be hill-climbed
+     */
+    @Override
+    public boolean pathSizeEqualsClosedSetSize(int pathSize) {
+        return false;
+    }
+
+    /**
+     * @return set of the ids of all states expanded by either search in the last search
+     */
+    @Override
+    public Set<Integer> getClosedHashSet() {
+        Set<Integer> closedSet = super.getClosedHashSet();
+        if (generation == 0) return closedSet;
+
+        for (int i = 0; i < backwardClosedStamp.length; i++) {
+            if (backwardClosedStamp[i] == generation) {
+                closedSet.add(i);
+            }
+        }
+        return closedSet;
+    }
+
+    @Override
+    public CompressAStar copy() {
+        return new BidirectionalAStar(searchProblem);
+    }
+}
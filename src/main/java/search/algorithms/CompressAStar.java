@@ -8,7 +8,7 @@ import stats.SearchStats;
 import java.util.ArrayList;
 import java.util.List;
 
-public class CompressAStar extends AStar {
+public class CompressAStar extends IndexedAStar {
     private int checkTriggeredCount;
     private boolean checkTriggered;
 
@@ -99,7 +99,14 @@ public class CompressAStar extends AStar {
     }
 
     public boolean pathSizeEqualsClosedSetSize(int pathSize) {
-        return pathSize == getClosedHashSet().size();
+        return pathSize == getNumClosed();
+    }
+
+    /**
+     * @return a new search of the same kind on the same search problem, e.g. for another thread to use
+     */
+    public CompressAStar copy() {
+        return new CompressAStar(searchProblem);
     }
 
     public int getCheckTriggeredCount() {
@@ -1,10 +1,13 @@
 package search.algorithms;
 
 import database.SubgoalDB;
+import database.SubgoalDBFile;
 import database.SubgoalDBRecord;
 import map.AbstractedMap;
 import map.GameMap;
+import map.JumpDistances;
 import map.Region;
+import map.RegionHierarchy;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import search.MapSearchProblem;
@@ -23,6 +26,10 @@ public class DBAStar implements DynamicSearchAlgorithm {
     private final SearchStats searchStats;
     private final HillClimbingWithClosedSet hillClimbing;
     private final CompressAStar compressAStar;
+    // Jump distances of compressAStar (JPS+), null unless precomputed
+    private final JumpDistances jumpDistances;
+    // Hierarchy above the regions that the subgoal database searches in, null unless built
+    private RegionHierarchy regionHierarchy;
 
     private List<SearchState> subgoals;
 
@@ -36,18 +43,111 @@ public class DBAStar implements DynamicSearchAlgorithm {
 
     private final boolean compressed;
 
+    public static final int A_STAR = 0;
+    public static final int JUMP_POINT_SEARCH = 1;
+    public static final int JUMP_POINT_SEARCH_PLUS = 2;
+    public static final int BIDIRECTIONAL_A_STAR = 3;
+
     public DBAStar(GameMap gameMap, int gridSize, boolean compressed) {
+        this(gameMap, gridSize, compressed, new Options());
+    }
+
+    /**
+     * How the map is abstracted and the database is built and searched, beyond the grid size and compression. The
+     * defaults are those of DBAStar(gameMap, gridSize, compressed).
+     */
+    public static class Options {
+        private boolean parallel;
+        private boolean symmetric;
+        private boolean lazy;
+        private int baseSearch = A_STAR;
+        private String snapshotFileName;
+
+        /**
+         * @param parallel whether to abstract the map and compute the database concurrently (produces exactly the same
+         *                 regions and database)
+         */
+        public Options setParallel(boolean parallel) {
+            this.parallel = parallel;
+            return this;
+        }
+
+        /**
+         * @param symmetric whether the computed database stores the base path between two neighbouring regions once for
+         *                  both directions where hill-climbing allows it (a database loaded from a snapshot stores both
+         *                  directions)
+         */
+        public Options setSymmetric(boolean symmetric) {
+            this.symmetric = symmetric;
+            return this;
+        }
+
+        /**
+         * @param lazy whether the computed database only computes the base path between two neighbouring regions when a
+         *             path first goes through both, so that building it takes next to no time (a lazy database is not
+         *             written to the snapshot)
+         */
+        public Options setLazy(boolean lazy) {
+            this.lazy = lazy;
+            return this;
+        }
+
+        /**
+         * @param baseSearch search to use on the map, i.e. within a region, to and from the region representatives,
+         *                   when hill-climbing fails and between neighbouring regions when computing the database:
+         *                   A_STAR, JUMP_POINT_SEARCH, JUMP_POINT_SEARCH_PLUS (with a table of jump distances that is
+         *                   patched when walls are added or removed) or BIDIRECTIONAL_A_STAR
+         */
+        public Options setBaseSearch(int baseSearch) {
+            if (baseSearch != A_STAR && baseSearch != JUMP_POINT_SEARCH && baseSearch != JUMP_POINT_SEARCH_PLUS && baseSearch != BIDIRECTIONAL_A_STAR) {
+                throw new IllegalArgumentException("Unknown base search " + baseSearch);
+            }
+            this.baseSearch = baseSearch;
+            return this;
+        }
+
+        /**
+         * @param snapshotFileName database snapshot (see SubgoalDBFile) to load the database from if it was written for
+         *                         this map and grid size, otherwise the database is computed and written to it (may be
+         *                         null)
+         */
+        public Options setSnapshotFileName(String snapshotFileName) {
+            this.snapshotFileName = snapshotFileName;
+            return this;
+        }
+
+        private SubgoalDB.Options toSubgoalDBOptions() {
+            return new SubgoalDB.Options().setParallel(parallel).setSymmetric(symmetric).setLazy(lazy);
+        }
+    }
+
+    public DBAStar(GameMap gameMap, int gridSize, boolean compressed, Options options) {
         this.searchStats = new SearchStats();
 
         this.gameMap = gameMap;
         MapSearchProblem mapSearchProblem = new MapSearchProblem(gameMap);
-        this.abstractedMap = new AbstractedMap(gameMap, gridSize, searchStats);
+        this.abstractedMap = new AbstractedMap(gameMap, gridSize, searchStats, options.parallel);
         this.regionSearchProblem = new RegionSearchProblem(abstractedMap);
 
         long start = System.nanoTime();
-        this.compressAStar = new CompressAStar(mapSearchProblem);
+        this.jumpDistances = options.baseSearch == JUMP_POINT_SEARCH_PLUS ? new JumpDistances(gameMap) : null;
+        if (options.baseSearch == JUMP_POINT_SEARCH || options.baseSearch == JUMP_POINT_SEARCH_PLUS) {
+            this.compressAStar = new JumpPointSearch(mapSearchProblem, jumpDistances);
+        } else if (options.baseSearch == BIDIRECTIONAL_A_STAR) {
+            this.compressAStar = new BidirectionalAStar(mapSearchProblem);
+        } else {
+            this.compressAStar = new CompressAStar(mapSearchProblem);
+        }
         this.hillClimbing = new HillClimbingWithClosedSet(mapSearchProblem);
-        this.subgoalDB = new SubgoalDB(abstractedMap.getRegionIdToRegionMap(), searchStats, compressAStar, hillClimbing);
+        SubgoalDB loadedDB = options.snapshotFileName == null ? null : SubgoalDBFile.load(options.snapshotFileName, gameMap, gridSize, abstractedMap.getRegionGraph());
+        if (loadedDB != null) {
+            this.subgoalDB = loadedDB;
+        } else {
+            this.subgoalDB = new SubgoalDB(abstractedMap.getRegionGraph(), searchStats, compressAStar, hillClimbing, options.toSubgoalDBOptions());
+            if (options.snapshotFileName != null && !options.lazy) {
+                SubgoalDBFile.write(subgoalDB, gameMap, gridSize, options.snapshotFileName);
+            }
+        }
         searchStats.setTimeToGenerateDatabase(System.nanoTime() - start);
 
         this.compressed = compressed;
@@ -82,7 +182,8 @@ public class DBAStar implements DynamicSearchAlgorithm {
             return null;
         }
 
-        int[] subgoalsFromRecord = record.getSubgoals();
+        // A compressed record has no subgoals if hill-climbing reaches the goal region rep from the start region rep
+        int[] subgoalsFromRecord = record.getSubgoals() == null ? new int[0] : record.getSubgoals();
 
 //        logger.info("Subgoals: {}", Arrays.toString(subgoalsFromRecord));
 
@@ -281,11 +382,41 @@ public class DBAStar implements DynamicSearchAlgorithm {
         return abstractedMap;
     }
 
+    /**
+     * Builds a hierarchy of numLevels levels above the regions (see RegionHierarchy) and makes the subgoal database
+     * search it from the top down when it combines base paths (SubgoalDB.HIERARCHICAL). It is kept up to date as walls
+     * are added and removed.
+     *
+     * @param branchingFactor number of cells of a level along each side of a cell of the level above
+     */
+    public RegionHierarchy buildRegionHierarchy(int numLevels, int branchingFactor) {
+        regionHierarchy = new RegionHierarchy(abstractedMap, numLevels, branchingFactor);
+        subgoalDB.setRegionHierarchy(regionHierarchy);
+        subgoalDB.setAbstractSearchMode(SubgoalDB.HIERARCHICAL);
+        return regionHierarchy;
+    }
+
+    public RegionHierarchy getRegionHierarchy() {
+        return regionHierarchy;
+    }
+
     public SearchStats getSearchStats() {
         return searchStats;
     }
 
     public void addWall(int wallId) throws Exception {
+        subgoalDB.invalidateRecordsAround(wallId, gameMap);
+        addWallToRegions(wallId);
+        if (regionHierarchy != null) regionHierarchy.update(wallId);
+    }
+
+    public void removeWall(int wallId) throws Exception {
+        subgoalDB.invalidateRecordsAround(wallId, gameMap);
+        removeWallFromRegions(wallId);
+        if (regionHierarchy != null) regionHierarchy.update(wallId);
+    }
+
+    private void addWallToRegions(int wallId) throws Exception {
         // Get region id of wall state before adding wall
         final int REGION_ID = abstractedMap.getRegionIdFromMap(wallId);
         Map<Integer, Region> regionHashMap = abstractedMap.getRegionIdToRegionMap();
@@ -293,6 +424,7 @@ public class DBAStar implements DynamicSearchAlgorithm {
 
         // Place wall
         SearchUtil.placeWall(wallId, gameMap, abstractedMap);
+        if (jumpDistances != null) jumpDistances.update(wallId);
 
         // Elimination case
         if (region.getNumStates() == 1) {
@@ -300,7 +432,7 @@ public class DBAStar implements DynamicSearchAlgorithm {
             Set<Integer> neighbourIds = region.getNeighborIds();
 
             for (Integer neighbourId : neighbourIds) {
-                abstractedMap.getRegionById(neighbourId).getNeighborIds().remove(REGION_ID);
+                abstractedMap.getRegionById(neighbourId).removeNeighborId(REGION_ID);
             }
 
             abstractedMap.removeRegion(REGION_ID);
@@ -403,7 +535,8 @@ public class DBAStar implements DynamicSearchAlgorithm {
                         }
 
                         for (int nid : neighboursInDifferentRegions) {
-                            if (compressAStar.findPath(new SearchState(nid), new SearchState(goalInRegion), new SearchStats()) == null) {
+                            // A search towards a missing neighbour in another region can never find a path
+                            if (goalInRegion == -1 || compressAStar.findPath(new SearchState(nid), new SearchState(goalInRegion), new SearchStats()) == null) {
                                 isPartition = true;
                             }
                         }
@@ -457,16 +590,12 @@ public class DBAStar implements DynamicSearchAlgorithm {
                 // Pathblocker corner case
                 if (neighbourRegion != 0) {
 //                    System.out.println("Pathblocker");
-                    // Get the neighbours of the region
-                    Set<Integer> neighbours = region.getNeighborIds();
                     // Update region’s neighbourhood in groups map
-                    neighbours.remove(neighbourRegion);
+                    region.removeNeighborId(neighbourRegion);
 
-                    // Get the neighbours of its soon-to-be ex-neighbor
-                    Region neighborRegion = regionHashMap.get(neighbourRegion);
-                    Set<Integer> neighboursOfEx = neighborRegion.getNeighborIds();
                     // Update old neighbour’s neighbourhood in groups map
-                    neighboursOfEx.remove(REGION_ID);
+                    Region neighborRegion = regionHashMap.get(neighbourRegion);
+                    neighborRegion.removeNeighborId(REGION_ID);
 
                     // If the wall was placed on the region rep
                     if (REGION_REP == wallId) {
@@ -502,7 +631,7 @@ public class DBAStar implements DynamicSearchAlgorithm {
                 abstractedMap.computeRegionNeighbourhoodAndStoreRegionReps(START_ROW, END_ROW, START_COL, END_COL);
 
                 // Database changes
-                subgoalDB.recomputeBasePathsAfterPartition(regionHashMap, neighborIds, compressAStar, hillClimbing, searchStats);
+                subgoalDB.recomputeBasePathsAfterPartition(abstractedMap.getRegionGraph(), neighborIds, wallId, true, compressAStar, hillClimbing, searchStats);
 
                 return;
             }
@@ -515,16 +644,22 @@ public class DBAStar implements DynamicSearchAlgorithm {
             if (REGION_REP == wallId) {
                 // Recompute region representative
                 abstractedMap.computeRegionRepresentative(REGION_ID, region, START_ROW, END_ROW, START_COL, END_COL);
+
+                // All base paths of the region start or end at the old rep
+                subgoalDB.recomputeBasePaths(REGION_ID, abstractedMap.getRegionGraph(), compressAStar, hillClimbing, searchStats);
             }
 
-            // Database changes
-            subgoalDB.recomputeBasePaths(REGION_ID, regionHashMap, compressAStar, hillClimbing, searchStats);
+            // Database changes, only for the base paths the wall blocks
+            subgoalDB.recomputeBasePathsThroughWall(wallId, gameMap, abstractedMap.getRegionGraph(), compressAStar, hillClimbing, searchStats);
         }
     }
 
-    public void removeWall(int wallId) throws Exception {
+    private void removeWallFromRegions(int wallId) throws Exception {
         // Remove wall
         SearchUtil.placeOpenState(wallId, gameMap, abstractedMap);
+        if (jumpDistances != null) jumpDistances.update(wallId);
+        // Hill-climbing along base paths next to the wall may now move through it
+        subgoalDB.reindexBasePathsAroundWall(wallId);
 
         final int WALL_ROW = gameMap.getRowFromStateId(wallId);
         final int WALL_COL = gameMap.getColFromStateId(wallId);
@@ -606,14 +741,14 @@ public class DBAStar implements DynamicSearchAlgorithm {
 
                 // Update region’s neighbourhood in groups map & update neighbourhood of all its neighbours in groups map
                 for (Integer neighbouringRegion : neighbouringRegions) {
-                    regionHashMap.get(neighbouringRegion).getNeighborIds().add(regionId);
+                    regionHashMap.get(neighbouringRegion).addNeighborId(regionId);
                 }
 
                 // Create a new region object to store information on the new region
                 abstractedMap.addRegion(regionId, wallId, 1, neighbouringRegions);
 
                 // Database changes
-                subgoalDB.recomputeBasePathsIfConnected(regionId, regionHashMap, abstractedMap.getRegionById(regionId).getNeighborIds(), compressAStar, hillClimbing, searchStats);
+                subgoalDB.recomputeBasePathsIfConnected(regionId, abstractedMap.getRegionGraph(), abstractedMap.getRegionById(regionId).getNeighborIds(), compressAStar, hillClimbing, searchStats);
                 return;
             }
 
@@ -686,7 +821,7 @@ public class DBAStar implements DynamicSearchAlgorithm {
                 neighborIdsSet.add(smallest);
 
                 // Database changes
-                subgoalDB.recomputeBasePathsAfterPartition(regionHashMap, neighborIdsSet, compressAStar, hillClimbing, searchStats);
+                subgoalDB.recomputeBasePathsAfterPartition(abstractedMap.getRegionGraph(), neighborIdsSet, wallId, false, compressAStar, hillClimbing, searchStats);
 
                 return;
             }
@@ -702,7 +837,7 @@ public class DBAStar implements DynamicSearchAlgorithm {
             }
 
             // Database changes
-            subgoalDB.recomputeBasePaths(REGION_ID, regionHashMap, compressAStar, hillClimbing, searchStats);
+            subgoalDB.recomputeBasePaths(REGION_ID, abstractedMap.getRegionGraph(), compressAStar, hillClimbing, searchStats);
         }
     }
 
@@ -0,0 +1,295 @@
+package search.algorithms;
+
+import map.GameMap;
+import search.IndexedMinHeap;
+import search.MapSearchProblem;
+import search.SearchState;
+import stats.SearchStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * D* Lite (Koenig and Likhachev 2002) on the octile grid of a GameMap.
+ * <p>
+ * The search runs backwards from the goal, so every state it has expanded knows its cost to the goal (g). Unlike A*,
+ * this search tree is kept between calls to findPath as long as the goal stays the same: the start may move (the keys
+ * on the open list are corrected lazily through km) and walls may be added and removed, in which case only the states
+ * whose moves changed, the 3x3 block around the wall, are made inconsistent again. The next findPath then only
+ * repairs the part of the tree the change affects, which is what a unit that keeps its goal for many frames while the
+ * map keeps changing needs.
+ * <p>
+ * Each state has a g-cost and a one-step lookahead cost (rhs, the cheapest move cost plus g of a neighbour). A state
+ * whose two costs differ is inconsistent and on the open list, ordered by the key (min(g, rhs) + h(start, state) + km,
+ * min(g, rhs)). Once no key on the open list is smaller than the key of the start and the start is consistent, following
+ * the neighbour with the lowest move cost plus g from the start gives an optimal path.
+ * <p>
+ * Walls must be added and removed through addWall and removeWall, which change the GameMap, so that the search sees
+ * every change.
+ */
+public class DStarLite implements DynamicSearchAlgorithm {
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+    private final GameMap gameMap;
+    private final MapSearchProblem searchProblem;
+
+    private final IndexedMinHeap openList;
+    private final int[] g;
+    private final int[] rhs;
+    // g and rhs of a state are only valid if its stamp equals the generation, which changes with the goal
+    private final int[] stamp;
+    private int generation;
+
+    private final int[] neighbourIds = new int[8];
+
+    private int goalId = -1;
+    // Start of the last search, the heuristic of all keys on the open list is relative to it
+    private int lastStartId;
+    // Sum of the heuristic distances the start has moved since the goal was set
+    private int km;
+
+    public DStarLite(GameMap gameMap) {
+        this.gameMap = gameMap;
+        this.searchProblem = new MapSearchProblem(gameMap);
+
+        int maxSize = searchProblem.getMaxSize();
+
+        this.openList = new IndexedMinHeap(maxSize);
+        this.g = new int[maxSize];
+        this.rhs = new int[maxSize];
+        this.stamp = new int[maxSize];
+    }
+
+    /**
+     * Finds an optimal path from start to goal, reusing the search tree of the previous call if the goal is the same
+     *
+     * @param start       start of path
+     * @param goal        goal of path
+     * @param searchStats stats object to keep track of states expanded while repairing the search tree
+     * @return optimal path between start and goal, null if there is no path
+     */
+    @Override
+    public List<SearchState> findPath(SearchState start, SearchState goal, SearchStats searchStats) {
+        if (searchStats == null) searchStats = new SearchStats();
+
+        long startTime = System.nanoTime();
+
+        int startId = start.getStateId();
+
+        if (goal.getStateId() != goalId) {
+            initialize(startId, goal.getStateId());
+        } else if (startId != lastStartId) {
+            // The keys on the open list were computed with the heuristic to the old start, which is at most that much
+            // larger than the heuristic to the new one
+            km += gameMap.getOctileDistance(lastStartId, startId);
+            lastStartId = startId;
+        }
+
+        if (gameMap.isWall(startId) || gameMap.isWall(goalId)) {
+            return null;
+        }
+
+        computeShortestPath(startId, searchStats);
+
+        List<SearchState> path = extractPath(startId, searchStats);
+
+        searchStats.setTimeToFindPathOnline(System.nanoTime() - startTime);
+
+        return path;
+    }
+
+    /**
+     * Throws away the search tree and starts a new one from the goal
+     */
+    private void initialize(int startId, int goalId) {
+        openList.clear();
+
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            generation = 0;
+        }
+        generation++;
+
+        this.goalId = goalId;
+        this.lastStartId = startId;
+        this.km = 0;
+
+        touch(goalId);
+        rhs[goalId] = 0;
+        openList.insert(goalId, calculateKey(goalId));
+    }
+
+    /**
+     * Expands inconsistent states until the start is consistent and no state on the open list could change its g-cost
+     */
+    private void computeShortestPath(int startId, SearchStats searchStats) {
+        touch(startId);
+
+        while (!openList.isEmpty() && (openList.peekKey() < calculateKey(startId) || rhs[startId] != g[startId])) {
+            int currentId = openList.peek();
+            long oldKey = openList.peekKey();
+            long newKey = calculateKey(currentId);
+
+            if (oldKey < newKey) {
+                // The key was computed for an earlier start
+                openList.update(currentId, newKey);
+                continue;
+            }
+
+            openList.removeMin();
+            searchStats.incrementNumStatesExpanded(1);
+
+            int numNeighbours = getNeighbourIds(currentId);
+
+            if (g[currentId] > rhs[currentId]) {
+                // Overconsistent, the cost to the goal went down
+                g[currentId] = rhs[currentId];
+            } else {
+                // Underconsistent, the cost to the goal went up, so the state has to be made consistent again too
+                g[currentId] = INFINITY;
+                updateState(currentId);
+            }
+
+            for (int i = 0; i < numNeighbours; i++) {
+                updateState(neighbourIds[i]);
+            }
+            searchStats.incrementNumStatesUpdated(numNeighbours);
+        }
+    }
+
+    /**
+     * Recomputes rhs of a state from its neighbours and puts it on the open list if it is inconsistent
+     */
+    private void updateState(int stateId) {
+        touch(stateId);
+
+        if (stateId != goalId) {
+            int minCost = INFINITY;
+            if (!gameMap.isWall(stateId)) {
+                int moveMask = gameMap.getMoveMask(stateId);
+                while (moveMask != 0) {
+                    int neighbourId = stateId + gameMap.getMoveOffset(Integer.numberOfTrailingZeros(moveMask));
+                    moveMask &= moveMask - 1;
+
+                    if (stamp[neighbourId] == generation && g[neighbourId] != INFINITY) {
+                        minCost = Math.min(minCost, g[neighbourId] + searchProblem.getMoveCost(stateId, neighbourId));
+                    }
+                }
+            }
+            rhs[stateId] = minCost;
+        }
+
+        if (g[stateId] != rhs[stateId]) {
+            openList.update(stateId, calculateKey(stateId));
+        } else {
+            openList.remove(stateId);
+        }
+    }
+
+    /**
+     * Follows the neighbour with the lowest move cost plus g from the start to the goal
+     */
+    private List<SearchState> extractPath(int startId, SearchStats searchStats) {
+        if (g[startId] == INFINITY) {
+            return null;
+        }
+
+        List<SearchState> path = new ArrayList<>();
+        SearchState current = new SearchState(startId);
+        current.updateCost(0, g[startId]);
+        path.add(current);
+
+        int cost = 0;
+        while (current.getStateId() != goalId) {
+            int currentId = current.getStateId();
+            int numNeighbours = getNeighbourIds(currentId);
+
+            int nextId = -1, nextCost = INFINITY;
+            for (int i = 0; i < numNeighbours; i++) {
+                int neighbourId = neighbourIds[i];
+                if (stamp[neighbourId] != generation || g[neighbourId] == INFINITY) continue;
+
+                int neighbourCost = searchProblem.getMoveCost(currentId, neighbourId) + g[neighbourId];
+                if (neighbourCost < nextCost) {
+                    nextId = neighbourId;
+                    nextCost = neighbourCost;
+                }
+            }
+
+            // Can only happen if the tree is inconsistent, which computeShortestPath rules out
+            if (nextId == -1 || path.size() > searchProblem.getMaxSize()) {
+                throw new IllegalStateException("No path from " + startId + " to " + goalId + " in the search tree on " + gameMap.getName());
+            }
+
+            cost += searchProblem.getMoveCost(currentId, nextId);
+            SearchState next = new SearchState(nextId);
+            next.updateCost(cost, g[nextId]);
+            next.setParent(current);
+            path.add(next);
+            current = next;
+        }
+
+        searchStats.setPathLength(path.size());
+
+        return path;
+    }
+
+    @Override
+    public void addWall(int stateId) {
+        gameMap.placeWallAt(stateId);
+        updateBlock(stateId);
+    }
+
+    @Override
+    public void removeWall(int stateId) {
+        gameMap.placeOpenStateAt(stateId);
+        updateBlock(stateId);
+    }
+
+    /**
+     * A wall change changes the moves of the states in the 3x3 block around it, and no others, so these are the only
+     * states whose rhs may change
+     */
+    private void updateBlock(int stateId) {
+        if (goalId == -1) return;
+
+        int row = gameMap.getRowFromStateId(stateId);
+        int col = gameMap.getColFromStateId(stateId);
+
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, gameMap.getNumRows() - 1); r++) {
+            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, gameMap.getNumCols() - 1); c++) {
+                updateState(gameMap.getStateId(r, c));
+            }
+        }
+    }
+
+    /**
+     * Packs the key of a state so that keys sort ascending on both parts (unlike IndexedMinHeap.packKey, which prefers
+     * higher g-costs on ties)
+     */
+    private long calculateKey(int stateId) {
+        int minG = Math.min(g[stateId], rhs[stateId]);
+        return ((long) (minG + gameMap.getOctileDistance(lastStartId, stateId) + km) << 32) | minG;
+    }
+
+    /**
+     * Sets g and rhs of a state the current search tree has not seen yet to infinity
+     */
+    private void touch(int stateId) {
+        if (stamp[stateId] != generation) {
+            stamp[stateId] = generation;
+            g[stateId] = INFINITY;
+            rhs[stateId] = INFINITY;
+        }
+    }
+
+    private int getNeighbourIds(int stateId) {
+        return gameMap.isWall(stateId) ? 0 : searchProblem.getNeighbourIds(stateId, neighbourIds);
+    }
+
+    @Override
+    public GameMap getGameMap() {
+        return gameMap;
+    }
+}
@@ -6,6 +6,7 @@ import search.SearchState;
 import stats.SearchStats;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class HillClimbing implements SearchAlgorithmWithStats, SearchAlgorithm {
@@ -14,6 +15,11 @@ public class HillClimbing implements SearchAlgorithmWithStats, SearchAlgorithm {
     protected int nextId;
     protected int nextH;
 
+    // States visited by pathExists since startTrace was called, only recorded while tracing
+    private boolean tracing;
+    private int[] trace = new int[0];
+    private int traceSize;
+
     /**
      * Because this implementation uses an array to store neighbours, it may not work for RegionSearchProblems
      * @param searchProblem MapSearchProblem containing the map to search
@@ -66,6 +72,8 @@ public class HillClimbing implements SearchAlgorithmWithStats, SearchAlgorithm {
         int currentH = searchProblem.getOctileDistance(currentId, goalId);
 
         while (true) {
+            if (tracing) addToTrace(currentId);
+
             // If we have reached the goal, path has been found
             if (currentId == goalId) {
                 return true;
@@ -94,6 +102,37 @@ public class HillClimbing implements SearchAlgorithmWithStats, SearchAlgorithm {
         }
     }
 
+    /**
+     * Makes pathExists record the states it visits until stopTrace is called. The result of pathExists only depends on
+     * whether the states around the states it visited are walls, so the trace tells which wall changes may change it.
+     */
+    public void startTrace() {
+        tracing = true;
+        traceSize = 0;
+    }
+
+    /**
+     * @return sorted ids of the distinct states pathExists visited since startTrace was called
+     */
+    public int[] stopTrace() {
+        tracing = false;
+        Arrays.sort(trace, 0, traceSize);
+        int numStates = 0;
+        for (int i = 0; i < traceSize; i++) {
+            if (numStates == 0 || trace[i] != trace[numStates - 1]) {
+                trace[numStates++] = trace[i];
+            }
+        }
+        return Arrays.copyOf(trace, numStates);
+    }
+
+    private void addToTrace(int stateId) {
+        if (traceSize == trace.length) {
+            trace = Arrays.copyOf(trace, Math.max(64, 2 * traceSize));
+        }
+        trace[traceSize++] = stateId;
+    }
+
     List<Integer> findIdPath(SearchState start, SearchState goal, SearchStats searchStats) {
         List<Integer> idPath = new ArrayList<>();
 
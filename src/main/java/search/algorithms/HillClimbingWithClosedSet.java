@@ -109,6 +109,94 @@ public class HillClimbingWithClosedSet extends HillClimbing {
         }
     }
 
+    /**
+     * Verifies that it is possible to hill-climb from currentId to goalId at no more than a given cost, on any path
+     *
+     * @param maxCost cost of the hill-climbing path at which to give up
+     * @return true if hill-climbing reaches goalId before its path costs more than maxCost
+     */
+    public boolean pathExistsWithinCost(int currentId, int goalId, int maxCost, SearchStats searchStats) {
+        return findPathCostWithin(currentId, goalId, maxCost, searchStats) != -1;
+    }
+
+    /**
+     * Hill-climbs from currentId to goalId without building the path, giving up once the path costs more than maxCost
+     *
+     * @param maxCost cost of the hill-climbing path at which to give up
+     * @return cost of the hill-climbing path, or -1 if hill-climbing does not reach goalId within maxCost
+     */
+    public int findPathCostWithin(int currentId, int goalId, int maxCost, SearchStats searchStats) {
+        closedSet.clear();
+        int cost = 0;
+
+        while (true) {
+            // If we have reached the goal, path has been found
+            if (currentId == goalId) {
+                return cost;
+            }
+
+            if (searchStats != null) searchStats.incrementNumStatesExpandedHCCompression(1);
+
+            closedSet.add(currentId);
+
+            // Grab ids of neighbours of the state
+            int numNeighbours = ((MapSearchProblem) searchProblem).getNeighbourIds(currentId, neighbourIds, closedSet);
+
+            // If there are none, no path can be found
+            if (numNeighbours == 0) return -1;
+
+            // Update nextId
+            exploreNeighbors(neighbourIds, numNeighbours, goalId, currentId);
+
+            cost += searchProblem.getMoveCost(currentId, nextId);
+            if (cost > maxCost) return -1;
+
+            currentId = nextId;
+        }
+    }
+
+    /**
+     * Hill-climbs from currentId to goalId like findPathCostWithin, and appends the states of the path after currentId
+     * to ids
+     *
+     * @param maxCost cost of the hill-climbing path at which to give up
+     * @param ids     array the states are appended to, must have room for maxCost / SearchProblem.EDGE_COST_CARDINAL
+     *                states after the first numIds
+     * @param numIds  number of states in ids already
+     * @return number of states in ids after the path was appended, or -1 if hill-climbing does not reach goalId within
+     * maxCost
+     */
+    public int findIdPathWithin(int currentId, int goalId, int maxCost, int[] ids, int numIds, SearchStats searchStats) {
+        closedSet.clear();
+        int cost = 0;
+
+        while (true) {
+            // If we have reached the goal, path has been found
+            if (currentId == goalId) {
+                return numIds;
+            }
+
+            if (searchStats != null) searchStats.incrementNumStatesExpandedHCCompression(1);
+
+            closedSet.add(currentId);
+
+            // Grab ids of neighbours of the state
+            int numNeighbours = ((MapSearchProblem) searchProblem).getNeighbourIds(currentId, neighbourIds, closedSet);
+
+            // If there are none, no path can be found
+            if (numNeighbours == 0) return -1;
+
+            // Update nextId
+            exploreNeighbors(neighbourIds, numNeighbours, goalId, currentId);
+
+            cost += searchProblem.getMoveCost(currentId, nextId);
+            if (cost > maxCost) return -1;
+
+            currentId = nextId;
+            ids[numIds++] = currentId;
+        }
+    }
+
     private void exploreNeighbors(int[] neighborIds, int numNeighbours, int goalId, int currentId) {
         // Find next id to go to, initialize it to be the first neighbour
         nextId = neighborIds[0];
@@ -0,0 +1,192 @@
+package search.algorithms;
+
+import search.IndexedMinHeap;
+import search.SearchProblem;
+import search.SearchState;
+import stats.SearchStats;
+
+import java.util.*;
+
+/**
+ * A* search on primitive per-state arrays instead of SearchState objects and hash-based collections.
+ * <p>
+ * The g-cost, f-cost and parent of every state are stored in int arrays indexed by state id, the open list is an
+ * {@link IndexedMinHeap} with decrease-key (so there are no duplicate entries), and open/closed membership is tracked
+ * with generation stamps, so starting a new search does not require clearing any of the arrays.
+ * <p>
+ * Expansion order, tie-breaking (lowest f first, then highest g) and the stats that are recorded are the same as in
+ * {@link AStar}. Only works for search problems where state ids lie in [0, getMaxSize()) and that implement the int[]
+ * variant of getNeighbourIds, i.e. MapSearchProblem.
+ */
+public class IndexedAStar implements SearchAlgorithmWithStats {
+    protected final SearchProblem searchProblem;
+
+    protected final IndexedMinHeap openList;
+
+    protected final int[] g;
+    protected final int[] f;
+    protected final int[] parent;
+
+    // A state is open (or closed) in the current search if its stamp equals the current generation
+    protected final int[] openStamp;
+    protected final int[] closedStamp;
+    protected int generation;
+
+    protected int numClosed;
+
+    protected final int[] neighbourIds;
+
+    public IndexedAStar(SearchProblem searchProblem) {
+        this.searchProblem = searchProblem;
+
+        int maxSize = searchProblem.getMaxSize();
+
+        this.openList = new IndexedMinHeap(maxSize);
+
+        this.g = new int[maxSize];
+        this.f = new int[maxSize];
+        this.parent = new int[maxSize];
+
+        this.openStamp = new int[maxSize];
+        this.closedStamp = new int[maxSize];
+        this.generation = 0;
+
+        this.neighbourIds = new int[8];
+    }
+
+    /**
+     * Finds an optimal path from start to goal using A* search
+     *
+     * @param start       start of path
+     * @param goal        goal of path
+     * @param searchStats stats object to keep track of states expanded
+     * @return optimal path between start and goal found using A* search, null if there is no path
+     */
+    @Override
+    public List<SearchState> findPath(SearchState start, SearchState goal, SearchStats searchStats) {
+        if (searchStats == null) searchStats = new SearchStats();
+
+        startNewGeneration();
+
+        int startId = start.getStateId(), goalId = goal.getStateId();
+
+        g[startId] = 0;
+        f[startId] = searchProblem.getOctileDistance(startId, goalId);
+        parent[startId] = -1;
+        openStamp[startId] = generation;
+        openList.insert(startId, IndexedMinHeap.packKey(f[startId], 0));
+
+        while (!openList.isEmpty()) {
+            // Remove the state with lowest f-cost (in case of ties highest g-cost first)
+            int currentId = openList.removeMin();
+
+            searchStats.incrementNumStatesExpanded(1);
+
+            closedStamp[currentId] = generation;
+            numClosed++;
+
+            if (currentId == goalId) {
+                return reconstructPath(goalId, searchStats);
+            }
+
+            int numNeighbours = searchProblem.getNeighbourIds(currentId, neighbourIds);
+
+            for (int i = 0; i < numNeighbours; i++) {
+                int neighbourId = neighbourIds[i];
+                // If the neighbour has already been expanded
+                if (closedStamp[neighbourId] == generation) {
+                    continue;
+                }
+
+                searchStats.incrementNumStatesUpdated(1);
+
+                int newG = g[currentId] + searchProblem.getMoveCost(currentId, neighbourId);
+
+                if (openStamp[neighbourId] != generation) {
+                    // First time the neighbour is seen in this search
+                    g[neighbourId] = newG;
+                    f[neighbourId] = newG + searchProblem.getOctileDistance(neighbourId, goalId);
+                    parent[neighbourId] = currentId;
+                    openStamp[neighbourId] = generation;
+                    openList.insert(neighbourId, IndexedMinHeap.packKey(f[neighbourId], newG));
+                } else if (newG < g[neighbourId]) {
+                    // Found a cheaper way of getting to a state on the open list, h stays the same
+                    f[neighbourId] += newG - g[neighbourId];
+                    g[neighbourId] = newG;
+                    parent[neighbourId] = currentId;
+                    openList.decreaseKey(neighbourId, IndexedMinHeap.packKey(f[neighbourId], newG));
+                }
+            }
+        }
+
+        // If there are no states left to expand, a path must not exist
+        return null;
+    }
+
+    void startNewGeneration() {
+        openList.clear();
+        numClosed = 0;
+
+        // Stamps would become ambiguous once the counter wraps around, so reset them before that happens
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(openStamp, 0);
+            Arrays.fill(closedStamp, 0);
+            generation = 0;
+        }
+        generation++;
+    }
+
+    List<SearchState> reconstructPath(int goalId, SearchStats searchStats) {
+        int length = 0;
+        for (int id = goalId; id != -1; id = parent[id]) {
+            length++;
+        }
+
+        SearchState[] states = new SearchState[length];
+        int idx = length - 1;
+        for (int id = goalId; id != -1; id = parent[id]) {
+            states[idx--] = new SearchState(id);
+        }
+
+        for (int i = 0; i < length; i++) {
+            int id = states[i].getStateId();
+            states[i].updateCost(g[id], f[id] - g[id]);
+            if (i > 0) states[i].setParent(states[i - 1]);
+        }
+
+        searchStats.setPathLength(length);
+
+        return new ArrayList<>(Arrays.asList(states));
+    }
+
+    /* GETTERS */
+
+    public SearchProblem getSearchProblem() {
+        return searchProblem;
+    }
+
+    /**
+     * @return number of states expanded by the last search
+     */
+    public int getNumClosed() {
+        return numClosed;
+    }
+
+    /**
+     * Collects the states expanded by the last search into a set. This scans every state, so it is meant for testing
+     * and visualization rather than use inside a search.
+     *
+     * @return set of the ids of all states expanded by the last search
+     */
+    public Set<Integer> getClosedHashSet() {
+        Set<Integer> closedSet = new HashSet<>();
+        if (generation == 0) return closedSet;
+
+        for (int i = 0; i < closedStamp.length; i++) {
+            if (closedStamp[i] == generation) {
+                closedSet.add(i);
+            }
+        }
+        return closedSet;
+    }
+}
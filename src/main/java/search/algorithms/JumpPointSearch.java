@@ -0,0 +1,288 @@
+package search.algorithms;
+
+import map.GameMap;
+import map.JumpDistances;
+import search.IndexedMinHeap;
+import search.MapSearchProblem;
+import search.SearchState;
+import stats.SearchStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static map.GameMap.*;
+import static map.JumpDistances.*;
+
+/**
+ * Jump Point Search (Harabor and Grastien 2011) on the octile grid of a GameMap.
+ * <p>
+ * Instead of adding every neighbour of an expanded state to the open list, the search jumps along straight and diagonal
+ * lines and only stops at states that have a forced neighbour (a neighbour that no path of the same cost reaches without
+ * passing through the state), at the goal, and, when jumping diagonally, at states a straight jump continues from.
+ * Only these jump points are expanded, which saves most of the expansions A* makes in open areas.
+ * <p>
+ * The moves are the legal moves of GameMap.getMoveMask, so a diagonal move is legal if the state it leads to is open and
+ * either of the two cardinal states next to it is, just as in GameMap.getStateNeighbourIds. The pruning rules are
+ * derived for this rule: moving straight, the diagonal state past a wall beside the current state is forced, and moving
+ * diagonally, the diagonal state past a wall behind the current state is forced.
+ * <p>
+ * Returned paths are full paths, with the states between consecutive jump points filled in, so they can be merged with
+ * SearchUtil.mergePaths and compressed like A* paths. They are optimal, but may differ from the path A* finds when there
+ * are several. Extends CompressAStar so that it can replace A* in DBAStar, PRAStar refinement and SubgoalDB.
+ * <p>
+ * Given a JumpDistances table (JPS+), every jump is a single lookup instead of a walk along the map.
+ */
+public class JumpPointSearch extends CompressAStar {
+    private final GameMap gameMap;
+    // Precomputed jump distances (JPS+), null if jumps move state by state
+    private final JumpDistances jumpDistances;
+
+    // Direction of a move by row and column offset (each of -1, 0 and 1, plus one)
+    private static final int[][] DIRECTIONS = {
+            {NORTH_WEST, NORTH, NORTH_EAST},
+            {WEST, -1, EAST},
+            {SOUTH_WEST, SOUTH, SOUTH_EAST}
+    };
+
+    public JumpPointSearch(MapSearchProblem searchProblem) {
+        this(searchProblem, null);
+    }
+
+    /**
+     * @param jumpDistances jump distances on the map of the search problem to jump with (JPS+), or null to move state by
+     *                      state (paths are optimal either way). Whoever adds and removes walls on the map has to
+     *                      update the table
+     */
+    public JumpPointSearch(MapSearchProblem searchProblem, JumpDistances jumpDistances) {
+        super(searchProblem);
+
+        this.gameMap = searchProblem.getGameMap();
+        this.jumpDistances = jumpDistances;
+    }
+
+    /**
+     * Finds an optimal path from start to goal using Jump Point Search
+     *
+     * @param start       start of path
+     * @param goal        goal of path
+     * @param searchStats stats object to keep track of jump points expanded
+     * @return optimal path between start and goal with the states between jump points filled in, null if there is no
+     * path
+     */
+    @Override
+    public List<SearchState> findPath(SearchState start, SearchState goal, SearchStats searchStats) {
+        if (searchStats == null) searchStats = new SearchStats();
+
+        startNewGeneration();
+
+        int startId = start.getStateId(), goalId = goal.getStateId();
+
+        g[startId] = 0;
+        f[startId] = gameMap.getOctileDistance(startId, goalId);
+        parent[startId] = -1;
+        openStamp[startId] = generation;
+        openList.insert(startId, IndexedMinHeap.packKey(f[startId], 0));
+
+        while (!openList.isEmpty()) {
+            // Remove the jump point with lowest f-cost (in case of ties highest g-cost first)
+            int currentId = openList.removeMin();
+
+            searchStats.incrementNumStatesExpanded(1);
+
+            closedStamp[currentId] = generation;
+            numClosed++;
+
+            if (currentId == goalId) {
+                return reconstructJumpPath(goalId, searchStats);
+            }
+
+            int directions = getPrunedDirections(currentId);
+
+            while (directions != 0) {
+                int direction = Integer.numberOfTrailingZeros(directions);
+                directions &= directions - 1;
+
+                int jumpPointId;
+                if (jumpDistances != null) {
+                    jumpPointId = jumpDistances.jump(currentId, direction, goalId);
+                } else {
+                    jumpPointId = direction < NORTH_EAST ? jumpStraight(currentId, direction, goalId) : jumpDiagonally(currentId, direction, goalId);
+                }
+                // If the jump ran into a wall, or the jump point has already been expanded
+                if (jumpPointId == -1 || closedStamp[jumpPointId] == generation) {
+                    continue;
+                }
+
+                searchStats.incrementNumStatesUpdated(1);
+
+                int newG = g[currentId] + gameMap.getOctileDistance(currentId, jumpPointId);
+
+                if (openStamp[jumpPointId] != generation) {
+                    // First time the jump point is seen in this search
+                    g[jumpPointId] = newG;
+                    f[jumpPointId] = newG + gameMap.getOctileDistance(jumpPointId, goalId);
+                    parent[jumpPointId] = currentId;
+                    openStamp[jumpPointId] = generation;
+                    openList.insert(jumpPointId, IndexedMinHeap.packKey(f[jumpPointId], newG));
+                } else if (newG < g[jumpPointId]) {
+                    // Found a cheaper way of getting to a jump point on the open list, h stays the same
+                    f[jumpPointId] += newG - g[jumpPointId];
+                    g[jumpPointId] = newG;
+                    parent[jumpPointId] = currentId;
+                    openList.decreaseKey(jumpPointId, IndexedMinHeap.packKey(f[jumpPointId], newG));
+                }
+            }
+        }
+
+        // If there are no jump points left to expand, a path must not exist
+        return null;
+    }
+
+    /**
+     * Returns the directions to jump in from a jump point: every legal move from the start, otherwise the natural and
+     * forced neighbours for the direction the jump point was reached in
+     */
+    private int getPrunedDirections(int stateId) {
+        int moveMask = gameMap.getMoveMask(stateId);
+        if (parent[stateId] == -1) {
+            return moveMask;
+        }
+
+        int direction = getDirection(parent[stateId], stateId);
+        int directions;
+        if (direction < NORTH_EAST) {
+            directions = 1 << direction | getForcedDirections(moveMask, direction, (direction + 1) & 3) | getForcedDirections(moveMask, direction, (direction + 3) & 3);
+        } else {
+            int vertical = getVertical(direction), horizontal = getHorizontal(direction);
+            directions = 1 << direction | 1 << vertical | 1 << horizontal | getForcedDirections(moveMask, vertical, (horizontal + 2) & 3) | getForcedDirections(moveMask, horizontal, (vertical + 2) & 3);
+        }
+        return directions & moveMask;
+    }
+
+    /**
+     * A move diagonally forward and to one side is forced if the state on that side is a wall, as every other way of
+     * getting to the state it leads to is then longer (the legal moves in moveMask are checked by the caller)
+     */
+    private static int getForcedDirections(int moveMask, int forward, int side) {
+        return (moveMask & 1 << side) == 0 ? 1 << getDiagonal(forward, side) : 0;
+    }
+
+    public JumpDistances getJumpDistances() {
+        return jumpDistances;
+    }
+
+    /**
+     * @return a new search on the same search problem, sharing the jump distances
+     */
+    @Override
+    public CompressAStar copy() {
+        return new JumpPointSearch((MapSearchProblem) searchProblem, jumpDistances);
+    }
+
+    /**
+     * Moves from stateId in a cardinal direction until reaching the goal or a state with a forced neighbour
+     *
+     * @return id of the jump point, or -1 if the jump runs into a wall first
+     */
+    private int jumpStraight(int stateId, int direction, int goalId) {
+        int offset = gameMap.getMoveOffset(direction);
+        int side1 = (direction + 1) & 3, side2 = (direction + 3) & 3;
+
+        while ((gameMap.getMoveMask(stateId) & 1 << direction) != 0) {
+            stateId += offset;
+            if (stateId == goalId) return stateId;
+
+            int moveMask = gameMap.getMoveMask(stateId);
+            if (hasForcedNeighbour(moveMask, direction, side1) || hasForcedNeighbour(moveMask, direction, side2)) {
+                return stateId;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Moves from stateId in a diagonal direction until reaching the goal, a state with a forced neighbour, or a state a
+     * straight jump along one of the two cardinal components of the direction finds a jump point from
+     *
+     * @return id of the jump point, or -1 if the jump runs into a wall first
+     */
+    private int jumpDiagonally(int stateId, int direction, int goalId) {
+        int offset = gameMap.getMoveOffset(direction);
+        int vertical = getVertical(direction), horizontal = getHorizontal(direction);
+
+        while ((gameMap.getMoveMask(stateId) & 1 << direction) != 0) {
+            stateId += offset;
+            if (stateId == goalId) return stateId;
+
+            int moveMask = gameMap.getMoveMask(stateId);
+            if (hasForcedNeighbour(moveMask, vertical, (horizontal + 2) & 3) || hasForcedNeighbour(moveMask, horizontal, (vertical + 2) & 3)) {
+                return stateId;
+            }
+            if (jumpStraight(stateId, vertical, goalId) != -1 || jumpStraight(stateId, horizontal, goalId) != -1) {
+                return stateId;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return direction of the straight or diagonal line from one state to another
+     */
+    private int getDirection(int fromId, int toId) {
+        int rowOffset = Integer.signum(gameMap.getRowFromStateId(toId) - gameMap.getRowFromStateId(fromId));
+        int colOffset = Integer.signum(gameMap.getColFromStateId(toId) - gameMap.getColFromStateId(fromId));
+        return DIRECTIONS[rowOffset + 1][colOffset + 1];
+    }
+
+    /**
+     * Builds the path to goalId from the parents of the jump points, filling in the states between them
+     */
+    private List<SearchState> reconstructJumpPath(int goalId, SearchStats searchStats) {
+        int length = 1;
+        for (int id = goalId; parent[id] != -1; id = parent[id]) {
+            length += getNumMoves(parent[id], id);
+        }
+
+        SearchState[] states = new SearchState[length];
+        int idx = length - 1;
+        int id = goalId;
+        for (; parent[id] != -1; id = parent[id]) {
+            int offset = gameMap.getMoveOffset(getDirection(parent[id], id));
+            for (int stateId = id; stateId != parent[id]; stateId -= offset) {
+                states[idx--] = new SearchState(stateId);
+            }
+        }
+        states[0] = new SearchState(id);
+
+        int cost = 0;
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                cost += searchProblem.getMoveCost(states[i - 1].getStateId(), states[i].getStateId());
+                states[i].setParent(states[i - 1]);
+            }
+            states[i].updateCost(cost, gameMap.getOctileDistance(states[i].getStateId(), goalId));
+        }
+
+        searchStats.setPathLength(length);
+
+        return new ArrayList<>(Arrays.asList(states));
+    }
+
+    /**
+     * @return number of moves along the straight or diagonal line from one state to another
+     */
+    private int getNumMoves(int fromId, int toId) {
+        return Math.max(Math.abs(gameMap.getRowFromStateId(toId) - gameMap.getRowFromStateId(fromId)), Math.abs(gameMap.getColFromStateId(toId) - gameMap.getColFromStateId(fromId)));
+    }
+
+    /**
+     * The closed set only holds jump points, so its size says nothing about whether the path can be hill-climbed
+     */
+    @Override
+    public boolean pathSizeEqualsClosedSetSize(int pathSize) {
+        return false;
+    }
+}
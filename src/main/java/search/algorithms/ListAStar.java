@@ -1,5 +1,7 @@
 package search.algorithms;
 
+import map.RegionGraph;
+import search.OpenList;
 import search.RegionSearchProblem;
 import search.SearchProblem;
 import search.SearchState;
@@ -11,6 +13,8 @@ import java.util.List;
 /**
  * This implementation uses a List to store neighbours rather than an array. This is necessary for RegionSearchProblems
  * since Regions may have more than eight neighbours (states never will).
+ * <p>
+ * For RegionSearchProblems, neighbours and move costs are read straight from the RegionGraph of the abstracted map.
  */
 public class ListAStar extends AStar {
     private final List<SearchState> neighbours;
@@ -21,6 +25,12 @@ public class ListAStar extends AStar {
         this.neighbours = new ArrayList<>(8);
     }
 
+    public ListAStar(SearchProblem searchProblem, OpenList openList) {
+        super(searchProblem, openList);
+
+        this.neighbours = new ArrayList<>(8);
+    }
+
     /**
      * Finds an optimal path from start to goal using A* search
      *
@@ -41,13 +51,14 @@ public class ListAStar extends AStar {
         start.setParent(null);
         start.setCost(0);
 
-        int startId = start.getStateId(), goalId = goal.getStateId(), neighbourId;
+        int startId = start.getStateId(), goalId = goal.getStateId();
 
         // Add the first node to the open list
         openList.add(start);
         openListLookup.put(startId, start);
 
         boolean isAbstract = searchProblem instanceof RegionSearchProblem;
+        RegionGraph regionGraph = isAbstract ? ((RegionSearchProblem) searchProblem).getRegionGraph() : null;
 
         // While there are nodes in the list
         while (!openList.isEmpty()) {
@@ -78,38 +89,20 @@ public class ListAStar extends AStar {
                 return reconstructPath(current, searchStats);
             }
 
-            // Get the neighbours of the current state (will be a maximum of 8)
-            neighbours.clear();
-            searchProblem.getNeighbours(current, neighbours);
-
-            for (SearchState neighbour : neighbours) {
-                neighbourId = neighbour.getStateId();
-
-                // If the neighbour has already been expanded
-                if (closedHashSet.contains(neighbourId)) {
-                    continue;
-                }
+            if (isAbstract) {
+                int regionIndex = regionGraph.getRegionIndex(currentId);
 
-                if (isAbstract) {
-                    searchStats.incrementNumAbstractStatesUpdated(1);
-                } else {
-                    searchStats.incrementNumStatesUpdated(1);
+                for (int i = regionGraph.getOffset(regionIndex), end = i + regionGraph.getDegree(regionIndex); i < end; i++) {
+                    SearchState neighbour = new SearchState(regionGraph.getRep(regionGraph.getTarget(i)));
+                    relax(current, neighbour, regionGraph.getWeight(i), goalId, true, searchStats);
                 }
+            } else {
+                // Get the neighbours of the current state (will be a maximum of 8)
+                neighbours.clear();
+                searchProblem.getNeighbours(current, neighbours);
 
-                // Compute cost to start
-                int newG = current.getG() + searchProblem.getMoveCost(currentId, neighbourId);
-                // Estimate cost to goal
-                int h = searchProblem.getOctileDistance(neighbourId, goalId);
-
-                // Attempt to get state from open list
-                SearchState state = openListLookup.get(neighbourId);
-
-                if (state == null || state.getG() > newG) {
-                    // If the state is not in the open list yet, or it is, but we have found a cheaper way of getting to it
-                    neighbour.updateCost(newG, h);
-                    neighbour.setParent(current);
-                    openList.add(neighbour);
-                    openListLookup.put(neighbourId, neighbour);
+                for (SearchState neighbour : neighbours) {
+                    relax(current, neighbour, searchProblem.getMoveCost(currentId, neighbour.getStateId()), goalId, false, searchStats);
                 }
             }
         }
@@ -117,4 +110,35 @@ public class ListAStar extends AStar {
         // If there are no nodes left to expand, a path must not exist
         return null;
     }
+
+    private void relax(SearchState current, SearchState neighbour, int moveCost, int goalId, boolean isAbstract, SearchStats searchStats) {
+        int neighbourId = neighbour.getStateId();
+
+        // If the neighbour has already been expanded
+        if (closedHashSet.contains(neighbourId)) {
+            return;
+        }
+
+        if (isAbstract) {
+            searchStats.incrementNumAbstractStatesUpdated(1);
+        } else {
+            searchStats.incrementNumStatesUpdated(1);
+        }
+
+        // Compute cost to start
+        int newG = current.getG() + moveCost;
+        // Estimate cost to goal
+        int h = searchProblem.getOctileDistance(neighbourId, goalId);
+
+        // Attempt to get state from open list
+        SearchState state = openListLookup.get(neighbourId);
+
+        if (state == null || state.getG() > newG) {
+            // If the state is not in the open list yet, or it is, but we have found a cheaper way of getting to it
+            neighbour.updateCost(newG, h);
+            neighbour.setParent(current);
+            openList.add(neighbour);
+            openListLookup.put(neighbourId, neighbour);
+        }
+    }
 }
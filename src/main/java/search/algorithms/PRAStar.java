@@ -2,6 +2,8 @@ package search.algorithms;
 
 import map.AbstractedMap;
 import map.GameMap;
+import map.JumpDistances;
+import map.RegionHierarchy;
 import search.MapSearchProblem;
 import search.RegionSearchProblem;
 import search.SearchState;
@@ -22,13 +24,30 @@ public class PRAStar implements DynamicSearchAlgorithm {
     private final AbstractedMap abstractedMap;
     private final RegionSearchProblem regionSearchProblem;
     private final ListAStar aStar;
-    private final AStar aStarRefinement;
+    private final IndexedAStar aStarRefinement;
+    // Jump distances of aStarRefinement (JPS+), null unless precomputed
+    private final JumpDistances jumpDistances;
+    // Hierarchy the abstract path is searched in, null to search the region graph directly
+    private RegionHierarchy regionHierarchy;
 
     private final SearchStats searchStats;
 
     List<SearchState> subgoals;
 
     public PRAStar(GameMap gameMap, int gridSize) {
+        this(gameMap, gridSize, DBAStar.A_STAR);
+    }
+
+    /**
+     * @param baseSearch search to refine the abstract path with on the map: DBAStar.A_STAR, DBAStar.JUMP_POINT_SEARCH,
+     *                   DBAStar.JUMP_POINT_SEARCH_PLUS (with a table of jump distances that is patched when walls are
+     *                   added or removed) or DBAStar.BIDIRECTIONAL_A_STAR
+     */
+    public PRAStar(GameMap gameMap, int gridSize, int baseSearch) {
+        if (baseSearch != DBAStar.A_STAR && baseSearch != DBAStar.JUMP_POINT_SEARCH && baseSearch != DBAStar.JUMP_POINT_SEARCH_PLUS && baseSearch != DBAStar.BIDIRECTIONAL_A_STAR) {
+            throw new IllegalArgumentException("Unknown base search " + baseSearch);
+        }
+
         this.searchStats = new SearchStats();
 
         this.gameMap = gameMap;
@@ -36,12 +55,23 @@ public class PRAStar implements DynamicSearchAlgorithm {
         this.abstractedMap = new AbstractedMap(gameMap, gridSize, searchStats);
         this.regionSearchProblem = new RegionSearchProblem(abstractedMap);
 
-        this.aStarRefinement = new AStar(mapSearchProblem);
+        this.jumpDistances = baseSearch == DBAStar.JUMP_POINT_SEARCH_PLUS ? new JumpDistances(gameMap) : null;
+        if (baseSearch == DBAStar.JUMP_POINT_SEARCH || baseSearch == DBAStar.JUMP_POINT_SEARCH_PLUS) {
+            this.aStarRefinement = new JumpPointSearch(mapSearchProblem, jumpDistances);
+        } else if (baseSearch == DBAStar.BIDIRECTIONAL_A_STAR) {
+            this.aStarRefinement = new BidirectionalAStar(mapSearchProblem);
+        } else {
+            this.aStarRefinement = new IndexedAStar(mapSearchProblem);
+        }
         this.aStar = new ListAStar(regionSearchProblem);
         this.subgoals = new ArrayList<>();
     }
 
     public List<SearchState> findAbstractPath(SearchState start, SearchState goal, SearchStats searchStats) {
+        if (regionHierarchy != null) {
+            return regionHierarchy.findAbstractPath(start.getStateId(), goal.getStateId(), searchStats);
+        }
+
         // Find start and goal region representatives
         SearchState startRegionRep = regionSearchProblem.findRegionRepresentativeFromMap(start);
         SearchState goalRegionRep = regionSearchProblem.findRegionRepresentativeFromMap(goal);
@@ -206,19 +236,37 @@ public class PRAStar implements DynamicSearchAlgorithm {
         } else {
             SearchUtil.placeOpenState(wallId, gameMap, abstractedMap);
         }
+        if (jumpDistances != null) jumpDistances.update(wallId);
 
         // Re-abstract sector on the abstract map
         abstractedMap.abstractStatesToGenerateRegions(sectorId, northRow, southRow, westCol, eastCol);
 
         // Re-compute neighbourhood
         abstractedMap.computeRegionNeighbourhoodAndStoreRegionReps(northRow, southRow, westCol, eastCol);
+
+        if (regionHierarchy != null) regionHierarchy.update(wallId);
+    }
+
+    /**
+     * Builds a hierarchy of numLevels levels above the regions (see RegionHierarchy), in which abstract paths are then
+     * searched from the top level down. It is kept up to date as walls are added and removed.
+     *
+     * @param branchingFactor number of cells of a level along each side of a cell of the level above
+     */
+    public RegionHierarchy buildRegionHierarchy(int numLevels, int branchingFactor) {
+        regionHierarchy = new RegionHierarchy(abstractedMap, numLevels, branchingFactor);
+        return regionHierarchy;
+    }
+
+    public RegionHierarchy getRegionHierarchy() {
+        return regionHierarchy;
     }
 
     public AbstractedMap getAbstractedMap() {
         return abstractedMap;
     }
 
-    public AStar getAStarRefinement() {
+    public IndexedAStar getAStarRefinement() {
         return aStarRefinement;
     }
 
@@ -16,6 +16,13 @@ public class PRAStarWithCaching extends PRAStar {
         super(gameMap, gridSize);
     }
 
+    /**
+     * @param baseSearch search to refine the abstract path with on the map (see PRAStar(gameMap, gridSize, baseSearch))
+     */
+    public PRAStarWithCaching(GameMap gameMap, int gridSize, int baseSearch) {
+        super(gameMap, gridSize, baseSearch);
+    }
+
     @Override
     public List<SearchState> findPath(SearchState start, SearchState goal, SearchStats searchStats) {
         long startTime = System.nanoTime();
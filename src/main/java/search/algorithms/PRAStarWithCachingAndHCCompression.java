@@ -14,7 +14,14 @@ public class PRAStarWithCachingAndHCCompression extends PRAStar {
     CompressAStar compressAStar;
 
     public PRAStarWithCachingAndHCCompression(GameMap gameMap, int gridSize) {
-        super(gameMap, gridSize);
+        this(gameMap, gridSize, DBAStar.A_STAR);
+    }
+
+    /**
+     * @param baseSearch search to refine the abstract path with on the map (see PRAStar(gameMap, gridSize, baseSearch))
+     */
+    public PRAStarWithCachingAndHCCompression(GameMap gameMap, int gridSize, int baseSearch) {
+        super(gameMap, gridSize, baseSearch);
         MapSearchProblem problem = new MapSearchProblem(gameMap);
         this.hc = new HillClimbingWithClosedSet(problem);
         this.compressAStar = new CompressAStar(problem);
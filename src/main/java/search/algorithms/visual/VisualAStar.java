@@ -47,7 +47,7 @@ public class VisualAStar extends AStar implements SearchAlgorithm {
 
         // While there are nodes in the list
         while (!openList.isEmpty()) {
-            statesExpandedPerMove.add(new ArrayList<>(openList));
+            statesExpandedPerMove.add(openList.toList());
 
             // Remove the first node from the queue (node with lowest cost, in case of ties highest g cost/lowest h cost first)
             SearchState current = openList.remove();
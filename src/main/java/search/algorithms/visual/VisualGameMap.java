@@ -44,4 +44,12 @@ public class VisualGameMap extends GameMap {
     public boolean isWall(int row, int col) {
         return states[row][col].get() == WALL_CHAR;
     }
+
+    /**
+     * States can be changed directly through the AtomicIntegers, so move masks are computed on every call instead of
+     * being stored
+     */
+    public int getMoveMask(int stateId) {
+        return computeMoveMask(getRowFromStateId(stateId), getColFromStateId(stateId));
+    }
 }
@@ -0,0 +1,104 @@
+package database;
+
+import map.AbstractedMap;
+import map.GameMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import search.MapSearchProblem;
+import search.SearchState;
+import search.algorithms.DBAStar;
+import stats.SearchStats;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubgoalDBFileTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void loadedDatabaseEqualsComputedDatabase() {
+        String snapshotFileName = tempDir.resolve("012" + SubgoalDBFile.FILE_EXTENSION).toString();
+
+        DBAStar computed = new DBAStar(new GameMap("src/test/resources/maps/012.map"), 16, true, new DBAStar.Options().setSnapshotFileName(snapshotFileName));
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        DBAStar loaded = new DBAStar(gameMap, 16, true, new DBAStar.Options().setSnapshotFileName(snapshotFileName));
+
+        // Nothing was computed for the loaded database
+        assertEquals(0, loaded.getSearchStats().getNumPaths());
+
+        SubgoalDB computedDB = computed.getSubgoalDB();
+        SubgoalDB loadedDB = loaded.getSubgoalDB();
+        assertEquals(computedDB.getNumGroups(), loadedDB.getNumGroups());
+        assertTrue(Arrays.deepEquals(computedDB.getPathSubgoals(), loadedDB.getPathSubgoals()));
+        for (int regionId = AbstractedMap.START_NUM; regionId < AbstractedMap.START_NUM + computedDB.getNumGroups(); regionId++) {
+            assertArrayEquals(computedDB.getNeighboursForRegion(regionId), loadedDB.getNeighboursForRegion(regionId));
+        }
+
+        AbstractedMap abstractedMap = loaded.getAbstractedMap();
+        List<SearchState> openStates = MapSearchProblem.getOpenStateList(gameMap);
+        Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            int startRegionId = abstractedMap.getRegionIdFromMap(openStates.get(random.nextInt(openStates.size())).getStateId());
+            int goalRegionId = abstractedMap.getRegionIdFromMap(openStates.get(random.nextInt(openStates.size())).getStateId());
+            if (startRegionId == goalRegionId) continue;
+
+            SubgoalDBRecord computedRecord = computedDB.getRecord(startRegionId, goalRegionId, true, computed.getHillClimbing(), new SearchStats());
+            SubgoalDBRecord loadedRecord = loadedDB.getRecord(startRegionId, goalRegionId, true, loaded.getHillClimbing(), new SearchStats());
+            assertEquals(computedRecord.getStartRegionRep(), loadedRecord.getStartRegionRep());
+            assertEquals(computedRecord.getGoalRegionRep(), loadedRecord.getGoalRegionRep());
+            assertArrayEquals(computedRecord.getSubgoals(), loadedRecord.getSubgoals());
+        }
+    }
+
+    @Test
+    void rebuildsDatabaseWhenMapHasChanged() {
+        String snapshotFileName = tempDir.resolve("012" + SubgoalDBFile.FILE_EXTENSION).toString();
+        new DBAStar(new GameMap("src/test/resources/maps/012.map"), 16, true, new DBAStar.Options().setSnapshotFileName(snapshotFileName));
+
+        GameMap changedMap = new GameMap("src/test/resources/maps/012.map");
+        changedMap.placeWallAt(14002);
+        DBAStar abstractedWithOtherGridSize = new DBAStar(new GameMap("src/test/resources/maps/012.map"), 8, true);
+
+        assertNull(SubgoalDBFile.load(snapshotFileName, changedMap, 16, new DBAStar(changedMap, 16, true).getAbstractedMap().getRegionGraph()));
+        assertNull(SubgoalDBFile.load(snapshotFileName, abstractedWithOtherGridSize.getGameMap(), 8, abstractedWithOtherGridSize.getAbstractedMap().getRegionGraph()));
+
+        // The database is computed again, and the snapshot is replaced by one for the changed map
+        DBAStar rebuilt = new DBAStar(changedMap, 16, true, new DBAStar.Options().setSnapshotFileName(snapshotFileName));
+        assertNotEquals(0, rebuilt.getSearchStats().getNumPaths());
+        assertNotNull(SubgoalDBFile.load(snapshotFileName, changedMap, 16, rebuilt.getAbstractedMap().getRegionGraph()));
+    }
+
+    @Test
+    void rejectsFilesInOtherFormats() {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        DBAStar dbaStar = new DBAStar(gameMap, 16, true);
+        assertNull(SubgoalDBFile.load("src/test/resources/maps/012.map", gameMap, 16, dbaStar.getAbstractedMap().getRegionGraph()));
+    }
+
+    @Test
+    void rebuildsDatabaseWhenSnapshotIsTruncated() throws IOException {
+        Path snapshotPath = tempDir.resolve("012" + SubgoalDBFile.FILE_EXTENSION);
+        String snapshotFileName = snapshotPath.toString();
+        new DBAStar(new GameMap("src/test/resources/maps/012.map"), 16, true, new DBAStar.Options().setSnapshotFileName(snapshotFileName));
+
+        // The temporary file the snapshot was written to has replaced it
+        assertFalse(Files.exists(tempDir.resolve("012" + SubgoalDBFile.FILE_EXTENSION + ".tmp")));
+
+        // As if writing the snapshot had been interrupted
+        byte[] snapshot = Files.readAllBytes(snapshotPath);
+        Files.write(snapshotPath, Arrays.copyOf(snapshot, snapshot.length / 2));
+
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        DBAStar rebuilt = new DBAStar(gameMap, 16, true, new DBAStar.Options().setSnapshotFileName(snapshotFileName));
+        assertNotEquals(0, rebuilt.getSearchStats().getNumPaths());
+        assertEquals(snapshot.length, Files.size(snapshotPath));
+        assertNotNull(SubgoalDBFile.load(snapshotFileName, gameMap, 16, rebuilt.getAbstractedMap().getRegionGraph()));
+    }
+}
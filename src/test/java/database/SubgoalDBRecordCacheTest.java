@@ -0,0 +1,76 @@
+package database;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubgoalDBRecordCacheTest {
+    @Test
+    void evictsLeastRecentlyUsedRecordsWhenFull() {
+        SubgoalDBRecord first = new SubgoalDBRecord(1, 2, new int[]{10, 11});
+        SubgoalDBRecord second = new SubgoalDBRecord(3, 4, new int[]{12, 13});
+        SubgoalDBRecord third = new SubgoalDBRecord(5, 6, new int[]{14, 15});
+
+        SubgoalDBRecordCache recordCache = new SubgoalDBRecordCache(0);
+        recordCache.put(50, 51, true, first, new int[]{1, 0}, 2);
+        assertNull(recordCache.get(50, 51, true));
+
+        // Room for two records that use one edge each
+        recordCache.setCapacity(50);
+        recordCache.put(50, 51, true, first, new int[]{1, 0}, 2);
+        recordCache.put(52, 53, true, second, new int[]{3, 2}, 2);
+        assertSame(first, recordCache.get(50, 51, true));
+
+        recordCache.put(54, 55, true, third, new int[]{5, 4}, 2);
+        assertEquals(2, recordCache.getNumRecords());
+        assertSame(first, recordCache.get(50, 51, true));
+        assertNull(recordCache.get(52, 53, true));
+        assertSame(third, recordCache.get(54, 55, true));
+
+        // Records are only returned for the compression they were built with
+        assertNull(recordCache.get(50, 51, false));
+    }
+
+    @Test
+    void evictsOnlyRecordsThatUseTheEdge() {
+        SubgoalDBRecordCache recordCache = new SubgoalDBRecordCache(SubgoalDBRecordCache.DEFAULT_CAPACITY);
+        recordCache.put(50, 53, true, new SubgoalDBRecord(1, 4, new int[]{2, 3}), new int[]{3, 2, 1, 0}, 4);
+        recordCache.put(52, 51, true, new SubgoalDBRecord(3, 2, new int[0]), new int[]{1, 2}, 2);
+        recordCache.put(54, 55, true, new SubgoalDBRecord(5, 6, new int[0]), new int[]{5, 4}, 2);
+
+        // Edges are undirected
+        recordCache.invalidateEdge(2, 1);
+        assertNull(recordCache.get(50, 53, true));
+        assertNull(recordCache.get(52, 51, true));
+        assertNotNull(recordCache.get(54, 55, true));
+
+        recordCache.invalidateEdge(0, 1);
+        assertEquals(1, recordCache.getNumRecords());
+
+        recordCache.invalidateEdge(4, 5);
+        assertEquals(0, recordCache.getNumRecords());
+        assertEquals(0, recordCache.getSize());
+    }
+
+    @Test
+    void evictsOnlyCompressedRecordsThatVisitedTheState() {
+        SubgoalDBRecordCache recordCache = new SubgoalDBRecordCache(SubgoalDBRecordCache.DEFAULT_CAPACITY);
+        recordCache.put(50, 51, true, new SubgoalDBRecord(10, 14, new int[]{12}), new int[]{1, 0}, 2, new int[]{10, 11, 12, 13, 14});
+        recordCache.put(52, 53, true, new SubgoalDBRecord(20, 12, new int[0]), new int[]{3, 2}, 2, new int[]{12, 20});
+        recordCache.put(54, 55, false, new SubgoalDBRecord(30, 32, new int[]{31}), new int[]{5, 4}, 2);
+
+        recordCache.invalidateState(11);
+        assertNull(recordCache.get(50, 51, true));
+        assertNotNull(recordCache.get(52, 53, true));
+
+        // Records that were not compressed only depend on their base paths
+        recordCache.invalidateState(31);
+        assertNotNull(recordCache.get(54, 55, false));
+
+        recordCache.invalidateState(12);
+        assertEquals(1, recordCache.getNumRecords());
+
+        recordCache.invalidateEdge(4, 5);
+        assertEquals(0, recordCache.getSize());
+    }
+}
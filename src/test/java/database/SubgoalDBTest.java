@@ -1,16 +1,23 @@
 package database;
 
+import map.AbstractedMap;
 import map.GameMap;
 import org.junit.jupiter.api.Test;
 import search.MapSearchProblem;
 import search.SearchState;
+import search.SearchUtil;
 import search.algorithms.AStar;
+import search.algorithms.DBAStar;
 import search.algorithms.HillClimbing;
+import search.algorithms.HillClimbingWithClosedSet;
 import stats.SearchStats;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
-import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.*;
 import static search.SearchUtil.findCompressedPath;
 
 class SubgoalDBTest {
@@ -30,6 +37,337 @@ class SubgoalDBTest {
         assertArrayEquals(compressedPath, findCompressedPath(path, hillClimbing, new SearchStats()));
     }
 
+    @Test
+    void findsRecordsForSameRegionPairsWithDijkstraAndAStar() {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        List<SearchState> openStates = MapSearchProblem.getOpenStateList(gameMap);
+
+        DBAStar dbaStar = new DBAStar(gameMap, 16, true);
+        AbstractedMap abstractedMap = dbaStar.getAbstractedMap();
+        SubgoalDB subgoalDB = dbaStar.getSubgoalDB();
+        // Every record is built by the search, rather than taken from the cache
+        subgoalDB.getRecordCache().setCapacity(0);
+
+        Random random = new Random(1);
+        for (int i = 0; i < 500; i++) {
+            int startRegionId = abstractedMap.getRegionIdFromMap(openStates.get(random.nextInt(openStates.size())).getStateId());
+            int goalRegionId = abstractedMap.getRegionIdFromMap(openStates.get(random.nextInt(openStates.size())).getStateId());
+            if (startRegionId == goalRegionId) continue;
+
+            subgoalDB.setAbstractSearchMode(SubgoalDB.DIJKSTRA);
+            SubgoalDBRecord dijkstraRecord = subgoalDB.getRecord(startRegionId, goalRegionId, false, null, null);
+            int dijkstraCost = subgoalDB.getRegionPathCost();
+            subgoalDB.setAbstractSearchMode(SubgoalDB.A_STAR);
+            SubgoalDBRecord aStarRecord = subgoalDB.getRecord(startRegionId, goalRegionId, false, null, null);
+            int aStarCost = subgoalDB.getRegionPathCost();
+
+            assertNotNull(dijkstraRecord);
+            assertNotNull(aStarRecord);
+            // Both searches find a lowest cost sequence of base paths, which may differ if there are several
+            assertEquals(dijkstraCost, aStarCost);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> subgoalDB.setAbstractSearchMode(3));
+        assertThrows(IllegalStateException.class, () -> subgoalDB.setAbstractSearchMode(SubgoalDB.HIERARCHICAL));
+    }
+
+    @Test
+    void lazyDatabaseFindsSameRecordsAndOnlyComputesTheBasePathsTheyUse() {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        List<SearchState> openStates = MapSearchProblem.getOpenStateList(gameMap);
+
+        DBAStar eager = new DBAStar(gameMap, 16, true);
+        DBAStar lazy = new DBAStar(gameMap, 16, true, new DBAStar.Options().setLazy(true));
+        AbstractedMap abstractedMap = eager.getAbstractedMap();
+        SubgoalDB eagerDB = eager.getSubgoalDB();
+        SubgoalDB lazyDB = lazy.getSubgoalDB();
+
+        int numEdges = 0;
+        for (int[][] regionPaths : eagerDB.getPathSubgoals()) {
+            if (regionPaths != null) numEdges += regionPaths.length;
+        }
+        assertTrue(lazyDB.isLazy());
+        assertEquals(numEdges, lazyDB.getNumUncomputedPaths());
+
+        Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            int startRegionId = abstractedMap.getRegionIdFromMap(openStates.get(random.nextInt(openStates.size())).getStateId());
+            int goalRegionId = abstractedMap.getRegionIdFromMap(openStates.get(random.nextInt(openStates.size())).getStateId());
+            if (startRegionId == goalRegionId) continue;
+
+            SubgoalDBRecord eagerRecord = eagerDB.getRecord(startRegionId, goalRegionId, false, null, null);
+            SubgoalDBRecord lazyRecord = lazyDB.getRecord(startRegionId, goalRegionId, false, null, null);
+
+            assertArrayEquals(eagerRecord.getSubgoals(), lazyRecord.getSubgoals());
+        }
+
+        // The base paths computed for the records cost as much as the ones computed up front
+        assertTrue(lazyDB.getNumUncomputedPaths() > 0);
+        int[][][] lazyPaths = lazyDB.getPathSubgoals();
+        for (int groupLoc = 0; groupLoc < lazyPaths.length; groupLoc++) {
+            if (lazyPaths[groupLoc] == null) continue;
+
+            for (int i = 0; i < lazyPaths[groupLoc].length; i++) {
+                if (lazyPaths[groupLoc][i] != null) {
+                    assertEquals(eagerDB.getLowestCost()[groupLoc][i], lazyDB.getLowestCost()[groupLoc][i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void computesSameDatabaseInParallel() {
+        DBAStar sequential = new DBAStar(new GameMap("src/test/resources/maps/012.map"), 16, true);
+        DBAStar parallel = new DBAStar(new GameMap("src/test/resources/maps/012.map"), 16, true, new DBAStar.Options().setParallel(true));
+
+        SubgoalDB sequentialDB = sequential.getSubgoalDB();
+        SubgoalDB parallelDB = parallel.getSubgoalDB();
+
+        assertEquals(sequentialDB.getNumGroups(), parallelDB.getNumGroups());
+        assertTrue(Arrays.deepEquals(sequentialDB.getPathSubgoals(), parallelDB.getPathSubgoals()));
+        for (int regionId = AbstractedMap.START_NUM; regionId < AbstractedMap.START_NUM + sequentialDB.getNumGroups(); regionId++) {
+            assertArrayEquals(sequentialDB.getNeighboursForRegion(regionId), parallelDB.getNeighboursForRegion(regionId));
+        }
+
+        SearchStats sequentialStats = sequential.getSearchStats();
+        SearchStats parallelStats = parallel.getSearchStats();
+        assertEquals(sequentialStats.getNumPaths(), parallelStats.getNumPaths());
+        assertEquals(sequentialStats.getNumStatesExpanded(), parallelStats.getNumStatesExpanded());
+        assertEquals(sequentialStats.getNumberOfSubgoals(), parallelStats.getNumberOfSubgoals());
+        assertEquals(sequentialStats.getPathLength(), parallelStats.getPathLength());
+    }
+
+    @Test
+    void returnsCachedRecordUntilItsBasePathChanges() throws Exception {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        DBAStar dbaStar = new DBAStar(gameMap, 16, true);
+        AbstractedMap abstractedMap = dbaStar.getAbstractedMap();
+        SubgoalDB subgoalDB = dbaStar.getSubgoalDB();
+
+        int startRegionId = abstractedMap.getRegionIdFromMap(3460);
+        int goalRegionId = abstractedMap.getRegionIdFromMap(10448);
+
+        SubgoalDBRecord record = subgoalDB.getRecord(startRegionId, goalRegionId, true, dbaStar.getHillClimbing(), new SearchStats());
+        assertSame(record, subgoalDB.getRecord(startRegionId, goalRegionId, true, dbaStar.getHillClimbing(), new SearchStats()));
+        assertEquals(1, subgoalDB.getRecordCache().getNumHits());
+
+        // Records built with another abstract search are not returned
+        subgoalDB.setAbstractSearchMode(SubgoalDB.A_STAR);
+        assertEquals(0, subgoalDB.getRecordCache().getNumRecords());
+        record = subgoalDB.getRecord(startRegionId, goalRegionId, true, dbaStar.getHillClimbing(), new SearchStats());
+
+        // Moving the representative of the start region changes all of its base paths
+        dbaStar.addWall(record.getStartRegionRep());
+        assertNotSame(record, subgoalDB.getRecord(startRegionId, goalRegionId, true, dbaStar.getHillClimbing(), new SearchStats()));
+    }
+
+    @Test
+    void keepsBasePathsWhenPoolIsCompacted() throws Exception {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        List<SearchState> openStates = MapSearchProblem.getOpenStateList(gameMap);
+        DBAStar dbaStar = new DBAStar(gameMap, 16, true);
+        SubgoalDB subgoalDB = dbaStar.getSubgoalDB();
+
+        // Walls on region representatives change the base paths of their regions
+        AbstractedMap abstractedMap = dbaStar.getAbstractedMap();
+        Random random = new Random(1);
+        for (int i = 0; i < 20; i++) {
+            int stateId = openStates.get(random.nextInt(openStates.size())).getStateId();
+            int regionId = abstractedMap.getRegionIdFromMap(stateId);
+            int regionRep = abstractedMap.getRegionRepFromRegionId(regionId);
+            if (!gameMap.isWall(regionRep)) {
+                dbaStar.addWall(regionRep);
+            }
+        }
+
+        int[][][] pathSubgoals = subgoalDB.getPathSubgoals();
+        assertNotEquals(0, subgoalDB.getNumUnusedPoolSlots());
+
+        subgoalDB.compactPool();
+        assertEquals(0, subgoalDB.getNumUnusedPoolSlots());
+        assertTrue(Arrays.deepEquals(pathSubgoals, subgoalDB.getPathSubgoals()));
+    }
+
+    @Test
+    void returnsSameRecordsWithEncodedPaths() throws Exception {
+        GameMap rawMap = new GameMap("src/test/resources/maps/012.map");
+        GameMap encodedMap = new GameMap("src/test/resources/maps/012.map");
+        List<SearchState> openStates = MapSearchProblem.getOpenStateList(rawMap);
+
+        DBAStar raw = new DBAStar(rawMap, 16, true);
+        DBAStar encoded = new DBAStar(encodedMap, 16, true);
+        SubgoalDB rawDB = raw.getSubgoalDB();
+        SubgoalDB encodedDB = encoded.getSubgoalDB();
+
+        encodedDB.setPathEncoding(SubgoalDB.DELTA_ENCODED_PATHS, encodedMap.getNumCols());
+        assertTrue(Arrays.deepEquals(rawDB.getPathSubgoals(), encodedDB.getPathSubgoals()));
+        assertTrue(encodedDB.getNumPoolBytes() * 2 <= rawDB.getNumPoolBytes());
+
+        // Changed base paths are encoded as well
+        AbstractedMap abstractedMap = raw.getAbstractedMap();
+        Random random = new Random(1);
+        for (int i = 0; i < 20; i++) {
+            int stateId = openStates.get(random.nextInt(openStates.size())).getStateId();
+            int regionRep = abstractedMap.getRegionRepFromRegionId(abstractedMap.getRegionIdFromMap(stateId));
+            if (!rawMap.isWall(regionRep)) {
+                raw.addWall(regionRep);
+                encoded.addWall(regionRep);
+            }
+        }
+        assertTrue(Arrays.deepEquals(rawDB.getPathSubgoals(), encodedDB.getPathSubgoals()));
+
+        for (int i = 0; i < 200; i++) {
+            int startId = openStates.get(random.nextInt(openStates.size())).getStateId();
+            int goalId = openStates.get(random.nextInt(openStates.size())).getStateId();
+            if (rawMap.isWall(startId) || rawMap.isWall(goalId)) continue;
+
+            int startRegionId = abstractedMap.getRegionIdFromMap(startId);
+            int goalRegionId = abstractedMap.getRegionIdFromMap(goalId);
+            if (startRegionId == goalRegionId) continue;
+
+            SubgoalDBRecord rawRecord = rawDB.getRecord(startRegionId, goalRegionId, false, null, null);
+            SubgoalDBRecord encodedRecord = encodedDB.getRecord(startRegionId, goalRegionId, false, null, null);
+            assertEquals(rawRecord == null, encodedRecord == null);
+            if (rawRecord != null) {
+                assertArrayEquals(rawRecord.getSubgoals(), encodedRecord.getSubgoals());
+            }
+        }
+
+        encodedDB.setPathEncoding(SubgoalDB.RAW_PATHS, encodedMap.getNumCols());
+        assertTrue(Arrays.deepEquals(rawDB.getPathSubgoals(), encodedDB.getPathSubgoals()));
+    }
+
+    @Test
+    void storesBasePathsBetweenNeighboursOnceWithSymmetricStorage() throws Exception {
+        GameMap explicitMap = new GameMap("src/test/resources/maps/012.map");
+        GameMap symmetricMap = new GameMap("src/test/resources/maps/012.map");
+        List<SearchState> openStates = MapSearchProblem.getOpenStateList(explicitMap);
+
+        DBAStar explicit = new DBAStar(explicitMap, 16, true);
+        DBAStar symmetric = new DBAStar(symmetricMap, 16, true, new DBAStar.Options().setSymmetric(true));
+        SubgoalDB explicitDB = explicit.getSubgoalDB();
+        SubgoalDB symmetricDB = symmetric.getSubgoalDB();
+
+        assertTrue(symmetricDB.isSymmetric());
+        assertTrue(symmetricDB.getNumPoolBytes() < explicitDB.getNumPoolBytes());
+        assertSameEdges(explicitDB, symmetricDB);
+
+        // Base paths stay readable in both directions while walls are added and removed
+        Random random = new Random(1);
+        for (int i = 0; i < 60; i++) {
+            int stateId = openStates.get(random.nextInt(openStates.size())).getStateId();
+            if (explicitMap.isWall(stateId)) {
+                explicit.removeWall(stateId);
+                symmetric.removeWall(stateId);
+            } else {
+                explicit.addWall(stateId);
+                symmetric.addWall(stateId);
+            }
+        }
+        assertSameEdges(explicitDB, symmetricDB);
+    }
+
+    @Test
+    void keepsOnlyOptimalBasePathsWhenRegionsArePartitioned() throws Exception {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        List<SearchState> openStates = MapSearchProblem.getOpenStateList(gameMap);
+        DBAStar dbaStar = new DBAStar(gameMap, 16, true);
+        SubgoalDB subgoalDB = dbaStar.getSubgoalDB();
+
+        Random random = new Random(1);
+        for (int i = 0; i < 300; i++) {
+            int stateId = openStates.get(random.nextInt(openStates.size())).getStateId();
+            if (!gameMap.isWall(stateId)) {
+                dbaStar.addWall(stateId);
+            }
+        }
+
+        // Every base path costs as much as the optimal path between its ends on the map with all walls
+        MapSearchProblem mapSearchProblem = new MapSearchProblem(gameMap);
+        AStar aStar = new AStar(mapSearchProblem);
+        int[][][] pathSubgoals = subgoalDB.getPathSubgoals();
+        for (int groupLoc = 0; groupLoc < pathSubgoals.length; groupLoc++) {
+            if (pathSubgoals[groupLoc] == null) continue;
+
+            for (int i = 0; i < pathSubgoals[groupLoc].length; i++) {
+                int[] path = pathSubgoals[groupLoc][i];
+                if (path == null) continue;
+
+                List<SearchState> optimalPath = aStar.findPath(new SearchState(path[0]), new SearchState(path[path.length - 1]), new SearchStats());
+                assertEquals(SearchUtil.findPathCost(optimalPath, mapSearchProblem), subgoalDB.getLowestCost()[groupLoc][i]);
+            }
+        }
+    }
+
+    @Test
+    void followsEveryBasePathAtItsLowestCostAfterWallsAreAddedAndRemoved() throws Exception {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        List<SearchState> openStates = MapSearchProblem.getOpenStateList(gameMap);
+        DBAStar dbaStar = new DBAStar(gameMap, 16, true);
+        SubgoalDB subgoalDB = dbaStar.getSubgoalDB();
+
+        Random random = new Random(7);
+        List<Integer> walls = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            int stateId = openStates.get(random.nextInt(openStates.size())).getStateId();
+            if (!gameMap.isWall(stateId)) {
+                dbaStar.addWall(stateId);
+                walls.add(stateId);
+            }
+            if (!walls.isEmpty() && random.nextInt(3) == 0) {
+                dbaStar.removeWall(walls.remove(random.nextInt(walls.size())));
+            }
+        }
+
+        // Hill-climbing between the subgoals of every base path, as an agent does, costs the lowest cost of its edge
+        HillClimbingWithClosedSet hc = new HillClimbingWithClosedSet(new MapSearchProblem(gameMap));
+        int[][][] pathSubgoals = subgoalDB.getPathSubgoals();
+        for (int groupLoc = 0; groupLoc < pathSubgoals.length; groupLoc++) {
+            if (pathSubgoals[groupLoc] == null) continue;
+
+            for (int i = 0; i < pathSubgoals[groupLoc].length; i++) {
+                int[] path = pathSubgoals[groupLoc][i];
+                if (path == null) continue;
+
+                int cost = 0;
+                for (int j = 1; j < path.length; j++) {
+                    int segmentCost = hc.findPathCostWithin(path[j - 1], path[j], Integer.MAX_VALUE / 2, null);
+                    assertNotEquals(-1, segmentCost);
+                    cost += segmentCost;
+                }
+                assertEquals(subgoalDB.getLowestCost()[groupLoc][i], cost);
+            }
+        }
+    }
+
+    /**
+     * Asserts that both databases have the same edges with the same costs, and base paths between the same states
+     */
+    private static void assertSameEdges(SubgoalDB expected, SubgoalDB actual) {
+        int[][][] expectedPaths = expected.getPathSubgoals();
+        int[][][] actualPaths = actual.getPathSubgoals();
+        for (int groupLoc = 0; groupLoc < Math.max(expectedPaths.length, actualPaths.length); groupLoc++) {
+            if (groupLoc >= expectedPaths.length || groupLoc >= actualPaths.length) {
+                assertNull(groupLoc < expectedPaths.length ? expectedPaths[groupLoc] : actualPaths[groupLoc]);
+                continue;
+            }
+
+            assertArrayEquals(expected.getNeighbours()[groupLoc], actual.getNeighbours()[groupLoc]);
+            assertArrayEquals(expected.getLowestCost()[groupLoc], actual.getLowestCost()[groupLoc]);
+            if (expectedPaths[groupLoc] == null) continue;
+
+            for (int i = 0; i < expectedPaths[groupLoc].length; i++) {
+                int[] expectedPath = expectedPaths[groupLoc][i];
+                int[] actualPath = actualPaths[groupLoc][i];
+                assertEquals(expectedPath == null, actualPath == null);
+                if (expectedPath != null) {
+                    assertEquals(expectedPath[0], actualPath[0]);
+                    assertEquals(expectedPath[expectedPath.length - 1], actualPath[actualPath.length - 1]);
+                }
+            }
+        }
+    }
+
     // TODO: Find difference in A* pathfinding
 //    @Test
 //    void getsComplexCompressedPathCorrectly() {
@@ -1,7 +1,9 @@
 package map;
 
 import org.junit.jupiter.api.Test;
+import stats.SearchStats;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class AbstractedMapTest {
@@ -226,4 +228,30 @@ class AbstractedMapTest {
 
         assertEquals(3, abstractedMap.getC3Sum(directNeighbours));
     }
-}
\ No newline at end of file
+
+    @Test
+    void parallelAbstractionEqualsSequentialAbstraction() {
+        String[] mapNames = {"012", "hrt000d", "orz103d"};
+        for (String mapName : mapNames) {
+            GameMap gameMap = new GameMap("src/test/resources/maps/" + mapName + ".map");
+
+            for (int gridSize = 8; gridSize <= 64; gridSize *= 2) {
+                SearchStats sequentialStats = new SearchStats();
+                SearchStats parallelStats = new SearchStats();
+                AbstractedMap sequential = new AbstractedMap(gameMap, gridSize, sequentialStats, false);
+                AbstractedMap parallel = new AbstractedMap(gameMap, gridSize, parallelStats, true);
+
+                assertEquals(sequential.getNumRegions(), parallel.getNumRegions());
+                assertEquals(sequential.getRegionIdToRegionMap().toString(), parallel.getRegionIdToRegionMap().toString());
+                assertArrayEquals(sequential.getRegionReps(), parallel.getRegionReps());
+                assertEquals(sequentialStats.getNumStatesExpandedBFS(), parallelStats.getNumStatesExpandedBFS());
+
+                for (int r = 0; r < gameMap.getNumRows(); r++) {
+                    for (int c = 0; c < gameMap.getNumCols(); c++) {
+                        assertEquals(sequential.getStateValue(r, c), parallel.getStateValue(r, c));
+                    }
+                }
+            }
+        }
+    }
+}
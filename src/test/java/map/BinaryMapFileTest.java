@@ -0,0 +1,56 @@
+package map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryMapFileTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void loadedMapEqualsParsedMap() {
+        String binaryFileName = tempDir.resolve("012" + BinaryMapFile.FILE_EXTENSION).toString();
+        BinaryMapFile.convert("src/test/resources/maps/012.map", binaryFileName);
+
+        GameMap parsedMap = new GameMap("src/test/resources/maps/012.map");
+        GameMap loadedMap = GameMap.fromBinaryFile(binaryFileName);
+
+        assertEquals(parsedMap.getNumRows(), loadedMap.getNumRows());
+        assertEquals(parsedMap.getNumCols(), loadedMap.getNumCols());
+        assertEquals(parsedMap.getNumOpenStates(), loadedMap.getNumOpenStates());
+
+        for (int r = 0; r < parsedMap.getNumRows(); r++) {
+            for (int c = 0; c < parsedMap.getNumCols(); c++) {
+                int stateId = parsedMap.getStateId(r, c);
+                assertEquals(parsedMap.isWall(r, c), loadedMap.isWall(r, c));
+                assertEquals(parsedMap.getMoveMask(stateId), loadedMap.getMoveMask(stateId));
+            }
+        }
+    }
+
+    @Test
+    void wallChangesAreNotWrittenBackToFile() {
+        String binaryFileName = tempDir.resolve("012" + BinaryMapFile.FILE_EXTENSION).toString();
+        BinaryMapFile.convert("src/test/resources/maps/012.map", binaryFileName);
+
+        int stateId = 14002;
+
+        GameMap loadedMap = GameMap.fromBinaryFile(binaryFileName);
+        loadedMap.placeWallAt(stateId);
+        assertTrue(loadedMap.isWall(stateId));
+        assertEquals(0, loadedMap.getMoveMask(stateId + 1) & (1 << GameMap.WEST));
+
+        GameMap reloadedMap = GameMap.fromBinaryFile(binaryFileName);
+        assertFalse(reloadedMap.isWall(stateId));
+        assertNotEquals(0, reloadedMap.getMoveMask(stateId + 1) & (1 << GameMap.WEST));
+    }
+
+    @Test
+    void rejectsFilesInOtherFormats() {
+        assertThrows(RuntimeException.class, () -> GameMap.fromBinaryFile("src/test/resources/maps/012.map"));
+    }
+}
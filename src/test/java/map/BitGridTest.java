@@ -0,0 +1,72 @@
+package map;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitGridTest {
+    @Test
+    void wordAccessorsMatchCellAccessors() {
+        int numRows = 5, numCols = 150;
+        BitGrid bitGrid = new BitGrid(numRows, numCols);
+        boolean[][] isOpen = new boolean[numRows][numCols];
+
+        Random random = new Random(3);
+        for (int r = 0; r < numRows; r++) {
+            for (int c = 0; c < numCols; c++) {
+                // Long runs of open states and walls, so runs cross word boundaries
+                isOpen[r][c] = c == 0 ? random.nextBoolean() : (random.nextInt(20) == 0) != isOpen[r][c - 1];
+                bitGrid.set(r, c, isOpen[r][c]);
+            }
+        }
+
+        int numOpen = 0;
+        for (int r = 0; r < numRows; r++) {
+            for (int c = 0; c < numCols; c++) {
+                assertEquals(isOpen[r][c], bitGrid.isOpen(r, c));
+                if (isOpen[r][c]) numOpen++;
+
+                long bits = bitGrid.getBits(r, c);
+                for (int i = 0; i < 64; i++) {
+                    boolean expected = c + i < numCols && isOpen[r][c + i];
+                    assertEquals(expected, (bits & (1L << i)) != 0);
+                }
+
+                int nextWall = c;
+                while (nextWall < numCols && isOpen[r][nextWall]) nextWall++;
+                assertEquals(nextWall, bitGrid.nextWall(r, c));
+
+                int nextOpen = c;
+                while (nextOpen < numCols && !isOpen[r][nextOpen]) nextOpen++;
+                assertEquals(nextOpen, bitGrid.nextOpen(r, c));
+
+                int previousWall = c;
+                while (previousWall >= 0 && isOpen[r][previousWall]) previousWall--;
+                assertEquals(previousWall, bitGrid.previousWall(r, c));
+            }
+        }
+
+        assertEquals(numOpen, bitGrid.countOpen());
+    }
+
+    @Test
+    void gameMapWallChangesUpdateBitGrid() {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        BitGrid bitGrid = gameMap.getBitGrid();
+
+        assertEquals(gameMap.getNumOpenStates(), bitGrid.countOpen());
+
+        int stateId = 14002;
+        int row = gameMap.getRowFromStateId(stateId), col = gameMap.getColFromStateId(stateId);
+
+        gameMap.placeWallAt(stateId);
+        assertFalse(bitGrid.isOpen(row, col));
+        assertEquals(GameMap.WALL_CHAR, gameMap.getStateValue(row, col));
+
+        gameMap.placeOpenStateAt(stateId);
+        assertTrue(bitGrid.isOpen(row, col));
+        assertEquals(GameMap.EMPTY_CHAR, gameMap.getStateValue(row, col));
+    }
+}
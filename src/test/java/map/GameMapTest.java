@@ -3,8 +3,10 @@ package map;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class GameMapTest {
@@ -29,6 +31,49 @@ class GameMapTest {
         assertEquals(7, map.getNumOpenStates());
     }
 
+    @Test
+    void moveMasksStayCorrectAfterWallChanges() {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+
+        int[] wallIds = {14002, 14003, 13854, 14151};
+        for (int wallId : wallIds) {
+            if (!gameMap.isWall(wallId)) {
+                gameMap.placeWallAt(wallId);
+            }
+        }
+        gameMap.placeOpenStateAt(14003);
+
+        // A freshly built map with the same walls must have the same move masks everywhere
+        GameMap copy = new GameMap(gameMap);
+        for (int stateId = 0; stateId < gameMap.getNumRows() * gameMap.getNumCols(); stateId++) {
+            assertEquals(copy.getMoveMask(stateId), gameMap.getMoveMask(stateId));
+        }
+
+        // North (13854) and south-east (14151) of 14002 are walls now, north-west is still reachable through west
+        assertEquals(Arrays.asList(14003, 14150, 14001, 13855, 14149, 13853), gameMap.getStateNeighbourIds(14002));
+    }
+
+    @Test
+    void diagonalNeighbourNeedsAnOpenCardinal() {
+        // North and east of the centre are walls, so north-east is not a neighbour even though it is open
+        int[][] states = {{32, 42, 32}, {32, 32, 42}, {32, 32, 32}};
+        GameMap map = new GameMap(states);
+
+        assertEquals(Arrays.asList(7, 3, 8, 6, 0), map.getStateNeighbourIds(4));
+    }
+
+    @Test
+    void closedCardinalBlocksDiagonalNeighbour() {
+        // North of the centre is closed and east is a wall, so north-east is not a neighbour either
+        int[][] states = {{32, 32, 32}, {32, 32, 42}, {32, 32, 32}};
+        GameMap map = new GameMap(states);
+        HashSet<Integer> closedSet = new HashSet<>(Arrays.asList(4, 1));
+
+        int[] neighbourIds = new int[8];
+        int numNeighbours = map.getStateNeighbourIds(4, neighbourIds, closedSet);
+
+        assertArrayEquals(new int[]{7, 3, 8, 6, 0}, Arrays.copyOf(neighbourIds, numNeighbours));
+    }
+
     // TODO: Test when some of the neighbours are walls
-    // TODO: Test with diagonal where corresponding cardinals are not open
 }
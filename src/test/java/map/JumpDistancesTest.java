@@ -0,0 +1,58 @@
+package map;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static map.GameMap.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JumpDistancesTest {
+    @Test
+    void distancesAreCorrectOnSmallMap() {
+        // Row 1 runs from column 0 into the wall at column 4, the wall at (0, 2) forces neighbours at (1, 2) both ways
+        int[][] states = {{32, 32, 42, 32, 32}, {32, 32, 32, 32, 42}, {32, 32, 32, 32, 32}};
+        GameMap gameMap = new GameMap(states);
+        JumpDistances jumpDistances = new JumpDistances(gameMap);
+
+        assertEquals(2, jumpDistances.getDistance(gameMap.getStateId(1, 0), EAST));
+        assertEquals(-1, jumpDistances.getDistance(gameMap.getStateId(1, 2), EAST));
+        assertEquals(0, jumpDistances.getDistance(gameMap.getStateId(1, 3), EAST));
+        assertEquals(1, jumpDistances.getDistance(gameMap.getStateId(1, 3), WEST));
+        // Moving diagonally from (2, 0), (1, 1) is a jump point as a straight jump east from it stops at (1, 2)
+        assertEquals(1, jumpDistances.getDistance(gameMap.getStateId(1, 1), EAST));
+        assertEquals(1, jumpDistances.getDistance(gameMap.getStateId(2, 0), NORTH_EAST));
+
+        // The goal stops a jump before the jump point, and a diagonal jump stops where the goal is straight ahead
+        assertEquals(gameMap.getStateId(1, 1), jumpDistances.jump(gameMap.getStateId(1, 0), EAST, gameMap.getStateId(1, 1)));
+        assertEquals(gameMap.getStateId(1, 3), jumpDistances.jump(gameMap.getStateId(2, 2), NORTH_EAST, gameMap.getStateId(0, 3)));
+        assertEquals(-1, jumpDistances.jump(gameMap.getStateId(1, 3), EAST, gameMap.getStateId(2, 4)));
+    }
+
+    @Test
+    void patchedDistancesMatchRebuiltDistancesAfterWallChanges() {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        JumpDistances jumpDistances = new JumpDistances(gameMap);
+        int numStates = gameMap.getNumRows() * gameMap.getNumCols();
+        Random random = new Random(1);
+
+        for (int i = 0; i < 2000; i++) {
+            int stateId = random.nextInt(numStates);
+            if (gameMap.isWall(stateId)) {
+                gameMap.placeOpenStateAt(stateId);
+            } else {
+                gameMap.placeWallAt(stateId);
+            }
+            jumpDistances.update(stateId);
+
+            if (i % 200 == 199) {
+                JumpDistances rebuilt = new JumpDistances(gameMap);
+                for (int id = 0; id < numStates; id++) {
+                    for (int direction = NORTH; direction <= NORTH_WEST; direction++) {
+                        assertEquals(rebuilt.getDistance(id, direction), jumpDistances.getDistance(id, direction));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package map;
+
+import org.junit.jupiter.api.Test;
+import search.MapSearchProblem;
+import search.SearchState;
+import search.algorithms.PRAStar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegionGraphTest {
+    @Test
+    void staysEqualToRegionsAfterWallChanges() {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        List<SearchState> openStates = MapSearchProblem.getOpenStateList(gameMap);
+
+        PRAStar praStar = new PRAStar(gameMap, 16);
+        AbstractedMap abstractedMap = praStar.getAbstractedMap();
+
+        assertGraphEqualsRegions(abstractedMap);
+
+        Random random = new Random(1);
+        for (int i = 0; i < 300; i++) {
+            int stateId = openStates.get(random.nextInt(openStates.size())).getStateId();
+
+            if (abstractedMap.isWall(stateId)) {
+                praStar.removeWall(stateId);
+            } else {
+                praStar.addWall(stateId);
+            }
+
+            assertGraphEqualsRegions(abstractedMap);
+        }
+    }
+
+    private static void assertGraphEqualsRegions(AbstractedMap abstractedMap) {
+        RegionGraph regionGraph = abstractedMap.getRegionGraph();
+
+        int numRegions = 0;
+        for (int index = 0; index < regionGraph.getCapacity(); index++) {
+            Region region = abstractedMap.getRegionById(index + AbstractedMap.START_NUM);
+
+            if (region == null) {
+                assertFalse(regionGraph.containsRegion(index));
+                continue;
+            }
+
+            numRegions++;
+            assertTrue(regionGraph.containsRegion(index));
+            assertEquals(region.getRegionRepresentative(), regionGraph.getRep(index));
+            assertEquals(region.getNumStates(), regionGraph.getSize(index));
+
+            List<Integer> neighbourIds = new ArrayList<>();
+            for (int i = regionGraph.getOffset(index); i < regionGraph.getOffset(index) + regionGraph.getDegree(index); i++) {
+                int neighbourIndex = regionGraph.getTarget(i);
+                neighbourIds.add(neighbourIndex + AbstractedMap.START_NUM);
+                assertEquals(abstractedMap.getOctileDistance(regionGraph.getRep(index), regionGraph.getRep(neighbourIndex)), regionGraph.getWeight(i));
+            }
+            assertEquals(new ArrayList<>(region.getNeighborIds()), neighbourIds);
+        }
+
+        assertEquals(abstractedMap.getRegionIdToRegionMap().size(), numRegions);
+    }
+}
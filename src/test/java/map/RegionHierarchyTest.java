@@ -0,0 +1,117 @@
+package map;
+
+import org.junit.jupiter.api.Test;
+import search.MapSearchProblem;
+import search.SearchState;
+import search.algorithms.IndexedAStar;
+import search.algorithms.PRAStar;
+import stats.SearchStats;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegionHierarchyTest {
+    @Test
+    void groupsConnectedRegionsOfSuperSectors() {
+        // Four 2x2 sectors, the wall column splits the two right sectors from the two left ones
+        int[][] states = {{32, 32, 42, 32}, {32, 32, 42, 32}, {32, 32, 42, 32}, {32, 32, 42, 32}};
+        GameMap gameMap = new GameMap(states);
+        PRAStar praStar = new PRAStar(gameMap, 2);
+        AbstractedMap abstractedMap = praStar.getAbstractedMap();
+        RegionHierarchy regionHierarchy = praStar.buildRegionHierarchy(1, 2);
+
+        assertEquals(2, regionHierarchy.getNodeIds(1).size());
+        int leftId = regionHierarchy.getNodeId(1, gameMap.getStateId(0, 0));
+        int rightId = regionHierarchy.getNodeId(1, gameMap.getStateId(0, 3));
+        assertNotEquals(leftId, rightId);
+        assertEquals(leftId, regionHierarchy.getNodeId(1, gameMap.getStateId(3, 1)));
+        assertEquals(2, regionHierarchy.getChildren(1, leftId).size());
+        assertTrue(regionHierarchy.getNeighbourIds(1, leftId).isEmpty());
+        assertNull(regionHierarchy.findAbstractPath(gameMap.getStateId(0, 0), gameMap.getStateId(0, 3), new SearchStats()));
+
+        // Opening the wall joins the two nodes, their regions now belong to one component of the super-sector
+        praStar.removeWall(gameMap.getStateId(3, 2));
+        assertEquals(1, regionHierarchy.getNodeIds(1).size());
+        assertEquals(regionHierarchy.getNodeId(1, gameMap.getStateId(0, 0)), regionHierarchy.getNodeId(1, gameMap.getStateId(0, 3)));
+
+        List<SearchState> path = regionHierarchy.findAbstractPath(gameMap.getStateId(0, 0), gameMap.getStateId(0, 3), new SearchStats());
+        assertNotNull(path);
+        int startRegionId = abstractedMap.getRegionIdFromMap(gameMap.getStateId(0, 0));
+        assertEquals(abstractedMap.getRegionById(startRegionId).getRegionRepresentative(), path.getFirst().getStateId());
+        for (int i = 1; i < path.size(); i++) {
+            int regionId = abstractedMap.getRegionIdFromMap(path.get(i - 1).getStateId());
+            assertTrue(abstractedMap.getRegionById(regionId).getNeighborIds().contains(abstractedMap.getRegionIdFromMap(path.get(i).getStateId())));
+        }
+
+        // A wall that does not split the node leaves the top level as it was
+        int nodeId = regionHierarchy.getNodeIds(1).iterator().next();
+        praStar.addWall(gameMap.getStateId(1, 0));
+        assertEquals(Set.of(nodeId), regionHierarchy.getNodeIds(1));
+    }
+
+    @Test
+    void updatedHierarchyMatchesRebuiltHierarchyAfterWallChanges() {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        PRAStar praStar = new PRAStar(gameMap, 16);
+        AbstractedMap abstractedMap = praStar.getAbstractedMap();
+        RegionHierarchy regionHierarchy = praStar.buildRegionHierarchy(3, 2);
+        IndexedAStar aStar = new IndexedAStar(new MapSearchProblem(gameMap));
+        int numStates = gameMap.getNumRows() * gameMap.getNumCols();
+        Random random = new Random(1);
+
+        for (int i = 0; i < 1000; i++) {
+            int stateId = random.nextInt(numStates);
+            if (gameMap.isWall(stateId)) {
+                praStar.removeWall(stateId);
+            } else {
+                praStar.addWall(stateId);
+            }
+
+            if (i % 200 == 199) {
+                RegionHierarchy rebuilt = new RegionHierarchy(abstractedMap, 3, 2);
+                for (int level = 1; level <= 3; level++) {
+                    assertEquals(describeLevel(rebuilt, abstractedMap, level), describeLevel(regionHierarchy, abstractedMap, level));
+                }
+
+                // Abstract paths exist exactly when paths on the map do
+                List<SearchState> openStates = MapSearchProblem.getOpenStateList(gameMap);
+                for (int j = 0; j < 50; j++) {
+                    int startId = openStates.get(random.nextInt(openStates.size())).getStateId();
+                    int goalId = openStates.get(random.nextInt(openStates.size())).getStateId();
+                    List<SearchState> abstractPath = regionHierarchy.findAbstractPath(startId, goalId, new SearchStats());
+                    List<SearchState> path = aStar.findPath(new SearchState(startId), new SearchState(goalId), null);
+                    assertEquals(path == null, abstractPath == null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Describes the nodes of a level by the regions below them, so that hierarchies with different node ids compare equal
+     */
+    private static Map<Set<Integer>, Set<Set<Integer>>> describeLevel(RegionHierarchy regionHierarchy, AbstractedMap abstractedMap, int level) {
+        Map<Integer, Set<Integer>> regionIds = new HashMap<>();
+        for (int regionId : abstractedMap.getRegionIdToRegionMap().keySet()) {
+            int nodeId = regionId;
+            for (int l = 0; l < level; l++) {
+                nodeId = regionHierarchy.getParent(l, nodeId);
+            }
+            regionIds.computeIfAbsent(nodeId, id -> new TreeSet<>()).add(regionId);
+        }
+        assertEquals(regionIds.keySet(), regionHierarchy.getNodeIds(level));
+
+        Map<Set<Integer>, Set<Set<Integer>>> description = new HashMap<>();
+        for (int nodeId : regionHierarchy.getNodeIds(level)) {
+            assertTrue(regionHierarchy.getChildren(level, nodeId).contains(regionHierarchy.getRepresentativeChild(level, nodeId)));
+
+            Set<Set<Integer>> neighbours = new HashSet<>();
+            for (int neighbourId : regionHierarchy.getNeighbourIds(level, nodeId)) {
+                assertTrue(regionHierarchy.getNeighbourIds(level, neighbourId).contains(nodeId));
+                neighbours.add(regionIds.get(neighbourId));
+            }
+            description.put(regionIds.get(nodeId), neighbours);
+        }
+        return description;
+    }
+}
@@ -0,0 +1,47 @@
+package map;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegionIdAllocatorTest {
+    @Test
+    void handsOutSmallestFreeId() {
+        RegionIdAllocator regionIdAllocator = new RegionIdAllocator();
+        for (int i = 0; i < 5; i++) {
+            regionIdAllocator.markUsed(AbstractedMap.START_NUM + i);
+        }
+
+        assertEquals(AbstractedMap.START_NUM + 5, regionIdAllocator.peek());
+
+        regionIdAllocator.free(AbstractedMap.START_NUM + 3);
+        regionIdAllocator.free(AbstractedMap.START_NUM + 1);
+
+        assertEquals(List.of(AbstractedMap.START_NUM + 1, AbstractedMap.START_NUM + 3, AbstractedMap.START_NUM + 5), List.copyOf(regionIdAllocator.getFreeIds()).stream().sorted().toList());
+        assertEquals(AbstractedMap.START_NUM + 1, regionIdAllocator.allocate());
+        assertEquals(AbstractedMap.START_NUM + 3, regionIdAllocator.allocate());
+        assertEquals(AbstractedMap.START_NUM + 5, regionIdAllocator.allocate());
+        assertEquals(AbstractedMap.START_NUM + 6, regionIdAllocator.allocate());
+        assertEquals(AbstractedMap.START_NUM + 7, regionIdAllocator.getEndRegionId());
+    }
+
+    @Test
+    void growsRegionRepsWhenIdsRunOut() {
+        int[][] states = {{32, 42, 32}, {42, 42, 42}, {32, 42, 32}};
+        AbstractedMap abstractedMap = new AbstractedMap(new GameMap(states), 16);
+        int numRepSlots = abstractedMap.getRegionReps().length;
+
+        // Every call hands out a new id, far more than the initial headroom
+        for (int i = 0; i < 10 * numRepSlots; i++) {
+            int regionId = abstractedMap.getFreeRegionId();
+            assertEquals(AbstractedMap.START_NUM + 4 + i, regionId);
+            assertEquals(-1, abstractedMap.getRegionRepFromRegionId(regionId));
+        }
+
+        Queue<Integer> freeRegionIds = abstractedMap.getFreeRegionIds();
+        assertEquals(AbstractedMap.START_NUM + 4 + 10 * numRepSlots, freeRegionIds.peek());
+    }
+}
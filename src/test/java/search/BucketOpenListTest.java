@@ -0,0 +1,92 @@
+package search;
+
+import map.AbstractedMap;
+import map.GameMap;
+import org.junit.jupiter.api.Test;
+import search.algorithms.AStar;
+import search.algorithms.ListAStar;
+
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BucketOpenListTest {
+    @Test
+    void removesStatesInSameOrderAsPriorityQueue() {
+        BucketOpenList bucketOpenList = new BucketOpenList();
+        PriorityQueue<SearchState> priorityQueue = new PriorityQueue<>();
+        Random random = new Random(7);
+
+        for (int round = 0; round < 3; round++) {
+            bucketOpenList.clear();
+            priorityQueue.clear();
+
+            for (int i = 0; i < 500; i++) {
+                SearchState state = new SearchState(i, random.nextInt(200), random.nextInt(200), null);
+                bucketOpenList.add(state);
+                priorityQueue.add(state);
+
+                // Interleave removals, as A* does
+                if (i % 3 == 0) {
+                    assertEquals(0, priorityQueue.remove().compareTo(bucketOpenList.remove()));
+                }
+            }
+
+            assertEquals(priorityQueue.size(), bucketOpenList.size());
+            while (!priorityQueue.isEmpty()) {
+                assertEquals(0, priorityQueue.remove().compareTo(bucketOpenList.remove()));
+            }
+            assertTrue(bucketOpenList.isEmpty());
+        }
+    }
+
+    @Test
+    void findsSameCostPathsAsHeapOpenList() {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        MapSearchProblem mapSearchProblem = new MapSearchProblem(gameMap);
+
+        AStar heapAStar = new AStar(mapSearchProblem, new HeapOpenList());
+        AStar bucketAStar = new AStar(mapSearchProblem, new BucketOpenList());
+
+        List<SearchState> openStates = MapSearchProblem.getOpenStateList(gameMap);
+        Random random = new Random(1);
+
+        for (int i = 0; i < 100; i++) {
+            int startId = openStates.get(random.nextInt(openStates.size())).getStateId();
+            int goalId = openStates.get(random.nextInt(openStates.size())).getStateId();
+
+            List<SearchState> heapPath = heapAStar.findPath(new SearchState(startId), new SearchState(goalId), null);
+            List<SearchState> bucketPath = bucketAStar.findPath(new SearchState(startId), new SearchState(goalId), null);
+
+            if (heapPath == null) {
+                assertNull(bucketPath);
+            } else {
+                assertEquals(SearchUtil.findPathCost(heapPath, mapSearchProblem), SearchUtil.findPathCost(bucketPath, mapSearchProblem));
+            }
+        }
+    }
+
+    @Test
+    void findsSameAbstractPathsAsHeapOpenList() {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        AbstractedMap abstractedMap = new AbstractedMap(gameMap, 16);
+        RegionSearchProblem regionSearchProblem = new RegionSearchProblem(abstractedMap);
+
+        ListAStar heapAStar = new ListAStar(regionSearchProblem, new HeapOpenList());
+        ListAStar bucketAStar = new ListAStar(regionSearchProblem, new BucketOpenList());
+
+        int[] regionReps = abstractedMap.getRegionReps();
+        int startRep = regionReps[0];
+        for (int i = 1; i < abstractedMap.getNumRegions(); i++) {
+            List<SearchState> heapPath = heapAStar.findPath(new SearchState(startRep), new SearchState(regionReps[i]), null);
+            List<SearchState> bucketPath = bucketAStar.findPath(new SearchState(startRep), new SearchState(regionReps[i]), null);
+
+            assertEquals(heapPath == null, bucketPath == null);
+            if (heapPath != null) {
+                assertEquals(heapPath.getLast().getG(), bucketPath.getLast().getG());
+            }
+        }
+    }
+}
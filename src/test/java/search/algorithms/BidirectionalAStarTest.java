@@ -0,0 +1,68 @@
+package search.algorithms;
+
+import map.GameMap;
+import org.junit.jupiter.api.Test;
+import search.MapSearchProblem;
+import search.SearchState;
+import search.SearchUtil;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static search.algorithms.SearchAssertions.assertNoPathAcrossWallColumn;
+import static search.algorithms.SearchAssertions.assertSameCostPathsAsAStar;
+
+class BidirectionalAStarTest {
+    @Test
+    void findsSameCostPathsAsAStar() {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        assertSameCostPathsAsAStar(new BidirectionalAStar(new MapSearchProblem(gameMap)), gameMap, 1, 200);
+    }
+
+    @Test
+    void compressesPathsWithoutClosedSetCheck() {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        MapSearchProblem mapSearchProblem = new MapSearchProblem(gameMap);
+        BidirectionalAStar bidirectionalAStar = new BidirectionalAStar(mapSearchProblem);
+        HillClimbingWithClosedSet hc = new HillClimbingWithClosedSet(mapSearchProblem);
+
+        // A straight line: A* would only expand the states on the path, so its closed set check would skip compression
+        int[][] states = {{32, 32, 32, 32, 32}};
+        BidirectionalAStar lineSearch = new BidirectionalAStar(new MapSearchProblem(new GameMap(states)));
+        List<SearchState> line = lineSearch.findPath(new SearchState(0), new SearchState(4), null);
+        assertEquals(5, line.size());
+        assertFalse(lineSearch.pathSizeEqualsClosedSetSize(line.size()));
+
+        List<SearchState> openStates = MapSearchProblem.getOpenStateList(gameMap);
+        Random random = new Random(2);
+        for (int i = 0; i < 50; i++) {
+            SearchState start = openStates.get(random.nextInt(openStates.size()));
+            SearchState goal = openStates.get(random.nextInt(openStates.size()));
+
+            List<SearchState> path = bidirectionalAStar.findPath(start, goal, null);
+            if (path == null) continue;
+
+            // Hill-climbing between the subgoals follows a path of the same cost
+            int[] subgoals = SearchUtil.findOptimallyCompressedPath(path, hc, bidirectionalAStar, null);
+            int cost = 0;
+            for (int j = 1; j < subgoals.length; j++) {
+                cost += hc.findPathCostWithin(subgoals[j - 1], subgoals[j], Integer.MAX_VALUE, null);
+            }
+            assertEquals(SearchUtil.findPathCost(path, mapSearchProblem), cost);
+        }
+    }
+
+    @Test
+    void returnsNullIfNoPathExists() {
+        assertNoPathAcrossWallColumn(BidirectionalAStar::new);
+    }
+
+    @Test
+    void findsPathFromStateToItself() {
+        int[][] states = {{32, 42, 32}, {32, 42, 32}, {32, 42, 32}};
+        BidirectionalAStar bidirectionalAStar = new BidirectionalAStar(new MapSearchProblem(new GameMap(states)));
+
+        assertEquals(1, bidirectionalAStar.findPath(new SearchState(0), new SearchState(0), null).size());
+    }
+}
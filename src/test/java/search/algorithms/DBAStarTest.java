@@ -6,10 +6,13 @@ import map.Region;
 import org.junit.jupiter.api.Test;
 import search.MapSearchProblem;
 import search.SearchState;
+import stats.SearchStats;
 
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class DBAStarTest {
     @Test
@@ -346,4 +349,66 @@ class DBAStarTest {
 
         assertEquals(regionMapStringBefore, regionMapStringAfter);
     }
+
+    @Test
+    void findsSamePathsWithAndWithoutRecordCacheAfterWallChanges() throws Exception {
+        DBAStar cached = new DBAStar(new GameMap("src/test/resources/maps/516.map"), 16, true);
+        DBAStar uncached = new DBAStar(new GameMap("src/test/resources/maps/516.map"), 16, true);
+        uncached.getSubgoalDB().getRecordCache().setCapacity(0);
+
+        GameMap gameMap = cached.getGameMap();
+        List<SearchState> openStates = MapSearchProblem.getOpenStateList(gameMap);
+        List<Integer> walls = new ArrayList<>();
+        Random random = new Random(2);
+        int keptRecords = 0;
+
+        // The same queries are asked every round, so that the cached instance answers them from records built before
+        // the walls changed
+        SearchState[] starts = new SearchState[40];
+        SearchState[] goals = new SearchState[40];
+        for (int query = 0; query < starts.length; query++) {
+            starts[query] = openStates.get(random.nextInt(openStates.size()));
+            goals[query] = openStates.get(random.nextInt(openStates.size()));
+        }
+
+        for (int round = 0; round < 20; round++) {
+            for (int query = 0; query < starts.length; query++) {
+                SearchState start = starts[query];
+                SearchState goal = goals[query];
+                if (gameMap.isWall(start.getStateId()) || gameMap.isWall(goal.getStateId())) continue;
+
+                List<SearchState> cachedPath = cached.findPath(start, goal, new SearchStats());
+                List<SearchState> uncachedPath = uncached.findPath(start, goal, new SearchStats());
+                assertEquals(toIds(uncachedPath), toIds(cachedPath), "path from " + start + " to " + goal);
+            }
+
+            // Toggle walls, removing one of the added walls half the time
+            for (int i = 0; i < 5; i++) {
+                if (!walls.isEmpty() && random.nextBoolean()) {
+                    int wallId = walls.remove(random.nextInt(walls.size()));
+                    cached.removeWall(wallId);
+                    uncached.removeWall(wallId);
+                } else {
+                    int wallId = openStates.get(random.nextInt(openStates.size())).getStateId();
+                    if (gameMap.isWall(wallId)) continue;
+                    walls.add(wallId);
+                    cached.addWall(wallId);
+                    uncached.addWall(wallId);
+                }
+            }
+            keptRecords += cached.getSubgoalDB().getRecordCache().getNumRecords();
+        }
+
+        // Walls only evict the records whose base paths or hill-climbing they are next to
+        assertTrue(keptRecords > 0);
+    }
+
+    @Test
+    void rejectsUnknownBaseSearch() {
+        assertThrows(IllegalArgumentException.class, () -> new DBAStar.Options().setBaseSearch(4));
+    }
+
+    private static List<Integer> toIds(List<SearchState> path) {
+        return path == null ? null : path.stream().map(SearchState::getStateId).toList();
+    }
 }
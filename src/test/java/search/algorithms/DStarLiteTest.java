@@ -0,0 +1,99 @@
+package search.algorithms;
+
+import map.GameMap;
+import org.junit.jupiter.api.Test;
+import search.MapSearchProblem;
+import search.SearchState;
+import search.SearchUtil;
+import stats.SearchStats;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DStarLiteTest {
+    @Test
+    void findsSameCostPathsAsAStarWhileWallsChange() {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        MapSearchProblem mapSearchProblem = new MapSearchProblem(gameMap);
+        IndexedAStar aStar = new IndexedAStar(mapSearchProblem);
+        DStarLite dStarLite = new DStarLite(gameMap);
+        int numStates = gameMap.getNumRows() * gameMap.getNumCols();
+        Random random = new Random(1);
+
+        List<SearchState> openStates = MapSearchProblem.getOpenStateList(gameMap);
+
+        for (int i = 0; i < 20; i++) {
+            int startId = openStates.get(random.nextInt(openStates.size())).getStateId();
+            int goalId = openStates.get(random.nextInt(openStates.size())).getStateId();
+
+            // The unit keeps its goal, moves along its path and the walls change around it after every step
+            for (int step = 0; step < 30 && !gameMap.isWall(startId) && !gameMap.isWall(goalId); step++) {
+                List<SearchState> expected = aStar.findPath(new SearchState(startId), new SearchState(goalId), null);
+                List<SearchState> actual = dStarLite.findPath(new SearchState(startId), new SearchState(goalId), null);
+
+                if (expected == null) {
+                    assertNull(actual);
+                } else {
+                    assertNotNull(actual);
+                    assertEquals(startId, actual.getFirst().getStateId());
+                    assertEquals(goalId, actual.getLast().getStateId());
+                    assertTrue(SearchUtil.isContinuousPath(actual, mapSearchProblem));
+                    assertEquals(SearchUtil.findPathCost(expected, mapSearchProblem), SearchUtil.findPathCost(actual, mapSearchProblem));
+
+                    if (actual.size() > 1) startId = actual.get(1).getStateId();
+                }
+
+                for (int j = 0; j < 5; j++) {
+                    int stateId = expected != null && random.nextBoolean() ? expected.get(random.nextInt(expected.size())).getStateId() : random.nextInt(numStates);
+                    if (gameMap.isWall(stateId)) {
+                        dStarLite.removeWall(stateId);
+                    } else {
+                        dStarLite.addWall(stateId);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void reusesSearchTreeForSameGoal() {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        DStarLite dStarLite = new DStarLite(gameMap);
+        List<SearchState> openStates = MapSearchProblem.getOpenStateList(gameMap);
+        SearchState start = openStates.getFirst(), goal = openStates.getLast();
+
+        SearchStats firstStats = new SearchStats();
+        List<SearchState> path = dStarLite.findPath(start, goal, firstStats);
+        assertNotNull(path);
+        assertTrue(firstStats.getNumStatesExpanded() > 0);
+
+        // Nothing changed, so the tree is still consistent
+        SearchStats secondStats = new SearchStats();
+        assertEquals(path.size(), dStarLite.findPath(start, goal, secondStats).size());
+        assertEquals(0, secondStats.getNumStatesExpanded());
+
+        // Moving along the path keeps every state on it in the tree
+        SearchStats thirdStats = new SearchStats();
+        assertEquals(path.size() - 1, dStarLite.findPath(path.get(1), goal, thirdStats).size());
+        assertTrue(thirdStats.getNumStatesExpanded() < firstStats.getNumStatesExpanded());
+    }
+
+    @Test
+    void findsPathOnceWallIsRemoved() {
+        int[][] states = {{32, 42, 32}, {32, 42, 32}, {32, 42, 32}};
+        GameMap gameMap = new GameMap(states);
+        DStarLite dStarLite = new DStarLite(gameMap);
+
+        assertNull(dStarLite.findPath(new SearchState(0), new SearchState(2), null));
+
+        dStarLite.removeWall(4);
+        List<SearchState> path = dStarLite.findPath(new SearchState(0), new SearchState(2), null);
+        assertEquals(3, path.size());
+        assertEquals(4, path.get(1).getStateId());
+
+        dStarLite.addWall(4);
+        assertNull(dStarLite.findPath(new SearchState(0), new SearchState(2), null));
+    }
+}
@@ -0,0 +1,38 @@
+package search.algorithms;
+
+import map.GameMap;
+import org.junit.jupiter.api.Test;
+import search.MapSearchProblem;
+import search.SearchState;
+import stats.SearchStats;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static search.algorithms.SearchAssertions.assertNoPathAcrossWallColumn;
+import static search.algorithms.SearchAssertions.assertSameCostPathsAsAStar;
+
+class IndexedAStarTest {
+    @Test
+    void findsSameCostPathsAsAStar() {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        assertSameCostPathsAsAStar(new IndexedAStar(new MapSearchProblem(gameMap)), gameMap, 1, 200);
+    }
+
+    @Test
+    void computesStatesExpandedCorrectly() {
+        int[][] states = {{32, 32, 32}, {32, 32, 32}, {32, 32, 32}};
+        GameMap gameMap = new GameMap(states);
+        IndexedAStar indexedAStar = new IndexedAStar(new MapSearchProblem(gameMap));
+
+        SearchStats searchStats = new SearchStats();
+        indexedAStar.findPath(new SearchState(3), new SearchState(5), searchStats);
+
+        assertEquals(3, searchStats.getNumStatesExpanded());
+        assertEquals(12, searchStats.getNumStatesUpdated());
+        assertEquals(3, indexedAStar.getNumClosed());
+    }
+
+    @Test
+    void returnsNullIfNoPathExists() {
+        assertNoPathAcrossWallColumn(IndexedAStar::new);
+    }
+}
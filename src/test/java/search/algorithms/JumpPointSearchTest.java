@@ -0,0 +1,71 @@
+package search.algorithms;
+
+import map.GameMap;
+import map.JumpDistances;
+import org.junit.jupiter.api.Test;
+import search.MapSearchProblem;
+import search.SearchState;
+import stats.SearchStats;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static search.algorithms.SearchAssertions.assertNoPathAcrossWallColumn;
+import static search.algorithms.SearchAssertions.assertSameCostPathsAsAStar;
+
+class JumpPointSearchTest {
+    @Test
+    void findsSameCostPathsAsAStar() {
+        GameMap gameMap = new GameMap("src/test/resources/maps/012.map");
+        Random random = new Random(1);
+
+        // Scattered walls give many states with forced neighbours and many diagonal moves past a single wall
+        for (SearchState state : MapSearchProblem.getOpenStateList(gameMap)) {
+            if (random.nextInt(5) == 0) {
+                gameMap.placeWallAt(state.getStateId());
+            }
+        }
+
+        MapSearchProblem mapSearchProblem = new MapSearchProblem(gameMap);
+        assertSameCostPathsAsAStar(new JumpPointSearch(mapSearchProblem), gameMap, 2, 500);
+        assertSameCostPathsAsAStar(new JumpPointSearch(mapSearchProblem, new JumpDistances(gameMap)), gameMap, 2, 500);
+    }
+
+    @Test
+    void onlyExpandsJumpPointsOnOpenMap() {
+        int[][] states = new int[10][10];
+        for (int[] row : states) {
+            Arrays.fill(row, 32);
+        }
+        GameMap gameMap = new GameMap(states);
+        JumpPointSearch jumpPointSearch = new JumpPointSearch(new MapSearchProblem(gameMap));
+
+        SearchStats searchStats = new SearchStats();
+        List<SearchState> path = jumpPointSearch.findPath(new SearchState(0), new SearchState(99), searchStats);
+
+        // The diagonal jump from the start reaches the goal, so only the start and the goal are expanded
+        assertEquals(2, searchStats.getNumStatesExpanded());
+        assertEquals(10, path.size());
+        assertEquals(10, searchStats.getPathLength());
+    }
+
+    @Test
+    void movesDiagonallyPastOneWallButNotBetweenTwo() {
+        int[][] states = {{32, 42, 32}, {32, 32, 42}, {32, 32, 32}};
+        GameMap gameMap = new GameMap(states);
+        MapSearchProblem mapSearchProblem = new MapSearchProblem(gameMap);
+        JumpPointSearch jumpPointSearch = new JumpPointSearch(mapSearchProblem);
+
+        // 0 to 4 cuts past the wall at 1, 4 to 2 would squeeze between the walls at 1 and 5
+        List<SearchState> path = jumpPointSearch.findPath(new SearchState(0), new SearchState(4), null);
+        assertEquals(2, path.size());
+        assertNull(jumpPointSearch.findPath(new SearchState(0), new SearchState(2), null));
+    }
+
+    @Test
+    void returnsNullIfNoPathExists() {
+        assertNoPathAcrossWallColumn(JumpPointSearch::new);
+    }
+}
@@ -11,6 +11,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class PRAStarTest {
@@ -312,4 +313,10 @@ class PRAStarTest {
             }
         }
     }
+
+    @Test
+    void rejectsUnknownBaseSearch() {
+        GameMap gameMap = new GameMap(new int[][]{{32, 32}, {32, 32}});
+        assertThrows(IllegalArgumentException.class, () -> new PRAStar(gameMap, 16, 4));
+    }
 }
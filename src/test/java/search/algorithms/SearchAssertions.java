@@ -0,0 +1,65 @@
+package search.algorithms;
+
+import map.GameMap;
+import search.MapSearchProblem;
+import search.SearchState;
+import search.SearchUtil;
+import stats.SearchStats;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks shared by the tests of the searches that can replace A* on the map
+ */
+final class SearchAssertions {
+    private SearchAssertions() {
+    }
+
+    /**
+     * Searches between numPaths random pairs of open states and checks that the search finds a continuous path of the
+     * same cost as A* whenever A* finds one, and no path otherwise
+     */
+    static void assertSameCostPathsAsAStar(SearchAlgorithmWithStats search, GameMap gameMap, long seed, int numPaths) {
+        MapSearchProblem mapSearchProblem = new MapSearchProblem(gameMap);
+        AStar aStar = new AStar(mapSearchProblem);
+
+        List<SearchState> openStates = MapSearchProblem.getOpenStateList(gameMap);
+        Random random = new Random(seed);
+
+        // Reusing the same engine also checks that nothing leaks between searches
+        for (int i = 0; i < numPaths; i++) {
+            SearchState start = openStates.get(random.nextInt(openStates.size()));
+            SearchState goal = openStates.get(random.nextInt(openStates.size()));
+
+            List<SearchState> expected = aStar.findPath(new SearchState(start.getStateId()), new SearchState(goal.getStateId()), null);
+            SearchStats searchStats = new SearchStats();
+            List<SearchState> actual = search.findPath(new SearchState(start.getStateId()), new SearchState(goal.getStateId()), searchStats);
+
+            if (expected == null) {
+                assertNull(actual);
+                continue;
+            }
+
+            assertNotNull(actual);
+            assertEquals(start.getStateId(), actual.getFirst().getStateId());
+            assertEquals(goal.getStateId(), actual.getLast().getStateId());
+            assertTrue(SearchUtil.isContinuousPath(actual, mapSearchProblem));
+            assertEquals(SearchUtil.findPathCost(expected, mapSearchProblem), SearchUtil.findPathCost(actual, mapSearchProblem));
+            assertEquals(actual.size(), searchStats.getPathLength());
+        }
+    }
+
+    /**
+     * Checks that the search finds no path across a column of walls
+     */
+    static void assertNoPathAcrossWallColumn(Function<MapSearchProblem, ? extends SearchAlgorithmWithStats> newSearch) {
+        int[][] states = {{32, 42, 32}, {32, 42, 32}, {32, 42, 32}};
+        SearchAlgorithmWithStats search = newSearch.apply(new MapSearchProblem(new GameMap(states)));
+
+        assertNull(search.findPath(new SearchState(0), new SearchState(2), null));
+    }
+}